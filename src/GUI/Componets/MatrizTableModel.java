@@ -0,0 +1,250 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package GUI.Componets;
+
+import java.util.BitSet;
+import java.util.List;
+import javax.swing.table.AbstractTableModel;
+import theorybuildingse.BitMatrix;
+import theorybuildingse.ImplicationGraph;
+
+/**
+ * Read-only table model over a model matrix.
+ * <p>
+ * Column 0 holds the node labels and column {@code j + 1} the values of node
+ * {@code j}. The cells are read on demand from the source ({@code int[][]},
+ * {@link ImplicationGraph} or {@link BitMatrix}); nothing is copied, so a
+ * 5000 x 5000 model costs no more memory than the source itself.
+ * </p>
+ * <p>
+ * Rows and columns without any edge can be hidden with
+ * {@link #setOcultarVacias(boolean)}; the index maps are only computed when
+ * hiding is first enabled.
+ * </p>
+ */
+public class MatrizTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Cell values of the source.
+     */
+    private interface Fuente {
+
+        int valor(int i, int j);
+
+        /** Rows with at least one edge. */
+        BitSet filasUsadas();
+
+        /** Columns with at least one edge. */
+        BitSet columnasUsadas();
+    }
+
+    private final List<String> nodos;
+    private final Fuente fuente;
+    private boolean ocultarVacias;
+    /** Visible row -> node, or {@code null} when every node is shown. */
+    private int[] filas;
+    /** Visible column -> node, or {@code null} when every node is shown. */
+    private int[] columnas;
+
+    /**
+     * Creates a model over an adjacency matrix.
+     *
+     * @param matriz the matrix ({@code N x N})
+     * @param nodos the node labels ({@code N})
+     */
+    public MatrizTableModel(int[][] matriz, List<String> nodos) {
+        this(nodos, new Fuente() {
+            @Override
+            public int valor(int i, int j) {
+                return matriz[i][j];
+            }
+
+            @Override
+            public BitSet filasUsadas() {
+                BitSet usadas = new BitSet(nodos.size());
+                for (int i = 0; i < nodos.size(); i++) {
+                    for (int j = 0; j < nodos.size(); j++) {
+                        if (matriz[i][j] != 0) {
+                            usadas.set(i);
+                            break;
+                        }
+                    }
+                }
+                return usadas;
+            }
+
+            @Override
+            public BitSet columnasUsadas() {
+                BitSet usadas = new BitSet(nodos.size());
+                for (int i = 0; i < nodos.size(); i++) {
+                    for (int j = 0; j < nodos.size(); j++) {
+                        if (matriz[i][j] != 0) {
+                            usadas.set(j);
+                        }
+                    }
+                }
+                return usadas;
+            }
+        });
+    }
+
+    /**
+     * Creates a model over a stage graph; the cells are the edge weights.
+     *
+     * @param grafo the graph
+     * @param nodos the node labels, one per graph node
+     */
+    public MatrizTableModel(ImplicationGraph grafo, List<String> nodos) {
+        this(nodos, new Fuente() {
+            @Override
+            public int valor(int i, int j) {
+                return grafo.weight(i, j);
+            }
+
+            @Override
+            public BitSet filasUsadas() {
+                BitSet usadas = new BitSet(grafo.size());
+                for (int i = 0; i < grafo.size(); i++) {
+                    if (grafo.outDegree(i) > 0) {
+                        usadas.set(i);
+                    }
+                }
+                return usadas;
+            }
+
+            @Override
+            public BitSet columnasUsadas() {
+                BitSet usadas = new BitSet(grafo.size());
+                for (int j = 0; j < grafo.size(); j++) {
+                    if (grafo.inDegree(j) > 0) {
+                        usadas.set(j);
+                    }
+                }
+                return usadas;
+            }
+        });
+    }
+
+    /**
+     * Creates a model over a bit matrix; the cells are 0 or 1.
+     *
+     * @param bits the bit matrix
+     * @param nodos the node labels, one per matrix row
+     */
+    public MatrizTableModel(BitMatrix bits, List<String> nodos) {
+        this(nodos, new Fuente() {
+            @Override
+            public int valor(int i, int j) {
+                return bits.get(i, j) ? 1 : 0;
+            }
+
+            @Override
+            public BitSet filasUsadas() {
+                BitSet usadas = new BitSet(bits.size());
+                for (int i = 0; i < bits.size(); i++) {
+                    if (!bits.isRowEmpty(i)) {
+                        usadas.set(i);
+                    }
+                }
+                return usadas;
+            }
+
+            @Override
+            public BitSet columnasUsadas() {
+                BitSet usadas = new BitSet(bits.size());
+                for (int i = 0; i < bits.size(); i++) {
+                    for (int j = bits.nextSetBit(i, 0); j >= 0; j = bits.nextSetBit(i, j + 1)) {
+                        usadas.set(j);
+                    }
+                }
+                return usadas;
+            }
+        });
+    }
+
+    private MatrizTableModel(List<String> nodos, Fuente fuente) {
+        this.nodos = nodos;
+        this.fuente = fuente;
+    }
+
+    /**
+     * Shows or hides the rows and columns of the nodes without any edge.
+     *
+     * @param ocultar {@code true} to hide them
+     */
+    public void setOcultarVacias(boolean ocultar) {
+        if (ocultar == ocultarVacias) {
+            return;
+        }
+        ocultarVacias = ocultar;
+        if (ocultar) {
+            filas = indices(fuente.filasUsadas());
+            columnas = indices(fuente.columnasUsadas());
+        } else {
+            filas = null;
+            columnas = null;
+        }
+        fireTableStructureChanged();
+    }
+
+    /**
+     * Indicates whether the empty rows and columns are hidden.
+     *
+     * @return {@code true} if they are hidden
+     */
+    public boolean isOcultarVacias() {
+        return ocultarVacias;
+    }
+
+    private static int[] indices(BitSet usados) {
+        return usados.stream().toArray();
+    }
+
+    /**
+     * Returns the node shown in a table row.
+     *
+     * @param fila table row
+     * @return node index
+     */
+    public int nodoDeFila(int fila) {
+        return filas == null ? fila : filas[fila];
+    }
+
+    /**
+     * Returns the node shown in a table column ({@code >= 1}).
+     *
+     * @param columna table column
+     * @return node index
+     */
+    public int nodoDeColumna(int columna) {
+        return columnas == null ? columna - 1 : columnas[columna - 1];
+    }
+
+    @Override
+    public int getRowCount() {
+        return filas == null ? nodos.size() : filas.length;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return (columnas == null ? nodos.size() : columnas.length) + 1;
+    }
+
+    @Override
+    public String getColumnName(int columna) {
+        return columna == 0 ? "" : nodos.get(nodoDeColumna(columna));
+    }
+
+    @Override
+    public Object getValueAt(int fila, int columna) {
+        int i = nodoDeFila(fila);
+        if (columna == 0) {
+            return nodos.get(i);
+        }
+        return fuente.valor(i, nodoDeColumna(columna));
+    }
+}
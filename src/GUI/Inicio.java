@@ -8,9 +8,13 @@ import GUI.Componets.CheckComboItem;
 import GUI.Componets.CheckComboRenderer;
 import models.*;
 import org.graphstream.ui.view.Viewer;
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
+import theorybuildingse.CancellationToken;
+import theorybuildingse.ImplicationGraph;
+import theorybuildingse.ImplicationPipeline;
+import theorybuildingse.ModelExporter;
+import theorybuildingse.StageMetrics;
+import theorybuildingse.TwoSatChecker;
 import theorybuildingse.dibujaGrafos;
 
 import javax.swing.*;
@@ -22,22 +26,21 @@ import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
-import static GUI.utils.caminoMinimo;
-import static GUI.utils.dividirAristaEnNodos;
-import static theorybuildingse.MatrixToLatex.toLatex;
-
 /**
  * Main Swing frame for SynT, a tool for automating the theory synthesis
  * process.
@@ -152,6 +155,25 @@ public class Inicio extends javax.swing.JFrame {
      */
     DefaultComboBoxModel<CheckComboItem> CombolistModelFunctions = new DefaultComboBoxModel<>();
 
+    /**
+     * Model generation running in the background, or {@code null}.
+     */
+    private SwingWorker<Boolean, String> generacionWorker;
+    /**
+     * Cancellation token of {@link #generacionWorker}.
+     */
+    private CancellationToken generacionCancelacion;
+    /**
+     * Model summary and final implication count shown in {@link #jTextArea1}.
+     */
+    private String infoModelo;
+    private String infoFinales;
+    /**
+     * Model version (see {@link utils#getVersionModelo()}) whose
+     * contradiction warning has already been shown, or {@code -1}.
+     */
+    private int versionAvisoConsistencia = -1;
+
     /**
      * Currently selected index in the Constructs list.
      * <p>
@@ -2526,24 +2548,18 @@ public class Inicio extends javax.swing.JFrame {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Save File");
         FileNameExtensionFilter filter = new FileNameExtensionFilter(
-                "Files with extension (*.sgb)", "sgb");
+                "Files with extension (*.sgb, *.sgb.gz)", "sgb", "gz");
         fileChooser.setFileFilter(filter);
 
         // Show file chooser dialog
         int userSelection = fileChooser.showSaveDialog(this);
 
         if (userSelection == JFileChooser.APPROVE_OPTION) {
-            File fileToSave = fileChooser.getSelectedFile();
-            String fileName = fileToSave.getName();
-            if (!fileName.endsWith(".sgb")) {
-                fileToSave = new File(fileToSave.getAbsolutePath() + ".sgb"); // Add default extension
-            }
-            // Content to save
-            String content = utils.generarJSON(colConstruct, colUniverse, colVariable, colImplication, colFunction);
+            File fileToSave = conExtension(fileChooser.getSelectedFile(), ".sgb"); // Add default extension
 
-            // Guardar el contenido en el archivo
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileToSave))) {
-                writer.write(content);
+            // Guardar el contenido en el archivo (comprimido si termina en .gz)
+            try (Writer writer = ModelExporter.abrirEscritor(fileToSave, Charset.defaultCharset())) {
+                utils.escribirJSON(colConstruct, colUniverse, colVariable, colImplication, colFunction, writer);
                 JOptionPane.showMessageDialog(this, "File saved at: " + fileToSave.getAbsolutePath());
             } catch (IOException ex) {
                 JOptionPane.showMessageDialog(this, "Error saving file: " + ex.getMessage());
@@ -2564,7 +2580,7 @@ public class Inicio extends javax.swing.JFrame {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Select .sgb file to load");
         FileNameExtensionFilter filter = new FileNameExtensionFilter(
-                "Files with extension (*.sgb)", "sgb");
+                "Files with extension (*.sgb, *.sgb.gz)", "sgb", "gz");
         fileChooser.setFileFilter(filter);
 
         int userSelection = fileChooser.showOpenDialog(this);
@@ -2572,7 +2588,7 @@ public class Inicio extends javax.swing.JFrame {
         if (userSelection == JFileChooser.APPROVE_OPTION) {
             File fileToLoad = fileChooser.getSelectedFile();
             String fileName = fileToLoad.getName();
-            if (!fileName.endsWith(".sgb")) {
+            if (!fileName.endsWith(".sgb") && !fileName.endsWith(".sgb.gz")) {
                 JOptionPane.showMessageDialog(this, "Error loading file: the file must have a .sgb extension");
             } else {
                 try {
@@ -2594,88 +2610,17 @@ public class Inicio extends javax.swing.JFrame {
      * @throws IOException if the file cannot be read
      */
     private void cargarStringJSON(File fileToLoad) throws JSONException, IOException {
-        String content = new String(Files.readAllBytes(Paths.get(fileToLoad.getAbsolutePath())));
-        JSONObject json = new JSONObject(content);
-
-        /* //////////////////////// Constructs //////////////////////////// */
-        JSONArray jConstructs = json.getJSONArray("Constructs");
-
-        colConstruct.empty();
-        for (int i = 0; i < jConstructs.length(); i++) {
-            Construct construct = new Construct(jConstructs.getJSONObject(i).getString("Name"), jConstructs.getJSONObject(i).getString("From"), jConstructs.getJSONObject(i).getString("Scope"));
-            colConstruct.add(construct);
-        }
-
-        /* //////////////////////// Functions //////////////////////////// */
-        JSONArray jFunctions = json.getJSONArray("Functions");
-
-        colFunction.empty();
-        for (int i = 0; i < jFunctions.length(); i++) {
-            Function function = new Function(jFunctions.getJSONObject(i).getString("Name"), jFunctions.getJSONObject(i).getInt("Aridad"));
-            colFunction.add(function);
-        }
-
-        /* //////////////////////// Universes //////////////////////////// */
-        JSONArray jUniverses = json.getJSONArray("Universes");
-
-        colUniverse.empty();
-        for (int i = 0; i < jUniverses.length(); i++) {
-
-            JSONArray jUniFunction = jUniverses.getJSONObject(i).getJSONArray("Functions");
-            ArrayList<Function> ALFunctions = new ArrayList<>();
-            for (int j = 0; j < jUniFunction.length(); j++) {
-                ALFunctions.add(new Function(jUniFunction.getJSONObject(j).getString("Name"), jUniFunction.getJSONObject(j).getInt("Aridad")));
-            }
-
-            Universe universe = switch (jUniverses.getJSONObject(i).getString("Type")) {
-                case "Enum (Scalar)", "Enum (Collection)" ->
-                    new Universe(jUniverses.getJSONObject(i).getString("Name"), jUniverses.getJSONObject(i).getString("Type"), jUniverses.getJSONObject(i).getString("ValueEnum"), ALFunctions, jUniverses.getJSONObject(i).getBoolean("Equal"), jUniverses.getJSONObject(i).getBoolean("Greater"), jUniverses.getJSONObject(i).getBoolean("Greater_equal"), jUniverses.getJSONObject(i).getBoolean("Not_equal"), jUniverses.getJSONObject(i).getBoolean("Less"), jUniverses.getJSONObject(i).getBoolean("Less_equal"));
-                case "Real" ->
-                    new Universe(jUniverses.getJSONObject(i).getString("Name"), jUniverses.getJSONObject(i).getString("Type"), jUniverses.getJSONObject(i).getDouble("ValueMin"), jUniverses.getJSONObject(i).getDouble("ValueMax"), ALFunctions, jUniverses.getJSONObject(i).getBoolean("Equal"), jUniverses.getJSONObject(i).getBoolean("Greater"), jUniverses.getJSONObject(i).getBoolean("Greater_equal"), jUniverses.getJSONObject(i).getBoolean("Not_equal"), jUniverses.getJSONObject(i).getBoolean("Less"), jUniverses.getJSONObject(i).getBoolean("Less_equal"));
-                case "Bool" ->
-                    new Universe(jUniverses.getJSONObject(i).getString("Name"), jUniverses.getJSONObject(i).getString("Type"), ALFunctions, jUniverses.getJSONObject(i).getBoolean("Equal"), jUniverses.getJSONObject(i).getBoolean("Greater"), jUniverses.getJSONObject(i).getBoolean("Greater_equal"), jUniverses.getJSONObject(i).getBoolean("Not_equal"), jUniverses.getJSONObject(i).getBoolean("Less"), jUniverses.getJSONObject(i).getBoolean("Less_equal"));
-                default ->
-                    throw new AssertionError();
-            };
-            colUniverse.add(universe);
-        }
-
-        /* ///////////////////////////// Variables ///////////////////////// */
-        JSONArray jVariables = json.getJSONArray("Variables");
-
-        colVariable.empty();
-        for (int i = 0; i < jVariables.length(); i++) {
-            Construct lConstruct = colConstruct.findName(jVariables.getJSONObject(i).getString("ConstructName"));
-            Universe lUniverse = colUniverse.findName(jVariables.getJSONObject(i).getString("UniverseName"));
-            Variable variable = new Variable(jVariables.getJSONObject(i).getString("Name"), jVariables.getJSONObject(i).getString("Nickname"), lConstruct, lUniverse);
-            colVariable.add(variable);
-        }
+        TheoryLoader.cargar(fileToLoad, colConstruct, colFunction, colUniverse, colVariable, colImplication);
 
         /* ////////////////////// Implicaciones //////////////////////////////// */
-        JSONArray jImplications = json.getJSONArray("Implications");
-
         listModelLiterales1.removeAllElements(); // Clear the list
         listModelLiterales2.removeAllElements(); // Clear the list
         listModelImplicacionesNot1.removeAllElements(); // Clear the list
         listModelImplicacionesNot2.removeAllElements(); // Clear the list
         listModelImplicacionesList.removeAllElements(); // Clear the list
 
-        colImplication.empty(); // Clear the list
-
-        for (int i = 0; i < jImplications.length(); i++) {
-
-            Implication implication = new Implication(colVariable.find(jImplications.getJSONObject(i).getString("Variable1"), Variable::getNickname),
-                    jImplications.getJSONObject(i).getString("Relation1"),
-                    jImplications.getJSONObject(i).getString("Value1"),
-                    jImplications.getJSONObject(i).getBoolean("Negated1"),
-                    jImplications.getJSONObject(i).getBoolean("ValueFunction1"),
-                    colVariable.find(jImplications.getJSONObject(i).getString("Variable2"), Variable::getNickname),
-                    jImplications.getJSONObject(i).getString("Relation2"),
-                    jImplications.getJSONObject(i).getString("Value2"),
-                    jImplications.getJSONObject(i).getBoolean("Negated2"),
-                    jImplications.getJSONObject(i).getBoolean("ValueFunction2"));
-
-            colImplication.add(implication);
+        for (int i = 0; i < colImplication.size(); i++) {
+            Implication implication = colImplication.getModelElement().get(i);
 
             listModelImplicacionesList.addElement(implication.toString());
             listModelImplicacionesListCR.addElement(implication.toStringCR());
@@ -2698,23 +2643,23 @@ public class Inicio extends javax.swing.JFrame {
      * @param evt the Swing action event triggered by clicking the button
      */
     private void jButton11ActionPerformed(java.awt.event.ActionEvent evt) {
-        int[][] matriz = getMatrizSeleccionada();
-        if (matriz != null) {
+        ImplicationGraph grafo = getGrafoSeleccionado();
+        if (grafo != null) {
             List<String> nodos = getNodosSeleccionados();
             if (nodos != null) {
 
-                cargarRelacionesGenerarTab(matriz, nodos);
+                cargarRelacionesGenerarTab(grafo, nodos);
 
                 if (jRadioButton1.isSelected()) {
-                    representacionTipoTabla(matriz, nodos);
+                    representacionTipoTabla(grafo, nodos);
                 } else if (jRadioButton2.isSelected()) {
-                    representacionTipoGrafo(matriz, nodos);
+                    representacionTipoGrafo(grafo, nodos);
                 } else if (jRadioButton3.isSelected()) {
-                    representacionTipoLatex(matriz, nodos);
+                    representacionTipoLatex(grafo, nodos);
                 } else if (jRadioButton4.isSelected()) {
-                    representacionTipoExcel(matriz, nodos);
+                    representacionTipoExcel(grafo, nodos);
                 } else if (jRadioButton14.isSelected()) {
-                    representacionTipoTxt(matriz, nodos);
+                    representacionTipoTxt(grafo, nodos);
                 }
             }
         }
@@ -2725,110 +2670,67 @@ public class Inicio extends javax.swing.JFrame {
      * <p>
      * This does not change the currently selected representation (table/graph/etc.).
      * It only refreshes the relationship lists shown on the right side by
-     * re-reading the currently selected matrix and node list.
+     * re-reading the currently selected stage graph and node list.
      * </p>
      *
      * @param evt the Swing action event triggered by clicking the button
      */
     private void jButton12ActionPerformed(java.awt.event.ActionEvent evt) {
-        int[][] matriz = getMatrizSeleccionada();
-        if (matriz != null) {
+        ImplicationGraph grafo = getGrafoSeleccionado();
+        if (grafo != null) {
             List<String> nodos = getNodosSeleccionados();
             if (nodos != null) {
-                cargarRelacionesGenerarTab(matriz, nodos);
+                cargarRelacionesGenerarTab(grafo, nodos);
             }
         }
     }
 
     /**
      * Populates a JList with relationships in the form {@code Node1 --> Node2}
-     * by scanning the implication matrix.
+     * from the adjacency lists of the stage graph, in O(N + E).
      * <p>
-     * Assumes {@code matriz} is {@code N x N} and {@code nodos} has size
+     * Assumes {@code grafo} has {@code N} nodes and {@code nodos} has size
      * {@code N}.
      * </p>
      *
-     * @param matriz implication/counter-implication matrix ({@code N x N})
+     * @param grafo implication/counter-implication stage graph ({@code N}
+     * nodes)
      * @param nodos list of node labels ({@code N})
-     * @throws IllegalArgumentException if the matrix is smaller than
-     * {@code N x N}
+     * @throws IllegalArgumentException if the graph has fewer than {@code N}
+     * nodes
      */
-    public void cargarRelacionesGenerarTab(int[][] matriz, List<String> nodos) {
+    public void cargarRelacionesGenerarTab(ImplicationGraph grafo, List<String> nodos) {
         int n = nodos.size();
 
         listModelGeneration.removeAllElements();
 
         // Minimal validation to avoid index errors
-        if (matriz == null || matriz.length < n || matriz[0].length < n) {
-            //System.err.println("Error: " + matriz.length + "x" + matriz[0].length);
-            //System.err.println("Error: " + nodos);
-            //System.err.println("Error: " + nodos.size());
-            throw new IllegalArgumentException("The matrix must be at least NxN to process the first quadrant.");
+        if (grafo == null || grafo.size() < n) {
+            throw new IllegalArgumentException("The graph must have at least N nodes to process the first quadrant.");
         }
 
-        int pos = 1;
-
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-
-                // Define the "there is a relation" condition here
-                // ( 1 = hay relación, 0 = no hay)
-                if (matriz[i][j] != 0) {
-                    //String rel = "[" + nodos.get(i) + "] --> [" + nodos.get(j) + "]";
-                    String rel = nodos.get(i) + " --> " + nodos.get(j);
-
-                    if (!jRadioButton9.isSelected()) {
-                        rel = pos + "|  " + rel;
-                    }
-
-                    pos++;
-                    listModelGeneration.addElement(rel);
-
-                }
-            }
-        }
+        List<String> implicaciones = Collections.list(listModelImplicacionesList.elements());
 
         if (jRadioButton9.isSelected()) {
-            DefaultListModel<String> total = listModelImplicacionesList;//defaultListModelSum(listModelImplicacionesList, listModelImplicacionesListCR);
             jList8.setEnabled(true);
             listModelGenerationCR.removeAllElements();
-            listModelGenerationCR = defaultListModelDiff(total, listModelGeneration);
-            //System.out.println("SIZEEE: : :  " + listModelGenerationCR.size());
+            listModelGenerationCR = new DefaultListModel<>();
+            listModelGenerationCR.addAll(ModelExporter.generarImplicacionesEliminadas(grafo, nodos, implicaciones));
             jList8.setModel(listModelGenerationCR);
         } else {
             listModelGenerationCR.removeAllElements();
             jList8.setEnabled(false);
         }
 
-
-        pos = 1;
-        listModelGeneration.removeAllElements();
+        List<String> relaciones = ModelExporter.generarRelaciones(grafo, nodos, implicaciones);
+        listModelGeneration.addAll(relaciones);
         int imp = 0;
         int new_imp = 0;
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                // Define the "there is a relation" condition here
-                // ( 1 = hay relación, 0 = no hay)
-                if (matriz[i][j] != 0) {
-                    //String rel = "[" + nodos.get(i) + "] --> [" + nodos.get(j) + "]";
-
-                    String rel_i = nodos.get(i) + " --> " + nodos.get(j);
-                    String rel = pos + "|  " + rel_i;
-
-                    if (listModelImplicacionesList.contains(rel_i)) {
-                        pos++;
-                        listModelGeneration.addElement(rel);
-                        imp ++;
-                    } else {
-                        String rel_ii = negarVariable(nodos.get(j)) + " --> " + negarVariable(nodos.get(i));
-                        if (!listModelImplicacionesList.contains(rel_ii)) {
-                            pos++;
-                            listModelGeneration.addElement(rel + " *");
-                            new_imp ++;
-                        }
-                    }
-
-                }
+        for (String relacion : relaciones) {
+            if (relacion.endsWith(" *")) {
+                new_imp++;
+            } else {
+                imp++;
             }
         }
         if (jRadioButton9.isSelected()) {
@@ -2840,53 +2742,6 @@ public class Inicio extends javax.swing.JFrame {
         }
     }
 
-    /**
-     * Returns the logical negation of a node label.
-     * <p>
-     * Node labels represent literals as strings and use the prefix {@code "¬ "}
-     * (note the trailing space). If the prefix is present, it is removed;
-     * otherwise, it is added.
-     * </p>
-     *
-     * @param variable node label (e.g. {@code "[Tw = True]"} or {@code "¬ [Tw = True]"})
-     * @return the negated label
-     */
-    private String negarVariable(String variable) {
-        if (variable.contains("¬ ")) {
-            return variable.substring(2);
-        } else {
-            return "¬ " + variable;
-        }
-    }
-
-    /**
-     * Computes the set difference {@code a \ b} for two list models.
-     * <p>
-     * The resulting list keeps the iteration order from {@code a} and numbers
-     * each entry using the format {@code "pos|  element"}.
-     * </p>
-     *
-     * @param a base list model
-     * @param b elements to exclude from {@code a}
-     * @return a new list model containing all elements from {@code a} not present in {@code b}
-     */
-    private DefaultListModel<String> defaultListModelDiff(
-            DefaultListModel<String> a,
-            DefaultListModel<String> b) {
-
-        DefaultListModel<String> resultado = new DefaultListModel<>();
-        int pos = 1;
-        for (int i = 0; i < a.size(); i++) {
-            String elemento = a.get(i);
-
-            if (!defaultListModelContain(b, elemento)) {
-                resultado.addElement(pos + "|  " + elemento);
-                pos++;
-            }
-        }
-        return resultado;
-    }
-
     /**
      * Reacts to changing the selected tab in the main tabbed pane.
      * <p>
@@ -3931,33 +3786,40 @@ public class Inicio extends javax.swing.JFrame {
         listModelGeneration.clear();
         listModelGenerationCR.clear();
         utils.emptyMatriz();
-        getInfoModelo();
+        jButton11.setEnabled(false);
+        jButton12.setEnabled(false);
+        generarModelo(() -> {
+            List<ImplicationGraph> grafos = getInfoModelo();
+            jButton11.setEnabled(grafos != null && !grafos.isEmpty());
+            jButton12.setEnabled(true);
+        });
     }//GEN-LAST:event_jComboBox9ActionPerformed
 
     /**
-     * Opens a new window showing the selected model matrix as a table.
+     * Opens a new window showing the selected model stage as a table. The
+     * table reads the cells from the graph, without building the matrix.
      *
-     * @param matriz the adjacency or implication matrix of the selected model
-     * @param nodos the list of node labels corresponding to the matrix indices
+     * @param grafo the stage graph of the selected model
+     * @param nodos the list of node labels corresponding to the graph nodes
      */
-    private void representacionTipoTabla(int[][] matriz, List<String> nodos) {
-        VentanaTabla ventanaTabla = new VentanaTabla(matriz, nodos);
+    private void representacionTipoTabla(ImplicationGraph grafo, List<String> nodos) {
+        VentanaTabla ventanaTabla = new VentanaTabla(grafo, nodos);
     }
 
     /**
      * Appends a LaTeX representation of the selected model matrix to the
      * information text area.
      *
-     * @param matriz the adjacency or implication matrix of the selected model
-     * @param nodos the list of node labels corresponding to the matrix indices
+     * @param grafo the stage graph of the selected model
+     * @param nodos the list of node labels corresponding to the graph nodes
      */
-    private void representacionTipoLatex(int[][] matriz, List<String> nodos) {
+    private void representacionTipoLatex(ImplicationGraph grafo, List<String> nodos) {
         String msg = "";//jTextArea1.getText();
         //msg += "\n\n-----------------------------------";
         //msg += "\nMODEL MATRIX IN LATEX FORMAT";
         //msg += "\n------------------------------------";
         //msg += "\n\n";
-        msg += toLatex(matriz);
+        msg += ModelExporter.aTexto(out -> ModelExporter.escribirLatex(grafo, out));
         //jTextArea1.setText(msg);
         VentanaLatex ventanaLatex = new VentanaLatex(msg);
     }
@@ -3965,40 +3827,91 @@ public class Inicio extends javax.swing.JFrame {
     /**
      * Opens a new window showing the selected model as a graph.
      *
-     * @param matriz the adjacency or implication matrix of the selected model
-     * @param nodos the list of node labels corresponding to the matrix indices
+     * @param grafo the stage graph of the selected model
+     * @param nodos the list of node labels corresponding to the graph nodes
      */
-    private void representacionTipoGrafo(int[][] matriz, List<String> nodos) {
+    private void representacionTipoGrafo(ImplicationGraph grafo, List<String> nodos) {
         dibujaGrafos DG = new dibujaGrafos();
-        Viewer viewer = DG.dibujarView(matriz, nodos);
-        VentanaGrafo ventanaGrafo = new VentanaGrafo(viewer);
+        // Se dibuja desde las listas de adyacencia de la etapa, sin recorrer la matriz
+        Viewer viewer = DG.dibujarView(grafo, nodos);
+        List<String> constructos = new ArrayList<>();
+        DG.setConstructos(getConstructosNodos(nodos, constructos), constructos);
+        VentanaGrafo ventanaGrafo = new VentanaGrafo(viewer, DG);
+    }
+
+    /**
+     * Returns the construct of the variable of every node label
+     * ({@code "[Nick op value]"}, optionally negated; for a reduced cycle the
+     * first literal is used).
+     *
+     * @param nodos the node labels
+     * @param nombres receives the names of the constructs found
+     * @return the index in {@code nombres} of each node's construct, or
+     *         {@code -1} when the variable has no construct
+     */
+    private int[] getConstructosNodos(List<String> nodos, List<String> nombres) {
+        Map<String, Integer> indices = new HashMap<>();
+        // Nickname -> variable una sola vez (como find: ante repetidos gana la primera)
+        DefaultListModel<Variable> variables = colVariable.getModelElement();
+        Map<String, Variable> porNickname = new HashMap<>(variables.size() * 2);
+        for (int i = 0; i < variables.size(); i++) {
+            porNickname.putIfAbsent(variables.get(i).getNickname(), variables.get(i));
+        }
+        int[] constructo = new int[nodos.size()];
+        for (int i = 0; i < nodos.size(); i++) {
+            constructo[i] = -1;
+            String etiqueta = nodos.get(i);
+            int inicio = etiqueta.indexOf('[');
+            int fin = etiqueta.indexOf(' ', inicio + 1);
+            if (inicio < 0 || fin < 0) {
+                continue;
+            }
+            Variable variable = porNickname.get(etiqueta.substring(inicio + 1, fin));
+            if (variable != null && variable.getConstruct() != null) {
+                String nombre = variable.getConstruct().getName();
+                constructo[i] = indices.computeIfAbsent(nombre, n -> {
+                    nombres.add(n);
+                    return nombres.size() - 1;
+                });
+            }
+        }
+        return constructo;
     }
 
     /**
      * Exports the selected model matrix as a CSV file.
+     * <p>
+     * The file type of the dialog selects the dense matrix or the sparse
+     * {@link theorybuildingse.EdgeListCsv} edge list, whose size follows the
+     * number of edges.
+     * </p>
      *
-     * @param matriz the adjacency or implication matrix of the selected model
-     * @param nodos the list of node labels corresponding to the matrix indices
+     * @param grafo the stage graph of the selected model
+     * @param nodos the list of node labels corresponding to the graph nodes
      */
-    private void representacionTipoExcel(int[][] matriz, List<String> nodos) {
+    private void representacionTipoExcel(ImplicationGraph grafo, List<String> nodos) {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Save CSV File");
         FileNameExtensionFilter filter = new FileNameExtensionFilter(
-                "Files with extension (*.csv)", "csv");
+                "Files with extension (*.csv, *.csv.gz)", "csv", "gz");
+        FileNameExtensionFilter filtroAristas = new FileNameExtensionFilter(
+                "Edge list, one row per edge (*.csv, *.csv.gz)", "csv", "gz");
+        fileChooser.addChoosableFileFilter(filter);
+        fileChooser.addChoosableFileFilter(filtroAristas);
         fileChooser.setFileFilter(filter);
 
         int userSelection = fileChooser.showSaveDialog(this);
 
         if (userSelection == JFileChooser.APPROVE_OPTION) {
-            File fileToSave = fileChooser.getSelectedFile();
-            String fileName = fileToSave.getName();
-            if (!fileName.endsWith(".csv")) {
-                fileToSave = new File(fileToSave.getAbsolutePath() + ".csv");
-            }
-            String content = utils.generarTablaCSV(matriz, nodos);
+            File fileToSave = conExtension(fileChooser.getSelectedFile(), ".csv");
+            boolean disperso = fileChooser.getFileFilter() == filtroAristas;
 
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileToSave))) {
-                writer.write(content);
+            try (Writer writer = ModelExporter.abrirEscritor(fileToSave, Charset.defaultCharset())) {
+                if (disperso) {
+                    utils.escribirAristasCSV(getEtapaSeleccionada(), writer);
+                } else {
+                    ModelExporter.escribirTablaCSV(grafo, nodos, writer);
+                }
                 JOptionPane.showMessageDialog(this, "File saved at: " + fileToSave.getAbsolutePath());
             } catch (IOException ex) {
                 JOptionPane.showMessageDialog(this, "Error saving file: " + ex.getMessage());
@@ -4010,46 +3923,21 @@ public class Inicio extends javax.swing.JFrame {
      * Exports the selected model matrix as a List TXT file of Implications.
      *
      */
-    private void representacionTipoTxt(int[][] matriz, List<String> nodos) {
+    private void representacionTipoTxt(ImplicationGraph grafo, List<String> nodos) {
         JFileChooser fileChooser = new JFileChooser();
         fileChooser.setDialogTitle("Save TXT File");
         FileNameExtensionFilter filter = new FileNameExtensionFilter(
-                "Files with extension (*.txt)", "txt");
+                "Files with extension (*.txt, *.txt.gz)", "txt", "gz");
         fileChooser.setFileFilter(filter);
 
         int userSelection = fileChooser.showSaveDialog(this);
 
         if (userSelection == JFileChooser.APPROVE_OPTION) {
-            File fileToSave = fileChooser.getSelectedFile();
-            String fileName = fileToSave.getName();
-            if (!fileName.endsWith(".txt")) {
-                fileToSave = new File(fileToSave.getAbsolutePath() + ".txt");
-            }
-            String content = "--- Implications ---\n\n";
-
-            for (Object element : listModelGeneration.toArray()) {
-                content += element.toString() + "\n";
-            }
-
-            if (jRadioButton9.isSelected()) {
-                content += "\n\n--- Delete implications ---\n\n";
+            File fileToSave = conExtension(fileChooser.getSelectedFile(), ".txt");
+            List<String> eliminadas = jRadioButton9.isSelected() ? Collections.list(listModelGenerationCR.elements()) : null;
 
-                for (Object element : listModelGenerationCR.toArray()) {
-                    String[] nodosArista = dividirAristaEnNodos(element.toString());
-                    String camino = caminoMinimo(matriz, nodos, nodosArista[0], nodosArista[1]);
-                    //System.out.println(nodosArista[0] + " - " + nodosArista[1]);
-                    content += element.toString();
-                    if (camino != null && !camino.isEmpty()) {
-                        content += "  ===> (" + camino + ")\n";
-                    } else {
-                        content += " (Error:: Sin camino)\n";
-                    }
-
-                }
-            }
-
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(fileToSave))) {
-                writer.write(content);
+            try (Writer writer = ModelExporter.abrirEscritor(fileToSave, Charset.defaultCharset())) {
+                ModelExporter.escribirTxt(Collections.list(listModelGeneration.elements()), eliminadas, grafo, nodos, writer);
                 JOptionPane.showMessageDialog(this, "File saved at: " + fileToSave.getAbsolutePath());
             } catch (IOException ex) {
                 JOptionPane.showMessageDialog(this, "Error saving file: " + ex.getMessage());
@@ -4058,20 +3946,42 @@ public class Inicio extends javax.swing.JFrame {
     }
 
     /**
-     * Returns the matrix corresponding to the model stage selected by the radio
-     * buttons on the Generation tab.
+     * Adds the default extension to a file chosen in a save dialog. A name
+     * ending in {@code .gz} keeps the compression: {@code x.gz} becomes
+     * {@code x.csv.gz}, not {@code x.gz.csv}.
+     *
+     * @param fichero the selected file
+     * @param extension the default extension, e.g. {@code ".csv"}
+     * @return the file to write
+     */
+    private static File conExtension(File fichero, String extension) {
+        String nombre = fichero.getName();
+        if (nombre.endsWith(extension) || nombre.endsWith(extension + ".gz")) {
+            return fichero;
+        }
+        if (nombre.endsWith(".gz")) {
+            String ruta = fichero.getAbsolutePath();
+            return new File(ruta.substring(0, ruta.length() - 3) + extension + ".gz");
+        }
+        return new File(fichero.getAbsolutePath() + extension);
+    }
+
+    /**
+     * Returns the graph of the model stage selected by the radio buttons on
+     * the Generation tab.
      * <p>
-     * If the required matrix is not available or the selection is inconsistent
+     * If the required stage is not available or the selection is inconsistent
      * with the presence of cycles, a descriptive dialog is shown and
      * {@code null} is returned.
      * </p>
      *
-     * @return the selected matrix, or {@code null} if it cannot be obtained
+     * @return the selected stage graph, or {@code null} if it cannot be
+     * obtained
      */
-    private int[][] getMatrizSeleccionada() {
+    private ImplicationGraph getGrafoSeleccionado() {
         if (jRadioButton5.isSelected()) {
-            if (!utils.getListMatrices().isEmpty()) {
-                return utils.getListMatrices().get(0);
+            if (!utils.getListGrafos().isEmpty()) {
+                return utils.getListGrafos().get(0);
             } else {
                 JOptionPane.showMessageDialog(this, "Model generation error: the selected matrix (0) was not generated.");
                 return null;
@@ -4080,23 +3990,23 @@ public class Inicio extends javax.swing.JFrame {
             if (!utils.tieneCiclos()) {
                 JOptionPane.showMessageDialog(this, "Invalid model selection: the model has no cycles.");
                 return null;
-            } else if (utils.getListMatrices().size() > 1) {
-                return utils.getListMatrices().get(1);
+            } else if (utils.getListGrafos().size() > 1) {
+                return utils.getListGrafos().get(1);
             } else {
                 JOptionPane.showMessageDialog(this, "Model generation error: the selected matrix (1) was not generated.");
                 return null;
             }
         } else if (jRadioButton7.isSelected()) {
             if (!utils.tieneCiclos()) {
-                if (utils.getListMatrices().size() > 1) {
-                    return utils.getListMatrices().get(1);
+                if (utils.getListGrafos().size() > 1) {
+                    return utils.getListGrafos().get(1);
                 } else {
                     JOptionPane.showMessageDialog(this, "Model generation error: the selected matrix (1) was not generated.");
                     return null;
                 }
             } else {
-                if (utils.getListMatrices().size() > 2) {
-                    return utils.getListMatrices().get(2);
+                if (utils.getListGrafos().size() > 2) {
+                    return utils.getListGrafos().get(2);
                 } else {
                     JOptionPane.showMessageDialog(this, "Model generation error: the selected matrix (2) was not generated.");
                     return null;
@@ -4104,15 +4014,15 @@ public class Inicio extends javax.swing.JFrame {
             }
         } else if (jRadioButton8.isSelected()) {
             if (!utils.tieneCiclos()) {
-                if (utils.getListMatrices().size() > 2) {
-                    return utils.getListMatrices().get(2);
+                if (utils.getListGrafos().size() > 2) {
+                    return utils.getListGrafos().get(2);
                 } else {
                     JOptionPane.showMessageDialog(this, "Model generation error: the selected matrix (3) was not generated.");
                     return null;
                 }
             } else {
-                if (utils.getListMatrices().size() > 3) {
-                    return utils.getListMatrices().get(3);
+                if (utils.getListGrafos().size() > 3) {
+                    return utils.getListGrafos().get(3);
                 } else {
                     JOptionPane.showMessageDialog(this, "Model generation error: the selected matrix (3) was not generated.");
                     return null;
@@ -4122,8 +4032,8 @@ public class Inicio extends javax.swing.JFrame {
             if (!utils.tieneCiclos()) {
                 JOptionPane.showMessageDialog(this, "Invalid model selection: the model has no cycles.");
                 return null;
-            } else if (utils.getListMatrices().size() > 4) {
-                return utils.getListMatrices().get(4);
+            } else if (utils.getListGrafos().size() > 4) {
+                return utils.getListGrafos().get(4);
             } else {
                 JOptionPane.showMessageDialog(this, "Model generation error: the selected matrix (4) was not generated.");
                 return null;
@@ -4131,6 +4041,26 @@ public class Inicio extends javax.swing.JFrame {
         }
     }
 
+    /**
+     * Returns the index, in {@link utils#getListGrafos()}, of the model stage
+     * selected by the radio buttons on the Generation tab. The selection must
+     * already have been validated by {@link #getGrafoSeleccionado()}.
+     *
+     * @return the selected stage index
+     */
+    private int getEtapaSeleccionada() {
+        if (jRadioButton5.isSelected()) {
+            return 0;
+        } else if (jRadioButton6.isSelected()) {
+            return 1;
+        } else if (jRadioButton7.isSelected()) {
+            return utils.tieneCiclos() ? 2 : 1;
+        } else if (jRadioButton8.isSelected()) {
+            return utils.tieneCiclos() ? 3 : 2;
+        }
+        return 4;
+    }
+
     /**
      * Returns the list of node labels for the selected model stage.
      * <p>
@@ -4249,45 +4179,153 @@ public class Inicio extends javax.swing.JFrame {
      * cycles.
      */
     private void eventoTabGeneracion() {
-        List<int[][]> matrices = getInfoModelo();
-        if (matrices != null && !matrices.isEmpty()) {
-            jRadioButton1.setSelected(true);
-            jRadioButton5.setSelected(true);
-            jButton11.setEnabled(true);
-            jRadioButton1.setEnabled(true);
-            jRadioButton2.setEnabled(true);
-            jRadioButton3.setEnabled(true);
-            jRadioButton4.setEnabled(true);
-            //_______________________________
-            jRadioButton5.setEnabled(true);
-            jRadioButton7.setEnabled(true);
-            jRadioButton8.setEnabled(true);
-            if (utils.tieneCiclos()) {
-                jRadioButton6.setEnabled(true);
-                jRadioButton9.setEnabled(true);
-                jLabel7.setVisible(true);
-                jComboBox9.setVisible(true);
-            } else {
-                jRadioButton6.setEnabled(false);
-                jRadioButton9.setEnabled(false);
-                jLabel7.setVisible(false);
-                jComboBox9.setVisible(false);
+        deshabilitarTabGeneracion();
+        generarModelo(() -> {
+            List<ImplicationGraph> grafos = getInfoModelo();
+            if (grafos != null && !grafos.isEmpty()) {
+                jRadioButton1.setSelected(true);
+                jRadioButton5.setSelected(true);
+                jButton11.setEnabled(true);
+                jButton12.setEnabled(true);
+                jRadioButton1.setEnabled(true);
+                jRadioButton2.setEnabled(true);
+                jRadioButton3.setEnabled(true);
+                jRadioButton4.setEnabled(true);
+                //_______________________________
+                jRadioButton5.setEnabled(true);
+                jRadioButton7.setEnabled(true);
+                jRadioButton8.setEnabled(true);
+                if (utils.tieneCiclos()) {
+                    jRadioButton6.setEnabled(true);
+                    jRadioButton9.setEnabled(true);
+                    jLabel7.setVisible(true);
+                    jComboBox9.setVisible(true);
+                } else {
+                    jRadioButton6.setEnabled(false);
+                    jRadioButton9.setEnabled(false);
+                    jLabel7.setVisible(false);
+                    jComboBox9.setVisible(false);
+                }
             }
-        } else {
-            jButton11.setEnabled(false);
-            jRadioButton1.setEnabled(false);
-            jRadioButton2.setEnabled(false);
-            jRadioButton3.setEnabled(false);
-            jRadioButton4.setEnabled(false);
-            //_______________________________
-            jRadioButton5.setEnabled(false);
-            jRadioButton6.setEnabled(false);
-            jRadioButton7.setEnabled(false);
-            jRadioButton8.setEnabled(false);
-            jRadioButton9.setEnabled(false);
-            jLabel7.setVisible(false);
-            jComboBox9.setVisible(false);
+        });
+    }
+
+    /**
+     * Disables the Generation tab controls that need a generated model.
+     */
+    private void deshabilitarTabGeneracion() {
+        jButton11.setEnabled(false);
+        jButton12.setEnabled(false);
+        jRadioButton1.setEnabled(false);
+        jRadioButton2.setEnabled(false);
+        jRadioButton3.setEnabled(false);
+        jRadioButton4.setEnabled(false);
+        //_______________________________
+        jRadioButton5.setEnabled(false);
+        jRadioButton6.setEnabled(false);
+        jRadioButton7.setEnabled(false);
+        jRadioButton8.setEnabled(false);
+        jRadioButton9.setEnabled(false);
+        jLabel7.setVisible(false);
+        jComboBox9.setVisible(false);
+    }
+
+    /**
+     * Generates the current model in the background and runs
+     * {@code alTerminar} on the Event Dispatch Thread when it is available.
+     * <p>
+     * The stages are computed by a {@link SwingWorker}, so the window stays
+     * responsive. A {@link ProgressMonitor} shows the running step (cycles,
+     * closure, reduction, restore) and its Cancel button stops the closure or
+     * reduction through a {@link CancellationToken}. If the model is already
+     * generated {@code alTerminar} runs immediately. A result is discarded if
+     * the model changed (see {@link utils#getVersionModelo()}) while it was
+     * being computed, or if the user cancelled it.
+     * </p>
+     *
+     * @param alTerminar action that reads the generated model
+     */
+    private void generarModelo(Runnable alTerminar) {
+        if (utils.getListGrafos() != null) {
+            alTerminar.run();
+            return;
         }
+        if (generacionWorker != null) {
+            generacionCancelacion.cancel();
+        }
+        final int version = utils.getVersionModelo();
+        final ImplicationPipeline pipeline = utils.crearPipeline(listModelLiterales1, listModelLiterales2,
+                listModelImplicacionesNot1, listModelImplicacionesNot2,
+                jComboBox9.getSelectedIndex());
+        final CancellationToken cancelacion = new CancellationToken();
+        final ProgressMonitor monitor = new ProgressMonitor(this, "Generating the model", "", 0, 100);
+        monitor.setMillisToDecideToPopup(300);
+        monitor.setMillisToPopup(300);
+        // El monitor solo informa de la cancelación si se le consulta
+        final Timer vigilante = new Timer(200, e -> {
+            if (monitor.isCanceled()) {
+                cancelacion.cancel();
+            }
+        });
+
+        SwingWorker<Boolean, String> worker = new SwingWorker<Boolean, String>() {
+            @Override
+            protected Boolean doInBackground() {
+                boolean generado = pipeline.ejecutar(cancelacion, (paso, completados, total) -> {
+                    publish(paso);
+                    setProgress(100 * completados / total);
+                });
+                if (generado) {
+                    // Las vistas leen cualquier etapa desde el EDT: el cierre diferido se construye aquí
+                    pipeline.materializar();
+                    // La comprobación 2-SAT (Tarjan sobre el grafo inicial) también fuera del EDT
+                    pipeline.getConsistencia();
+                }
+                return generado;
+            }
+
+            @Override
+            protected void process(List<String> pasos) {
+                monitor.setNote(pasos.get(pasos.size() - 1) + "...");
+            }
+
+            @Override
+            protected void done() {
+                vigilante.stop();
+                monitor.close();
+                if (generacionWorker == this) {
+                    generacionWorker = null;
+                    generacionCancelacion = null;
+                }
+                if (version != utils.getVersionModelo()) {
+                    return; // el modelo ha cambiado mientras se generaba
+                }
+                boolean generado;
+                try {
+                    generado = get();
+                } catch (InterruptedException | ExecutionException | CancellationException ex) {
+                    if (!cancelacion.isCancelled()) {
+                        Throwable causa = ex.getCause() != null ? ex.getCause() : ex;
+                        JOptionPane.showMessageDialog(Inicio.this, "An error occurred while generating the model: " + causa.getMessage(),
+                                "Model generation error", JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        jTextArea1.setText("Model generation cancelled.");
+                    }
+                    return;
+                }
+                utils.publicarPipeline(pipeline, generado);
+                alTerminar.run();
+            }
+        };
+        worker.addPropertyChangeListener(evt -> {
+            if ("progress".equals(evt.getPropertyName())) {
+                monitor.setProgress((Integer) evt.getNewValue());
+            }
+        });
+        generacionWorker = worker;
+        generacionCancelacion = cancelacion;
+        vigilante.start();
+        worker.execute();
     }
 
     /**
@@ -4295,21 +4333,39 @@ public class Inicio extends javax.swing.JFrame {
      * transformation matrices.
      * <p>
      * The method fills the information text area with summary statistics and
-     * returns the list of generated matrices. If an error occurs, an
+     * returns the list of generated stage graphs. If an error occurs, an
      * informative dialog is shown and the list may be {@code null} or empty.
      * </p>
      *
-     * @return the list of generated matrices, or {@code null}/empty if
+     * @return the list of generated graphs, or {@code null}/empty if
      * generation fails
      */
-    private List<int[][]> getInfoModelo() {
+    private List<ImplicationGraph> getInfoModelo() {
         String msg;
-        List<int[][]> matrices = utils.generarMatrices(listModelLiterales1, listModelLiterales2,
+        List<ImplicationGraph> grafos = utils.generarGrafos(listModelLiterales1, listModelLiterales2,
                 listModelImplicacionesNot1, listModelImplicacionesNot2,
                 jComboBox9.getSelectedIndex());
-        if (matrices != null && !matrices.isEmpty()) {
-
-            printInfoModelo(matrices);
+        if (grafos != null && !grafos.isEmpty()) {
+
+            printInfoModelo(grafos);
+
+            TwoSatChecker.Resultado consistencia = utils.getConsistencia();
+            // El aviso se muestra una sola vez por modelo generado
+            if (consistencia != null && !consistencia.satisfacible()
+                    && versionAvisoConsistencia != utils.getVersionModelo()) {
+                versionAvisoConsistencia = utils.getVersionModelo();
+                StringBuilder msg1 = new StringBuilder("The theory is contradictory: these literals imply their negation and are implied by it.");
+                int mostrados = Math.min(10, consistencia.conflictos().size());
+                for (int i = 0; i < mostrados; i++) {
+                    TwoSatChecker.Conflicto conflicto = consistencia.conflictos().get(i);
+                    msg1.append("\n  ").append(conflicto.literal()).append(" <--> ").append(conflicto.negacion());
+                }
+                if (mostrados < consistencia.conflictos().size()) {
+                    msg1.append("\n  ... and ").append(consistencia.conflictos().size() - mostrados).append(" more");
+                }
+                msg1.append("\n\nThe canonical set of a contradictory theory is not meaningful.");
+                JOptionPane.showMessageDialog(this, msg1.toString(), "Contradictory theory", JOptionPane.WARNING_MESSAGE);
+            }
 
             String error = utils.getError();
             if (error != null) {
@@ -4321,28 +4377,35 @@ public class Inicio extends javax.swing.JFrame {
             msg = "The model does not have enough content to be evaluated";
             JOptionPane.showMessageDialog(this, msg, "Model generation error", JOptionPane.ERROR_MESSAGE);
         }
-        return matrices;
+        return grafos;
     }
 
     /**
      * Writes a small model summary into {@link #jTextArea1}.
      * <p>
      * The summary includes whether cycles exist, the number of variables,
-     * literals and initial implications.
+     * literals and initial implications, followed by the metrics of every
+     * pipeline stage.
      * </p>
      *
-     * @param matrices list of generated model matrices; the first matrix
-     *                 ({@code matrices.get(0)}) is used to count the initial
-     *                 implications
+     * @param grafos list of generated model graphs; the first graph
+     *               ({@code grafos.get(0)}) is used to count the initial
+     *               implications
      */
-    private void printInfoModelo(List<int[][]> matrices) {
+    private void printInfoModelo(List<ImplicationGraph> grafos) {
         String msg;
         msg = "The model contains cycles: " + (utils.tieneCiclos() ? "YES" : "NO");
         msg += "\nNumber of variables: " + colVariable.size();
         msg += "\nNumber of literals: " + utils.getNodos().size();
-        msg += "\nNumber of initial implications: " + (utils.getNumeroAristas(matrices.get(0)) / 2);
-        //msg += "\nNumber of final implications: " + utils.getNumeroAristas(matrices.get(matrices.size() - 1));
-        jTextArea1.setText(msg);
+        msg += "\nNumber of initial implications: " + (grafos.get(0).edgeCount() / 2);
+        TwoSatChecker.Resultado consistencia = utils.getConsistencia();
+        if (consistencia != null) {
+            msg += "\nThe theory is consistent: " + (consistencia.satisfacible() ? "YES"
+                    : "NO (" + consistencia.conflictos().size() + " literals equivalent to their negation)");
+        }
+        infoModelo = msg;
+        infoFinales = null;
+        renderInfoModelo();
     }
 
     /**
@@ -4352,17 +4415,31 @@ public class Inicio extends javax.swing.JFrame {
      * @param val value to show for the final implication count
      */
     private void updateInfoModelo(String val) {
-        String msg = jTextArea1.getText();
-        String new_msg = "\nNumber of final implications: ";
-
-        if (!msg.contains(new_msg)) {
-            msg += "\nNumber of final implications: " + val;
-        }else{
-            msg = msg.substring(0, msg.lastIndexOf(':')) + ": " + val;
+        if (infoModelo == null) {
+            infoModelo = jTextArea1.getText();
         }
-        jTextArea1.setText(msg);
+        infoFinales = val;
+        renderInfoModelo();
     }
 
+    /**
+     * Rebuilds {@link #jTextArea1} from the summary, the final implication
+     * count and the stage metrics of the current model.
+     */
+    private void renderInfoModelo() {
+        StringBuilder msg = new StringBuilder(infoModelo);
+        if (infoFinales != null) {
+            msg.append("\nNumber of final implications: ").append(infoFinales);
+        }
+        List<StageMetrics> metricas = utils.getMetricas();
+        if (metricas != null && !metricas.isEmpty()) {
+            msg.append("\n\n--- Stage metrics ---");
+            for (StageMetrics metrica : metricas) {
+                msg.append("\n").append(metrica);
+            }
+        }
+        jTextArea1.setText(msg.toString());
+    }
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.ButtonGroup buttonGroup1;
@@ -5,16 +5,25 @@
 package GUI;
 
 import java.awt.Component;
-import java.util.HashMap;
-import java.util.LinkedList;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.Queue;
 import javax.swing.JFrame;
-import org.graphstream.graph.Edge;
+import javax.swing.JMenuItem;
+import javax.swing.JPopupMenu;
+import javax.swing.SwingUtilities;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 import org.graphstream.ui.layout.springbox.implementations.LinLog;
+import org.graphstream.ui.graphicGraph.GraphicElement;
+import org.graphstream.ui.view.View;
 import org.graphstream.ui.view.Viewer;
+import org.graphstream.ui.view.util.InteractiveElement;
+import theorybuildingse.GraphLayout;
+import theorybuildingse.dibujaGrafos;
 
 /**
  * Swing window used to display a GraphStream graph with different layout
@@ -27,6 +36,12 @@ public class VentanaGrafo extends javax.swing.JFrame {
      */
     private final Viewer viewer;
 
+    /**
+     * Drawing that owns the graph, used to expand and collapse super-nodes,
+     * or {@code null} when the window only shows a viewer.
+     */
+    private final dibujaGrafos dibujo;
+
     /**
      * Creates the graph window and attaches the given {@link Viewer} to the
      * scroll pane.
@@ -35,16 +50,102 @@ public class VentanaGrafo extends javax.swing.JFrame {
      *               embedded in this frame
      */
     public VentanaGrafo(Viewer viewer) {
+        this(viewer, null);
+    }
+
+    /**
+     * Creates the graph window for a drawing. Double-clicking a super-node
+     * expands it and double-clicking one of its members collapses it again;
+     * the right-click menu collapses the cycles or the constructs. In
+     * large-graph mode the nodes keep their precomputed coordinates and the
+     * automatic layout is not started.
+     *
+     * @param viewer the GraphStream {@link Viewer} of the drawing
+     * @param dibujo the drawing, or {@code null}
+     */
+    public VentanaGrafo(Viewer viewer, dibujaGrafos dibujo) {
         this.viewer = viewer;
+        this.dibujo = dibujo;
         initComponents();
-        jScrollPane1.setViewportView((Component) viewer.getDefaultView());
+        View vista = viewer.getDefaultView();
+        jScrollPane1.setViewportView((Component) vista);
+        configurarInteraccion(vista);
         setExtendedState(JFrame.MAXIMIZED_BOTH);
         this.setVisible(true);
-        // Enable the default automatic layout when the window is created
-        viewer.enableAutoLayout();
+        if (dibujo == null || !dibujo.isModoGrande()) {
+            // Enable the default automatic layout when the window is created
+            viewer.enableAutoLayout();
+        }
         // viewer.getGraphicGraph().display();
     }
 
+    /**
+     * Adds mouse wheel zoom and, when there is a drawing, the double-click
+     * and popup actions on super-nodes.
+     */
+    private void configurarInteraccion(View vista) {
+        Component componente = (Component) vista;
+        componente.addMouseWheelListener(e -> {
+            double zoom = vista.getCamera().getViewPercent() * Math.pow(1.1, e.getPreciseWheelRotation());
+            vista.getCamera().setViewPercent(Math.max(0.02, Math.min(zoom, 10)));
+        });
+        if (dibujo == null) {
+            return;
+        }
+        componente.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && SwingUtilities.isLeftMouseButton(e)) {
+                    GraphicElement elemento = vista.findGraphicElementAt(
+                            EnumSet.of(InteractiveElement.NODE), e.getX(), e.getY());
+                    if (elemento != null && dibujo.alternar(elemento.getId())) {
+                        vista.getCamera().resetView();
+                    }
+                }
+            }
+
+            @Override
+            public void mousePressed(MouseEvent e) {
+                mostrarMenu(e);
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                mostrarMenu(e);
+            }
+
+            private void mostrarMenu(MouseEvent e) {
+                if (e.isPopupTrigger()) {
+                    menuGrupos().show(e.getComponent(), e.getX(), e.getY());
+                }
+            }
+        });
+    }
+
+    /**
+     * Builds the popup menu with the grouping actions of the drawing.
+     */
+    private JPopupMenu menuGrupos() {
+        JPopupMenu menu = new JPopupMenu();
+        JMenuItem ciclos = new JMenuItem("Collapse cycles");
+        ciclos.addActionListener(e -> reagrupar(dibujo::agruparCiclos));
+        menu.add(ciclos);
+        if (dibujo.tieneConstructos()) {
+            JMenuItem constructos = new JMenuItem("Collapse constructs");
+            constructos.addActionListener(e -> reagrupar(dibujo::agruparConstructos));
+            menu.add(constructos);
+        }
+        JMenuItem expandir = new JMenuItem("Expand all");
+        expandir.addActionListener(e -> reagrupar(dibujo::desagrupar));
+        menu.add(expandir);
+        return menu;
+    }
+
+    private void reagrupar(Runnable accion) {
+        accion.run();
+        viewer.getDefaultView().getCamera().resetView();
+    }
+
     // <editor-fold defaultstate="collapsed" desc="Generated Code">//GEN-BEGIN:initComponents
     private void initComponents() {
 
@@ -59,7 +160,7 @@ public class VentanaGrafo extends javax.swing.JFrame {
         jPanel1.setMaximumSize(new java.awt.Dimension(32767, 29));
         jPanel1.setMinimumSize(new java.awt.Dimension(100, 29));
 
-        jComboBox1.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "LinLog", "Circle", "Grid", "Random", "Radial", "SpringBox" }));
+        jComboBox1.setModel(new javax.swing.DefaultComboBoxModel<>(new String[] { "LinLog", "Circle", "Grid", "Random", "Radial", "Hierarchical", "SpringBox" }));
         jComboBox1.addActionListener(this::jComboBox1ActionPerformed);
 
         javax.swing.GroupLayout jPanel1Layout = new javax.swing.GroupLayout(jPanel1);
@@ -134,27 +235,15 @@ public class VentanaGrafo extends javax.swing.JFrame {
                 i++;
             }
         } else if ("Radial".equals(selected)) {
-            int radiusStep = 35;
-
             viewer.disableAutoLayout();
-
-            Node root = getMostConnectedNode();
-            // Place the root in the center of the graph
-            root.setAttribute("xyz", 0, 0, 0);
-
-            HashMap<Integer, Integer> depthCount = new HashMap<>();
-            for (Node node : viewer.getGraphicGraph()) {
-                int depth = getDepth(viewer.getGraphicGraph(), root, node);
-                depthCount.merge(depth, 1, Integer::sum);
-            }
-            HashMap<Integer, Integer> depthIndex = new HashMap<>();
-            for (Node node : viewer.getGraphicGraph()) {
-                int depth = getDepth(viewer.getGraphicGraph(), root, node);
-                depthIndex.merge(depth, 1, Integer::sum);
-                double angle = 2 * Math.PI / depthCount.get(depth);
-                double radius = depth * radiusStep;
-                node.setAttribute("xyz", radius * Math.cos(angle * depthIndex.get(depth)), radius * Math.sin(angle * depthIndex.get(depth)), 0);
-            }
+            Node[] nodos = viewer.getGraphicGraph().nodes().toArray(Node[]::new);
+            int[][] csr = adyacencia(viewer.getGraphicGraph(), nodos);
+            aplicarCoordenadas(nodos, GraphLayout.radial(nodos.length, csr[0], csr[1], 35));
+        } else if ("Hierarchical".equals(selected)) {
+            viewer.disableAutoLayout();
+            Node[] nodos = viewer.getGraphicGraph().nodes().toArray(Node[]::new);
+            int[][] csr = adyacencia(viewer.getGraphicGraph(), nodos);
+            aplicarCoordenadas(nodos, GraphLayout.jerarquico(nodos.length, csr[0], csr[1], 60, 90));
         } else if ("Grid".equals(selected)) {
             viewer.disableAutoLayout();
             int n = viewer.getGraphicGraph().getNodeCount();
@@ -176,59 +265,49 @@ public class VentanaGrafo extends javax.swing.JFrame {
     }//GEN-LAST:event_jComboBox1ActionPerformed
 
     /**
-     * Returns the node with the highest degree (most incident edges) in the
-     * current graph.
+     * Returns the directed edges of the graph as CSR arrays indexed by the
+     * position of the nodes in {@code nodos}.
      *
-     * @return the most connected {@link Node}, or {@code null} if the graph is
-     *         empty
+     * @param graph the graph
+     * @param nodos the nodes of the graph
+     * @return {@code {offsets, targets}}, {@code offsets} of length
+     *         {@code nodos.length + 1}
      */
-    private Node getMostConnectedNode() {
-        Node maxNode = null;
-        int maxDegree = -1;
-
-        for (Node node : viewer.getGraphicGraph()) {
-            int degree = node.getDegree();
-            if (degree > maxDegree) {
-                maxDegree = degree;
-                maxNode = node;
-            }
+    private static int[][] adyacencia(Graph graph, Node[] nodos) {
+        int n = nodos.length;
+        // El grafo gráfico no numera sus nodos: índice propio por identidad
+        Map<Node, Integer> indice = new IdentityHashMap<>(n * 2);
+        for (int v = 0; v < n; v++) {
+            indice.put(nodos[v], v);
+        }
+        int[] origen = graph.edges().mapToInt(edge -> indice.get(edge.getSourceNode())).toArray();
+        int[] destino = graph.edges().mapToInt(edge -> indice.get(edge.getTargetNode())).toArray();
+        int[] offsets = new int[n + 1];
+        for (int u : origen) {
+            offsets[u + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] targets = new int[origen.length];
+        int[] llenado = Arrays.copyOf(offsets, n);
+        for (int e = 0; e < origen.length; e++) {
+            targets[llenado[origen[e]]++] = destino[e];
         }
-        return maxNode;
+        return new int[][]{offsets, targets};
     }
 
     /**
-     * Computes the breadth-first search (BFS) distance between a root node and
-     * a target node.
+     * Moves every node to the given coordinates.
      *
-     * @param graph  the graph in which the search is performed
-     * @param root   the starting node
-     * @param target the node whose distance from {@code root} is requested
-     * @return the depth (number of edges) between {@code root} and
-     *         {@code target}, or {@code -1} if the target is not reachable
+     * @param nodos the nodes
+     * @param xy {@code {x, y}} coordinates, in the order of {@code nodos}
      */
-    public static int getDepth(Graph graph, Node root, Node target) {
-        Queue<Node> queue = new LinkedList<>();
-        Map<Node, Integer> depthMap = new HashMap<>();
-
-        queue.add(root);
-        depthMap.put(root, 0);
-
-        while (!queue.isEmpty()) {
-            Node current = queue.poll();
-            int currentDepth = depthMap.get(current);
-
-            if (current == target) {
-                return currentDepth;
-            }
-            for (Edge edge : current) {
-                Node neighbor = edge.getOpposite(current);
-                if (!depthMap.containsKey(neighbor)) {
-                    queue.add(neighbor);
-                    depthMap.put(neighbor, currentDepth + 1);
-                }
-            }
+    private void aplicarCoordenadas(Node[] nodos, double[][] xy) {
+        for (int v = 0; v < nodos.length; v++) {
+            nodos[v].setAttribute("xyz", xy[0][v], xy[1][v], 0);
         }
-        return -1;
+        viewer.getDefaultView().getCamera().resetView();
     }
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
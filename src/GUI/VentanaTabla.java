@@ -1,16 +1,22 @@
 package GUI;
 
+import GUI.Componets.MatrizTableModel;
+import java.awt.Dimension;
 import java.awt.Toolkit;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
 import java.util.List;
+import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JPopupMenu;
+import javax.swing.JTable;
 import javax.swing.ListSelectionModel;
 import javax.swing.SwingConstants;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
 import javax.swing.table.JTableHeader;
 import javax.swing.table.TableColumn;
+import javax.swing.table.TableColumnModel;
+import theorybuildingse.ImplicationGraph;
 
 /*
  * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
@@ -23,29 +29,29 @@ import javax.swing.table.TableColumn;
  * the matrix values. The window configures column widths, header tooltips and
  * selection behavior (by column, by row or by single cell).
  * </p>
+ * <p>
+ * The table reads the cells straight from the model through a
+ * {@link MatrizTableModel}, so large models open without copying the matrix.
+ * When the columns do not fit on the screen they get a fixed narrow width
+ * and the table scrolls horizontally. The popup menu of the table hides the
+ * rows and columns of the nodes without any edge.
+ * </p>
  */
 public class VentanaTabla extends javax.swing.JFrame {
 
-    /**
-     * Matrix that represents the model to be shown in the table.
-     */
-    private final int[][] matriz;
     /**
      * List of node labels corresponding to the matrix indices.
      */
     private final List<String> nodos;
     /**
-     * Backing model for the Swing {@link javax.swing.JTable}.
-     */
-    private DefaultTableModel tablaModel;
-    /**
-     * Length of the widest header label, used to size the first column.
+     * Backing model for the Swing {@link javax.swing.JTable}; it reads the
+     * values from the model matrix or graph.
      */
-    private int anchoHeader = 0;
+    private final MatrizTableModel tablaModel;
     /**
-     * Text of the widest header label.
+     * Width of the first column, computed on first use from the longest label.
      */
-    private String maxAncho;
+    private int anchoEtiquetas = -1;
 
     /**
      * Creates a new table window for the given matrix and node list.
@@ -58,36 +64,45 @@ public class VentanaTabla extends javax.swing.JFrame {
      * @param nodos the list of node labels, one per row/column in the matrix
      */
     public VentanaTabla(int[][] matriz, List<String> nodos) {
-        this.matriz = matriz;
-        this.nodos = nodos;
-        loadTabla();
-        initComponents();
-        setVisible(true);
-
-        // Use the table header renderer for the first column so labels look like headers
-        TableColumn firstColumn = jTable1.getColumnModel().getColumn(0);
-        firstColumn.setCellRenderer(jTable1.getTableHeader().getDefaultRenderer());
+        this(new MatrizTableModel(matriz, nodos), nodos);
+    }
 
-        // Compute minimum width for the first column based on the longest header text
-        int width = jTable1.getFontMetrics(jTable1.getFont()).stringWidth(maxAncho) + 10;
-        firstColumn.setMinWidth(width);
+    /**
+     * Creates a new table window for a model stage graph, without building
+     * its matrix.
+     *
+     * @param grafo the graph representing the model
+     * @param nodos the list of node labels, one per graph node
+     */
+    public VentanaTabla(ImplicationGraph grafo, List<String> nodos) {
+        this(new MatrizTableModel(grafo, nodos), nodos);
+    }
 
-        // Compute a dynamic window size based on the table content
-        int totalHeight = jTable1.getRowHeight() * jTable1.getRowCount()
-                + jTable1.getTableHeader().getPreferredSize().height + 50;
-        int screenWidth = Toolkit.getDefaultToolkit().getScreenSize().width;
-        int totalWidth = Math.max(jTable1.getPreferredSize().width + 50, screenWidth);
+    private VentanaTabla(MatrizTableModel tablaModel, List<String> nodos) {
+        this.nodos = nodos;
+        this.tablaModel = tablaModel;
+        initComponents();
 
-        // Center-align all matrix value columns (all except the first one)
+        // Center-align all matrix value columns; the first one is set in configurarColumnas()
         DefaultTableCellRenderer tableCellRenderer = new DefaultTableCellRenderer();
         tableCellRenderer.setHorizontalAlignment(SwingConstants.CENTER);
-        for (int i = 1; i < jTable1.getColumnCount(); i++) {
-            jTable1.getColumnModel().getColumn(i).setCellRenderer(tableCellRenderer);
-        }
+        jTable1.setDefaultRenderer(Object.class, tableCellRenderer);
+        configurarColumnas();
 
         // Make the table read-only
         jTable1.setDefaultEditor(Object.class, null);
 
+        // Hide or show the nodes without edges
+        JCheckBoxMenuItem ocultarVacias = new JCheckBoxMenuItem("Hide empty rows and columns");
+        ocultarVacias.addActionListener(e -> {
+            tablaModel.setOcultarVacias(ocultarVacias.isSelected());
+            configurarColumnas();
+        });
+        JPopupMenu menu = new JPopupMenu();
+        menu.add(ocultarVacias);
+        jTable1.setComponentPopupMenu(menu);
+        jTable1.getTableHeader().setComponentPopupMenu(menu);
+
         // Show full column header text as a tooltip when hovering over it
         JTableHeader header = jTable1.getTableHeader();
         header.addMouseMotionListener(new MouseMotionAdapter() {
@@ -122,6 +137,9 @@ public class VentanaTabla extends javax.swing.JFrame {
             public void mouseClicked(MouseEvent e) {
                 int row = jTable1.rowAtPoint(e.getPoint());
                 int col = jTable1.columnAtPoint(e.getPoint());
+                if (row < 0) {
+                    return;
+                }
                 jTable1.setRowSelectionAllowed(true);
                 if (col == 0) {
                     jTable1.setColumnSelectionAllowed(false);
@@ -135,48 +153,58 @@ public class VentanaTabla extends javax.swing.JFrame {
             }
         });
 
-        setSize(totalWidth, totalHeight);
+        // Compute a window size based on the table content, within the screen
+        Dimension pantalla = Toolkit.getDefaultToolkit().getScreenSize();
+        int totalHeight = jTable1.getRowHeight() * jTable1.getRowCount()
+                + jTable1.getTableHeader().getPreferredSize().height + 50;
+        setSize(pantalla.width, Math.min(totalHeight, pantalla.height));
+        setVisible(true);
     }
 
     /**
-     * Builds the table model from the internal matrix and node list.
-     * <p>
-     * The first column is filled with node labels, and each subsequent column
-     * with the corresponding matrix row values. The header is built from the
-     * node list as well, and the widest header text is tracked for sizing.
-     * </p>
+     * Configures the columns after the table structure is (re)created: header
+     * look for the label column and, when the columns do not fit on the
+     * screen, fixed widths with horizontal scrolling.
      */
-    private void loadTabla() {
-        int rows = nodos.size();//matriz.length;
-        int cols = nodos.size() + 1;//matriz[0].length + 1;
-        String[][] tableData = new String[rows][cols];
-        //System.out.println("nodos.size() == " + nodos.size());
-        //System.out.println("matriz.length == " + matriz.length + " x " + matriz[0].length);
-        // Fill first column with node labels and the rest with matrix values
-        for (int i = 0; i < rows; i++) {
-            if (i < nodos.size()) {
-                tableData[i][0] = nodos.get(i);
-            }
-            //System.out.println(tableData[i][0]);
-            for (int j = 0; j < cols-1; j++) { //matriz[i].length
-                tableData[i][j + 1] = String.valueOf(matriz[i][j]);
+    private void configurarColumnas() {
+        TableColumnModel columnas = jTable1.getColumnModel();
+        if (columnas.getColumnCount() == 0) {
+            return;
+        }
+        // Use the table header renderer for the first column so labels look like headers
+        TableColumn firstColumn = columnas.getColumn(0);
+        firstColumn.setCellRenderer(jTable1.getTableHeader().getDefaultRenderer());
+        firstColumn.setMinWidth(getAnchoEtiquetas());
+
+        int anchoCelda = jTable1.getFontMetrics(jTable1.getFont()).stringWidth("0000") + 10;
+        int pantalla = Toolkit.getDefaultToolkit().getScreenSize().width;
+        if (getAnchoEtiquetas() + (long) anchoCelda * (columnas.getColumnCount() - 1) > pantalla) {
+            jTable1.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+            firstColumn.setPreferredWidth(getAnchoEtiquetas());
+            for (int i = 1; i < columnas.getColumnCount(); i++) {
+                columnas.getColumn(i).setPreferredWidth(anchoCelda);
             }
+        } else {
+            jTable1.setAutoResizeMode(JTable.AUTO_RESIZE_SUBSEQUENT_COLUMNS);
         }
+    }
 
-        // Build header from the node list
-        String[] header = new String[cols];
-        header[0] = "";
-        for (int i = 1; i < cols; i++) {
-            if (i - 1 < nodos.size()) {
-                header[i] = nodos.get(i - 1);
-
-                if (anchoHeader < header[i].length()) {
-                    anchoHeader = header[i].length();
-                    maxAncho = header[i];
+    /**
+     * Returns the minimum width of the first column: the width of the
+     * longest node label (by number of characters, so only one label is
+     * measured).
+     */
+    private int getAnchoEtiquetas() {
+        if (anchoEtiquetas < 0) {
+            String maxAncho = "";
+            for (String nodo : nodos) {
+                if (nodo.length() > maxAncho.length()) {
+                    maxAncho = nodo;
                 }
             }
+            anchoEtiquetas = jTable1.getFontMetrics(jTable1.getFont()).stringWidth(maxAncho) + 10;
         }
-        tablaModel = new DefaultTableModel(tableData, header);
+        return anchoEtiquetas;
     }
 
     /**
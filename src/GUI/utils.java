@@ -4,8 +4,9 @@
  */
 package GUI;
 
+import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Queue;
@@ -34,15 +35,25 @@ public class utils {
      * List of all nodes (literals, possibly negated) in the current model.
      */
     private static List<String> nodos;
+    /**
+     * Interning table of the literals of the current model; node {@code i}
+     * of {@link #nodos} is {@code tablaLiterales.nodo(id)} for its literal id.
+     */
+    private static LiteralTable tablaLiterales;
     /**
      * List of nodes after cycle fusion (reduced model).
      */
     private static List<String> nodosReducidos;
     /**
-     * List of adjacency matrices representing the different model stages
-     * (initial, cycle-reduced, transitive closure, transitive reduction,
+     * List of CSR graphs representing the different model stages (initial,
+     * cycle-reduced, transitive closure, transitive reduction,
      * cycle-restored, etc.).
      */
+    private static List<ImplicationGraph> grafos;
+    /**
+     * Matrix views of {@link #grafos}; each matrix is only built the first
+     * time it is requested.
+     */
     private static List<int[][]> matrices;
     /**
      * Last error message produced during matrix generation, or {@code null} if
@@ -53,6 +64,25 @@ public class utils {
      * Flag indicating whether the current model contains cycles.
      */
     private static boolean tieneCiclos;
+    /**
+     * Incremented every time the current model is discarded.
+     */
+    private static int versionModelo;
+    /**
+     * Metrics of the pipeline stages of the current model.
+     */
+    private static List<StageMetrics> metricas;
+    /**
+     * Pipeline that generated the current model, used by the edge-list
+     * export.
+     */
+    private static ImplicationPipeline pipelineActual;
+    /**
+     * Closure and reduction kept across generations; unlike the stages, it
+     * is not discarded by {@link #emptyMatriz()}, so after editing one
+     * implication only that change is applied to it.
+     */
+    private static final IncrementalClosure cierreIncremental = new IncrementalClosure();
 
     /**
      * Returns the list of all nodes of the current model.
@@ -76,14 +106,56 @@ public class utils {
 
     /**
      * Returns the list of generated matrices for the current model.
+     * <p>
+     * The matrices are views of {@link #getListGrafos()}; each one is built
+     * on first access.
+     * </p>
      *
      * @return an ordered list of adjacency matrices, or {@code null} if none
      * have been generated
      */
     public static List<int[][]> getListMatrices() {
+        if (matrices == null && grafos != null) {
+            final List<ImplicationGraph> etapas = grafos;
+            final int[][][] cache = new int[etapas.size()][][];
+            matrices = new AbstractList<int[][]>() {
+                @Override
+                public int[][] get(int index) {
+                    if (cache[index] == null) {
+                        cache[index] = etapas.get(index).toMatrix();
+                    }
+                    return cache[index];
+                }
+
+                @Override
+                public int size() {
+                    return cache.length;
+                }
+            };
+        }
         return matrices;
     }
 
+    /**
+     * Returns the list of generated graphs for the current model.
+     *
+     * @return an ordered list of CSR graphs (same stages as
+     * {@link #getListMatrices()}), or {@code null} if none have been generated
+     */
+    public static List<ImplicationGraph> getListGrafos() {
+        return grafos;
+    }
+
+    /**
+     * Returns the 2-SAT consistency check of the current model.
+     *
+     * @return the contradictory literal pairs or a model, or {@code null} if
+     *         no model has been generated
+     */
+    public static TwoSatChecker.Resultado getConsistencia() {
+        return pipelineActual == null ? null : pipelineActual.getConsistencia();
+    }
+
     /**
      * Returns the last error message that occurred during matrix generation.
      *
@@ -107,18 +179,20 @@ public class utils {
      * message).
      */
     public static void emptyMatriz() {
+        versionModelo++;
         if (nodos != null) {
             nodos.clear();
             nodos = null;
         }
+        tablaLiterales = null;
         if (nodosReducidos != null) {
             nodosReducidos.clear();
             nodosReducidos = null;
         }
-        if (matrices != null) {
-            matrices.clear();
-            matrices = null;
-        }
+        grafos = null;
+        matrices = null;
+        metricas = null;
+        pipelineActual = null;
         error = null;
     }
 
@@ -146,10 +220,9 @@ public class utils {
     /**
      * Generates all model matrices from the implication lists.
      * <p>
-     * This method builds the initial adjacency matrix from the literals and
-     * their negation flags, detects cycles and then delegates to either
-     * {@link #generadorConCiclos(List, int)} or {@link #generadorSinCiclos(List)}
-     * to compute the subsequent matrices.
+     * Runs {@link #generarGrafos(DefaultListModel, DefaultListModel,
+     * DefaultListModel, DefaultListModel, int)} and returns the matrix views
+     * of its stages.
      * </p>
      *
      * @param listModelLiterales1 list of literal 1 strings
@@ -165,90 +238,123 @@ public class utils {
             DefaultListModel<String> listModelLiterales2, DefaultListModel<String> listModelImplicacionesNot1,
             DefaultListModel<String> listModelImplicacionesNot2,
                                                 int versionAR) {
-        if (matrices == null) {
-            List<String> nodosL = generarListaNodos(listModelLiterales1, listModelLiterales2, listModelImplicacionesNot1, listModelImplicacionesNot2);
-            if (nodosL.size() > 1) {
-                matrices = new ArrayList<>();
-                int[][] matriz = new int[nodosL.size()][nodosL.size()];
-                for (int i = 0; i < listModelLiterales1.size(); i++) {
-                    String literal1a = (listModelImplicacionesNot1.get(i).equals("true") ? "¬ " : "") + listModelLiterales1.get(i);
-                    String literal2a = (listModelImplicacionesNot2.get(i).equals("true") ? "¬ " : "") + listModelLiterales2.get(i);
-                    int l1a = nodosL.indexOf(literal1a);
-                    int l2a = nodosL.indexOf(literal2a);
-                    matriz[l1a][l2a] = 1;
-                    String literal1b = (listModelImplicacionesNot1.get(i).equals("false") ? "¬ " : "") + listModelLiterales1.get(i);
-                    String literal2b = (listModelImplicacionesNot2.get(i).equals("false") ? "¬ " : "") + listModelLiterales2.get(i);
-                    int l1b = nodosL.indexOf(literal2b);
-                    int l2b = nodosL.indexOf(literal1b);
-                    matriz[l1b][l2b] = 1;
-                }
-                matrices.add(matriz);
-
-                tieneCiclos = CycleDetectionDFSIterative.hasCycle(matriz);
+        generarGrafos(listModelLiterales1, listModelLiterales2, listModelImplicacionesNot1, listModelImplicacionesNot2, versionAR);
+        return getListMatrices();
+    }
 
-                if (tieneCiclos) {
-                    generadorConCiclos(matrices, versionAR);
-                } else {
-                    generadorSinCiclos(matrices);
-                }
-            }
+    /**
+     * Generates all model graphs from the implication lists.
+     * <p>
+     * The stages are computed by an {@link ImplicationPipeline}; this method
+     * only adapts the Swing list models and keeps the result in the static
+     * state of this class. Every stage is an {@link ImplicationGraph}, so no
+     * n&times;n matrix is allocated unless a view asks for it.
+     * </p>
+     *
+     * @param listModelLiterales1 list of literal 1 strings
+     * @param listModelLiterales2 list of literal 2 strings
+     * @param listModelImplicacionesNot1 list of negation flags for literal 1
+     * @param listModelImplicacionesNot2 list of negation flags for literal 2
+     * @param versionAR selects which cycle-expansion / restore implementation to
+     *                  use when cycles exist (e.g. 1 = V1, otherwise V2)
+     * @return the list of generated graphs, or {@code null} if there is not
+     * enough content to build a model
+     */
+    public static List<ImplicationGraph> generarGrafos(DefaultListModel<String> listModelLiterales1,
+            DefaultListModel<String> listModelLiterales2, DefaultListModel<String> listModelImplicacionesNot1,
+            DefaultListModel<String> listModelImplicacionesNot2,
+                                                int versionAR) {
+        if (grafos == null) {
+            ImplicationPipeline pipeline = crearPipeline(listModelLiterales1, listModelLiterales2,
+                    listModelImplicacionesNot1, listModelImplicacionesNot2, versionAR);
+            publicarPipeline(pipeline, pipeline.ejecutar());
         }
-        return matrices;
+        return grafos;
     }
 
     /**
-     * Generates matrices for models that contain cycles.
+     * Makes the result of an executed pipeline the current model.
      * <p>
-     * The sequence is: initial matrix, cycle-fused matrix, transitive closure,
-     * transitive reduction on the reduced graph and finally a matrix with
-     * cycles restored.
+     * Used to publish a pipeline run outside the Event Dispatch Thread; it
+     * must be called on the Event Dispatch Thread.
      * </p>
      *
-     * @param matrices the list where the new matrices will be appended
+     * @param pipeline executed pipeline
+     * @param generado value returned by {@link ImplicationPipeline#ejecutar()}
      */
-    private static void generadorConCiclos(List<int[][]> matrices, int version) {
-        ArregloCiclos AR;
-
-        if(version == 0) {
-            AR = new ArregloCiclosMapeado_V1(matrices.get(0), utils.nodos);
-        } else {
-            AR = new ArregloCiclosMapeado_V2(matrices.get(0), utils.nodos);
+    public static void publicarPipeline(ImplicationPipeline pipeline, boolean generado) {
+        nodos = pipeline.getNodos();
+        tablaLiterales = pipeline.getTablaLiterales();
+        if (generado) {
+            matrices = null;
+            grafos = pipeline.getGrafos();
+            tieneCiclos = pipeline.tieneCiclos();
+            nodosReducidos = pipeline.tieneCiclos() ? pipeline.getNodosReducidos() : null;
+            error = pipeline.getError();
+            metricas = pipeline.getMetricas();
+            pipelineActual = pipeline;
         }
-        matrices.add(AR.getMatrizFusionCiclos());
-        utils.nodosReducidos = AR.getNodes();
-
-        matrices.add(TransitiveClosure.computeTransitiveClosure(matrices.get(1)));
-        matrices.add(TransitiveReduction.computeTransitiveReduction(matrices.get(2)));
+    }
 
-        try {
-            matrices.add(AR.restaurarCiclos(matrices.get(0), matrices.get(3), utils.nodos));
-        } catch (Exception ex) {
-            error = "An error occurred while generating the matrices: " + ex.getMessage();
-            ex.printStackTrace();
-        }
+    /**
+     * Returns the metrics of the pipeline stages of the current model.
+     *
+     * @return the per-stage metrics, or {@code null} if no model has been
+     *         generated
+     */
+    public static List<StageMetrics> getMetricas() {
+        return metricas;
+    }
 
+    /**
+     * Returns a counter that changes every time the current model is
+     * discarded with {@link #emptyMatriz()}, so a background generation can
+     * tell whether its result is still wanted.
+     *
+     * @return the current model version
+     */
+    public static int getVersionModelo() {
+        return versionModelo;
     }
 
     /**
-     * Generates matrices for models without cycles.
-     * <p>
-     * The sequence is: initial matrix, transitive closure and transitive
-     * reduction.
-     * </p>
+     * Builds a pipeline from the Swing list models of the implications.
      *
-     * @param matrices the list where the new matrices will be appended
+     * @param listModelLiterales1 list of literal 1 strings
+     * @param listModelLiterales2 list of literal 2 strings
+     * @param listModelImplicacionesNot1 list of negation flags for literal 1
+     *                                   ({@code "true"}/{@code "false"})
+     * @param listModelImplicacionesNot2 list of negation flags for literal 2
+     * @param versionAR cycle restore implementation (0 = V1, otherwise V2)
+     * @return a pipeline not yet executed, sharing the incremental closure of
+     *         the current session
      */
-    private static void generadorSinCiclos(List<int[][]> matrices) {
-        matrices.add(TransitiveClosure.computeTransitiveClosure(matrices.get(0)));
-        matrices.add(TransitiveReduction.computeTransitiveReduction(matrices.get(1)));
+    public static ImplicationPipeline crearPipeline(DefaultListModel<String> listModelLiterales1,
+            DefaultListModel<String> listModelLiterales2, DefaultListModel<String> listModelImplicacionesNot1,
+            DefaultListModel<String> listModelImplicacionesNot2, int versionAR) {
+        int m = listModelLiterales1.size();
+        String[] literales1 = new String[m];
+        String[] literales2 = new String[m];
+        boolean[] negados1 = new boolean[m];
+        boolean[] negados2 = new boolean[m];
+        for (int i = 0; i < m; i++) {
+            literales1[i] = listModelLiterales1.get(i);
+            literales2[i] = listModelLiterales2.get(i);
+            negados1[i] = listModelImplicacionesNot1.get(i).equals("true");
+            negados2[i] = listModelImplicacionesNot2.get(i).equals("true");
+        }
+        ImplicationPipeline pipeline = new ImplicationPipeline(literales1, negados1, literales2, negados2, versionAR);
+        pipeline.usarCierreIncremental(cierreIncremental);
+        return pipeline;
     }
 
     /**
      * Builds the list of all nodes (literals with optional negation) present in
      * the implication lists.
      * <p>
-     * For each literal, both its negated and non-negated forms are added to the
-     * list if they were not present already. The resulting list is then sorted
+     * Literals are interned in a {@link LiteralTable}, so each one is
+     * deduplicated with a hash lookup; for each literal both its negated and
+     * non-negated forms are part of the list. The resulting list is sorted
      * lexicographically.
      * </p>
      *
@@ -262,26 +368,14 @@ public class utils {
             DefaultListModel<String> listModelLiterales2, DefaultListModel<String> listModelImplicacionesNot1,
             DefaultListModel<String> listModelImplicacionesNot2) {
         if (nodos == null) {
-            nodos = new ArrayList<>();
+            tablaLiterales = new LiteralTable();
             for (int i = 0; i < listModelLiterales1.size(); i++) {
-                String literal1 = (listModelImplicacionesNot1.get(i).equals("true") ? "¬ " : "") + listModelLiterales1.get(i);
-                if (!nodos.contains(literal1)) {
-                    String literal2 = (listModelImplicacionesNot1.get(i).equals("false") ? "¬ " : "") + listModelLiterales1.get(i);
-
-                    nodos.add(literal1);
-                    nodos.add(literal2);
-                }
+                tablaLiterales.intern(listModelLiterales1.get(i), listModelImplicacionesNot1.get(i).equals("true"));
             }
             for (int i = 0; i < listModelLiterales2.size(); i++) {
-                String literal1 = (listModelImplicacionesNot2.get(i).equals("true") ? "¬ " : "") + listModelLiterales2.get(i);
-                if (!nodos.contains(literal1)) {
-                    String literal2 = (listModelImplicacionesNot2.get(i).equals("false") ? "¬ " : "") + listModelLiterales2.get(i);
-
-                    nodos.add(literal1);
-                    nodos.add(literal2);
-                }
+                tablaLiterales.intern(listModelLiterales2.get(i), listModelImplicacionesNot2.get(i).equals("true"));
             }
-            Collections.sort(nodos);
+            nodos = tablaLiterales.getEtiquetasOrdenadas();
         }
         return nodos;
     }
@@ -302,6 +396,31 @@ public class utils {
             ColElements<Variable> colVariables, ColElements<Implication> colImplications,
             ColElements<Function> colFunctions
     ) {
+        return ModelExporter.aTexto(out -> escribirJSON(colConstructs, colUniverses, colVariables, colImplications, colFunctions, out));
+    }
+
+    /**
+     * Streams the JSON document of {@link #generarJSON} to {@code out}.
+     * <p>
+     * The document is built one element at a time and handed to {@code out}
+     * every {@link #BLOQUE_JSON} characters, so the memory used does not grow
+     * with the size of the model.
+     * </p>
+     *
+     * @param colConstructs collection of constructs
+     * @param colUniverses collection of universes
+     * @param colVariables collection of variables
+     * @param colImplications collection of implications
+     * @param colFunctions collection of functions
+     * @param out destination, usually a {@link ModelExporter#abrirEscritor}
+     *            writer
+     * @throws IOException if writing fails
+     */
+    public static void escribirJSON(
+            ColElements<Construct> colConstructs, ColElements<Universe> colUniverses,
+            ColElements<Variable> colVariables, ColElements<Implication> colImplications,
+            ColElements<Function> colFunctions, Appendable out
+    ) throws IOException {
         StringBuilder JSON = new StringBuilder("""
                 {
                   "Constructs": [
@@ -313,6 +432,7 @@ public class utils {
             } else {
                 JSON.append("    }\n");
             }
+            volcar(JSON, out, false);
         }
         /* //////////////////// Functions //////////////////////////////////////////////// */
         JSON.append("""
@@ -326,6 +446,7 @@ public class utils {
             } else {
                 JSON.append("    }\n");
             }
+            volcar(JSON, out, false);
         }
         /* //////////////////// Universes //////////////////////////////////////////////// */
         JSON.append("""
@@ -350,6 +471,7 @@ public class utils {
             } else {
                 JSON.append("    }\n");
             }
+            volcar(JSON, out, false);
         }
         /* /////////////////////// Variables ///////////////////////////////////////////// */
         JSON.append("""
@@ -363,6 +485,7 @@ public class utils {
             } else {
                 JSON.append("    }\n");
             }
+            volcar(JSON, out, false);
         }
         /* ////////////////////////// Implicaciones ////////////////////////////////////////// */
         JSON.append("""
@@ -386,9 +509,20 @@ public class utils {
             } else {
                 JSON.append("    }\n");
             }
+            volcar(JSON, out, false);
         }
         JSON.append("  ]\n" + "}");
-        return JSON.toString();
+        volcar(JSON, out, true);
+    }
+
+    /** Characters of JSON buffered before handing them to the writer. */
+    private static final int BLOQUE_JSON = 1 << 16;
+
+    private static void volcar(StringBuilder JSON, Appendable out, boolean fin) throws IOException {
+        if (fin || JSON.length() >= BLOQUE_JSON) {
+            out.append(JSON);
+            JSON.setLength(0);
+        }
     }
 
     /**
@@ -404,19 +538,24 @@ public class utils {
      * @return the CSV representation as a string
      */
     public static String generarTablaCSV(int[][] matrizL, List<String> nodosL) {
-        StringBuilder CSV = new StringBuilder(";");
-        for (String s : nodosL) {
-            CSV.append(s).append(";");
-        }
-        CSV.append("\n");
-        for (int i = 0; i < nodosL.size(); i++) {
-            CSV.append(nodosL.get(i)).append(";");
-            for (int j = 0; j < nodosL.size(); j++) {
-                CSV.append(matrizL[i][j]).append(";");
-            }
-            CSV.append("\n");
+        return ModelExporter.generarTablaCSV(matrizL, nodosL);
+    }
+
+    /**
+     * Writes stage {@code etapa} of the current model as an {@link
+     * EdgeListCsv} edge list (header included), flagging as redundant the
+     * edges that are not in its canonical stage.
+     *
+     * @param etapa stage index, as in {@link #getListGrafos()}
+     * @param out destination
+     * @throws IOException if writing fails
+     * @throws IllegalStateException if no model has been generated
+     */
+    public static void escribirAristasCSV(int etapa, Appendable out) throws IOException {
+        if (pipelineActual == null) {
+            throw new IllegalStateException("No model has been generated");
         }
-        return CSV.toString();
+        EdgeListCsv.escribir(pipelineActual, new int[]{etapa}, out);
     }
 
     /**
@@ -477,19 +616,7 @@ public class utils {
      * @throws IllegalArgumentException if the line cannot be split into two parts
      */
     public static String[] dividirAristaEnNodos(String linea) {
-        if (linea == null) {
-            throw new IllegalArgumentException("linea no puede ser null");
-        }
-        String trabajo = linea;
-        int barra = trabajo.indexOf('|');
-        if (barra >= 0) {
-            trabajo = trabajo.substring(barra + 1);
-        }
-        String[] partes = trabajo.split("-->", 2);
-        if (partes.length != 2) {
-            throw new IllegalArgumentException("Formato de arista invalido: " + linea);
-        }
-        return new String[]{partes[0].trim(), partes[1].trim()};
+        return ModelExporter.dividirAristaEnNodos(linea);
     }
 
     /**
@@ -503,43 +630,6 @@ public class utils {
      * @return formatted path or {@code null} if unreachable
      */
     public static String caminoMinimo(int[][] matriz, List<String> nodosL, String origen, String destino) {
-        if (matriz == null || nodosL == null || origen == null || destino == null) {
-            throw new IllegalArgumentException("Argumentos no pueden ser null");
-        }
-        int n = nodosL.size();
-        if (matriz.length != n || matriz[0].length != n) {
-            throw new IllegalArgumentException("Dimensiones de la matriz no coinciden con nodosL");
-        }
-        int s = nodosL.indexOf(origen);
-        int t = nodosL.indexOf(destino);
-        if (s < 0 || t < 0) {
-            throw new IllegalArgumentException("Origen o destino no se encuentran en nodosL");
-        }
-        int[] prev = new int[n];
-        java.util.Arrays.fill(prev, -1);
-        boolean[] vis = new boolean[n];
-        Queue<Integer> q = new LinkedList<>();
-        q.add(s);
-        vis[s] = true;
-        while (!q.isEmpty()) {
-            int u = q.poll();
-            if (u == t) break;
-            for (int v = 0; v < n; v++) {
-                if (matriz[u][v] > 0 && !vis[v]) {
-                    vis[v] = true;
-                    prev[v] = u;
-                    q.add(v);
-                }
-            }
-        }
-        if (!vis[t]) {
-            return null; // sin camino
-        }
-        List<String> path = new ArrayList<>();
-        for (int v = t; v != -1; v = prev[v]) {
-            path.add(nodosL.get(v));
-        }
-        Collections.reverse(path);
-        return String.join(" --> ", path);
+        return ModelExporter.caminoMinimo(matriz, nodosL, origen, destino);
     }
 }
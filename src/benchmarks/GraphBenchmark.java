@@ -0,0 +1,395 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import models.ColElements;
+import models.Construct;
+import models.Implication;
+import models.TheoryLoader;
+import models.Universe;
+import models.Variable;
+import theorybuildingse.ArregloCiclos;
+import theorybuildingse.ArregloCiclosMapeado_V1;
+import theorybuildingse.ArregloCiclosMapeado_V2;
+import theorybuildingse.CycleDetectionDFSIterative;
+import theorybuildingse.EdgeListCsv;
+import theorybuildingse.ImplicationGraph;
+import theorybuildingse.ImplicationPipeline;
+import theorybuildingse.TarjanCondensedGraph;
+import theorybuildingse.TransitiveClosure;
+import theorybuildingse.TransitiveReduction;
+
+/**
+ * Micro-benchmark of the pipeline stages on synthetic implication graphs.
+ * <p>
+ * Every graph is built as an implication graph (each implication
+ * {@code a -> b} also adds its contrapositive {@code ¬b -> ¬a}) with one of
+ * these shapes:
+ * </p>
+ * <ul>
+ * <li>{@code chain}: a single sparse implication chain.</li>
+ * <li>{@code dense}: a DAG where every literal implies up to 32 later
+ * literals.</li>
+ * <li>{@code cycles}: many small cycles (3 to 5 literals) linked in a
+ * chain.</li>
+ * <li>{@code giant}: one strongly connected component with random
+ * chords.</li>
+ * </ul>
+ * <p>
+ * Sessions saved as <code>.sgb</code> (for instance the ones written by
+ * {@link TheoryGenerator}) can be replayed with {@code -sgb}: the whole
+ * {@link ImplicationPipeline} is measured and then each stage on the initial
+ * graph of the session. Edge lists written by {@link EdgeListCsv} (for
+ * instance by <code>SynTBatch -sparse</code>) can be measured with
+ * {@code -edges}: every stage is measured on the first stage of the file.
+ * </p>
+ * <p>
+ * Each stage (cycle detection, Tarjan, cycle fusion, closure, reduction and
+ * cycle restore) is measured on its own input after a warm-up. The report
+ * gives throughput, latency percentiles and the bytes allocated per
+ * operation and per second by the measuring thread.
+ * </p>
+ *
+ * <pre>
+ * java -cp "SynT.jar:lib/*" benchmarks.GraphBenchmark [-sizes 100,1000,5000,20000]
+ *      [-shapes chain,dense,cycles,giant] [-warmup 3] [-iter 20] [-time 2]
+ *      [-v1|-v2] [-seed 1] [-sgb file.sgb]... [-edges file.csv]... [-csv file]
+ * </pre>
+ */
+public class GraphBenchmark {
+
+    private static final String USO = "Usage: GraphBenchmark [-sizes 100,1000,5000,20000] "
+            + "[-shapes chain,dense,cycles,giant] [-warmup n] [-iter n] [-time seconds] [-v1|-v2] [-seed n] [-sgb file.sgb]... [-edges file.csv]... [-csv file]";
+
+    /** Results are stored here so the JIT cannot drop the measured work. */
+    static volatile Object sumidero;
+
+    /**
+     * A measured operation.
+     */
+    interface Operacion {
+
+        Object ejecutar() throws Exception;
+    }
+
+    /**
+     * Measurement of one stage on one graph.
+     */
+    record Resultado(String forma, int nodos, int aristas, String etapa, int iteraciones,
+            double opsPorSegundo, double p50, double p90, double p99, double max, long bytesPorOp) {
+    }
+
+    private int warmup = 3;
+    private int iteraciones = 20;
+    private double segundos = 2;
+    private int versionAR = 0;
+    private final List<Resultado> resultados = new ArrayList<>();
+    private final com.sun.management.ThreadMXBean hilos;
+
+    GraphBenchmark() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sun && sun.isThreadAllocatedMemorySupported()) {
+            sun.setThreadAllocatedMemoryEnabled(true);
+            hilos = sun;
+        } else {
+            hilos = null;
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args options (see the class documentation)
+     * @throws Exception if a stage fails
+     */
+    public static void main(String[] args) throws Exception {
+        int[] tamanos = {100, 1000, 5000, 20000};
+        String[] formas = {"chain", "dense", "cycles", "giant"};
+        long semilla = 1;
+        File csv = null;
+        List<File> sesiones = new ArrayList<>();
+        List<File> listas = new ArrayList<>();
+        GraphBenchmark bench = new GraphBenchmark();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-sizes" ->
+                    tamanos = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                case "-shapes" ->
+                    formas = args[++i].split(",");
+                case "-warmup" ->
+                    bench.warmup = Integer.parseInt(args[++i]);
+                case "-iter" ->
+                    bench.iteraciones = Integer.parseInt(args[++i]);
+                case "-time" ->
+                    bench.segundos = Double.parseDouble(args[++i]);
+                case "-v1" ->
+                    bench.versionAR = 0;
+                case "-v2" ->
+                    bench.versionAR = 1;
+                case "-seed" ->
+                    semilla = Long.parseLong(args[++i]);
+                case "-csv" ->
+                    csv = new File(args[++i]);
+                case "-sgb" ->
+                    sesiones.add(new File(args[++i]));
+                case "-edges" ->
+                    listas.add(new File(args[++i]));
+                default -> {
+                    System.err.println(USO);
+                    System.exit(2);
+                }
+            }
+        }
+
+        System.out.println(String.format(Locale.ROOT, "%-12s %6s %7s %-22s %5s %12s %10s %10s %10s %10s %14s %10s",
+                "shape", "nodes", "edges", "stage", "iter", "ops/s", "p50 ms", "p90 ms", "p99 ms", "max ms", "bytes/op", "MB/s"));
+        if (sesiones.isEmpty() && listas.isEmpty()) {
+            for (String forma : formas) {
+                for (int n : tamanos) {
+                    bench.medirGrafo(forma, generar(forma, n, new Random(semilla)));
+                }
+            }
+        }
+        for (File sgb : sesiones) {
+            bench.medirSesion(sgb);
+        }
+        for (File lista : listas) {
+            bench.medirListaAristas(lista);
+        }
+        if (csv != null) {
+            bench.escribirCsv(csv);
+        }
+    }
+
+    /**
+     * Measures every stage on one graph, feeding each stage with the output
+     * of the previous one as the pipeline does.
+     */
+    void medirGrafo(String forma, ImplicationGraph grafo) throws Exception {
+        int n = grafo.size();
+        List<String> nodos = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            nodos.add(String.format("n%06d", i));
+        }
+
+        medir(forma, grafo, "Cycle detection", () -> CycleDetectionDFSIterative.hasCycle(grafo));
+        medir(forma, grafo, "Tarjan SCC", () -> new TarjanCondensedGraph(grafo).computeSCCs());
+
+        boolean ciclos = CycleDetectionDFSIterative.hasCycle(grafo);
+        ArregloCiclos AR = null;
+        ImplicationGraph fusion = grafo;
+        if (ciclos) {
+            medir(forma, grafo, "Reduced cycles", () -> crearArreglo(grafo, nodos).getGrafoFusionCiclos());
+            AR = crearArreglo(grafo, nodos);
+            fusion = AR.getGrafoFusionCiclos();
+        }
+        final ImplicationGraph entradaCierre = fusion;
+        medir(forma, grafo, "Transitive closure", () -> TransitiveClosure.computeTransitiveClosure(entradaCierre));
+        ImplicationGraph cierre = TransitiveClosure.computeTransitiveClosure(entradaCierre);
+        medir(forma, grafo, "Transitive reduction", () -> TransitiveReduction.computeTransitiveReduction(cierre));
+        if (ciclos) {
+            ImplicationGraph reduccion = TransitiveReduction.computeTransitiveReduction(cierre);
+            final ArregloCiclos arreglo = AR;
+            medir(forma, grafo, "Expanded cycles", () -> arreglo.restaurarCiclos(grafo, reduccion));
+        }
+    }
+
+    /**
+     * Measures the whole pipeline on a session file and then every stage on
+     * its initial graph.
+     */
+    void medirSesion(File sgb) throws Exception {
+        ColElements<Implication> colImplication = new ColElements<>();
+        TheoryLoader.cargar(sgb, new ColElements<Construct>(), new ColElements<models.Function>(),
+                new ColElements<Universe>(), new ColElements<Variable>(), colImplication);
+        int m = colImplication.size();
+        String[] literales1 = new String[m];
+        String[] literales2 = new String[m];
+        boolean[] negados1 = new boolean[m];
+        boolean[] negados2 = new boolean[m];
+        for (int i = 0; i < m; i++) {
+            Implication implication = colImplication.getModelElement().get(i);
+            literales1[i] = implication.getLiteral1();
+            literales2[i] = implication.getLiteral2();
+            negados1[i] = implication.isNegated1();
+            negados2[i] = implication.isNegated2();
+        }
+        String nombre = sgb.getName().replaceFirst("\\.sgb$", "");
+        ImplicationPipeline pipeline = new ImplicationPipeline(literales1, negados1, literales2, negados2, versionAR);
+        if (!pipeline.ejecutar()) {
+            throw new Exception(sgb + ": there is not enough content to generate the model");
+        }
+        ImplicationGraph inicial = pipeline.getGrafos().get(0);
+        medir(nombre, inicial, "Pipeline", () -> {
+            ImplicationPipeline p = new ImplicationPipeline(literales1, negados1, literales2, negados2, versionAR);
+            p.ejecutar();
+            return p.getGrafos();
+        });
+        medirGrafo(nombre, inicial);
+    }
+
+    /**
+     * Measures every stage on the first stage of an edge-list file.
+     */
+    void medirListaAristas(File csv) throws Exception {
+        List<EdgeListCsv.Etapa> etapas;
+        try (Reader reader = Files.newBufferedReader(csv.toPath(), StandardCharsets.UTF_8)) {
+            etapas = EdgeListCsv.leer(reader);
+        }
+        if (etapas.isEmpty()) {
+            throw new Exception(csv + ": the edge list has no stages");
+        }
+        medirGrafo(csv.getName().replaceFirst("\\.csv$", ""), etapas.get(0).grafo());
+    }
+
+    private ArregloCiclos crearArreglo(ImplicationGraph grafo, List<String> nodos) {
+        if (versionAR == 0) {
+            return new ArregloCiclosMapeado_V1(grafo, nodos);
+        }
+        return new ArregloCiclosMapeado_V2(grafo, nodos);
+    }
+
+    /**
+     * Warms up and measures one operation.
+     * <p>
+     * After {@link #warmup} calls the operation is timed until
+     * {@link #iteraciones} calls or {@link #segundos} seconds have elapsed
+     * (at least three calls).
+     * </p>
+     */
+    void medir(String forma, ImplicationGraph grafo, String etapa, Operacion op) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            sumidero = op.ejecutar();
+        }
+        long[] tiempos = new long[iteraciones];
+        long hilo = Thread.currentThread().getId();
+        long bytes = 0;
+        long limite = System.nanoTime() + (long) (segundos * 1e9);
+        int k = 0;
+        while (k < iteraciones && (k < 3 || System.nanoTime() < limite)) {
+            long antes = hilos != null ? hilos.getThreadAllocatedBytes(hilo) : 0;
+            long inicio = System.nanoTime();
+            sumidero = op.ejecutar();
+            tiempos[k++] = System.nanoTime() - inicio;
+            if (hilos != null) {
+                bytes += hilos.getThreadAllocatedBytes(hilo) - antes;
+            }
+        }
+        sumidero = null;
+
+        long[] medidos = Arrays.copyOf(tiempos, k);
+        Arrays.sort(medidos);
+        long total = 0;
+        for (long t : medidos) {
+            total += t;
+        }
+        double opsPorSegundo = k / (total / 1e9);
+        long bytesPorOp = hilos != null ? bytes / k : -1;
+        Resultado r = new Resultado(forma, grafo.size(), grafo.edgeCount(), etapa, k, opsPorSegundo,
+                percentil(medidos, 50), percentil(medidos, 90), percentil(medidos, 99),
+                medidos[k - 1] / 1e6, bytesPorOp);
+        resultados.add(r);
+        System.out.println(String.format(Locale.ROOT, "%-12s %6d %7d %-22s %5d %12.2f %10.3f %10.3f %10.3f %10.3f %14d %10.1f",
+                r.forma(), r.nodos(), r.aristas(), r.etapa(), r.iteraciones(), r.opsPorSegundo(),
+                r.p50(), r.p90(), r.p99(), r.max(), r.bytesPorOp(),
+                bytesPorOp < 0 ? Double.NaN : bytesPorOp * opsPorSegundo / (1024 * 1024)));
+    }
+
+    /**
+     * Nearest-rank percentile of sorted nanosecond times, in milliseconds.
+     */
+    static double percentil(long[] ordenados, int p) {
+        int rango = (int) Math.ceil(p / 100.0 * ordenados.length);
+        return ordenados[Math.max(0, rango - 1)] / 1e6;
+    }
+
+    private void escribirCsv(File csv) throws IOException {
+        try (PrintWriter out = new PrintWriter(csv, "UTF-8")) {
+            out.println("shape;nodes;edges;stage;iterations;ops_per_s;p50_ms;p90_ms;p99_ms;max_ms;bytes_per_op");
+            for (Resultado r : resultados) {
+                out.println(String.format(Locale.ROOT, "%s;%d;%d;%s;%d;%.3f;%.4f;%.4f;%.4f;%.4f;%d",
+                        r.forma(), r.nodos(), r.aristas(), r.etapa(), r.iteraciones(), r.opsPorSegundo(),
+                        r.p50(), r.p90(), r.p99(), r.max(), r.bytesPorOp()));
+            }
+        }
+    }
+
+    /**
+     * Builds a synthetic implication graph with {@code n} nodes ({@code n / 2}
+     * atoms; literal {@code 2k} is atom {@code k} and {@code 2k + 1} its
+     * negation).
+     *
+     * @param forma chain, dense, cycles or giant
+     * @param n number of nodes (rounded up to an even number)
+     * @param rnd random source
+     * @return the implication graph
+     */
+    static ImplicationGraph generar(String forma, int n, Random rnd) {
+        int atomos = Math.max(2, (n + 1) / 2);
+        ImplicationGraph.EdgeList aristas = new ImplicationGraph.EdgeList();
+        switch (forma) {
+            case "chain" -> {
+                for (int a = 0; a + 1 < atomos; a++) {
+                    implicar(aristas, 2 * a, 2 * (a + 1));
+                }
+            }
+            case "dense" -> {
+                for (int a = 0; a + 1 < atomos; a++) {
+                    int grado = Math.min(32, atomos - a - 1);
+                    for (int k = 0; k < grado; k++) {
+                        int b = a + 1 + rnd.nextInt(Math.min(atomos - a - 1, 256));
+                        implicar(aristas, 2 * a, 2 * b);
+                    }
+                }
+            }
+            case "cycles" -> {
+                int a = 0;
+                int anterior = -1;
+                while (a < atomos) {
+                    int tam = Math.min(3 + rnd.nextInt(3), atomos - a);
+                    for (int k = 0; k < tam; k++) {
+                        implicar(aristas, 2 * (a + k), 2 * (a + (k + 1) % tam));
+                    }
+                    if (anterior >= 0) {
+                        implicar(aristas, 2 * anterior, 2 * a);
+                    }
+                    anterior = a;
+                    a += tam;
+                }
+            }
+            case "giant" -> {
+                for (int a = 0; a < atomos; a++) {
+                    implicar(aristas, 2 * a, 2 * ((a + 1) % atomos));
+                    implicar(aristas, 2 * a, 2 * rnd.nextInt(atomos));
+                }
+            }
+            default ->
+                throw new IllegalArgumentException("Unknown shape: " + forma);
+        }
+        return aristas.build(2 * atomos, false);
+    }
+
+    /**
+     * Adds {@code u -> v} and its contrapositive {@code ¬v -> ¬u}.
+     */
+    private static void implicar(ImplicationGraph.EdgeList aristas, int u, int v) {
+        if (u != v) {
+            aristas.add(u, v);
+            aristas.add(v ^ 1, u ^ 1);
+        }
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package benchmarks;
+
+import GUI.utils;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import models.ColElements;
+import models.Construct;
+import models.Function;
+import models.Implication;
+import models.Universe;
+import models.Variable;
+import theorybuildingse.ImplicationGraph;
+import theorybuildingse.ModelExporter;
+import theorybuildingse.TarjanCondensedGraph;
+
+/**
+ * Generates synthetic SynT sessions (<code>.sgb</code>) for scale testing.
+ * <p>
+ * The theory has the requested number of constructs, universes (cycling
+ * through Enum, Real and Bool), variables and implications. The implications
+ * are built in three groups:
+ * </p>
+ * <ul>
+ * <li>An acyclic backbone: every atom gets a random rank and a fixed
+ * polarity, and each implication goes from a lower to a higher rank, so
+ * neither the implications nor their contrapositives close a cycle.</li>
+ * <li>Redundant implications: shortcuts {@code a -> c} for a backbone path
+ * {@code a -> b -> c}, which the transitive reduction removes.</li>
+ * <li>Planted cycles of the requested size on reserved atoms, used neither
+ * by other cycles nor by the backbone and the shortcuts, so no path joins
+ * two cycles: the initial graph has exactly {@code 2 * cycles} strongly
+ * connected components of {@code cycle-size} literals (each cycle and its
+ * contrapositive).</li>
+ * </ul>
+ * <p>
+ * The same seed and options always give the same file. An output name
+ * ending with <code>.gz</code> writes a gzip compressed session. With
+ * {@code -check} the generated theory is run through the first pipeline
+ * stage and the number and size of its cycles are verified.
+ * </p>
+ *
+ * <pre>
+ * java -cp "SynT.jar:lib/*" benchmarks.TheoryGenerator -o theory.sgb [-implications 10000]
+ *      [-literals n] [-constructs 10] [-universes 12] [-variables n] [-cycles 0]
+ *      [-cycle-size 3] [-redundant 0.1] [-seed 1] [-check]
+ * </pre>
+ */
+public class TheoryGenerator {
+
+    private static final String USO = "Usage: TheoryGenerator -o file.sgb [-implications n] [-literals n] [-constructs n] "
+            + "[-universes n] [-variables n] [-cycles n] [-cycle-size n] [-redundant fraction] [-seed n] [-check]";
+
+    /** Number of values of the generated Enum universes. */
+    private static final int VALORES_ENUM = 6;
+
+    /** Maximum rank distance of a backbone implication. */
+    private static final int VENTANA = 64;
+
+    int constructs = 10;
+    int universes = 12;
+    int variables = -1;
+    int implicaciones = 10000;
+    int literales = -1;
+    int ciclos = 0;
+    int tamanoCiclo = 3;
+    double redundantes = 0.1;
+    long semilla = 1;
+
+    final ColElements<Construct> colConstruct = new ColElements<>();
+    final ColElements<Function> colFunction = new ColElements<>();
+    final ColElements<Universe> colUniverse = new ColElements<>();
+    final ColElements<Variable> colVariable = new ColElements<>();
+    final ColElements<Implication> colImplication = new ColElements<>();
+
+    /**
+     * A literal without negation: variable, relation and value.
+     */
+    private record Atomo(Variable variable, String relacion, String valor) {
+    }
+
+    /**
+     * Writes a synthetic session file.
+     *
+     * @param args options (see the class documentation)
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        TheoryGenerator gen = new TheoryGenerator();
+        File salida = null;
+        boolean comprobar = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-o" ->
+                    salida = new File(args[++i]);
+                case "-implications" ->
+                    gen.implicaciones = Integer.parseInt(args[++i]);
+                case "-literals" ->
+                    gen.literales = Integer.parseInt(args[++i]);
+                case "-constructs" ->
+                    gen.constructs = Integer.parseInt(args[++i]);
+                case "-universes" ->
+                    gen.universes = Integer.parseInt(args[++i]);
+                case "-variables" ->
+                    gen.variables = Integer.parseInt(args[++i]);
+                case "-cycles" ->
+                    gen.ciclos = Integer.parseInt(args[++i]);
+                case "-cycle-size" ->
+                    gen.tamanoCiclo = Integer.parseInt(args[++i]);
+                case "-redundant" ->
+                    gen.redundantes = Double.parseDouble(args[++i]);
+                case "-seed" ->
+                    gen.semilla = Long.parseLong(args[++i]);
+                case "-check" ->
+                    comprobar = true;
+                default -> {
+                    System.err.println(USO);
+                    System.exit(2);
+                }
+            }
+        }
+        if (salida == null) {
+            System.err.println(USO);
+            System.exit(2);
+        }
+        gen.generar();
+        if (comprobar) {
+            gen.comprobarCiclos();
+        }
+        try (Writer writer = ModelExporter.abrirEscritor(salida)) {
+            utils.escribirJSON(gen.colConstruct, gen.colUniverse, gen.colVariable, gen.colImplication, gen.colFunction, writer);
+        }
+        System.out.println(salida + ": " + gen.colVariable.size() + " variables, "
+                + gen.colImplication.size() + " implications");
+    }
+
+    /**
+     * Fills the collections with a new theory.
+     *
+     * @throws IllegalArgumentException if the options are inconsistent
+     */
+    void generar() {
+        if (implicaciones < 1 || constructs < 1 || universes < 1 || tamanoCiclo < 2 || ciclos < 0
+                || redundantes < 0 || redundantes >= 1) {
+            throw new IllegalArgumentException("Invalid generator options");
+        }
+        if (ciclos * tamanoCiclo > implicaciones) {
+            throw new IllegalArgumentException("The planted cycles need more implications than requested");
+        }
+        Random rnd = new Random(semilla);
+        int nLiterales = literales > 0 ? literales : Math.max(4, (implicaciones * 3) / 5);
+        // Los átomos de los ciclos se reservan: el esqueleto necesita al menos dos más
+        int reservados = ciclos * tamanoCiclo;
+        nLiterales = Math.max(nLiterales, reservados + 2);
+        int nVariables = variables > 0 ? variables : Math.max(4, nLiterales / 20);
+
+        for (int c = 1; c <= constructs; c++) {
+            colConstruct.add(new Construct("Construct " + c, "C" + c, "Synthetic"));
+        }
+        StringBuilder valores = new StringBuilder();
+        for (int v = 0; v < VALORES_ENUM; v++) {
+            valores.append(v == 0 ? "" : ", ").append("e").append(v);
+        }
+        for (int u = 0; u < universes; u++) {
+            Universe universe = switch (u % 3) {
+                case 0 ->
+                    new Universe("U" + (u + 1), "Enum (Scalar)", valores.toString(), new ArrayList<>(), true, false, false, false, false, false);
+                case 1 ->
+                    new Universe("U" + (u + 1), "Real", 0, 100, new ArrayList<>(), true, true, false, false, true, false);
+                default ->
+                    new Universe("U" + (u + 1), "Bool", new ArrayList<>(), true, false, false, false, false, false);
+            };
+            colUniverse.add(universe);
+        }
+        for (int v = 1; v <= nVariables; v++) {
+            Construct construct = colConstruct.getModelElement().get(rnd.nextInt(constructs));
+            Universe universe = colUniverse.getModelElement().get(rnd.nextInt(universes));
+            colVariable.add(new Variable("Variable " + v, "V" + v, construct, universe));
+        }
+
+        List<Atomo> atomos = generarAtomos(nLiterales, rnd);
+        int n = atomos.size();
+        if (n - reservados < 2) {
+            throw new IllegalArgumentException("Not enough distinct literals for the requested theory");
+        }
+        // atomos está barajado: el índice es el rango, la polaridad es fija por átomo
+        boolean[] polaridad = new boolean[n];
+        for (int a = 0; a < n; a++) {
+            polaridad[a] = rnd.nextBoolean();
+        }
+
+        int nCiclos = ciclos * tamanoCiclo;
+        int nRedundantes = (int) Math.round((implicaciones - nCiclos) * redundantes);
+        int nBase = implicaciones - nCiclos - nRedundantes;
+
+        Set<Long> usadas = new HashSet<>();
+        List<int[]> lista = new ArrayList<>();
+        List<List<Integer>> sucesores = new ArrayList<>(n);
+        for (int a = 0; a < n; a++) {
+            sucesores.add(new ArrayList<>());
+        }
+
+        // Esqueleto acíclico: siempre de un rango menor a uno mayor, fuera de los átomos reservados
+        int intentos = 0;
+        while (lista.size() < nBase && intentos < nBase * 20) {
+            intentos++;
+            int a = reservados + rnd.nextInt(n - reservados - 1);
+            int b = a + 1 + rnd.nextInt(Math.min(VENTANA, n - a - 1));
+            if (usadas.add(((long) a << 32) | b)) {
+                lista.add(new int[]{a, b});
+                sucesores.get(a).add(b);
+            }
+        }
+
+        // Implicaciones redundantes: atajos de caminos a -> b -> c
+        int base = lista.size();
+        intentos = 0;
+        int redundantesHechas = 0;
+        while (redundantesHechas < nRedundantes && base > 0 && intentos < nRedundantes * 20) {
+            intentos++;
+            int[] ab = lista.get(rnd.nextInt(base));
+            List<Integer> deB = sucesores.get(ab[1]);
+            if (deB.isEmpty()) {
+                continue;
+            }
+            int c = deB.get(rnd.nextInt(deB.size()));
+            if (usadas.add(((long) ab[0] << 32) | c)) {
+                lista.add(new int[]{ab[0], c});
+                redundantesHechas++;
+            }
+        }
+
+        // Ciclos plantados sobre los átomos reservados (atomos ya está barajado)
+        for (int c = 0; c < ciclos; c++) {
+            for (int k = 0; k < tamanoCiclo; k++) {
+                int a = c * tamanoCiclo + k;
+                int b = c * tamanoCiclo + (k + 1) % tamanoCiclo;
+                lista.add(new int[]{a, b});
+            }
+        }
+
+        Collections.shuffle(lista, rnd);
+        for (int[] ab : lista) {
+            Atomo x = atomos.get(ab[0]);
+            Atomo y = atomos.get(ab[1]);
+            colImplication.add(new Implication(x.variable(), x.relacion(), x.valor(), !polaridad[ab[0]], false,
+                    y.variable(), y.relacion(), y.valor(), !polaridad[ab[1]], false));
+        }
+    }
+
+    /**
+     * Checks that the initial implication graph of the generated theory
+     * (implications and contrapositives) has exactly {@code 2 * ciclos}
+     * strongly connected components of more than one literal, all of
+     * {@code tamanoCiclo} literals.
+     *
+     * @throws IllegalStateException if the planted cycles were merged or lost
+     */
+    void comprobarCiclos() {
+        // Literal -> nodo; el nodo 2k es el átomo k y el 2k + 1 su negación
+        Map<String, Integer> atomosVistos = new HashMap<>();
+        ImplicationGraph.EdgeList aristas = new ImplicationGraph.EdgeList();
+        for (Implication implication : Collections.list(colImplication.getModelElement().elements())) {
+            int a = 2 * atomosVistos.computeIfAbsent(implication.getLiteral1(), k -> atomosVistos.size())
+                    + (implication.isNegated1() ? 1 : 0);
+            int b = 2 * atomosVistos.computeIfAbsent(implication.getLiteral2(), k -> atomosVistos.size())
+                    + (implication.isNegated2() ? 1 : 0);
+            aristas.add(a, b);
+            aristas.add(b ^ 1, a ^ 1);
+        }
+        TarjanCondensedGraph tarjan = new TarjanCondensedGraph(aristas.build(2 * atomosVistos.size(), false));
+        int[] scc = tarjan.computeSCCs();
+        int[] tamanos = new int[tarjan.getComponentCount()];
+        for (int componente : scc) {
+            tamanos[componente]++;
+        }
+        int encontrados = 0;
+        for (int tamano : tamanos) {
+            if (tamano > 1) {
+                if (tamano != tamanoCiclo) {
+                    throw new IllegalStateException("Found a cycle of " + tamano + " literals, expected " + tamanoCiclo);
+                }
+                encontrados++;
+            }
+        }
+        if (encontrados != 2 * ciclos) {
+            throw new IllegalStateException("Found " + encontrados + " cycles, expected " + 2 * ciclos);
+        }
+    }
+
+    /**
+     * Draws up to {@code cuantos} distinct atoms from the variables, in random
+     * order.
+     */
+    private List<Atomo> generarAtomos(int cuantos, Random rnd) {
+        Set<String> vistos = new HashSet<>();
+        List<Atomo> atomos = new ArrayList<>(cuantos);
+        int intentos = 0;
+        while (atomos.size() < cuantos && intentos < cuantos * 50) {
+            intentos++;
+            Variable variable = colVariable.getModelElement().get(rnd.nextInt(colVariable.size()));
+            Atomo atomo = switch (variable.getUniverse().getType()) {
+                case "Enum (Scalar)" ->
+                    new Atomo(variable, "=", "e" + rnd.nextInt(VALORES_ENUM));
+                case "Real" ->
+                    new Atomo(variable, switch (rnd.nextInt(3)) {
+                    case 0 ->
+                        "=";
+                    case 1 ->
+                        ">";
+                    default ->
+                        "<";
+                }, String.valueOf(rnd.nextInt(101)));
+                default ->
+                    new Atomo(variable, "=", rnd.nextBoolean() ? "True" : "False");
+            };
+            if (vistos.add(atomo.variable().getNickname() + " " + atomo.relacion() + " " + atomo.valor())) {
+                atomos.add(atomo);
+            }
+        }
+        return atomos;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package models;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.zip.GZIPInputStream;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+/**
+ * Reads the <code>.sgb</code> session files written by SynT.
+ * <p>
+ * The loader only fills {@link ColElements} collections, so it can be used
+ * both by the user interface and by batch runs that create no Swing
+ * components. Files whose name ends with <code>.gz</code> are read as gzip
+ * compressed sessions.
+ * </p>
+ */
+public class TheoryLoader {
+
+    /**
+     * Loads a session file into the given collections. Every collection is
+     * emptied first.
+     *
+     * @param fileToLoad the <code>.sgb</code> file to read
+     * @param colConstruct constructs of the session
+     * @param colFunction functions of the session
+     * @param colUniverse universes of the session
+     * @param colVariable variables of the session
+     * @param colImplication implications of the session
+     * @throws JSONException if the JSON structure is invalid or missing fields
+     * @throws IOException if the file cannot be read
+     */
+    public static void cargar(File fileToLoad, ColElements<Construct> colConstruct, ColElements<Function> colFunction,
+            ColElements<Universe> colUniverse, ColElements<Variable> colVariable,
+            ColElements<Implication> colImplication) throws JSONException, IOException {
+        JSONObject json;
+        try (Reader reader = abrirLector(fileToLoad)) {
+            json = new JSONObject(new JSONTokener(reader));
+        }
+
+        /* //////////////////////// Constructs //////////////////////////// */
+        JSONArray jConstructs = json.getJSONArray("Constructs");
+
+        colConstruct.empty();
+        for (int i = 0; i < jConstructs.length(); i++) {
+            Construct construct = new Construct(jConstructs.getJSONObject(i).getString("Name"), jConstructs.getJSONObject(i).getString("From"), jConstructs.getJSONObject(i).getString("Scope"));
+            colConstruct.add(construct);
+        }
+
+        /* //////////////////////// Functions //////////////////////////// */
+        JSONArray jFunctions = json.getJSONArray("Functions");
+
+        colFunction.empty();
+        for (int i = 0; i < jFunctions.length(); i++) {
+            Function function = new Function(jFunctions.getJSONObject(i).getString("Name"), jFunctions.getJSONObject(i).getInt("Aridad"));
+            colFunction.add(function);
+        }
+
+        /* //////////////////////// Universes //////////////////////////// */
+        JSONArray jUniverses = json.getJSONArray("Universes");
+
+        colUniverse.empty();
+        for (int i = 0; i < jUniverses.length(); i++) {
+
+            JSONArray jUniFunction = jUniverses.getJSONObject(i).getJSONArray("Functions");
+            ArrayList<Function> ALFunctions = new ArrayList<>();
+            for (int j = 0; j < jUniFunction.length(); j++) {
+                ALFunctions.add(new Function(jUniFunction.getJSONObject(j).getString("Name"), jUniFunction.getJSONObject(j).getInt("Aridad")));
+            }
+
+            Universe universe = switch (jUniverses.getJSONObject(i).getString("Type")) {
+                case "Enum (Scalar)", "Enum (Collection)" ->
+                    new Universe(jUniverses.getJSONObject(i).getString("Name"), jUniverses.getJSONObject(i).getString("Type"), jUniverses.getJSONObject(i).getString("ValueEnum"), ALFunctions, jUniverses.getJSONObject(i).getBoolean("Equal"), jUniverses.getJSONObject(i).getBoolean("Greater"), jUniverses.getJSONObject(i).getBoolean("Greater_equal"), jUniverses.getJSONObject(i).getBoolean("Not_equal"), jUniverses.getJSONObject(i).getBoolean("Less"), jUniverses.getJSONObject(i).getBoolean("Less_equal"));
+                case "Real" ->
+                    new Universe(jUniverses.getJSONObject(i).getString("Name"), jUniverses.getJSONObject(i).getString("Type"), jUniverses.getJSONObject(i).getDouble("ValueMin"), jUniverses.getJSONObject(i).getDouble("ValueMax"), ALFunctions, jUniverses.getJSONObject(i).getBoolean("Equal"), jUniverses.getJSONObject(i).getBoolean("Greater"), jUniverses.getJSONObject(i).getBoolean("Greater_equal"), jUniverses.getJSONObject(i).getBoolean("Not_equal"), jUniverses.getJSONObject(i).getBoolean("Less"), jUniverses.getJSONObject(i).getBoolean("Less_equal"));
+                case "Bool" ->
+                    new Universe(jUniverses.getJSONObject(i).getString("Name"), jUniverses.getJSONObject(i).getString("Type"), ALFunctions, jUniverses.getJSONObject(i).getBoolean("Equal"), jUniverses.getJSONObject(i).getBoolean("Greater"), jUniverses.getJSONObject(i).getBoolean("Greater_equal"), jUniverses.getJSONObject(i).getBoolean("Not_equal"), jUniverses.getJSONObject(i).getBoolean("Less"), jUniverses.getJSONObject(i).getBoolean("Less_equal"));
+                default ->
+                    throw new AssertionError();
+            };
+            colUniverse.add(universe);
+        }
+
+        /* ///////////////////////////// Variables ///////////////////////// */
+        JSONArray jVariables = json.getJSONArray("Variables");
+
+        colVariable.empty();
+        for (int i = 0; i < jVariables.length(); i++) {
+            Construct lConstruct = colConstruct.findName(jVariables.getJSONObject(i).getString("ConstructName"));
+            Universe lUniverse = colUniverse.findName(jVariables.getJSONObject(i).getString("UniverseName"));
+            Variable variable = new Variable(jVariables.getJSONObject(i).getString("Name"), jVariables.getJSONObject(i).getString("Nickname"), lConstruct, lUniverse);
+            colVariable.add(variable);
+        }
+
+        /* ////////////////////// Implicaciones //////////////////////////////// */
+        JSONArray jImplications = json.getJSONArray("Implications");
+
+        colImplication.empty(); // Clear the list
+
+        for (int i = 0; i < jImplications.length(); i++) {
+
+            Implication implication = new Implication(colVariable.find(jImplications.getJSONObject(i).getString("Variable1"), Variable::getNickname),
+                    jImplications.getJSONObject(i).getString("Relation1"),
+                    jImplications.getJSONObject(i).getString("Value1"),
+                    jImplications.getJSONObject(i).getBoolean("Negated1"),
+                    jImplications.getJSONObject(i).getBoolean("ValueFunction1"),
+                    colVariable.find(jImplications.getJSONObject(i).getString("Variable2"), Variable::getNickname),
+                    jImplications.getJSONObject(i).getString("Relation2"),
+                    jImplications.getJSONObject(i).getString("Value2"),
+                    jImplications.getJSONObject(i).getBoolean("Negated2"),
+                    jImplications.getJSONObject(i).getBoolean("ValueFunction2"));
+
+            colImplication.add(implication);
+        }
+    }
+
+    /**
+     * Opens a buffered reader on a session file, decompressing it when its
+     * name ends with <code>.gz</code>.
+     */
+    private static Reader abrirLector(File fichero) throws IOException {
+        InputStream in = new FileInputStream(fichero);
+        if (fichero.getName().endsWith(".gz")) {
+            try {
+                in = new GZIPInputStream(in, 1 << 16);
+            } catch (IOException ex) {
+                in.close();
+                throw ex;
+            }
+        }
+        return new BufferedReader(new InputStreamReader(in, Charset.defaultCharset()), 1 << 16);
+    }
+}
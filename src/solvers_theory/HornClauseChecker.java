@@ -13,6 +13,7 @@ literales negativos, pero solo uno positivo.
 public class HornClauseChecker {
 
     // Método que verifica si una cláusula es una cláusula Horn
+    // (solo "!" niega; HornSAT.esHorn acepta además "~" y "¬" e ignora literales vacíos)
     public static boolean esHornClause(String clausula) {
         // Dividir la cláusula en literales (asumimos que los literales están separados por "OR" o por comas)
         String[] literales = clausula.split("\\|");
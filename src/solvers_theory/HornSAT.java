@@ -0,0 +1,371 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package solvers_theory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Horn-SAT solver with the linear-time unit propagation of Dowling and
+ * Gallier.
+ * <p>
+ * Clauses are written {@code "!a | !b | c"} (negation with {@code !},
+ * {@code ~} or {@code ¬}) and must have at most one positive literal. Atoms
+ * are interned once to {@code int} ids and every clause is stored as its
+ * head atom ({@code -1} for a goal clause without positive literal) and its
+ * body atoms in flat arrays. {@link #resolver()} keeps, per clause, the
+ * number of body atoms not yet derived and, per atom, the list of clauses
+ * whose body contains it; every derived atom visits its list once, so the
+ * whole propagation costs O(total clause size).
+ * </p>
+ * <p>
+ * The result is the minimal model of the definite clauses, or the goal
+ * clause violated by it. An atom is implied by a satisfiable Horn theory
+ * exactly when it is in the minimal model ({@link #implica(String)}).
+ * </p>
+ */
+public class HornSAT {
+
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final List<String> atomos = new ArrayList<>();
+
+    /** Head atom of every clause, {@code -1} for goal clauses. */
+    private int[] cabeza = new int[16];
+    /** Body of clause {@code c}: {@code cuerpo[inicio[c] .. inicio[c + 1])}. */
+    private int[] inicio = new int[17];
+    private int[] cuerpo = new int[64];
+    private int nClausulas;
+
+    private boolean resuelto;
+    private boolean satisfacible;
+    private boolean[] verdadero = new boolean[0];
+    private int conflicto = -1;
+
+    /**
+     * Indicates whether a clause has at most one positive literal.
+     *
+     * @param clausula literals separated by {@code |}
+     * @return {@code true} for a Horn clause
+     */
+    public static boolean esHorn(String clausula) {
+        int positivos = 0;
+        int i = 0;
+        int n = clausula.length();
+        while (i < n) {
+            int fin = clausula.indexOf('|', i);
+            if (fin < 0) {
+                fin = n;
+            }
+            int desde = saltarEspacios(clausula, i, fin);
+            if (desde < fin && !esNegacion(clausula.charAt(desde)) && ++positivos > 1) {
+                return false;
+            }
+            i = fin + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the id of an atom, interning it if it is new.
+     *
+     * @param atomo atom name, without negation
+     * @return atom id
+     */
+    public int atomo(String atomo) {
+        Integer k = indices.get(atomo);
+        if (k == null) {
+            k = atomos.size();
+            indices.put(atomo, k);
+            atomos.add(atomo);
+        }
+        return k;
+    }
+
+    /**
+     * Adds a clause given as text.
+     *
+     * @param clausula literals separated by {@code |}
+     * @return clause index
+     * @throws IllegalArgumentException if the clause is empty or has more
+     *                                  than one positive literal
+     */
+    public int agregar(String clausula) {
+        // Se valida toda la cláusula antes de internar átomos: una cláusula rechazada no deja átomos
+        List<String> literales = new ArrayList<>();
+        int posicionCabeza = -1;
+        int i = 0;
+        int n = clausula.length();
+        while (i <= n) {
+            int fin = clausula.indexOf('|', i);
+            if (fin < 0) {
+                fin = n;
+            }
+            int desde = saltarEspacios(clausula, i, fin);
+            int hasta = fin;
+            while (hasta > desde && Character.isWhitespace(clausula.charAt(hasta - 1))) {
+                hasta--;
+            }
+            if (desde < hasta) {
+                boolean negado = esNegacion(clausula.charAt(desde));
+                if (negado) {
+                    desde = saltarEspacios(clausula, desde + 1, hasta);
+                }
+                if (desde == hasta) {
+                    throw new IllegalArgumentException("Literal vacío en la cláusula: " + clausula);
+                }
+                if (!negado) {
+                    if (posicionCabeza >= 0) {
+                        throw new IllegalArgumentException("La cláusula no es Horn: " + clausula);
+                    }
+                    posicionCabeza = literales.size();
+                }
+                literales.add(clausula.substring(desde, hasta));
+            }
+            i = fin + 1;
+        }
+        if (literales.isEmpty()) {
+            throw new IllegalArgumentException("Cláusula vacía: " + clausula);
+        }
+        int enCuerpo = literales.size() - (posicionCabeza >= 0 ? 1 : 0);
+        int desdeCuerpo = inicio[nClausulas];
+        if (desdeCuerpo + enCuerpo > cuerpo.length) {
+            cuerpo = Arrays.copyOf(cuerpo, Math.max(cuerpo.length * 2, desdeCuerpo + enCuerpo));
+        }
+        // Átomos internados en el orden del texto
+        int cabezaClausula = -1;
+        int k = desdeCuerpo;
+        for (int l = 0; l < literales.size(); l++) {
+            int a = atomo(literales.get(l));
+            if (l == posicionCabeza) {
+                cabezaClausula = a;
+            } else {
+                cuerpo[k++] = a;
+            }
+        }
+        return cerrarClausula(cabezaClausula, enCuerpo);
+    }
+
+    /**
+     * Adds a clause given by atom ids.
+     *
+     * @param cabezaClausula head atom, or {@code -1} for a goal clause
+     * @param cuerpoClausula body atoms (the negative literals)
+     * @return clause index
+     * @throws IllegalArgumentException if an atom id is unknown or the
+     *                                  clause is empty
+     */
+    public int agregar(int cabezaClausula, int... cuerpoClausula) {
+        if (cabezaClausula < -1 || cabezaClausula >= atomos.size()) {
+            throw new IllegalArgumentException("Átomo desconocido: " + cabezaClausula);
+        }
+        if (cabezaClausula < 0 && cuerpoClausula.length == 0) {
+            throw new IllegalArgumentException("Cláusula vacía");
+        }
+        int desdeCuerpo = inicio[nClausulas];
+        if (desdeCuerpo + cuerpoClausula.length > cuerpo.length) {
+            cuerpo = Arrays.copyOf(cuerpo, Math.max(cuerpo.length * 2, desdeCuerpo + cuerpoClausula.length));
+        }
+        for (int k = 0; k < cuerpoClausula.length; k++) {
+            int a = cuerpoClausula[k];
+            if (a < 0 || a >= atomos.size()) {
+                throw new IllegalArgumentException("Átomo desconocido: " + a);
+            }
+            cuerpo[desdeCuerpo + k] = a;
+        }
+        return cerrarClausula(cabezaClausula, cuerpoClausula.length);
+    }
+
+    private int cerrarClausula(int cabezaClausula, int enCuerpo) {
+        if (nClausulas + 1 == cabeza.length) {
+            cabeza = Arrays.copyOf(cabeza, cabeza.length * 2);
+            inicio = Arrays.copyOf(inicio, inicio.length * 2);
+        }
+        cabeza[nClausulas] = cabezaClausula;
+        inicio[nClausulas + 1] = inicio[nClausulas] + enCuerpo;
+        resuelto = false;
+        return nClausulas++;
+    }
+
+    /**
+     * Runs the unit propagation over every clause added so far.
+     *
+     * @return {@code true} if the clauses are satisfiable
+     */
+    public boolean resolver() {
+        int n = atomos.size();
+        // Lista de ocurrencias: cláusulas cuyo cuerpo contiene cada átomo
+        int[] ocurrenciasInicio = new int[n + 1];
+        int total = inicio[nClausulas];
+        for (int e = 0; e < total; e++) {
+            ocurrenciasInicio[cuerpo[e] + 1]++;
+        }
+        for (int a = 0; a < n; a++) {
+            ocurrenciasInicio[a + 1] += ocurrenciasInicio[a];
+        }
+        int[] ocurrencias = new int[total];
+        int[] llenado = Arrays.copyOf(ocurrenciasInicio, n);
+        int[] pendientes = new int[nClausulas];
+        for (int c = 0; c < nClausulas; c++) {
+            pendientes[c] = inicio[c + 1] - inicio[c];
+            for (int e = inicio[c]; e < inicio[c + 1]; e++) {
+                ocurrencias[llenado[cuerpo[e]]++] = c;
+            }
+        }
+
+        verdadero = new boolean[n];
+        conflicto = -1;
+        int[] cola = new int[n];
+        int fin = 0;
+        // Hechos y objetivos vacíos de cuerpo
+        for (int c = 0; c < nClausulas && conflicto < 0; c++) {
+            if (pendientes[c] == 0) {
+                fin = disparar(c, cola, fin);
+            }
+        }
+        for (int cabezaCola = 0; cabezaCola < fin && conflicto < 0; cabezaCola++) {
+            int a = cola[cabezaCola];
+            for (int o = ocurrenciasInicio[a]; o < ocurrenciasInicio[a + 1]; o++) {
+                int c = ocurrencias[o];
+                if (--pendientes[c] == 0) {
+                    fin = disparar(c, cola, fin);
+                    if (conflicto >= 0) {
+                        break;
+                    }
+                }
+            }
+        }
+        satisfacible = conflicto < 0;
+        resuelto = true;
+        return satisfacible;
+    }
+
+    /**
+     * Fires clause {@code c}, whose body is already true: derives its head,
+     * or records the conflict for a goal clause.
+     */
+    private int disparar(int c, int[] cola, int fin) {
+        int h = cabeza[c];
+        if (h < 0) {
+            conflicto = c;
+        } else if (!verdadero[h]) {
+            verdadero[h] = true;
+            cola[fin++] = h;
+        }
+        return fin;
+    }
+
+    /**
+     * Indicates whether the clauses are satisfiable, solving them if needed.
+     *
+     * @return {@code true} if satisfiable
+     */
+    public boolean isSatisfacible() {
+        if (!resuelto) {
+            resolver();
+        }
+        return satisfacible;
+    }
+
+    /**
+     * Returns the atoms of the minimal model (the atoms derived before the
+     * conflict when the clauses are unsatisfiable).
+     *
+     * @return derived atoms, in interning order
+     */
+    public List<String> getModelo() {
+        isSatisfacible();
+        List<String> modelo = new ArrayList<>();
+        for (int a = 0; a < verdadero.length; a++) {
+            if (verdadero[a]) {
+                modelo.add(atomos.get(a));
+            }
+        }
+        return modelo;
+    }
+
+    /**
+     * Returns the goal clause violated by the minimal model.
+     *
+     * @return clause index, or {@code -1} if the clauses are satisfiable
+     */
+    public int getClausulaConflicto() {
+        isSatisfacible();
+        return conflicto;
+    }
+
+    /**
+     * Indicates whether the clauses imply an atom: they are unsatisfiable,
+     * or the atom is in their minimal model.
+     *
+     * @param atomo atom name
+     * @return {@code true} if every model makes the atom true
+     */
+    public boolean implica(String atomo) {
+        if (!isSatisfacible()) {
+            return true;
+        }
+        Integer k = indices.get(atomo);
+        return k != null && k < verdadero.length && verdadero[k];
+    }
+
+    /**
+     * Returns the number of clauses.
+     *
+     * @return clause count
+     */
+    public int size() {
+        return nClausulas;
+    }
+
+    /**
+     * Returns a clause in text form.
+     *
+     * @param c clause index
+     * @return the clause, negative literals first
+     */
+    public String clausula(int c) {
+        StringBuilder sb = new StringBuilder();
+        for (int e = inicio[c]; e < inicio[c + 1]; e++) {
+            if (sb.length() > 0) {
+                sb.append(" | ");
+            }
+            sb.append('!').append(atomos.get(cuerpo[e]));
+        }
+        if (cabeza[c] >= 0) {
+            if (sb.length() > 0) {
+                sb.append(" | ");
+            }
+            sb.append(atomos.get(cabeza[c]));
+        }
+        return sb.toString();
+    }
+
+    private static boolean esNegacion(char c) {
+        return c == '!' || c == '~' || c == '¬';
+    }
+
+    private static int saltarEspacios(String s, int desde, int hasta) {
+        while (desde < hasta && Character.isWhitespace(s.charAt(desde))) {
+            desde++;
+        }
+        return desde;
+    }
+
+    public static void main(String[] args) {
+        HornSAT horn = new HornSAT();
+        horn.agregar("x1");
+        horn.agregar("!x1 | x2");
+        horn.agregar("!x1 | !x2 | x3");
+        horn.agregar("!x4 | x5");
+        System.out.println("Factible? " + horn.resolver() + ", modelo minimo: " + horn.getModelo());
+        System.out.println("Implica x3? " + horn.implica("x3") + ", implica x5? " + horn.implica("x5"));
+
+        horn.agregar("!x2 | !x3");
+        System.out.println("Factible? " + horn.resolver() + ", conflicto: " + horn.clausula(horn.getClausulaConflicto()));
+    }
+}
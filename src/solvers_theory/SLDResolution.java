@@ -6,7 +6,35 @@ package solvers_theory;
 
 import java.util.*;
 
-class SLDResolution {
+/**
+ * Tabled SLD resolution over function-free (Datalog) programs.
+ * <p>
+ * Clauses are written {@code "p(X, a) :- q(X), r(a)"}; variables start with
+ * an uppercase letter or {@code _}, anything else is a constant, and every
+ * occurrence of {@code _} is a distinct anonymous variable. Every variable of
+ * the head must appear in the body (range restriction), so every answer is
+ * ground. Clauses are
+ * compiled once: predicates ({@code name/arity}) and constants are interned
+ * to {@code int} ids and every literal becomes an {@code int[]} whose
+ * arguments are constant ids ({@code >= 0}) or clause variables
+ * ({@code -1 - k}). Clauses are indexed by predicate and, for the candidate
+ * lookup of a call with a constant first argument, by that constant.
+ * </p>
+ * <p>
+ * Every call is tabled by its variant (constants kept, variables numbered by
+ * first occurrence): the first call of a variant schedules the clauses of
+ * its predicate, and every later call of the same variant, including a left
+ * recursive one, consumes the answers of that table instead of resolving
+ * again. A call suspends as a consumer of the table and is resumed with
+ * every new answer. The resolution runs on an explicit stack of goal states
+ * (clause, body position, bindings); the bindings of each unification are
+ * recorded on a trail and undone on backtracking. There is no recursion, so
+ * deep derivations do not grow the Java stack, and since a Datalog program
+ * has finitely many answers every query terminates. Tables survive between
+ * queries until a clause is added.
+ * </p>
+ */
+public class SLDResolution {
 
     static class Clause {
 
@@ -24,65 +52,512 @@ class SLDResolution {
         }
     }
 
-    // Método de unificación simple
-    public static Map<String, String> unify(String goal, String ruleHead) {
-        Map<String, String> substitution = new HashMap<>();
-        String[] goalParts = goal.split("\\(");
-        String[] ruleParts = ruleHead.split("\\(");
+    /**
+     * Compiled clause: literals are {@code {predicate, arg1, ..., argN}}.
+     */
+    private static final class Clausula {
+
+        final int[] cabeza;
+        final int[][] cuerpo;
+        final int nVariables;
+
+        Clausula(int[] cabeza, int[][] cuerpo, int nVariables) {
+            this.cabeza = cabeza;
+            this.cuerpo = cuerpo;
+            this.nVariables = nVariables;
+        }
+    }
+
+    /**
+     * Call variant: predicate and arguments, unbound variables numbered
+     * {@code -1, -2, ...} by first occurrence.
+     */
+    private static final class Variante {
 
-        if (goalParts[0].equals(ruleParts[0])) {
-            String goalArgs = goalParts.length > 1 ? goalParts[1].replace(")", "") : "";
-            String ruleArgs = ruleParts.length > 1 ? ruleParts[1].replace(")", "") : "";
+        final int[] literal;
+        final int hash;
+
+        Variante(int[] literal) {
+            this.literal = literal;
+            this.hash = Arrays.hashCode(literal);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Variante v && Arrays.equals(literal, v.literal);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 
-            String[] goalArgsArray = goalArgs.split(",");
-            String[] ruleArgsArray = ruleArgs.split(",");
+    /**
+     * Table of a call variant: its answers (ground argument tuples) and the
+     * suspended calls waiting for more.
+     */
+    private static final class Tabla {
 
-            if (goalArgsArray.length == ruleArgsArray.length) {
-                for (int i = 0; i < goalArgsArray.length; i++) {
-                    if (!goalArgsArray[i].equals(ruleArgsArray[i]) && !goalArgsArray[i].matches("[A-Za-z]+")) {
-                        return null; // No unificación posible
+        final int[] patron;
+        final List<int[]> respuestas = new ArrayList<>();
+        final Set<Variante> vistas = new HashSet<>();
+        List<Estado> consumidores = new ArrayList<>();
+        boolean completa;
+
+        Tabla(int[] patron) {
+            this.patron = patron;
+        }
+
+        /**
+         * Adds an answer if it is new and matches the repeated variables of
+         * the pattern.
+         */
+        boolean agregar(int[] respuesta) {
+            for (int j = 1; j < patron.length; j++) {
+                if (patron[j] < 0) {
+                    for (int k = j + 1; k < patron.length; k++) {
+                        if (patron[k] == patron[j] && respuesta[k] != respuesta[j]) {
+                            return false;
+                        }
                     }
-                    if (goalArgsArray[i].matches("[A-Za-z]+") && !goalArgsArray[i].equals(ruleArgsArray[i])) {
-                        substitution.put(goalArgsArray[i], ruleArgsArray[i]);
+                }
+            }
+            if (!vistas.add(new Variante(respuesta))) {
+                return false;
+            }
+            respuestas.add(respuesta);
+            return true;
+        }
+    }
+
+    /**
+     * Goal state: body literal {@code posicion} of {@code clausula}, under
+     * {@code ligaduras} ({@code -1} = unbound), produces answers for
+     * {@code productor}.
+     */
+    private static final class Estado {
+
+        final Tabla productor;
+        final Clausula clausula;
+        final int posicion;
+        final int[] ligaduras;
+
+        Estado(Tabla productor, Clausula clausula, int posicion, int[] ligaduras) {
+            this.productor = productor;
+            this.clausula = clausula;
+            this.posicion = posicion;
+            this.ligaduras = ligaduras;
+        }
+    }
+
+    private final Map<String, Integer> predicados = new HashMap<>();
+    private final List<String> nombresPredicados = new ArrayList<>();
+    private final Map<String, Integer> constantes = new HashMap<>();
+    private final List<String> nombresConstantes = new ArrayList<>();
+
+    /** Clauses of every predicate. */
+    private final List<List<Clausula>> porPredicado = new ArrayList<>();
+    /** Clauses by predicate and constant first argument. */
+    private final Map<Long, List<Clausula>> porPrimerArgumento = new HashMap<>();
+    /** Clauses of every predicate whose first argument is a variable. */
+    private final List<List<Clausula>> primerArgumentoVariable = new ArrayList<>();
+
+    private final Map<Variante, Tabla> tablas = new HashMap<>();
+    private final ArrayDeque<Estado> pila = new ArrayDeque<>();
+    private int[] trail = new int[16];
+    private int tope;
+
+    /**
+     * Adds a clause ({@code "head :- b1, b2"} or a fact {@code "head"}; a
+     * final {@code .} is ignored). The tables are discarded.
+     *
+     * @param clausula the clause
+     * @throws IllegalArgumentException if the clause cannot be parsed or a
+     *                                  head variable is not in the body
+     */
+    public void agregar(String clausula) {
+        String texto = clausula.strip();
+        if (texto.endsWith(".")) {
+            texto = texto.substring(0, texto.length() - 1);
+        }
+        int separador = texto.indexOf(":-");
+        Map<String, Integer> variables = new HashMap<>();
+        int[] cabeza = compilar(separador < 0 ? texto : texto.substring(0, separador), variables).get(0);
+        List<int[]> cuerpo = separador < 0 ? List.of() : compilar(texto.substring(separador + 2), variables);
+        agregar(new Clausula(cabeza, cuerpo.toArray(new int[0][]), variables.size()));
+    }
+
+    /**
+     * Adds a clause with its head and body literals.
+     *
+     * @param clause the clause
+     * @throws IllegalArgumentException if a literal cannot be parsed or a
+     *                                  head variable is not in the body
+     */
+    public void agregar(Clause clause) {
+        Map<String, Integer> variables = new HashMap<>();
+        int[] cabeza = compilar(clause.head, variables).get(0);
+        List<int[]> cuerpo = new ArrayList<>();
+        for (String literal : clause.body) {
+            cuerpo.addAll(compilar(literal, variables));
+        }
+        agregar(new Clausula(cabeza, cuerpo.toArray(new int[0][]), variables.size()));
+    }
+
+    private void agregar(Clausula clausula) {
+        // Restricción de rango: las respuestas deben quedar instanciadas
+        boolean[] enCuerpo = new boolean[clausula.nVariables];
+        for (int[] literal : clausula.cuerpo) {
+            for (int j = 1; j < literal.length; j++) {
+                if (literal[j] < 0) {
+                    enCuerpo[-1 - literal[j]] = true;
+                }
+            }
+        }
+        for (int j = 1; j < clausula.cabeza.length; j++) {
+            if (clausula.cabeza[j] < 0 && !enCuerpo[-1 - clausula.cabeza[j]]) {
+                throw new IllegalArgumentException("Cláusula no segura: la variable de la cabeza no aparece en el cuerpo");
+            }
+        }
+        int p = clausula.cabeza[0];
+        porPredicado.get(p).add(clausula);
+        if (clausula.cabeza.length > 1 && clausula.cabeza[1] >= 0) {
+            porPrimerArgumento.computeIfAbsent(((long) p << 32) | clausula.cabeza[1], k -> new ArrayList<>()).add(clausula);
+        } else {
+            primerArgumentoVariable.get(p).add(clausula);
+        }
+        tablas.clear();
+    }
+
+    /**
+     * Answers a conjunctive query ({@code "p(X), q(X, Y)"}).
+     *
+     * @param consulta the goals, separated by commas
+     * @return one substitution (variable name to constant) per distinct
+     *         answer, without the variables starting with {@code _}; a
+     *         single empty substitution for a true query without such
+     *         variables; empty if the query fails
+     * @throws IllegalArgumentException if the query cannot be parsed
+     */
+    public List<Map<String, String>> consultar(String consulta) {
+        Map<String, Integer> variables = new LinkedHashMap<>();
+        List<int[]> objetivos = compilar(consulta, variables);
+        return consultar(objetivos, variables);
+    }
+
+    /**
+     * Indicates whether the goals can be proved.
+     *
+     * @param goals the goals
+     * @return {@code true} if the conjunction has an answer
+     * @throws IllegalArgumentException if a goal cannot be parsed
+     */
+    public boolean resolver(List<String> goals) {
+        Map<String, Integer> variables = new LinkedHashMap<>();
+        List<int[]> objetivos = new ArrayList<>();
+        for (String goal : goals) {
+            objetivos.addAll(compilar(goal, variables));
+        }
+        return !consultar(objetivos, variables).isEmpty();
+    }
+
+    private List<Map<String, String>> consultar(List<int[]> objetivos, Map<String, Integer> variables) {
+        // La consulta es una cláusula "$consulta(V1..Vk) :- objetivos" con su propia tabla;
+        // la cabeza solo lleva las variables con nombre que no empiezan por '_'
+        List<String> nombres = new ArrayList<>();
+        List<Integer> visibles = new ArrayList<>();
+        for (Map.Entry<String, Integer> variable : variables.entrySet()) {
+            if (variable.getKey().charAt(0) != '_') {
+                nombres.add(variable.getKey());
+                visibles.add(variable.getValue());
+            }
+        }
+        int k = visibles.size();
+        int[] cabeza = new int[k + 1];
+        cabeza[0] = -1;
+        for (int v = 0; v < k; v++) {
+            cabeza[v + 1] = -1 - visibles.get(v);
+        }
+        Clausula clausula = new Clausula(cabeza, objetivos.toArray(new int[0][]), variables.size());
+        Tabla raiz = new Tabla(cabeza);
+        int[] ligaduras = new int[variables.size()];
+        Arrays.fill(ligaduras, -1);
+        try {
+            pila.push(new Estado(raiz, clausula, 0, ligaduras));
+            ejecutar();
+        } finally {
+            // Tras un error no deben quedar estados ni tablas a medio llenar
+            pila.clear();
+            tope = 0;
+            tablas.values().removeIf(tabla -> !tabla.completa);
+        }
+
+        List<Map<String, String>> resultado = new ArrayList<>(raiz.respuestas.size());
+        for (int[] respuesta : raiz.respuestas) {
+            Map<String, String> sustitucion = new LinkedHashMap<>();
+            for (int v = 0; v < k; v++) {
+                sustitucion.put(nombres.get(v), nombresConstantes.get(respuesta[v + 1]));
+            }
+            resultado.add(sustitucion);
+        }
+        return resultado;
+    }
+
+    /**
+     * Processes goal states until none is left, then marks every table as
+     * complete.
+     */
+    private void ejecutar() {
+        while (!pila.isEmpty()) {
+            Estado estado = pila.pop();
+            Clausula c = estado.clausula;
+            if (estado.posicion == c.cuerpo.length) {
+                int[] respuesta = instanciar(c.cabeza, estado.ligaduras);
+                Tabla productor = estado.productor;
+                if (productor.agregar(respuesta)) {
+                    for (Estado consumidor : productor.consumidores) {
+                        reanudar(consumidor, respuesta);
                     }
                 }
-                return substitution;
+                continue;
+            }
+            int[] literal = c.cuerpo[estado.posicion];
+            Tabla tabla = llamar(literal, estado.ligaduras);
+            if (!tabla.completa) {
+                tabla.consumidores.add(estado);
+            }
+            for (int r = 0; r < tabla.respuestas.size(); r++) {
+                reanudar(estado, tabla.respuestas.get(r));
             }
         }
-        return null; // No hay coincidencia
+        for (Tabla tabla : tablas.values()) {
+            tabla.completa = true;
+            tabla.consumidores = List.of();
+        }
     }
 
-    // Resolver utilizando SLD
-    public static boolean resolve(List<Clause> program, List<String> goals) {
-        if (goals.isEmpty()) {
-            return true; // Consulta resuelta
+    /**
+     * Returns the table of a call, creating it and scheduling the candidate
+     * clauses of its predicate if the variant is new.
+     */
+    private Tabla llamar(int[] literal, int[] ligaduras) {
+        int[] patron = new int[literal.length];
+        patron[0] = literal[0];
+        int[] renombre = new int[ligaduras.length];
+        int libres = 0;
+        for (int j = 1; j < literal.length; j++) {
+            int t = valor(literal[j], ligaduras);
+            if (t >= 0) {
+                patron[j] = t;
+            } else {
+                int v = -1 - t;
+                if (renombre[v] == 0) {
+                    renombre[v] = ++libres;
+                }
+                patron[j] = -renombre[v];
+            }
         }
-        String goal = goals.get(0); // Tomamos el primer literal
-        for (Clause clause : program) {
-            Map<String, String> substitution = unify(goal, clause.head);
-            if (substitution != null) {
-                List<String> newGoals = new ArrayList<>(goals);
-                newGoals.remove(0); // Eliminar el primer literal
-                // Aplicamos sustitución a los cuerpos de la cláusula
-                List<String> newBody = new ArrayList<>();
-                for (String bodyLiteral : clause.body) {
-                    newBody.add(applySubstitution(bodyLiteral, substitution));
+        Variante variante = new Variante(patron);
+        Tabla tabla = tablas.get(variante);
+        if (tabla != null) {
+            return tabla;
+        }
+        tabla = new Tabla(patron);
+        tablas.put(variante, tabla);
+        int p = patron[0];
+        if (patron.length > 1 && patron[1] >= 0) {
+            programar(tabla, porPrimerArgumento.getOrDefault(((long) p << 32) | patron[1], List.of()));
+            programar(tabla, primerArgumentoVariable.get(p));
+        } else {
+            programar(tabla, porPredicado.get(p));
+        }
+        return tabla;
+    }
+
+    /**
+     * Pushes the clauses whose head unifies with the constants of the
+     * pattern.
+     */
+    private void programar(Tabla tabla, List<Clausula> candidatas) {
+        int[] patron = tabla.patron;
+        for (Clausula c : candidatas) {
+            int[] ligaduras = new int[c.nVariables];
+            Arrays.fill(ligaduras, -1);
+            int marca = tope;
+            boolean unifica = true;
+            for (int j = 1; j < patron.length && unifica; j++) {
+                if (patron[j] >= 0) {
+                    unifica = ligar(c.cabeza[j], patron[j], ligaduras);
                 }
-                newGoals.addAll(newBody);
-                if (resolve(program, newGoals)) {
-                    return true;
+            }
+            tope = marca; // las ligaduras son propias del estado nuevo: no hay nada que deshacer
+            if (unifica) {
+                pila.push(new Estado(tabla, c, 0, ligaduras));
+            }
+        }
+    }
+
+    /**
+     * Resumes a suspended call with one answer of its table: unifies the
+     * answer with the literal, pushes the next state with a copy of the
+     * bindings and undoes them through the trail.
+     */
+    private void reanudar(Estado estado, int[] respuesta) {
+        int[] literal = estado.clausula.cuerpo[estado.posicion];
+        int[] ligaduras = estado.ligaduras;
+        int marca = tope;
+        boolean unifica = true;
+        for (int j = 1; j < literal.length && unifica; j++) {
+            unifica = ligar(literal[j], respuesta[j], ligaduras);
+        }
+        if (unifica) {
+            pila.push(new Estado(estado.productor, estado.clausula, estado.posicion + 1, ligaduras.clone()));
+        }
+        while (tope > marca) {
+            ligaduras[trail[--tope]] = -1;
+        }
+    }
+
+    /**
+     * Unifies a clause term with a constant, recording new bindings on the
+     * trail.
+     */
+    private boolean ligar(int termino, int constante, int[] ligaduras) {
+        if (termino >= 0) {
+            return termino == constante;
+        }
+        int v = -1 - termino;
+        if (ligaduras[v] >= 0) {
+            return ligaduras[v] == constante;
+        }
+        ligaduras[v] = constante;
+        if (tope == trail.length) {
+            trail = Arrays.copyOf(trail, tope * 2);
+        }
+        trail[tope++] = v;
+        return true;
+    }
+
+    private static int valor(int termino, int[] ligaduras) {
+        return termino >= 0 || ligaduras[-1 - termino] < 0 ? termino : ligaduras[-1 - termino];
+    }
+
+    private int[] instanciar(int[] cabeza, int[] ligaduras) {
+        int[] respuesta = new int[cabeza.length];
+        respuesta[0] = cabeza[0];
+        for (int j = 1; j < cabeza.length; j++) {
+            respuesta[j] = valor(cabeza[j], ligaduras);
+        }
+        return respuesta;
+    }
+
+    /**
+     * Compiles a comma separated list of literals.
+     */
+    private List<int[]> compilar(String texto, Map<String, Integer> variables) {
+        List<int[]> literales = new ArrayList<>();
+        int i = 0;
+        int n = texto.length();
+        while (true) {
+            i = saltarEspacios(texto, i);
+            int inicioNombre = i;
+            while (i < n && texto.charAt(i) != '(' && texto.charAt(i) != ',' && !Character.isWhitespace(texto.charAt(i))) {
+                i++;
+            }
+            String nombre = texto.substring(inicioNombre, i);
+            if (nombre.isEmpty()) {
+                throw new IllegalArgumentException("Literal no válido: " + texto);
+            }
+            List<Integer> argumentos = new ArrayList<>();
+            i = saltarEspacios(texto, i);
+            if (i < n && texto.charAt(i) == '(') {
+                i++;
+                while (true) {
+                    i = saltarEspacios(texto, i);
+                    int inicioArgumento = i;
+                    while (i < n && texto.charAt(i) != ',' && texto.charAt(i) != ')' && !Character.isWhitespace(texto.charAt(i))) {
+                        i++;
+                    }
+                    String argumento = texto.substring(inicioArgumento, i);
+                    if (argumento.isEmpty()) {
+                        throw new IllegalArgumentException("Argumento vacío: " + texto);
+                    }
+                    argumentos.add(termino(argumento, variables));
+                    i = saltarEspacios(texto, i);
+                    if (i < n && texto.charAt(i) == ',') {
+                        i++;
+                    } else if (i < n && texto.charAt(i) == ')') {
+                        i++;
+                        break;
+                    } else {
+                        throw new IllegalArgumentException("Falta ')': " + texto);
+                    }
                 }
             }
+            int[] literal = new int[argumentos.size() + 1];
+            literal[0] = predicado(nombre + "/" + argumentos.size());
+            for (int j = 0; j < argumentos.size(); j++) {
+                literal[j + 1] = argumentos.get(j);
+            }
+            literales.add(literal);
+            i = saltarEspacios(texto, i);
+            if (i >= n) {
+                return literales;
+            }
+            if (texto.charAt(i) != ',') {
+                throw new IllegalArgumentException("Se esperaba ',': " + texto);
+            }
+            i++;
+        }
+    }
+
+    private int termino(String nombre, Map<String, Integer> variables) {
+        char c = nombre.charAt(0);
+        if (nombre.equals("_")) {
+            // Variable anónima: cada aparición es nueva (la clave no puede ser un nombre leído)
+            int v = variables.size();
+            variables.put("_ " + v, v);
+            return -1 - v;
+        }
+        if (Character.isUpperCase(c) || c == '_') {
+            return -1 - variables.computeIfAbsent(nombre, v -> variables.size());
+        }
+        Integer k = constantes.get(nombre);
+        if (k == null) {
+            k = nombresConstantes.size();
+            constantes.put(nombre, k);
+            nombresConstantes.add(nombre);
+        }
+        return k;
+    }
+
+    private int predicado(String nombreAridad) {
+        Integer p = predicados.get(nombreAridad);
+        if (p == null) {
+            p = nombresPredicados.size();
+            predicados.put(nombreAridad, p);
+            nombresPredicados.add(nombreAridad);
+            porPredicado.add(new ArrayList<>());
+            primerArgumentoVariable.add(new ArrayList<>());
         }
-        return false; // No se pudo resolver
+        return p;
     }
 
-    // Aplicar la sustitución a un literal
-    public static String applySubstitution(String literal, Map<String, String> substitution) {
-        for (Map.Entry<String, String> entry : substitution.entrySet()) {
-            literal = literal.replace(entry.getKey(), entry.getValue());
+    private static int saltarEspacios(String s, int i) {
+        while (i < s.length() && Character.isWhitespace(s.charAt(i))) {
+            i++;
         }
-        return literal;
+        return i;
+    }
+
+    // Resolver utilizando SLD
+    public static boolean resolve(List<Clause> program, List<String> goals) {
+        SLDResolution motor = new SLDResolution();
+        for (Clause clause : program) {
+            motor.agregar(clause);
+        }
+        return motor.resolver(goals);
     }
 
     public static void main(String[] args) {
@@ -99,5 +574,14 @@ class SLDResolution {
         // Resolver la consulta
         boolean result = resolve(program, goals);
         System.out.println("Se resolvio la consulta? " + result);
+
+        // Regla recursiva por la izquierda: termina gracias a las tablas
+        SLDResolution motor = new SLDResolution();
+        motor.agregar("camino(X, Y) :- camino(X, Z), arco(Z, Y).");
+        motor.agregar("camino(X, Y) :- arco(X, Y).");
+        motor.agregar("arco(a, b).");
+        motor.agregar("arco(b, c).");
+        motor.agregar("arco(c, a).");
+        System.out.println("camino(a, Y): " + motor.consultar("camino(a, Y)"));
     }
 }
@@ -11,16 +11,26 @@ import java.util.*;
  * matrix by contracting (merging) strongly connected components (SCCs) into a
  * single node, and later being able to reconstruct (restore) those cycles.
  * <p>
- * Internally it works in "levels" (or "iterations"): each SCC merge produces a
- * new matrix and a new list of node names. Concrete implementations typically
- * keep this level history (matrices and node lists) to support the restore
- * step.
+ * The graph is kept as a CSR {@link ImplicationGraph}; all SCCs are found
+ * with a single Tarjan pass and collapsed at once into a DAG. The relation between the original nodes and the contracted graph is
+ * kept as a primitive provenance structure:
  * </p>
+ * <ul>
+ * <li>{@link #componentOf}: for each original node, the index of its node in
+ * the contracted matrix.</li>
+ * <li>{@link #membersOf}: for each node of the contracted matrix, the original
+ * nodes it stands for, in increasing order.</li>
+ * </ul>
  * <p>
- * Naming convention: when an SCC is merged, the combined node is represented as
- * the concatenation of the original node names separated by {@code "/"} (e.g.
- * {@code "A/B/C"}). This convention is later used to map indices during the
- * restore step.
+ * The restore step only uses these arrays, so mapping an index back is plain
+ * array indexing. Node labels are only built for display: a combined node is
+ * shown as the concatenation of the original node names separated by
+ * {@code "/"} (e.g. {@code "A/B/C"}).
+ * </p>
+ * <p>
+ * In the contracted matrix the nodes that are not part of any cycle keep
+ * their relative order and come first; the combined nodes follow in the order
+ * in which Tarjan emitted their SCCs.
  * </p>
  *
  * Note: the merge aggregates (sums) edges to/from the combined node. If your
@@ -31,47 +41,377 @@ import java.util.*;
  */
 public abstract class ArregloCiclos {
 
+    /** Node names provided to the constructor. */
+    protected final List<String> nodosIniciales;
+
+    /** Graph provided to the constructor. */
+    protected final ImplicationGraph grafoInicial;
+
+    /**
+     * Component id of every original node: {@code componentOf[u]} is the index
+     * of node {@code u} in {@link #getMatrizFusionCiclos()}.
+     */
+    protected final int[] componentOf;
+
+    /**
+     * Original nodes of every node of the contracted matrix, in increasing
+     * order. Nodes that are not part of a cycle have a single member.
+     */
+    protected final int[][] membersOf;
+
+    /** Contracted (acyclic) graph. */
+    protected final ImplicationGraph grafoFusion;
+
+    /** Matrix view of {@link #grafoFusion} (built on demand). */
+    private int[][] matrizFusion;
+
+    /** Display labels of the contracted matrix (built on demand). */
+    private List<String> nodosFusion;
+
+    /**
+     * Contracts every SCC of size &gt; 1 of {@code matrizAdj} in a single pass.
+     *
+     * @param matrizAdj square adjacency matrix (N x N).
+     * @param nodes list of node names; its size must be N and it must follow the
+     *              same order as the indices of {@code matrizAdj}.
+     */
+    protected ArregloCiclos(int[][] matrizAdj, List<String> nodes) {
+        this(ImplicationGraph.fromMatrix(matrizAdj), nodes);
+    }
+
+    /**
+     * Contracts every SCC of size &gt; 1 of {@code grafo} in a single pass.
+     *
+     * @param grafo implication graph with N nodes.
+     * @param nodes list of node names; its size must be N and it must follow the
+     *              same order as the nodes of {@code grafo}.
+     */
+    protected ArregloCiclos(ImplicationGraph grafo, List<String> nodes) {
+        this.nodosIniciales = nodes;
+        this.grafoInicial = grafo;
+        int n = grafo.size();
+
+        boolean[] enCiclo = new boolean[n];
+        List<int[]> ciclos = buscarCiclos(grafo, enCiclo);
+
+        // Ids de componente: primero los nodos sin ciclo, después los nodos combinados
+        int sueltos = 0;
+        for (int i = 0; i < n; i++) {
+            if (!enCiclo[i]) {
+                sueltos++;
+            }
+        }
+        componentOf = new int[n];
+        membersOf = new int[sueltos + ciclos.size()][];
+        int c = 0;
+        for (int i = 0; i < n; i++) {
+            if (!enCiclo[i]) {
+                componentOf[i] = c;
+                membersOf[c++] = new int[]{i};
+            }
+        }
+        for (int[] miembros : ciclos) {
+            for (int miembro : miembros) {
+                componentOf[miembro] = c;
+            }
+            membersOf[c++] = miembros;
+        }
+
+        // Grafo condensado: se suman las aristas que caen en la misma entrada
+        int[] offsets = grafo.outOffsets();
+        int[] targets = grafo.outTargets();
+        int[] weights = grafo.outWeights();
+        ImplicationGraph.EdgeList aristas = new ImplicationGraph.EdgeList();
+        for (int i = 0; i < n; i++) {
+            int ci = componentOf[i];
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                int cj = componentOf[targets[e]];
+                if (ci == cj) {
+                    continue; // arista interna del ciclo o bucle x -> x: no aporta al conjunto canónico
+                }
+                aristas.add(ci, cj, weights[e]);
+            }
+        }
+        grafoFusion = aristas.build(membersOf.length, true);
+    }
+
     /**
-     * Returns the current list of node labels for the working graph.
+     * Finds the SCCs with more than one node.
      * <p>
-     * Implementations typically return the node list corresponding to the most
-     * recent matrix produced by the cycle-contraction process.
+     * An acyclic graph is detected first with a linear DFS, so the Tarjan pass
+     * is only run when there is something to contract.
      * </p>
      *
-     * @return the list of node labels (index-aligned with the current adjacency matrix)
+     * @param grafo graph to inspect
+     * @param enCiclo receives {@code true} for every node that belongs to one
+     *                of the returned SCCs
+     * @return members of every SCC (increasing order), in Tarjan emission order
      */
-    public abstract List<String> getNodes();
+    private static List<int[]> buscarCiclos(ImplicationGraph grafo, boolean[] enCiclo) {
+        List<int[]> ciclos = new ArrayList<>();
+        if (!CycleDetectionDFSIterative.hasCycle(grafo)) {
+            return ciclos;
+        }
+        int n = grafo.size();
+        TarjanCondensedGraph g = new TarjanCondensedGraph(grafo);
+        int[] scc = g.computeSCCs();
+        int[] tamanos = new int[g.getComponentCount()];
+        for (int i = 0; i < n; i++) {
+            tamanos[scc[i]]++;
+        }
+        // Miembros de cada SCC con más de un nodo (recorrido creciente: ya ordenados)
+        int[][] miembrosSCC = new int[tamanos.length][];
+        int[] llenos = new int[tamanos.length];
+        for (int i = 0; i < n; i++) {
+            int s = scc[i];
+            if (tamanos[s] > 1) {
+                if (miembrosSCC[s] == null) {
+                    miembrosSCC[s] = new int[tamanos[s]];
+                }
+                miembrosSCC[s][llenos[s]++] = i;
+                enCiclo[i] = true;
+            }
+        }
+        for (int[] miembros : miembrosSCC) {
+            if (miembros != null) {
+                ciclos.add(miembros);
+            }
+        }
+        return ciclos;
+    }
+
+    /**
+     * Returns the list of node labels of the contracted graph.
+     * <p>
+     * Labels are built from {@link #membersOf} the first time they are
+     * requested; combined nodes use the {@code "n1/n2/..."} format.
+     * </p>
+     *
+     * @return the list of node labels (index-aligned with the contracted matrix)
+     */
+    public List<String> getNodes() {
+        if (nodosFusion == null) {
+            nodosFusion = new ArrayList<>(membersOf.length);
+            for (int[] miembros : membersOf) {
+                nodosFusion.add(etiqueta(miembros));
+            }
+        }
+        return nodosFusion;
+    }
 
     /**
      * Returns the adjacency matrix after contracting (merging) cycles.
      * <p>
-     * The returned matrix is expected to represent the graph after one or
-     * multiple SCC contractions.
+     * Important: this returns the internal reference. If you need
+     * immutability, make a copy before modifying it.
      * </p>
      *
      * @return the contracted adjacency matrix
      */
-    public abstract int[][] getMatrizFusionCiclos();
+    public int[][] getMatrizFusionCiclos() {
+        if (matrizFusion == null) {
+            matrizFusion = grafoFusion.toMatrix();
+        }
+        return matrizFusion;
+    }
+
+    /**
+     * Returns the contracted (acyclic) graph.
+     *
+     * @return the contracted graph, index-aligned with {@link #getNodes()}
+     */
+    public ImplicationGraph getGrafoFusionCiclos() {
+        return grafoFusion;
+    }
+
+    /**
+     * Returns the component id of every original node.
+     *
+     * @return {@code componentOf[u]} = index of node {@code u} in the
+     *         contracted matrix (internal reference)
+     */
+    public int[] getComponentOf() {
+        return componentOf;
+    }
+
+    /**
+     * Returns the original members of every node of the contracted matrix.
+     *
+     * @return {@code membersOf[c]} = original nodes of contracted node
+     *         {@code c}, in increasing order (internal reference)
+     */
+    public int[][] getMembersOf() {
+        return membersOf;
+    }
+
+    /**
+     * Builds the display label of a contracted node.
+     *
+     * @param miembros original members of the node
+     * @return the member names joined with {@code "/"}
+     */
+    protected String etiqueta(int[] miembros) {
+        if (miembros.length == 1) {
+            return nodosIniciales.get(miembros[0]);
+        }
+        StringBuilder nombre = new StringBuilder();
+        for (int miembro : miembros) {
+            if (nombre.length() > 0) {
+                nombre.append('/');
+            }
+            nombre.append(nodosIniciales.get(miembro));
+        }
+        return nombre.toString();
+    }
 
     /**
      * Restores (expands) the cycles previously contracted.
      * <p>
-     * Implementations use {@code matrizOriginal} and {@code nodosOriginal} as
-     * the ground truth to decide where edges must be reattached when expanding
-     * combined nodes (e.g. {@code "A/B/C"}). The matrix {@code matrizAExpandir}
-     * is the current working matrix that still contains combined nodes and will
-     * be expanded.
+     * Every edge {@code A -> B} of {@code matrizAExpandir} is placed on the
+     * original nodes using {@link #membersOf}:
      * </p>
+     * <ul>
+     *   <li>If both nodes are plain (non-combined) nodes, the edge is copied.</li>
+     *   <li>Otherwise an original edge {@code u -> v} of {@code matrizOriginal}
+     *       with {@code u} in {@code A} and {@code v} in {@code B} is chosen,
+     *       preferring the smallest indices (deterministic). If no such edge
+     *       exists an exception is thrown.</li>
+     *   <li>The internal edges of each combined node are restored by
+     *       {@link #restaurarAristasInternas(ImplicationGraph, int[], ImplicationGraph.EdgeList)}.</li>
+     *   <li>No self-loop is written and restored edges always have weight 1.</li>
+     * </ul>
      *
      * @param matrizOriginal reference/original adjacency matrix used as truth
      *                       for mapping/restoring edges
-     * @param matrizAExpandir adjacency matrix to expand/restore (may contain
-     *                        combined nodes)
+     * @param matrizAExpandir adjacency matrix to expand/restore (aligned with
+     *                        the contracted matrix)
      * @param nodosOriginal list of original node labels aligned with
      *                      {@code matrizOriginal}
      * @return a new adjacency matrix where contracted cycles have been restored
      * @throws Exception if the restore process cannot be completed consistently
      */
-    public abstract int[][] restaurarCiclos(int[][] matrizOriginal, int[][] matrizAExpandir, List<String> nodosOriginal) throws Exception;
+    public int[][] restaurarCiclos(int[][] matrizOriginal, int[][] matrizAExpandir, List<String> nodosOriginal) throws Exception {
+        if (matrizOriginal == null || matrizAExpandir == null || nodosOriginal == null) {
+            throw new IllegalArgumentException("restaurarCiclos: matrizOriginal, matrizAExpandir and nodosOriginal must be non-null.");
+        }
+        if (matrizOriginal.length != matrizOriginal[0].length) {
+            throw new IllegalArgumentException("restaurarCiclos: matrizOriginal must be square.");
+        }
+        if (matrizOriginal.length != nodosOriginal.size()) {
+            throw new IllegalArgumentException("restaurarCiclos: nodosOriginal size must match matrizOriginal dimension.");
+        }
+        return restaurarCiclos(ImplicationGraph.fromMatrix(matrizOriginal), ImplicationGraph.fromMatrix(matrizAExpandir)).toMatrix();
+    }
+
+    /**
+     * Restores (expands) the cycles previously contracted, working on CSR
+     * graphs.
+     *
+     * @param grafoOriginal original graph used as truth for mapping/restoring
+     *                      edges
+     * @param grafoAExpandir graph to expand/restore (aligned with the
+     *                       contracted graph)
+     * @return a new graph over the original nodes where contracted cycles have
+     *         been restored (all edges with weight 1)
+     * @throws Exception if the restore process cannot be completed consistently
+     * @see #restaurarCiclos(int[][], int[][], List)
+     */
+    public ImplicationGraph restaurarCiclos(ImplicationGraph grafoOriginal, ImplicationGraph grafoAExpandir) throws Exception {
+        if (grafoOriginal == null || grafoAExpandir == null) {
+            throw new IllegalArgumentException("restaurarCiclos: grafoOriginal and grafoAExpandir must be non-null.");
+        }
+        if (grafoOriginal.size() != componentOf.length) {
+            throw new IllegalArgumentException("restaurarCiclos: grafoOriginal must match the original graph dimension.");
+        }
+        if (grafoAExpandir.size() != membersOf.length) {
+            throw new IllegalArgumentException("restaurarCiclos: grafoAExpandir must match the contracted graph dimension.");
+        }
+
+        int m = membersOf.length;
+        int[] offsets = grafoAExpandir.outOffsets();
+        int[] targets = grafoAExpandir.outTargets();
+        ImplicationGraph.EdgeList restaurada = new ImplicationGraph.EdgeList();
+
+        // 1) Aristas entre nodos del grafo contraído
+        for (int a = 0; a < m; a++) {
+            for (int e = offsets[a]; e < offsets[a + 1]; e++) {
+                int b = targets[e];
+                if (a == b) {
+                    continue;
+                }
+                int[] origen = membersOf[a];
+                int[] destino = membersOf[b];
+                if (origen.length == 1 && destino.length == 1) {
+                    restaurada.add(origen[0], destino[0]);
+                } else if (!enlazarMiembros(grafoOriginal, a, b, restaurada)) {
+                    throw new Exception("restaurarCiclos: no original edge found from '" + etiqueta(origen)
+                            + "' to '" + etiqueta(destino) + "'.");
+                }
+            }
+        }
+
+        // 2) Aristas internas de cada ciclo
+        for (int[] miembros : membersOf) {
+            if (miembros.length > 1) {
+                restaurarAristasInternas(grafoOriginal, miembros, restaurada);
+            }
+        }
+        return restaurada.build(componentOf.length, false);
+    }
+
+    /**
+     * Writes the original edge that represents the contracted edge
+     * {@code a -> b}.
+     * <p>
+     * The node that was contracted later is anchored on its first member and
+     * the other side takes its smallest member with an original edge to (or
+     * from) that anchor. This matches the result of expanding the cycles one
+     * level at a time in reverse merge order. If the anchor has no such edge,
+     * the smallest original edge between both member sets is used.
+     * </p>
+     *
+     * @return {@code false} if the original matrix has no edge between both
+     *         member sets
+     */
+    private boolean enlazarMiembros(ImplicationGraph grafoOriginal, int a, int b, ImplicationGraph.EdgeList restaurada) {
+        int[] origen = membersOf[a];
+        int[] destino = membersOf[b];
+        if (a > b) {
+            int v = destino[0];
+            for (int u : origen) {
+                if (grafoOriginal.hasEdge(u, v)) {
+                    restaurada.add(u, v);
+                    return true;
+                }
+            }
+        } else {
+            int u = origen[0];
+            for (int v : destino) {
+                if (grafoOriginal.hasEdge(u, v)) {
+                    restaurada.add(u, v);
+                    return true;
+                }
+            }
+        }
+        for (int u : origen) {
+            for (int v : destino) {
+                if (grafoOriginal.hasEdge(u, v)) {
+                    restaurada.add(u, v);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Restores the edges among the members of one contracted cycle.
+     *
+     * @param grafoOriginal original graph
+     * @param miembros original nodes of the cycle, in increasing order
+     * @param restaurada restored edges (original indices, weight 1) to add to
+     * @throws Exception if the internal edges cannot be restored consistently
+     */
+    protected abstract void restaurarAristasInternas(ImplicationGraph grafoOriginal, int[] miembros, ImplicationGraph.EdgeList restaurada) throws Exception;
 
 }
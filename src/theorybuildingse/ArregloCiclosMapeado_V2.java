@@ -7,31 +7,27 @@ package theorybuildingse;
 import java.util.*;
 
 /**
- * Utility to remove cycles from a directed graph represented as an adjacency
- * matrix by contracting (merging) strongly connected components (SCCs) into a
- * single node, and later being able to reconstruct (restore) those cycles.
+ * Cycle contraction/restoration (version 2).
  * <p>
- * Internally it works in "levels" (or "iterations"): each SCC merge produces a
- * new matrix and a new list of node names. The level history is stored in
- * {@link #lMatrizAdj} and {@link #lOriginalNodes}.
+ * The contraction and the provenance arrays are provided by
+ * {@link ArregloCiclos}. When restoring, the internal edges of each cycle are
+ * taken from the original matrix and then greedily pruned (in {@code (u, v)}
+ * order) while the members stay strongly connected, so the restored cycle
+ * keeps only original edges.
  * </p>
  * <p>
- * Naming convention: when an SCC is merged, the combined node is represented as
- * the concatenation of the original node names separated by {@code "/"} (e.g.
- * {@code "A/B/C"}). This convention is later used to map indices during the
- * restore step.
+ * The per-level history of the old iterative merge (one level per merged SCC)
+ * is still available through {@link #getHistorialNodos()} and
+ * {@link #getHistorialMatrices()}. It is not needed by the restore step and is
+ * only rebuilt when requested.
  * </p>
  *
- * Note: the merge aggregates (sums) edges to/from the combined node. If your
- * matrix is binary (0/1), this sum can produce values &gt; 1 when multiple edges
- * collapse into the same entry.
- *
  * @author Sergio
  */
 public class ArregloCiclosMapeado_V2 extends ArregloCiclos {
 
     /**
-     * Level history of node-name lists.
+     * Level history of node-name lists (built on demand).
      * <ul>
      * <li>Index 0: original list provided to the constructor.</li>
      * <li>Last index: node list of the graph after merging cycles.</li>
@@ -42,7 +38,7 @@ public class ArregloCiclosMapeado_V2 extends ArregloCiclos {
     private final ArrayList<List<String>> lOriginalNodes = new ArrayList<>();
 
     /**
-     * Level history of adjacency matrices.
+     * Level history of adjacency matrices (built on demand).
      * <ul>
      * <li>Index 0: original matrix provided to the constructor.</li>
      * <li>Last index: resulting matrix without cycles (after SCC merges).</li>
@@ -50,15 +46,6 @@ public class ArregloCiclosMapeado_V2 extends ArregloCiclos {
      */
     private final ArrayList<int[][]> lMatrizAdj = new ArrayList<>();
 
-    /**
-     * Index of the level currently being processed.
-     * <p>
-     * During the merge phase it advances from 0 up to the last created level.
-     * During the restore phase it is set to traverse levels in reverse order.
-     * </p>
-     */
-    private int vueltaArreglos = 0;
-
     /**
      * Merges (contracts) a set of nodes that form a cycle/SCC into a single node.
      * <p>
@@ -67,8 +54,8 @@ public class ArregloCiclosMapeado_V2 extends ArregloCiclos {
      * the new node by combining (summing) weights.
      * </p>
      * <p>
-     * It also creates the next level in {@link #lOriginalNodes} by adding a
-     * combined name using the {@code "n1/n2/..."} format.
+     * Only used to rebuild the level history on demand
+     * ({@link #getHistorialMatrices()}).
      * </p>
      *
      * @param matriz adjacency matrix of the current level.
@@ -89,24 +76,11 @@ public class ArregloCiclosMapeado_V2 extends ArregloCiclos {
         // Mapeo de índices antiguos a nuevos
         Map<Integer, Integer> mapeo = new HashMap<>();
         int nuevoIndice = 0;
-        lOriginalNodes.add(new ArrayList<>());
         for (int i = 0; i < n; i++) {
             if (!nodosSeleccionados.contains(i)) {
                 mapeo.put(i, nuevoIndice++);
-                // Añado los nombre de los nodos no seleccionados
-                lOriginalNodes.get(vueltaArreglos + 1).add(lOriginalNodes.get(vueltaArreglos).get(i));
             }
         }
-        // Añado el nombre del nodo comun
-        String nodosSelectName = "";
-        for (Integer nodoSeleccionado : nodosSeleccionados) {
-//            System.out.println("lOriginalNodes.size:: " + lOriginalNodes.size());
-//            System.out.println("vueltaArreglos:: " + vueltaArreglos);
-//            System.out.println("lOriginalNodes.get(vueltaArreglos):: " + lOriginalNodes.get(vueltaArreglos).size());
-//            System.out.println("nodoSeleccionado:: " + nodoSeleccionado);
-            nodosSelectName += lOriginalNodes.get(vueltaArreglos).get(nodoSeleccionado) + "/";
-        }
-        lOriginalNodes.get(vueltaArreglos + 1).add(nodosSelectName.substring(0, nodosSelectName.length() - 1));
 
         mapeo.put(-1, nuevoNodoIndex); // -1 representa el nuevo nodo combinado
 
@@ -139,367 +113,173 @@ public class ArregloCiclosMapeado_V2 extends ArregloCiclos {
         return nuevaMatriz;
     }
 
-    // Divide un nombre combinado por '/' solo a nivel superior (fuera de corchetes).
-    private String[] dividirNombreCompuesto(String nombre) {
-        if (nombre == null || nombre.isEmpty()) {
-            return new String[]{nombre};
-        }
-        List<String> partes = new ArrayList<>();
-        StringBuilder actual = new StringBuilder();
-        int depth = 0;
-        for (int i = 0; i < nombre.length(); i++) {
-            char c = nombre.charAt(i);
-            if (c == '[') {
-                depth++;
-            } else if (c == ']') {
-                depth = Math.max(0, depth - 1);
-            }
-            if (c == '/' && depth == 0) {
-                partes.add(actual.toString());
-                actual.setLength(0);
-                continue;
-            }
-            actual.append(c);
-        }
-        partes.add(actual.toString());
-        if (partes.size() == 1) {
-            return new String[]{nombre};
-        }
-        return partes.toArray(new String[0]);
-    }
-
-    /**
-     * Maps an index (and a position within a combined name) from level
-     * {@link #vueltaArreglos} to the corresponding index in the previous level.
-     * <p>
-     * The mapping is name-based: if the current node is a combined node (e.g.
-     * {@code "A/B/C"}), {@code posicion} indicates which sub-node should be used.
-     * </p>
-     *
-     * @param nuevoNodo node index in the current (or restored) level. If it exceeds
-     *                  the size of the level list, it is clamped to the last index.
-     * @param posicion sub-node position within the combined name (result of
-     *                 {@code split("/")}).
-     * @return equivalent node index in the previous level.
-     * @throws Exception if the node/sub-node cannot be found in the previous level.
-     */
-    private int relacionNodos(int nuevoNodo, int posicion) throws Exception {
-        List<String> nodosIniciales = lOriginalNodes.get(vueltaArreglos - 1);
-
-//        System.out.println("lOriginalNodes size:: " + lOriginalNodes.size());
-//        System.out.println("vueltaArreglos:: " + vueltaArreglos);
-//        System.out.println("lOriginalNodes.get(vueltaArreglos) size:: " + lOriginalNodes.get(vueltaArreglos).size());
-//        System.out.println("nuevoNodo:: " + nuevoNodo);
-//        System.out.println("posicion:: " + posicion);
-        if (lOriginalNodes.get(vueltaArreglos).size() <= nuevoNodo) {
-            nuevoNodo = lOriginalNodes.get(vueltaArreglos).size() - 1;
-        }
-        String[] partesNodo = dividirNombreCompuesto(lOriginalNodes.get(vueltaArreglos).get(nuevoNodo));
-        String nodoBuscado = partesNodo[posicion];
-
-//        System.out.println("nodoBuscado:: " + nodoBuscado);
-        for (int i = 0; i < nodosIniciales.size(); i++) {
-            // System.out.println("nodosIniciales:: " + nodosIniciales.get(i));
-            String[] subNodos = dividirNombreCompuesto(nodosIniciales.get(i));
-            if (nodoBuscado.equals(nodosIniciales.get(i))) {
-                return i;
-            } else if (subNodos.length > 1) {
-                for (String subNodo : subNodos) {
-                    if (nodoBuscado.equals(subNodo)) {
-                        return i;
-                    }
-                }
-            }
-        }
-        throw new Exception("Error [ArregloCiclosSinMapedado_V2.realacionNodos()] :: Nodo no encontrado.");
-    }
-
-
     /**
      * Creates an instance and executes the cycle-merging process.
-     * <p>
-     * While the graph still contains cycles, SCCs (Tarjan) are computed on the
-     * current matrix, and the first SCC found with size &gt; 1 is merged. The result
-     * of each merge is stored as a new level in {@link #lMatrizAdj} and
-     * {@link #lOriginalNodes}.
-     * </p>
      *
      * @param matrizAdj square adjacency matrix (N x N).
      * @param nodes list of node names; its size must be N and it must follow the
      *              same order as the indices of {@code matrizAdj}.
+     * @see ArregloCiclos#ArregloCiclos(int[][], List)
      */
     public ArregloCiclosMapeado_V2(int[][] matrizAdj, List<String> nodes) {
-        this.lOriginalNodes.add(nodes);
-        this.lMatrizAdj.add(matrizAdj);
-        while (CycleDetectionDFSIterative.hasCycle(lMatrizAdj.get(vueltaArreglos))) {
-//            System.out.println("-- VUELTA ciclo -- ");
-            TarjanCondensedGraph g = new TarjanCondensedGraph(lMatrizAdj.get(vueltaArreglos));
-            for (Set<Integer> SCC : g.findSCCs()) {
-                List<Integer> lSCC = new ArrayList<>(SCC);
-                Collections.sort(lSCC);
-                if (SCC.size() > 1) {
-//                    System.out.println("Encuentra ciclo: " + SCC);
-                    lMatrizAdj.add(fusionarNodosCiclo(lMatrizAdj.get(vueltaArreglos), lSCC));
-
-                    vueltaArreglos++;
-                    break;
-                }
-            }
-        }
+        super(matrizAdj, nodes);
     }
 
     /**
-     * Returns the node list of the last level (graph with SCCs merged).
+     * Creates an instance from a CSR graph and executes the cycle-merging
+     * process.
      *
-     * @return list of node names aligned with {@link #getMatrizFusionCiclos()}.
+     * @param grafo implication graph with N nodes.
+     * @param nodes list of node names; its size must be N.
+     * @see ArregloCiclos#ArregloCiclos(ImplicationGraph, List)
      */
-    public List<String> getNodes() {
-        return lOriginalNodes.get(lOriginalNodes.size() - 1);
+    public ArregloCiclosMapeado_V2(ImplicationGraph grafo, List<String> nodes) {
+        super(grafo, nodes);
     }
 
     /**
-     * Returns the final matrix obtained after merging cycles.
+     * Returns the level history of node-name lists, rebuilding it if needed.
      * <p>
-     * Important: this returns the internal reference stored in the history. If you
-     * need immutability, make a copy before modifying it.
+     * Level {@code k + 1} is level {@code k} without the members of the
+     * {@code k}-th merged SCC and with their combined name appended at the end.
      * </p>
      *
-     * @return adjacency matrix of the last level (acyclic).
+     * @return one node list per level; index 0 is the original list
      */
-    public int[][] getMatrizFusionCiclos() {
-        return lMatrizAdj.get(lMatrizAdj.size() - 1);
+    public List<List<String>> getHistorialNodos() {
+        if (lOriginalNodes.isEmpty()) {
+            lOriginalNodes.add(nodosIniciales);
+            List<int[]> ciclos = getCiclos();
+            for (int k = 0; k < ciclos.size(); k++) {
+                List<String> anterior = lOriginalNodes.get(k);
+                List<Integer> seleccionados = indicesEnNivel(k);
+                List<String> nivel = new ArrayList<>(anterior.size() - seleccionados.size() + 1);
+                StringBuilder nombre = new StringBuilder();
+                int s = 0;
+                for (int i = 0; i < anterior.size(); i++) {
+                    if (s < seleccionados.size() && seleccionados.get(s) == i) {
+                        if (nombre.length() > 0) {
+                            nombre.append('/');
+                        }
+                        nombre.append(anterior.get(i));
+                        s++;
+                    } else {
+                        nivel.add(anterior.get(i));
+                    }
+                }
+                nivel.add(nombre.toString());
+                lOriginalNodes.add(nivel);
+            }
+        }
+        return lOriginalNodes;
     }
 
     /**
-     * Restores (expands) the cycles previously merged into the history, and places
-     * each restored edge on the original node it belonged to according to the
-     * provided {@code matrizOriginal}.
+     * Returns the level history of adjacency matrices, rebuilding it if
+     * needed.
      * <p>
-     * Compared to the older behaviour (where all hanging edges were attached to a
-     * single representative node), this version tries to attach each incoming/outgoing
-     * edge of a combined node to the most appropriate sub-node, by inspecting the
-     * original adjacency matrix.
-     * </p>
-     * <p>
-     * Rules:
-     * <ul>
-     *   <li>If multiple original sub-nodes match, the one with the smallest index is chosen (deterministic).</li>
-     *   <li>If no direct original sub-node matches, it tries to match against a compound node name (e.g. "A/B/C").</li>
-     *   <li>If still no match is possible, an exception is thrown with a detailed message.</li>
-     *   <li>No self-loop is allowed in the restored matrix (u == v is skipped/avoided).</li>
-     *   <li>If {@code matrizOriginal} is weighted, restored edges are always written with weight 1.</li>
-     * </ul>
+     * Rebuilding costs one O(n&sup2;) matrix copy per merged SCC, which is why
+     * it is only done on request.
      * </p>
      *
-     * @param matrizOriginal original adjacency matrix (reference of truth for where edges should be attached).
-     * @param matrizAExpandir matrix to expand/restore; typically the matrix returned by {@link #getMatrizFusionCiclos()}.
-     * @param nodosOriginal list of original node names aligned with {@code matrizOriginal}.
-     * @return restored matrix with original node indices.
-     * @throws Exception if the mapping cannot be resolved for some edge.
+     * @return one matrix per level; index 0 is the original matrix and the last
+     *         one equals {@link #getMatrizFusionCiclos()}
      */
-    public int[][] restaurarCiclos(int[][] matrizOriginal, int[][] matrizAExpandir, List<String> nodosOriginal) throws Exception {
-        if (matrizOriginal == null || matrizAExpandir == null || nodosOriginal == null) {
-            throw new IllegalArgumentException("restaurarCiclos: matrizOriginal, matrizAExpandir and nodosOriginal must be non-null.");
-        }
-        if (matrizOriginal.length != matrizOriginal[0].length) {
-            throw new IllegalArgumentException("restaurarCiclos: matrizOriginal must be square.");
-        }
-        if (matrizOriginal.length != nodosOriginal.size()) {
-            throw new IllegalArgumentException("restaurarCiclos: nodosOriginal size must match matrizOriginal dimension.");
-        }
-
-        int[][] matrizAdj = matrizAExpandir;
-
-        for (int i = lOriginalNodes.size() - 1; i > 0; i--) {
-            vueltaArreglos = i;
-            List<String> lNodesNivel = lOriginalNodes.get(i);
-            int idxCombinadoEnNivel = Math.min(lNodesNivel.size() - 1, matrizAdj.length - 1);
-
-            // Expand the (last) combined node of this level using a "faithful" restore.
-            matrizAdj = expandirNodoCombinadoFiel(
-                    matrizOriginal,
-                    matrizAdj,
-                    nodosOriginal,
-                    idxCombinadoEnNivel,
-                    lNodesNivel.get(idxCombinadoEnNivel));
+    public List<int[][]> getHistorialMatrices() {
+        if (lMatrizAdj.isEmpty()) {
+            lMatrizAdj.add(grafoInicial.toMatrix());
+            for (int k = 0; k < getCiclos().size(); k++) {
+                lMatrizAdj.add(fusionarNodosCiclo(lMatrizAdj.get(k), indicesEnNivel(k)));
+            }
         }
-
-        vueltaArreglos = 0;
-        return matrizAdj;
+        return lMatrizAdj;
     }
 
     /**
-     * Expands one combined node for the current {@link #vueltaArreglos} level and
-     * reattaches incoming/outgoing edges to the appropriate original sub-node by
-     * consulting {@code matrizOriginal}.
+     * Indices, in level {@code k}, of the members of the {@code k}-th merged
+     * SCC.
+     * <p>
+     * At level {@code k} the nodes not merged yet keep their original relative
+     * order and precede the {@code k} combined nodes, so the index of a member
+     * is its rank among the original nodes that are not part of an earlier
+     * SCC.
+     * </p>
      */
-    private int[][] expandirNodoCombinadoFiel(
-            int[][] matrizOriginal,
-            int[][] matrizNivel,
-            List<String> nodosOriginal,
-            int idxNodoCombinadoNivel,
-            String nombreCombinadoNivel) throws Exception {
-
-        // Determine sub-nodes (names) of the combined node in this level.
-        String[] partes = dividirNombreCompuesto(nombreCombinadoNivel);
-        if (partes.length < 2) {
-            // Nothing to expand.
-            return matrizNivel;
-        }
-
-        // New matrix size must match the previous level (before this combined node existed).
-        List<String> nombresPrevio = lOriginalNodes.get(vueltaArreglos - 1);
-        int nuevoTamano = nombresPrevio.size();
-        int n = matrizNivel.length;
-        int[][] nueva = new int[nuevoTamano][nuevoTamano];
-
-        // Lazily resolved mapping of each sub-node name to its original index.
-        int[] subNodoOrigIdx = new int[partes.length];
-        Arrays.fill(subNodoOrigIdx, -1);
-
-        // 1) Copy existing edges between non-expanded nodes to their positions in previous level.
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                if (matrizNivel[i][j] <= 0) {
-                    continue;
-                }
-                if (i == idxNodoCombinadoNivel || j == idxNodoCombinadoNivel) {
-                    continue; // handled below
-                }
-
-                int uPrev = resolverIndiceNivelAnterior(nombresPrevio, lOriginalNodes.get(vueltaArreglos).get(i));
-                int vPrev = resolverIndiceNivelAnterior(nombresPrevio, lOriginalNodes.get(vueltaArreglos).get(j));
-                if (uPrev == vPrev) {
-                    continue; // avoid self-loop
-                }
-                nueva[uPrev][vPrev] = 1;
-            }
-        }
-
-        // 2) Reattach incoming edges X -> COMBINED
-        for (int i = 0; i < n; i++) {
-            if (i == idxNodoCombinadoNivel) {
+    private List<Integer> indicesEnNivel(int k) {
+        List<int[]> ciclos = getCiclos();
+        boolean[] fusionado = new boolean[nodosIniciales.size()];
+        for (int c = 0; c < k; c++) {
+            for (int miembro : ciclos.get(c)) {
+                fusionado[miembro] = true;
+            }
+        }
+        List<Integer> indices = new ArrayList<>();
+        int[] miembros = ciclos.get(k);
+        int m = 0;
+        int posicion = 0;
+        for (int i = 0; i < fusionado.length && m < miembros.length; i++) {
+            if (fusionado[i]) {
                 continue;
             }
-            if (matrizNivel[i][idxNodoCombinadoNivel] <= 0) {
-                continue;
+            if (miembros[m] == i) {
+                indices.add(posicion);
+                m++;
             }
-
-            String nombreX = lOriginalNodes.get(vueltaArreglos).get(i);
-            int xOrig = resolverIndiceOriginalDesdeNombre(nodosOriginal, nombreX);
-            int xPrev = resolverIndiceNivelAnterior(nombresPrevio, nombreX);
-
-            int sub = elegirSubNodoParaAristaEntrante(matrizOriginal, xOrig, partes, subNodoOrigIdx, nodosOriginal);
-            int yPrev = resolverIndiceNivelAnterior(nombresPrevio, partes[sub]);
-
-            if (xPrev == yPrev) {
-                int forbiddenOrig = resolverIndiceOriginalSubNodo(partes[sub], subNodoOrigIdx, sub, nodosOriginal);
-                Integer alt = elegirSubNodoAlternativoEntrante(matrizOriginal, xOrig, partes, subNodoOrigIdx, nodosOriginal, forbiddenOrig);
-                if (alt == null) {
-                    throw new Exception("restaurarCiclos: self-loop detected while restoring incoming edge from '" + nombreX + "' to combined node '" + nombreCombinadoNivel + "'.");
-                }
-                yPrev = resolverIndiceNivelAnterior(nombresPrevio, partes[alt]);
-                if (xPrev == yPrev) {
-                    throw new Exception("restaurarCiclos: unable to avoid self-loop for incoming edge from '" + nombreX + "' to '" + partes[alt] + "'.");
-                }
-            }
-
-            nueva[xPrev][yPrev] = 1;
+            posicion++;
         }
-
-        // 3) Reattach outgoing edges COMBINED -> Y
-        for (int j = 0; j < n; j++) {
-            if (j == idxNodoCombinadoNivel) {
-                continue;
-            }
-            if (matrizNivel[idxNodoCombinadoNivel][j] <= 0) {
-                continue;
-            }
-
-            String nombreY = lOriginalNodes.get(vueltaArreglos).get(j);
-            int yOrig = resolverIndiceOriginalDesdeNombre(nodosOriginal, nombreY);
-            int yPrev = resolverIndiceNivelAnterior(nombresPrevio, nombreY);
-
-            int sub = elegirSubNodoParaAristaSaliente(matrizOriginal, yOrig, partes, subNodoOrigIdx, nodosOriginal);
-            int xPrev = resolverIndiceNivelAnterior(nombresPrevio, partes[sub]);
-
-            if (xPrev == yPrev) {
-                int forbiddenOrig = resolverIndiceOriginalSubNodo(partes[sub], subNodoOrigIdx, sub, nodosOriginal);
-                Integer alt = elegirSubNodoAlternativoSaliente(matrizOriginal, yOrig, partes, subNodoOrigIdx, nodosOriginal, forbiddenOrig);
-                if (alt == null) {
-                    throw new Exception("restaurarCiclos: self-loop detected while restoring outgoing edge from combined node '" + nombreCombinadoNivel + "' to '" + nombreY + "'.");
-                }
-                xPrev = resolverIndiceNivelAnterior(nombresPrevio, partes[alt]);
-                if (xPrev == yPrev) {
-                    throw new Exception("restaurarCiclos: unable to avoid self-loop for outgoing edge to '" + nombreY + "' using sub-node '" + partes[alt] + "'.");
-                }
-            }
-
-            nueva[xPrev][yPrev] = 1;
-        }
-
-        // 4) Restore internal edges among the sub-nodes according to the original matrix (weight 1, no self-loops).
-        restaurarAristasInternas(matrizOriginal, partes, subNodoOrigIdx, nodosOriginal, nombresPrevio, nueva);
-
-        return nueva;
+        return indices;
     }
 
-    private int resolverIndiceNivelAnterior(List<String> nombresPrevio, String nombre) throws Exception {
-        for (int k = 0; k < nombresPrevio.size(); k++) {
-            String nom = nombresPrevio.get(k);
-            if (nom.equals(nombre)) {
-                return k;
-            }
-            for (String piece : dividirNombreCompuesto(nom)) {
-                if (piece.equals(nombre)) {
-                    return k;
-                }
+    /**
+     * Merged SCCs in merge order (the combined nodes of {@link #membersOf}).
+     */
+    private List<int[]> getCiclos() {
+        List<int[]> ciclos = new ArrayList<>();
+        for (int[] miembros : membersOf) {
+            if (miembros.length > 1) {
+                ciclos.add(miembros);
             }
         }
-        throw new Exception("restaurarCiclos: cannot map node '" + nombre + "' to previous level.");
+        return ciclos;
     }
 
-    private void restaurarAristasInternas(
-            int[][] matrizOriginal,
-            String[] partes,
-            int[] subNodoOrigIdx,
-            List<String> nodosOriginal,
-            List<String> nombresPrevio,
-            int[][] nueva) throws Exception {
-
-        int m = partes.length;
-        int[] origIdx = new int[m];
-        int[] prevIdx = new int[m];
-        for (int p = 0; p < m; p++) {
-            origIdx[p] = resolverIndiceOriginalSubNodo(partes[p], subNodoOrigIdx, p, nodosOriginal);
-            prevIdx[p] = resolverIndiceNivelAnterior(nombresPrevio, partes[p]);
-        }
-
+    /**
+     * Restores the internal edges of a cycle according to the original matrix
+     * (weight 1, no self-loops).
+     * <p>
+     * All original edges among the members are taken and, in {@code (u, v)}
+     * order, each one is dropped if the members remain strongly connected
+     * without it.
+     * </p>
+     */
+    @Override
+    protected void restaurarAristasInternas(ImplicationGraph grafoOriginal, int[] miembros, ImplicationGraph.EdgeList restaurada) {
+        int m = miembros.length;
         boolean[][] subAdj = new boolean[m][m];
         List<int[]> edges = new ArrayList<>();
+        int[] offsets = grafoOriginal.outOffsets();
+        int[] targets = grafoOriginal.outTargets();
         for (int i = 0; i < m; i++) {
-            for (int j = 0; j < m; j++) {
-                if (i == j) {
-                    continue; // sin autoaristas
-                }
-                if (matrizOriginal[origIdx[i]][origIdx[j]] > 0) {
-                    subAdj[i][j] = true;
-                    edges.add(new int[]{i, j});
+            int u = miembros[i];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                if (v == u || componentOf[v] != componentOf[u]) {
+                    continue; // sin autoaristas ni aristas externas
                 }
+                int j = Arrays.binarySearch(miembros, v);
+                subAdj[i][j] = true;
+                edges.add(new int[]{i, j});
             }
         }
 
-        edges.sort(Comparator.<int[]>comparingInt(e -> e[0]).thenComparingInt(e -> e[1]));
+        // edges ya está en orden (i, j): filas y miembros ordenados de forma creciente
         for (int[] e : edges) {
             int u = e[0];
             int v = e[1];
-            if (!subAdj[u][v]) {
-                continue;
-            }
             subAdj[u][v] = false; // intento quitar la arista
             boolean sccOk = esFuertementeConexo(subAdj);
             //boolean hamOk = existeCicloHamiltoniano(subAdj);
-            //System.out.println("ARISTA: " + partes[u] + " --> " + partes[v]
+            //System.out.println("ARISTA: " + nodosIniciales.get(miembros[u]) + " --> " + nodosIniciales.get(miembros[v])
             //        + " | SCC=" + sccOk + " | Hamiltoniano=" + hamOk);
             if (!sccOk){// || !hamOk) {
                 subAdj[u][v] = true; // necesaria para mantener SCC
@@ -508,10 +288,9 @@ public class ArregloCiclosMapeado_V2 extends ArregloCiclos {
 
         for (int i = 0; i < m; i++) {
             for (int j = 0; j < m; j++) {
-                if (!subAdj[i][j] || prevIdx[i] == prevIdx[j]) {
-                    continue;
+                if (subAdj[i][j]) {
+                    restaurada.add(miembros[i], miembros[j]);
                 }
-                nueva[prevIdx[i]][prevIdx[j]] = 1;
             }
         }
     }
@@ -553,150 +332,6 @@ public class ArregloCiclosMapeado_V2 extends ArregloCiclos {
         return false;
     }
 
-    // --- Helpers de mapeo a nodos originales y selección de subnodos ---
-    private int encontrarIndiceNodoOriginal(List<String> nodosOriginal, String nombre) {
-        for (int i = 0; i < nodosOriginal.size(); i++) {
-            if (nombre.equals(nodosOriginal.get(i))) {
-                return i;
-            }
-        }
-        return -1;
-    }
-
-    private int resolverIndiceOriginalDesdeNombre(List<String> nodosOriginal, String nombre) throws Exception {
-        int idx = encontrarIndiceNodoOriginal(nodosOriginal, nombre);
-        if (idx >= 0) {
-            return idx;
-        }
-        for (String p : dividirNombreCompuesto(nombre)) {
-            idx = encontrarIndiceNodoOriginal(nodosOriginal, p);
-            if (idx >= 0) {
-                return idx;
-            }
-        }
-        for (int i = 0; i < nodosOriginal.size(); i++) {
-            String nom = nodosOriginal.get(i);
-            if (!nom.contains("/")) {
-                continue;
-            }
-            for (String piece : dividirNombreCompuesto(nom)) {
-                if (piece.equals(nombre)) {
-                    return i;
-                }
-            }
-        }
-        throw new Exception("restaurarCiclos: cannot resolve node name '" + nombre + "' into nodosOriginal. ");
-    }
-
-    private int resolverIndiceOriginalSubNodo(String nombreSubNodo, int[] subNodoOrigIdx, int pos, List<String> nodosOriginal) throws Exception {
-        if (subNodoOrigIdx[pos] >= 0) {
-            return subNodoOrigIdx[pos];
-        }
-        int idx = resolverIndiceOriginalDesdeNombre(nodosOriginal, nombreSubNodo);
-        subNodoOrigIdx[pos] = idx;
-        return idx;
-    }
-
-    private int elegirSubNodoParaAristaEntrante(
-            int[][] matrizOriginal,
-            int xOrig,
-            String[] partes,
-            int[] subNodoOrigIdx,
-            List<String> nodosOriginal) throws Exception {
-
-        Integer bestPos = null;
-        Integer bestOrigIdx = null;
-        for (int p = 0; p < partes.length; p++) {
-            int subOrig = resolverIndiceOriginalSubNodo(partes[p], subNodoOrigIdx, p, nodosOriginal);
-            if (matrizOriginal[xOrig][subOrig] > 0) {
-                if (bestOrigIdx == null || subOrig < bestOrigIdx) {
-                    bestOrigIdx = subOrig;
-                    bestPos = p;
-                }
-            }
-        }
-        if (bestPos != null) {
-            return bestPos;
-        }
-        throw new Exception("restaurarCiclos: no candidate sub-node found for incoming edge from original node index "
-                + xOrig + " to combined node '" + String.join("/", partes) + "'.");
-    }
-
-    private Integer elegirSubNodoAlternativoEntrante(
-            int[][] matrizOriginal,
-            int xOrig,
-            String[] partes,
-            int[] subNodoOrigIdx,
-            List<String> nodosOriginal,
-            int forbiddenOrig) throws Exception {
-
-        Integer bestPos = null;
-        Integer bestOrigIdx = null;
-        for (int p = 0; p < partes.length; p++) {
-            int subOrig = resolverIndiceOriginalSubNodo(partes[p], subNodoOrigIdx, p, nodosOriginal);
-            if (subOrig == forbiddenOrig) {
-                continue;
-            }
-            if (matrizOriginal[xOrig][subOrig] > 0) {
-                if (bestOrigIdx == null || subOrig < bestOrigIdx) {
-                    bestOrigIdx = subOrig;
-                    bestPos = p;
-                }
-            }
-        }
-        return bestPos;
-    }
-
-    private int elegirSubNodoParaAristaSaliente(
-            int[][] matrizOriginal,
-            int yOrig,
-            String[] partes,
-            int[] subNodoOrigIdx,
-            List<String> nodosOriginal) throws Exception {
-
-        Integer bestPos = null;
-        Integer bestOrigIdx = null;
-        for (int p = 0; p < partes.length; p++) {
-            int subOrig = resolverIndiceOriginalSubNodo(partes[p], subNodoOrigIdx, p, nodosOriginal);
-            if (matrizOriginal[subOrig][yOrig] > 0) {
-                if (bestOrigIdx == null || subOrig < bestOrigIdx) {
-                    bestOrigIdx = subOrig;
-                    bestPos = p;
-                }
-            }
-        }
-        if (bestPos != null) {
-            return bestPos;
-        }
-        throw new Exception("restaurarCiclos: no candidate sub-node found for outgoing edge from combined node '"
-                + String.join("/", partes) + "' to original node index " + yOrig + ".");
-    }
-
-    private Integer elegirSubNodoAlternativoSaliente(
-            int[][] matrizOriginal,
-            int yOrig,
-            String[] partes,
-            int[] subNodoOrigIdx,
-            List<String> nodosOriginal,
-            int forbiddenOrig) throws Exception {
-
-        Integer bestPos = null;
-        Integer bestOrigIdx = null;
-        for (int p = 0; p < partes.length; p++) {
-            int subOrig = resolverIndiceOriginalSubNodo(partes[p], subNodoOrigIdx, p, nodosOriginal);
-            if (subOrig == forbiddenOrig) {
-                continue;
-            }
-            if (matrizOriginal[subOrig][yOrig] > 0) {
-                if (bestOrigIdx == null || subOrig < bestOrigIdx) {
-                    bestOrigIdx = subOrig;
-                    bestPos = p;
-                }
-            }
-        }
-        return bestPos;
-    }
-
     /**
      * Manual example (demo): builds a matrix with a cycle, merges it, and then
      * tries to restore it.
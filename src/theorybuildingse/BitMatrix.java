@@ -0,0 +1,323 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import java.util.Arrays;
+
+/**
+ * Square boolean adjacency matrix whose rows are stored as packed
+ * {@code long[]} bitsets (one bit per cell).
+ * <p>
+ * Compared to an {@code int[][]} matrix it uses 32 times less memory and lets
+ * the graph algorithms combine whole rows with a single word-level OR, which
+ * is the core operation of the transitive closure and reduction.
+ * </p>
+ * <p>
+ * When converting from an {@code int[][]} matrix any entry {@code > 0} is
+ * treated as an edge, following the convention used by the rest of the
+ * package.
+ * </p>
+ */
+public final class BitMatrix {
+
+    /** Number of nodes (rows and columns). */
+    private final int n;
+
+    /** Number of {@code long} words needed to store one row. */
+    private final int words;
+
+    /** Packed rows: bit {@code j} of {@code rows[i]} is the edge {@code i -> j}. */
+    private final long[][] rows;
+
+    /**
+     * Builds an empty {@code n x n} matrix.
+     *
+     * @param n number of nodes
+     */
+    public BitMatrix(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n cannot be negative");
+        }
+        this.n = n;
+        this.words = (n + 63) >>> 6;
+        this.rows = new long[n][words];
+    }
+
+    /**
+     * Builds a bit matrix from an adjacency matrix.
+     *
+     * @param matrix square adjacency matrix; an entry {@code > 0} is an edge
+     * @return the packed matrix
+     * @throws IllegalArgumentException if {@code matrix} is {@code null} or not
+     *                                  square
+     */
+    public static BitMatrix fromMatrix(int[][] matrix) {
+        if (matrix == null) {
+            throw new IllegalArgumentException("matrix cannot be null");
+        }
+        int n = matrix.length;
+        BitMatrix bits = new BitMatrix(n);
+        for (int i = 0; i < n; i++) {
+            if (matrix[i] == null || matrix[i].length != n) {
+                throw new IllegalArgumentException("matrix must be square");
+            }
+            long[] row = bits.rows[i];
+            for (int j = 0; j < n; j++) {
+                if (matrix[i][j] > 0) {
+                    row[j >>> 6] |= 1L << j;
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Expands the packed matrix into a 0/1 adjacency matrix.
+     *
+     * @return a new {@code int[n][n]} matrix
+     */
+    public int[][] toMatrix() {
+        int[][] matrix = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = nextSetBit(i, 0); j >= 0; j = nextSetBit(i, j + 1)) {
+                matrix[i][j] = 1;
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Returns a deep copy of this matrix.
+     *
+     * @return the copy
+     */
+    public BitMatrix copy() {
+        BitMatrix copy = new BitMatrix(n);
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(rows[i], 0, copy.rows[i], 0, words);
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return matrix dimension
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns whether the edge {@code i -> j} is present.
+     *
+     * @param i source node
+     * @param j target node
+     * @return {@code true} if the bit is set
+     */
+    public boolean get(int i, int j) {
+        return (rows[i][j >>> 6] & (1L << j)) != 0;
+    }
+
+    /**
+     * Sets the edge {@code i -> j}.
+     *
+     * @param i source node
+     * @param j target node
+     */
+    public void set(int i, int j) {
+        rows[i][j >>> 6] |= 1L << j;
+    }
+
+    /**
+     * Removes the edge {@code i -> j}.
+     *
+     * @param i source node
+     * @param j target node
+     */
+    public void clear(int i, int j) {
+        rows[i][j >>> 6] &= ~(1L << j);
+    }
+
+    /**
+     * ORs row {@code src} into row {@code dst} ({@code dst |= src}).
+     *
+     * @param dst row that receives the bits
+     * @param src row whose bits are added
+     */
+    public void orRow(int dst, int src) {
+        long[] d = rows[dst];
+        long[] s = rows[src];
+        for (int w = 0; w < words; w++) {
+            d[w] |= s[w];
+        }
+    }
+
+    /**
+     * Returns the index of the first set bit of row {@code i} at or after
+     * {@code from}, or {@code -1} if there is none.
+     *
+     * @param i row
+     * @param from first column to inspect
+     * @return column of the next edge, or {@code -1}
+     */
+    public int nextSetBit(int i, int from) {
+        if (from >= n) {
+            return -1;
+        }
+        long[] row = rows[i];
+        int w = from >>> 6;
+        long word = row[w] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w == words) {
+                return -1;
+            }
+            word = row[w];
+        }
+    }
+
+    /**
+     * Returns whether row {@code i} has no edges.
+     *
+     * @param i row
+     * @return {@code true} if the row is empty
+     */
+    public boolean isRowEmpty(int i) {
+        for (long word : rows[i]) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of edges of row {@code i}.
+     *
+     * @param i row
+     * @return out-degree of node {@code i}
+     */
+    public int rowCardinality(int i) {
+        int count = 0;
+        for (long word : rows[i]) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the total number of edges.
+     *
+     * @return number of set bits
+     */
+    public long cardinality() {
+        long count = 0;
+        for (int i = 0; i < n; i++) {
+            count += rowCardinality(i);
+        }
+        return count;
+    }
+
+    /**
+     * Computes a topological order of the graph with Kahn's algorithm.
+     * <p>
+     * Nodes with no pending predecessors are emitted in increasing index
+     * order, so the result is deterministic.
+     * </p>
+     *
+     * @return node indices in topological order, or {@code null} if the graph
+     *         contains a cycle (self-loops included)
+     */
+    public int[] topologicalOrder() {
+        int[] inDegree = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = nextSetBit(i, 0); j >= 0; j = nextSetBit(i, j + 1)) {
+                inDegree[j]++;
+            }
+        }
+        int[] order = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            if (inDegree[i] == 0) {
+                order[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int u = order[head++];
+            for (int v = nextSetBit(u, 0); v >= 0; v = nextSetBit(u, v + 1)) {
+                if (--inDegree[v] == 0) {
+                    order[tail++] = v;
+                }
+            }
+        }
+        return tail == n ? order : null;
+    }
+
+    /**
+     * Returns a copy of the matrix with its nodes renumbered:
+     * node {@code perm[k]} of this matrix becomes node {@code k} of the result.
+     *
+     * @param perm permutation of {@code 0..n-1}
+     * @return the permuted matrix
+     */
+    public BitMatrix permute(int[] perm) {
+        int[] rank = new int[n];
+        for (int k = 0; k < n; k++) {
+            rank[perm[k]] = k;
+        }
+        BitMatrix permuted = new BitMatrix(n);
+        for (int k = 0; k < n; k++) {
+            int i = perm[k];
+            for (int j = nextSetBit(i, 0); j >= 0; j = nextSetBit(i, j + 1)) {
+                permuted.set(k, rank[j]);
+            }
+        }
+        return permuted;
+    }
+
+    /**
+     * Direct access to the packed row {@code i}.
+     * <p>
+     * Package-private: the returned array is the internal storage and is used
+     * by the closure/reduction engines to work word by word.
+     * </p>
+     *
+     * @param i row
+     * @return internal words of the row
+     */
+    long[] row(int i) {
+        return rows[i];
+    }
+
+    /**
+     * Number of {@code long} words per row.
+     *
+     * @return words per row
+     */
+    int words() {
+        return words;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof BitMatrix)) {
+            return false;
+        }
+        BitMatrix other = (BitMatrix) obj;
+        return n == other.n && Arrays.deepEquals(rows, other.rows);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * n + Arrays.deepHashCode(rows);
+    }
+}
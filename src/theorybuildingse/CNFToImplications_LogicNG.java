@@ -10,6 +10,7 @@ import org.logicng.formulas.FormulaFactory;
 import org.logicng.formulas.Literal;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.logicng.formulas.FType;
 
@@ -50,7 +51,6 @@ public class CNFToImplications_LogicNG {
         // Asegurarse de que la fórmula es una conjunción
         if (cnf.type() == FType.AND) {
             for (Formula clause : cnf) {
-                System.out.println("clause AND: "+clause);
                 implications.add(convertClauseToImplication(clause, formulaFactory));
             }
         } else {
@@ -61,6 +61,90 @@ public class CNFToImplications_LogicNG {
         return implications;
     }
 
+    /**
+     * Implication graph of the binary clauses of a CNF formula.
+     *
+     * @param grafo implication graph over the nodes of {@code tabla}
+     * @param nodos node labels (both polarities of every variable, sorted;
+     *              negated literals with the {@link LiteralTable#NEGACION}
+     *              prefix)
+     * @param tabla literal table: atom = variable name
+     * @param noBinarias the clauses with more than two literals (or the
+     *                   constant false), which an implication graph cannot
+     *                   represent
+     */
+    public record GrafoCNF(ImplicationGraph grafo, List<String> nodos, LiteralTable tabla, List<Formula> noBinarias) {
+    }
+
+    /**
+     * Builds the implication graph of a CNF formula directly from its
+     * clauses, without going through implication strings: every binary
+     * clause {@code a | b} gives the edges {@code ~a -> b} and
+     * {@code ~b -> a}, and every unit clause {@code a} the edge
+     * {@code ~a -> a}. Literals are interned in a {@link LiteralTable}, so
+     * double negations never appear. One pass over the clauses plus
+     * O(V log V) for the node order.
+     *
+     * @param cnf formula in CNF
+     * @return the graph, its labels and the clauses left out
+     * @throws IllegalArgumentException if the formula is not in CNF
+     */
+    public static GrafoCNF construirGrafo(Formula cnf) {
+        LiteralTable tabla = new LiteralTable();
+        List<Formula> noBinarias = new ArrayList<>();
+        // Pares de literales (ids de la tabla) de cada arista
+        int[] desde = new int[16];
+        int[] hasta = new int[16];
+        int m = 0;
+        Iterable<Formula> clausulas = cnf.type() == FType.AND ? cnf : List.of(cnf);
+        for (Formula clausula : clausulas) {
+            int a;
+            int b;
+            if (clausula instanceof Literal literal) {
+                a = b = literal(tabla, literal);
+            } else if (clausula.type() == FType.OR && clausula.numberOfOperands() == 2) {
+                Formula[] operandos = new Formula[2];
+                int k = 0;
+                for (Formula operando : clausula) {
+                    if (!(operando instanceof Literal)) {
+                        throw new IllegalArgumentException("La cláusula no está en formato válido: " + clausula);
+                    }
+                    operandos[k++] = operando;
+                }
+                a = literal(tabla, (Literal) operandos[0]);
+                b = literal(tabla, (Literal) operandos[1]);
+            } else if (clausula.type() == FType.TRUE) {
+                continue;
+            } else if (clausula.type() == FType.OR || clausula.type() == FType.FALSE) {
+                noBinarias.add(clausula);
+                continue;
+            } else {
+                throw new IllegalArgumentException("La cláusula no está en formato válido: " + clausula);
+            }
+            if (m + 2 > desde.length) {
+                desde = Arrays.copyOf(desde, desde.length * 2);
+                hasta = Arrays.copyOf(hasta, hasta.length * 2);
+            }
+            // a | b  ==  ~a -> b  ==  ~b -> a
+            desde[m] = LiteralTable.negar(a);
+            hasta[m++] = b;
+            if (a != b) {
+                desde[m] = LiteralTable.negar(b);
+                hasta[m++] = a;
+            }
+        }
+        List<String> nodos = tabla.getEtiquetasOrdenadas();
+        ImplicationGraph.EdgeList aristas = new ImplicationGraph.EdgeList();
+        for (int e = 0; e < m; e++) {
+            aristas.add(tabla.nodo(desde[e]), tabla.nodo(hasta[e]));
+        }
+        return new GrafoCNF(aristas.build(nodos.size(), false), nodos, tabla, noBinarias);
+    }
+
+    private static int literal(LiteralTable tabla, Literal literal) {
+        return tabla.intern(literal.name(), !literal.phase());
+    }
+
     /**
      * Convierte una cláusula (disyunción de literales) a una implicación.
      */
@@ -0,0 +1,68 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cooperative cancellation flag for long model computations.
+ * <p>
+ * The thread that owns the computation polls the token between units of
+ * work (one row of the closure or reduction, one pipeline stage); any other
+ * thread, typically the Event Dispatch Thread, may call {@link #cancel()}.
+ * </p>
+ */
+public final class CancellationToken {
+
+    /** Token that is never cancelled. */
+    public static final CancellationToken NONE = new CancellationToken(false);
+
+    private final boolean cancelable;
+
+    private volatile boolean cancelado;
+
+    /**
+     * Creates a token that has not been cancelled.
+     */
+    public CancellationToken() {
+        this(true);
+    }
+
+    private CancellationToken(boolean cancelable) {
+        this.cancelable = cancelable;
+    }
+
+    /**
+     * Requests the cancellation of the computation.
+     *
+     * @throws UnsupportedOperationException if called on {@link #NONE}
+     */
+    public void cancel() {
+        if (!cancelable) {
+            throw new UnsupportedOperationException("The NONE token cannot be cancelled");
+        }
+        cancelado = true;
+    }
+
+    /**
+     * Indicates whether cancellation has been requested.
+     *
+     * @return {@code true} once {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return cancelado;
+    }
+
+    /**
+     * Aborts the current computation if cancellation has been requested.
+     *
+     * @throws CancellationException if the token is cancelled
+     */
+    public void throwIfCancelled() {
+        if (cancelado) {
+            throw new CancellationException("Model generation cancelled");
+        }
+    }
+}
@@ -4,21 +4,35 @@
  */
 package theorybuildingse;
 
-import java.util.Stack;
+import java.util.Arrays;
 
 /**
- * Detects directed cycles in a graph represented as an adjacency matrix using an
- * iterative depth-first search (DFS).
+ * Detects directed cycles in a graph using an iterative depth-first search
+ * (DFS).
  * <p>
- * Any entry {@code > 0} in the matrix is treated as an edge.
+ * The search runs over the CSR adjacency of an {@link ImplicationGraph} and
+ * keeps, for every node on the DFS path, a cursor to its next unexplored
+ * edge, so each edge is examined exactly once. The DFS path and cursors are
+ * primitive {@code int[]} stacks. Besides the yes/no answer, the cycle found
+ * can be returned so callers do not need a separate SCC pass to see it.
+ * </p>
+ * <p>
+ * For matrices, any entry {@code > 0} is treated as an edge.
  * </p>
  * <p>
  * Time complexity: O(V + E) (each node/edge is processed once).<br>
- * Space complexity: O(V) (explicit stack + visited/inStack bookkeeping).
+ * Space complexity: O(V) (explicit stacks + node state).
  * </p>
  */
 public class CycleDetectionDFSIterative {
 
+    /** Node not visited yet. */
+    private static final byte BLANCO = 0;
+    /** Node on the current DFS path. */
+    private static final byte EN_PILA = 1;
+    /** Node fully explored. */
+    private static final byte CERRADO = 2;
+
     /**
      * Simple manual demo.
      * <p>
@@ -38,6 +52,7 @@ public class CycleDetectionDFSIterative {
 
         boolean hasCycle = hasCycle(adjacencyMatrix);
         System.out.println("¿El grafo tiene ciclos? " + hasCycle);
+        System.out.println("Ciclo: " + Arrays.toString(findCycle(adjacencyMatrix)));
     }
 
     /**
@@ -51,76 +66,88 @@ public class CycleDetectionDFSIterative {
      *                                  square
      */
     public static boolean hasCycle(int[][] matrix) {
-        if (matrix == null) {
-            throw new IllegalArgumentException("matrix cannot be null");
-        }
-        int n = matrix.length;
-        for (int i = 0; i < n; i++) {
-            if (matrix[i] == null || matrix[i].length != n) {
-                throw new IllegalArgumentException("matrix must be square");
-            }
-        }
+        return findCycle(matrix) != null;
+    }
 
-        boolean[] visited = new boolean[n];
-        boolean[] inStack = new boolean[n];
+    /**
+     * Returns whether {@code graph} contains at least one directed cycle
+     * (self-loops included).
+     *
+     * @param graph implication graph
+     * @return {@code true} if a directed cycle exists; {@code false} otherwise
+     */
+    public static boolean hasCycle(ImplicationGraph graph) {
+        return findCycle(graph) != null;
+    }
 
-        // Revisar todos los nodos del grafo
-        for (int startNode = 0; startNode < n; startNode++) {
-            if (!visited[startNode]) {
-                if (dfsIterative(matrix, startNode, visited, inStack)) {
-                    return true;
-                }
-            }
-        }
-        return false;
+    /**
+     * Finds a directed cycle of the graph described by {@code matrix}.
+     *
+     * @param matrix adjacency matrix (must be square); an entry {@code > 0}
+     *               represents an edge
+     * @return the nodes of one cycle, or {@code null} if the graph is acyclic
+     * @throws IllegalArgumentException if {@code matrix} is {@code null} or not
+     *                                  square
+     * @see #findCycle(ImplicationGraph)
+     */
+    public static int[] findCycle(int[][] matrix) {
+        return findCycle(ImplicationGraph.fromMatrix(matrix));
     }
 
     /**
-     * Iterative DFS starting at {@code startNode}.
+     * Finds a directed cycle of {@code graph}.
+     * <p>
+     * The result lists the nodes of the cycle in path order
+     * {@code c[0] -> c[1] -> ... -> c[k-1] -> c[0]}; a self-loop is returned
+     * as a single node. The first cycle met by a DFS started from the nodes in
+     * increasing index order is returned.
+     * </p>
      *
-     * @param matrix adjacency matrix
-     * @param startNode start node
-     * @param visited global visited array
-     * @param inStack global recursion-stack emulation array
-     * @return {@code true} if a back-edge is found (cycle); {@code false} otherwise
+     * @param graph implication graph
+     * @return the nodes of one cycle, or {@code null} if the graph is acyclic
      */
-    private static boolean dfsIterative(int[][] matrix, int startNode, boolean[] visited, boolean[] inStack) {
-        Stack<Integer> stack = new Stack<>();
-        stack.push(startNode);
+    public static int[] findCycle(ImplicationGraph graph) {
+        int n = graph.size();
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
 
-        while (!stack.isEmpty()) {
-            int node = stack.peek();
+        byte[] estado = new byte[n];
+        int[] pila = new int[n];       // camino DFS actual
+        int[] cursor = new int[n];     // siguiente arista de cada nodo del camino
+        int[] posicion = new int[n];   // posición de cada nodo en la pila
 
-            // Si el nodo no ha sido visitado, márcalo como visitado y agrégalo al stack
-            if (!visited[node]) {
-                visited[node] = true;
-                inStack[node] = true;
+        // Revisar todos los nodos del grafo
+        for (int inicio = 0; inicio < n; inicio++) {
+            if (estado[inicio] != BLANCO) {
+                continue;
             }
+            int top = 0;
+            pila[0] = inicio;
+            cursor[0] = offsets[inicio];
+            posicion[inicio] = 0;
+            estado[inicio] = EN_PILA;
 
-            boolean hasUnvisitedNeighbor = false;
-
-            // Revisar todos los vecinos del nodo
-            for (int neighbor = 0; neighbor < matrix[node].length; neighbor++) {
-                if (matrix[node][neighbor] > 0) { // Existe una conexión
-                    if (!visited[neighbor]) {
-                        // Si hay un vecino no visitado, agrégalo al stack
-                        stack.push(neighbor);
-                        hasUnvisitedNeighbor = true;
-                        break; // Salimos para procesar este vecino antes de continuar con otros
-                    } else if (inStack[neighbor]) {
-                        // Si un vecino ya está en la pila, hay un ciclo
-                        return true;
-                    }
+            while (top >= 0) {
+                int node = pila[top];
+                if (cursor[top] == offsets[node + 1]) {
+                    // Sin más vecinos: sale del camino
+                    estado[node] = CERRADO;
+                    top--;
+                    continue;
+                }
+                int neighbor = targets[cursor[top]++];
+                if (estado[neighbor] == BLANCO) {
+                    top++;
+                    pila[top] = neighbor;
+                    cursor[top] = offsets[neighbor];
+                    posicion[neighbor] = top;
+                    estado[neighbor] = EN_PILA;
+                } else if (estado[neighbor] == EN_PILA) {
+                    // Arista de retroceso: el ciclo es el tramo de la pila desde neighbor
+                    return Arrays.copyOfRange(pila, posicion[neighbor], top + 1);
                 }
-            }
-
-            // Si no tiene más vecinos sin visitar, sácalo del stack
-            if (!hasUnvisitedNeighbor) {
-                stack.pop();
-                inStack[node] = false; // Ya no está en la pila de recorrido
             }
         }
-
-        return false;
+        return null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,282 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sparse CSV representation of the model stages: one row per edge instead
+ * of the {@code N x N} matrix of {@link ModelExporter#generarTablaCSV}, so
+ * the file grows with the number of edges.
+ * <p>
+ * The header is {@value #CABECERA}. Every stage starts with one row per node
+ * with an empty target ({@code a;;stage;}), which keeps the node order and
+ * the isolated nodes, followed by one row per edge
+ * ({@code a;b;stage;0|1}). The redundant flag is {@code 1} for the edges that
+ * are not in the canonical graph of the stage (the transitive reduction,
+ * with the cycles expanded when the stage uses the full node labels), i.e.
+ * the edges implied by the others. Several stages can share one file.
+ * </p>
+ * <p>
+ * A label or stage name containing {@code ;} or {@code "} is written between
+ * double quotes, with every {@code "} doubled, as in RFC 4180. Line breaks
+ * cannot be written.
+ * </p>
+ * <p>
+ * Edge weights are not kept: imported edges get weight 1.
+ * </p>
+ */
+public class EdgeListCsv {
+
+    /** Header row of the format. */
+    public static final String CABECERA = "source;target;stage;redundant";
+
+    /**
+     * One stage read from an edge-list file.
+     *
+     * @param nombre stage name
+     * @param nodos node labels, in file order
+     * @param grafo edges of the stage
+     * @param redundantes the edges flagged as redundant (a subgraph of
+     *                    {@code grafo})
+     */
+    public record Etapa(String nombre, List<String> nodos, ImplicationGraph grafo, ImplicationGraph redundantes) {
+    }
+
+    /**
+     * Writes the header row.
+     *
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public static void escribirCabecera(Appendable out) throws IOException {
+        out.append(CABECERA).append('\n');
+    }
+
+    /**
+     * Writes the rows of one stage (without header).
+     *
+     * @param grafo stage graph
+     * @param nodos node labels of the graph
+     * @param etapa stage name
+     * @param canonico canonical graph used for the redundant flag, or
+     *                 {@code null} to flag no edge
+     * @param nodosCanonico node labels of {@code canonico}
+     * @param out destination
+     * @throws IOException if writing fails
+     * @throws IllegalArgumentException if the sizes do not match or a label
+     *                                  contains a line break
+     */
+    public static void escribir(ImplicationGraph grafo, List<String> nodos, String etapa,
+            ImplicationGraph canonico, List<String> nodosCanonico, Appendable out) throws IOException {
+        int n = grafo.size();
+        if (nodos.size() != n || (canonico != null && nodosCanonico.size() != canonico.size())) {
+            throw new IllegalArgumentException("Dimensiones del grafo no coinciden con los nodos");
+        }
+        // Nodo de la etapa -> nodo del grafo canónico (-1 si no existe)
+        int[] enCanonico = null;
+        if (canonico != null) {
+            enCanonico = new int[n];
+            if (nodosCanonico == nodos) {
+                for (int i = 0; i < n; i++) {
+                    enCanonico[i] = i;
+                }
+            } else {
+                Map<String, Integer> indices = new HashMap<>(nodosCanonico.size() * 2);
+                for (int i = 0; i < nodosCanonico.size(); i++) {
+                    indices.putIfAbsent(nodosCanonico.get(i), i);
+                }
+                for (int i = 0; i < n; i++) {
+                    enCanonico[i] = indices.getOrDefault(nodos.get(i), -1);
+                }
+            }
+        }
+        // Etiquetas ya escapadas, una vez por nodo
+        String[] etiquetas = new String[n];
+        for (int i = 0; i < n; i++) {
+            etiquetas[i] = campo(nodos.get(i));
+        }
+        String campoEtapa = campo(etapa);
+        StringBuilder fila = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            fila.setLength(0);
+            out.append(fila.append(etiquetas[i]).append(";;").append(campoEtapa).append(";\n"));
+        }
+        int[] offsets = grafo.outOffsets();
+        int[] targets = grafo.outTargets();
+        for (int i = 0; i < n; i++) {
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                int j = targets[e];
+                boolean redundante = enCanonico != null
+                        && (enCanonico[i] < 0 || enCanonico[j] < 0 || !canonico.hasEdge(enCanonico[i], enCanonico[j]));
+                fila.setLength(0);
+                fila.append(etiquetas[i]).append(';').append(etiquetas[j]).append(';')
+                        .append(campoEtapa).append(';').append(redundante ? '1' : '0').append('\n');
+                out.append(fila);
+            }
+        }
+    }
+
+    /**
+     * Returns a field ready to be written: quoted if it contains the
+     * separator or a quote.
+     */
+    private static String campo(String valor) {
+        if (valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Etiqueta con salto de línea: " + valor);
+        }
+        if (valor.indexOf(';') < 0 && valor.indexOf('"') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * Splits a row into its fields, undoing the quoting of {@link #campo}.
+     *
+     * @return the fields, or {@code null} if a quoted field is malformed
+     */
+    private static List<String> campos(String linea) {
+        List<String> campos = new ArrayList<>(4);
+        StringBuilder actual = new StringBuilder();
+        int i = 0;
+        int n = linea.length();
+        while (true) {
+            actual.setLength(0);
+            if (i < n && linea.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= n) {
+                        return null; // comilla sin cerrar
+                    }
+                    char c = linea.charAt(i++);
+                    if (c != '"') {
+                        actual.append(c);
+                    } else if (i < n && linea.charAt(i) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < n && linea.charAt(i) != ';') {
+                    return null; // texto tras la comilla de cierre
+                }
+            } else {
+                int fin = linea.indexOf(';', i);
+                actual.append(linea, i, fin < 0 ? n : fin);
+                i = fin < 0 ? n : fin;
+            }
+            campos.add(actual.toString());
+            if (i >= n) {
+                return campos;
+            }
+            i++; // separador
+        }
+    }
+
+    /**
+     * Writes the stages of an executed pipeline (header included). The
+     * canonical graph of each stage is {@link
+     * ImplicationPipeline#getEtapaCanonica}.
+     *
+     * @param pipeline executed pipeline
+     * @param etapas indices of the stages to write
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public static void escribir(ImplicationPipeline pipeline, int[] etapas, Appendable out) throws IOException {
+        List<ImplicationGraph> grafos = pipeline.getGrafos();
+        List<String> nombres = pipeline.getNombresEtapas();
+        escribirCabecera(out);
+        for (int e : etapas) {
+            int c = pipeline.getEtapaCanonica(e);
+            escribir(grafos.get(e), pipeline.getNodosEtapa(e), nombres.get(e),
+                    grafos.get(c), pipeline.getNodosEtapa(c), out);
+        }
+    }
+
+    /**
+     * Reads an edge-list file.
+     *
+     * @param in source; it is not closed
+     * @return the stages in file order
+     * @throws IOException if reading fails or the content is not an edge
+     *                     list
+     */
+    public static List<Etapa> leer(Reader in) throws IOException {
+        BufferedReader lector = in instanceof BufferedReader b ? b : new BufferedReader(in);
+        String linea = lector.readLine();
+        if (linea == null || !linea.strip().equals(CABECERA)) {
+            throw new IOException("Not an edge list CSV: the header must be " + CABECERA);
+        }
+        Map<String, Lectura> lecturas = new LinkedHashMap<>();
+        int numero = 1;
+        while ((linea = lector.readLine()) != null) {
+            numero++;
+            if (linea.isBlank()) {
+                continue;
+            }
+            List<String> campos = campos(linea);
+            if (campos == null || campos.size() != 4 || campos.get(0).isEmpty() || campos.get(2).isEmpty()) {
+                throw new IOException("Invalid edge list row " + numero + ": " + linea);
+            }
+            Lectura lectura = lecturas.computeIfAbsent(campos.get(2), Lectura::new);
+            int u = lectura.nodo(campos.get(0));
+            if (!campos.get(1).isEmpty()) {
+                int v = lectura.nodo(campos.get(1));
+                lectura.aristas.add(u, v);
+                switch (campos.get(3)) {
+                    case "1" ->
+                        lectura.redundantes.add(u, v);
+                    case "0", "" -> {
+                    }
+                    default ->
+                        throw new IOException("Invalid redundant flag in row " + numero + ": " + linea);
+                }
+            }
+        }
+        List<Etapa> etapas = new ArrayList<>(lecturas.size());
+        for (Lectura lectura : lecturas.values()) {
+            int n = lectura.nodos.size();
+            etapas.add(new Etapa(lectura.nombre, lectura.nodos,
+                    lectura.aristas.build(n, false), lectura.redundantes.build(n, false)));
+        }
+        return etapas;
+    }
+
+    /**
+     * Stage being read.
+     */
+    private static final class Lectura {
+
+        final String nombre;
+        final List<String> nodos = new ArrayList<>();
+        final Map<String, Integer> indices = new HashMap<>();
+        final ImplicationGraph.EdgeList aristas = new ImplicationGraph.EdgeList();
+        final ImplicationGraph.EdgeList redundantes = new ImplicationGraph.EdgeList();
+
+        Lectura(String nombre) {
+            this.nombre = nombre;
+        }
+
+        int nodo(String etiqueta) {
+            Integer i = indices.get(etiqueta);
+            if (i == null) {
+                i = nodos.size();
+                indices.put(etiqueta, i);
+                nodos.add(etiqueta);
+            }
+            return i;
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed node coordinates for drawing large graphs without a force
+ * directed layout.
+ * <p>
+ * The graphs are given as CSR adjacency ({@code offsets}/{@code targets},
+ * successors of {@code v} in {@code targets[offsets[v] .. offsets[v + 1])})
+ * and every method works on primitive arrays. The result is an array
+ * {@code {x, y}} of coordinates per node.
+ * </p>
+ */
+public class GraphLayout {
+
+    /** Number of barycenter sweeps (each one down and up). */
+    private static final int BARRIDOS = 4;
+
+    /**
+     * Layered (Sugiyama-style) layout: every node goes to the layer of its
+     * longest path from a source, and the order inside each layer is
+     * improved with barycenter sweeps to reduce edge crossings. Cycles are
+     * tolerated: the nodes of a strongly connected component share a layer.
+     * Every connected component gets its own band of columns, centred on
+     * each layer. Cost O((V + E) &middot; sweeps + V log V).
+     *
+     * @param n number of nodes
+     * @param offsets CSR offsets ({@code n + 1})
+     * @param targets CSR targets
+     * @param separacionX distance between neighbours of a layer
+     * @param separacionY distance between layers
+     * @return {@code {x, y}} coordinates; layer 0 at {@code y = 0}, the next
+     *         layers below it
+     */
+    public static double[][] jerarquico(int n, int[] offsets, int[] targets, double separacionX, double separacionY) {
+        int[] capa = capas(n, offsets, targets);
+        int nCapas = 0;
+        for (int v = 0; v < n; v++) {
+            nCapas = Math.max(nCapas, capa[v] + 1);
+        }
+        // Nodos agrupados por capa (orden inicial: índice)
+        int[] inicioCapa = new int[nCapas + 1];
+        for (int v = 0; v < n; v++) {
+            inicioCapa[capa[v] + 1]++;
+        }
+        for (int c = 0; c < nCapas; c++) {
+            inicioCapa[c + 1] += inicioCapa[c];
+        }
+        int[] orden = new int[n];
+        int[] llenado = Arrays.copyOf(inicioCapa, nCapas);
+        for (int v = 0; v < n; v++) {
+            orden[llenado[capa[v]]++] = v;
+        }
+        // Posición relativa de cada nodo dentro de su capa, en [0, 1]
+        double[] posicion = new double[n];
+        actualizarPosiciones(orden, inicioCapa, nCapas, posicion);
+
+        int[] predOffsets = new int[n + 1];
+        int[] predSources = invertir(n, offsets, targets, predOffsets);
+        double[] clave = new double[n];
+        for (int barrido = 0; barrido < BARRIDOS; barrido++) {
+            ordenarPorBaricentro(orden, inicioCapa, nCapas, predOffsets, predSources, posicion, clave);
+            actualizarPosiciones(orden, inicioCapa, nCapas, posicion);
+            ordenarPorBaricentro(orden, inicioCapa, nCapas, offsets, targets, posicion, clave);
+            actualizarPosiciones(orden, inicioCapa, nCapas, posicion);
+        }
+
+        // Cada componente conexa ocupa su propia franja de columnas
+        int[] componente = new int[n];
+        int nComp = componentes(n, offsets, targets, predOffsets, predSources, componente);
+        int[] enCapa = new int[nComp];
+        int[] ancho = new int[nComp];
+        int[] rango = new int[n];
+        for (int c = 0; c < nCapas; c++) {
+            for (int k = inicioCapa[c]; k < inicioCapa[c + 1]; k++) {
+                int v = orden[k];
+                rango[v] = enCapa[componente[v]]++;
+            }
+            for (int k = inicioCapa[c]; k < inicioCapa[c + 1]; k++) {
+                int comp = componente[orden[k]];
+                ancho[comp] = Math.max(ancho[comp], enCapa[comp]);
+            }
+            for (int k = inicioCapa[c]; k < inicioCapa[c + 1]; k++) {
+                enCapa[componente[orden[k]]] = 0;
+            }
+        }
+        double[] inicioComp = new double[nComp];
+        for (int comp = 1; comp < nComp; comp++) {
+            inicioComp[comp] = inicioComp[comp - 1] + ancho[comp - 1] + 1;
+        }
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int c = 0; c < nCapas; c++) {
+            for (int k = inicioCapa[c]; k < inicioCapa[c + 1]; k++) {
+                enCapa[componente[orden[k]]]++;
+            }
+            for (int k = inicioCapa[c]; k < inicioCapa[c + 1]; k++) {
+                int v = orden[k];
+                int comp = componente[v];
+                x[v] = (inicioComp[comp] + rango[v] + (ancho[comp] - enCapa[comp]) / 2.0) * separacionX;
+                y[v] = -c * separacionY;
+            }
+            for (int k = inicioCapa[c]; k < inicioCapa[c + 1]; k++) {
+                enCapa[componente[orden[k]]] = 0;
+            }
+        }
+        return new double[][]{x, y};
+    }
+
+    /**
+     * Radial layout: every connected component (ignoring edge direction) is
+     * drawn as rings around its node of highest degree, ring {@code d} holding
+     * the nodes at BFS distance {@code d}, in BFS order so children stay next
+     * to their parents. The components are packed in rows, largest first.
+     * One BFS per component: O(V + E) plus the sort of the components.
+     *
+     * @param n number of nodes
+     * @param offsets CSR offsets ({@code n + 1})
+     * @param targets CSR targets
+     * @param separacion distance between rings
+     * @return {@code {x, y}} coordinates
+     */
+    public static double[][] radial(int n, int[] offsets, int[] targets, double separacion) {
+        if (n == 0) {
+            return new double[][]{new double[0], new double[0]};
+        }
+        int[] predOffsets = new int[n + 1];
+        int[] predSources = invertir(n, offsets, targets, predOffsets);
+        int[] componente = new int[n];
+        int nComp = componentes(n, offsets, targets, predOffsets, predSources, componente);
+        // Raíz de cada componente: el nodo de mayor grado
+        int[] raiz = new int[nComp];
+        Arrays.fill(raiz, -1);
+        for (int v = 0; v < n; v++) {
+            int c = componente[v];
+            if (raiz[c] < 0 || grado(v, offsets, predOffsets) > grado(raiz[c], offsets, predOffsets)) {
+                raiz[c] = v;
+            }
+        }
+
+        double[] x = new double[n];
+        double[] y = new double[n];
+        int[] profundidad = new int[n];
+        Arrays.fill(profundidad, -1);
+        int[] cola = new int[n];
+        int[] enAnillo = new int[n + 1];
+        int[] indiceAnillo = new int[n + 1];
+        int[] radio = new int[nComp];
+        for (int c = 0; c < nComp; c++) {
+            int cabeza = 0;
+            int fin = 0;
+            cola[fin++] = raiz[c];
+            profundidad[raiz[c]] = 0;
+            while (cabeza < fin) {
+                int u = cola[cabeza++];
+                fin = visitar(u, offsets, targets, profundidad, cola, fin);
+                fin = visitar(u, predOffsets, predSources, profundidad, cola, fin);
+            }
+            radio[c] = profundidad[cola[fin - 1]];
+            for (int k = 0; k < fin; k++) {
+                enAnillo[profundidad[cola[k]]]++;
+            }
+            for (int k = 0; k < fin; k++) {
+                int v = cola[k];
+                int d = profundidad[v];
+                double angulo = 2 * Math.PI * indiceAnillo[d]++ / enAnillo[d];
+                x[v] = d * separacion * Math.cos(angulo);
+                y[v] = d * separacion * Math.sin(angulo);
+            }
+            for (int d = 0; d <= radio[c]; d++) {
+                enAnillo[d] = 0;
+                indiceAnillo[d] = 0;
+            }
+        }
+
+        // Empaquetado por filas: cada componente ocupa un cuadrado de lado 2 * radio + 1 anillos
+        long[] porTamano = new long[nComp];
+        double area = 0;
+        for (int c = 0; c < nComp; c++) {
+            porTamano[c] = ((long) (n - radio[c]) << 32) | c;
+            area += (2.0 * radio[c] + 1) * (2.0 * radio[c] + 1);
+        }
+        Arrays.sort(porTamano);
+        double anchoFila = Math.max(Math.sqrt(area), 2.0 * radio[(int) porTamano[0]] + 1);
+        double[] centroX = new double[nComp];
+        double[] centroY = new double[nComp];
+        double filaX = 0;
+        double filaY = 0;
+        double altoFila = 0;
+        for (long clave : porTamano) {
+            int c = (int) clave;
+            double lado = 2.0 * radio[c] + 1;
+            if (filaX > 0 && filaX + lado > anchoFila) {
+                filaX = 0;
+                filaY -= altoFila;
+                altoFila = 0;
+            }
+            centroX[c] = (filaX + lado / 2) * separacion;
+            centroY[c] = (filaY - lado / 2) * separacion;
+            filaX += lado;
+            altoFila = Math.max(altoFila, lado);
+        }
+        for (int v = 0; v < n; v++) {
+            x[v] += centroX[componente[v]];
+            y[v] += centroY[componente[v]];
+        }
+        return new double[][]{x, y};
+    }
+
+    private static int grado(int v, int[] offsets, int[] predOffsets) {
+        return offsets[v + 1] - offsets[v] + predOffsets[v + 1] - predOffsets[v];
+    }
+
+    /**
+     * Enqueues the unvisited neighbours of {@code u} at the next depth.
+     */
+    private static int visitar(int u, int[] vecOffsets, int[] vecinos, int[] profundidad, int[] cola, int fin) {
+        for (int e = vecOffsets[u]; e < vecOffsets[u + 1]; e++) {
+            int v = vecinos[e];
+            if (profundidad[v] < 0) {
+                profundidad[v] = profundidad[u] + 1;
+                cola[fin++] = v;
+            }
+        }
+        return fin;
+    }
+
+    /**
+     * Connected components ignoring edge direction, numbered in order of
+     * their lowest node; fills {@code componente} and returns their number.
+     */
+    static int componentes(int n, int[] offsets, int[] targets, int[] predOffsets, int[] predSources,
+            int[] componente) {
+        Arrays.fill(componente, -1);
+        int[] pila = new int[n];
+        int nComp = 0;
+        for (int s = 0; s < n; s++) {
+            if (componente[s] >= 0) {
+                continue;
+            }
+            int cima = 0;
+            pila[cima++] = s;
+            componente[s] = nComp;
+            while (cima > 0) {
+                int u = pila[--cima];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    if (componente[targets[e]] < 0) {
+                        componente[targets[e]] = nComp;
+                        pila[cima++] = targets[e];
+                    }
+                }
+                for (int e = predOffsets[u]; e < predOffsets[u + 1]; e++) {
+                    if (componente[predSources[e]] < 0) {
+                        componente[predSources[e]] = nComp;
+                        pila[cima++] = predSources[e];
+                    }
+                }
+            }
+            nComp++;
+        }
+        return nComp;
+    }
+
+    /**
+     * Longest-path layering on the condensation of the graph.
+     */
+    static int[] capas(int n, int[] offsets, int[] targets) {
+        int[] componente = new TarjanCondensedGraph(offsets, targets).computeSCCs();
+        int nComp = 0;
+        for (int v = 0; v < n; v++) {
+            nComp = Math.max(nComp, componente[v] + 1);
+        }
+        // Miembros de cada componente
+        int[] inicio = new int[nComp + 1];
+        for (int v = 0; v < n; v++) {
+            inicio[componente[v] + 1]++;
+        }
+        for (int c = 0; c < nComp; c++) {
+            inicio[c + 1] += inicio[c];
+        }
+        int[] miembros = new int[n];
+        int[] llenado = Arrays.copyOf(inicio, nComp);
+        for (int v = 0; v < n; v++) {
+            miembros[llenado[componente[v]]++] = v;
+        }
+        // Tarjan numera en orden topológico inverso: las fuentes tienen el número mayor
+        int[] capaComp = new int[nComp];
+        for (int c = nComp - 1; c >= 0; c--) {
+            for (int k = inicio[c]; k < inicio[c + 1]; k++) {
+                int u = miembros[k];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int d = componente[targets[e]];
+                    if (d != c && capaComp[d] < capaComp[c] + 1) {
+                        capaComp[d] = capaComp[c] + 1;
+                    }
+                }
+            }
+        }
+        int[] capa = new int[n];
+        for (int v = 0; v < n; v++) {
+            capa[v] = capaComp[componente[v]];
+        }
+        return capa;
+    }
+
+    /**
+     * Builds the reverse CSR; fills {@code predOffsets} and returns the
+     * sources.
+     */
+    static int[] invertir(int n, int[] offsets, int[] targets, int[] predOffsets) {
+        int m = offsets[n];
+        for (int e = 0; e < m; e++) {
+            predOffsets[targets[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            predOffsets[v + 1] += predOffsets[v];
+        }
+        int[] sources = new int[m];
+        int[] llenado = Arrays.copyOf(predOffsets, n);
+        for (int u = 0; u < n; u++) {
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                sources[llenado[targets[e]]++] = u;
+            }
+        }
+        return sources;
+    }
+
+    private static void actualizarPosiciones(int[] orden, int[] inicioCapa, int nCapas, double[] posicion) {
+        for (int c = 0; c < nCapas; c++) {
+            int ancho = inicioCapa[c + 1] - inicioCapa[c];
+            for (int k = inicioCapa[c]; k < inicioCapa[c + 1]; k++) {
+                posicion[orden[k]] = ancho == 1 ? 0.5 : (k - inicioCapa[c]) / (double) (ancho - 1);
+            }
+        }
+    }
+
+    /**
+     * Sorts every layer by the mean position of the neighbours given by
+     * {@code vecOffsets}/{@code vecinos}; nodes without neighbours keep
+     * their position.
+     */
+    private static void ordenarPorBaricentro(int[] orden, int[] inicioCapa, int nCapas,
+            int[] vecOffsets, int[] vecinos, double[] posicion, double[] clave) {
+        for (int k = 0; k < orden.length; k++) {
+            int v = orden[k];
+            int grado = vecOffsets[v + 1] - vecOffsets[v];
+            if (grado == 0) {
+                clave[v] = posicion[v];
+            } else {
+                double suma = 0;
+                for (int e = vecOffsets[v]; e < vecOffsets[v + 1]; e++) {
+                    suma += posicion[vecinos[e]];
+                }
+                clave[v] = suma / grado;
+            }
+        }
+        // Ordenación estable por clave dentro de cada capa: se empaqueta clave e índice en un long
+        for (int c = 0; c < nCapas; c++) {
+            int desde = inicioCapa[c];
+            int hasta = inicioCapa[c + 1];
+            if (hasta - desde < 2) {
+                continue;
+            }
+            long[] claves = new long[hasta - desde];
+            for (int k = desde; k < hasta; k++) {
+                // clave en [0, 1]: 31 bits de precisión, después la posición actual para estabilidad
+                long q = (long) (clave[orden[k]] * Integer.MAX_VALUE);
+                claves[k - desde] = (q << 32) | (k - desde);
+            }
+            Arrays.sort(claves);
+            int[] copia = Arrays.copyOfRange(orden, desde, hasta);
+            for (int k = 0; k < claves.length; k++) {
+                orden[desde + k] = copia[(int) (claves[k] & 0xffffffffL)];
+            }
+        }
+    }
+}
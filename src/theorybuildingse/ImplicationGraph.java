@@ -0,0 +1,494 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import java.util.Arrays;
+
+/**
+ * Immutable directed implication graph stored in compressed sparse row (CSR)
+ * form.
+ * <p>
+ * The successors of node {@code v} are
+ * {@code outTargets[outOffsets[v] .. outOffsets[v + 1])}, sorted in
+ * increasing order and without duplicates; every edge also carries an
+ * {@code int} weight (the value the edge has in the {@code int[][]} views).
+ * The reverse adjacency (predecessors) is stored the same way, so both
+ * directions can be walked in O(degree).
+ * </p>
+ * <p>
+ * Memory is O(V + E) instead of the O(V&sup2;) of an adjacency matrix. The
+ * {@code int[][]} and {@link BitMatrix} converters are kept for the views
+ * that still work on matrices.
+ * </p>
+ */
+public final class ImplicationGraph {
+
+    /** Number of nodes. */
+    private final int n;
+
+    /** Forward CSR. */
+    private final int[] outOffsets;
+    private final int[] outTargets;
+    private final int[] outWeights;
+
+    /** Reverse CSR: {@code inSources[inOffsets[v] .. inOffsets[v + 1])} are the predecessors of {@code v}. */
+    private final int[] inOffsets;
+    private final int[] inSources;
+    private final int[] inWeights;
+
+    /**
+     * Builds a graph from already sorted forward CSR arrays and derives the
+     * reverse adjacency.
+     */
+    private ImplicationGraph(int n, int[] outOffsets, int[] outTargets, int[] outWeights) {
+        this.n = n;
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outWeights = outWeights;
+
+        int m = outOffsets[n];
+        inOffsets = new int[n + 1];
+        for (int e = 0; e < m; e++) {
+            inOffsets[outTargets[e] + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        inSources = new int[m];
+        inWeights = new int[m];
+        int[] cursor = Arrays.copyOf(inOffsets, n);
+        // Recorrer las filas en orden deja los predecesores ordenados
+        for (int u = 0; u < n; u++) {
+            for (int e = outOffsets[u]; e < outOffsets[u + 1]; e++) {
+                int k = cursor[outTargets[e]]++;
+                inSources[k] = u;
+                inWeights[k] = outWeights[e];
+            }
+        }
+    }
+
+    /**
+     * Graph that shares the arrays of {@code other} with both directions
+     * swapped.
+     */
+    private ImplicationGraph(ImplicationGraph other) {
+        n = other.n;
+        outOffsets = other.inOffsets;
+        outTargets = other.inSources;
+        outWeights = other.inWeights;
+        inOffsets = other.outOffsets;
+        inSources = other.outTargets;
+        inWeights = other.outWeights;
+    }
+
+    /**
+     * Wraps already built forward CSR arrays (package use only): every row
+     * must be sorted in increasing order and free of duplicates. The arrays
+     * are not copied.
+     */
+    static ImplicationGraph fromCsr(int n, int[] outOffsets, int[] outTargets, int[] outWeights) {
+        return new ImplicationGraph(n, outOffsets, outTargets, outWeights);
+    }
+
+    /**
+     * Builds a graph from an adjacency matrix.
+     *
+     * @param matrix square adjacency matrix; an entry {@code > 0} is an edge
+     *               and its value the edge weight
+     * @return the graph
+     * @throws IllegalArgumentException if {@code matrix} is {@code null} or not
+     *                                  square
+     */
+    public static ImplicationGraph fromMatrix(int[][] matrix) {
+        if (matrix == null) {
+            throw new IllegalArgumentException("matrix cannot be null");
+        }
+        int n = matrix.length;
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (matrix[i] == null || matrix[i].length != n) {
+                throw new IllegalArgumentException("matrix must be square");
+            }
+            for (int j = 0; j < n; j++) {
+                if (matrix[i][j] > 0) {
+                    m++;
+                }
+            }
+        }
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            offsets[i] = k;
+            for (int j = 0; j < n; j++) {
+                if (matrix[i][j] > 0) {
+                    targets[k] = j;
+                    weights[k++] = matrix[i][j];
+                }
+            }
+        }
+        offsets[n] = k;
+        return new ImplicationGraph(n, offsets, targets, weights);
+    }
+
+    /**
+     * Builds a graph from a bit matrix; every edge gets weight 1.
+     *
+     * @param bits adjacency bit matrix
+     * @return the graph
+     */
+    public static ImplicationGraph fromBitMatrix(BitMatrix bits) {
+        int n = bits.size();
+        int m = (int) bits.cardinality();
+        int[] offsets = new int[n + 1];
+        int[] targets = new int[m];
+        int[] weights = new int[m];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            offsets[i] = k;
+            for (int j = bits.nextSetBit(i, 0); j >= 0; j = bits.nextSetBit(i, j + 1)) {
+                targets[k] = j;
+                weights[k++] = 1;
+            }
+        }
+        offsets[n] = k;
+        return new ImplicationGraph(n, offsets, targets, weights);
+    }
+
+    /**
+     * Expands the graph into an adjacency matrix holding the edge weights.
+     *
+     * @return a new {@code int[n][n]} matrix
+     */
+    public int[][] toMatrix() {
+        int[][] matrix = new int[n][n];
+        for (int u = 0; u < n; u++) {
+            for (int e = outOffsets[u]; e < outOffsets[u + 1]; e++) {
+                matrix[u][outTargets[e]] = outWeights[e];
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Packs the graph into a bit matrix (weights are dropped).
+     *
+     * @return a new bit matrix
+     */
+    public BitMatrix toBitMatrix() {
+        BitMatrix bits = new BitMatrix(n);
+        for (int u = 0; u < n; u++) {
+            for (int e = outOffsets[u]; e < outOffsets[u + 1]; e++) {
+                bits.set(u, outTargets[e]);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return node count
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns the number of edges.
+     *
+     * @return edge count
+     */
+    public int edgeCount() {
+        return outOffsets[n];
+    }
+
+    /**
+     * Returns the out-degree of {@code v}.
+     *
+     * @param v node
+     * @return number of successors
+     */
+    public int outDegree(int v) {
+        return outOffsets[v + 1] - outOffsets[v];
+    }
+
+    /**
+     * Returns the in-degree of {@code v}.
+     *
+     * @param v node
+     * @return number of predecessors
+     */
+    public int inDegree(int v) {
+        return inOffsets[v + 1] - inOffsets[v];
+    }
+
+    /**
+     * Returns the successors of {@code v} in increasing order.
+     *
+     * @param v node
+     * @return a new array with the successors
+     */
+    public int[] successors(int v) {
+        return Arrays.copyOfRange(outTargets, outOffsets[v], outOffsets[v + 1]);
+    }
+
+    /**
+     * Returns the predecessors of {@code v} in increasing order.
+     *
+     * @param v node
+     * @return a new array with the predecessors
+     */
+    public int[] predecessors(int v) {
+        return Arrays.copyOfRange(inSources, inOffsets[v], inOffsets[v + 1]);
+    }
+
+    /**
+     * Returns whether the edge {@code u -> v} is present (binary search on
+     * the row of {@code u}).
+     *
+     * @param u source node
+     * @param v target node
+     * @return {@code true} if the edge exists
+     */
+    public boolean hasEdge(int u, int v) {
+        return indexOf(u, v) >= 0;
+    }
+
+    /**
+     * Returns the weight of the edge {@code u -> v}.
+     *
+     * @param u source node
+     * @param v target node
+     * @return the weight, or {@code 0} if the edge does not exist
+     */
+    public int weight(int u, int v) {
+        int e = indexOf(u, v);
+        return e >= 0 ? outWeights[e] : 0;
+    }
+
+    /**
+     * Position of the edge {@code u -> v} in {@link #outTargets}, or a
+     * negative value if it does not exist.
+     */
+    private int indexOf(int u, int v) {
+        int e = Arrays.binarySearch(outTargets, outOffsets[u], outOffsets[u + 1], v);
+        return e >= outOffsets[u] ? e : -1;
+    }
+
+    /**
+     * Computes a topological order with Kahn's algorithm in O(V + E).
+     * <p>
+     * Nodes with no pending predecessors are emitted in increasing index
+     * order, so the result is the same as {@link BitMatrix#topologicalOrder()}
+     * for the same graph.
+     * </p>
+     *
+     * @return node indices in topological order, or {@code null} if the graph
+     *         contains a cycle (self-loops included)
+     */
+    public int[] topologicalOrder() {
+        int[] inDegree = new int[n];
+        for (int v = 0; v < n; v++) {
+            inDegree[v] = inOffsets[v + 1] - inOffsets[v];
+        }
+        int[] order = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            if (inDegree[v] == 0) {
+                order[tail++] = v;
+            }
+        }
+        while (head < tail) {
+            int u = order[head++];
+            for (int e = outOffsets[u]; e < outOffsets[u + 1]; e++) {
+                if (--inDegree[outTargets[e]] == 0) {
+                    order[tail++] = outTargets[e];
+                }
+            }
+        }
+        return tail == n ? order : null;
+    }
+
+    /**
+     * Returns the graph with every edge reversed. The arrays are shared, so
+     * this is O(1).
+     *
+     * @return the transposed graph
+     */
+    public ImplicationGraph reverse() {
+        return new ImplicationGraph(this);
+    }
+
+    /*
+     * Acceso directo a los arrays internos para los algoritmos del paquete
+     * (no se deben modificar).
+     */
+    int[] outOffsets() {
+        return outOffsets;
+    }
+
+    int[] outTargets() {
+        return outTargets;
+    }
+
+    int[] outWeights() {
+        return outWeights;
+    }
+
+    int[] inOffsets() {
+        return inOffsets;
+    }
+
+    int[] inSources() {
+        return inSources;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof ImplicationGraph)) {
+            return false;
+        }
+        ImplicationGraph other = (ImplicationGraph) obj;
+        return n == other.n && Arrays.equals(outOffsets, other.outOffsets)
+                && Arrays.equals(outTargets, other.outTargets)
+                && Arrays.equals(outWeights, other.outWeights);
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 31 * n + Arrays.hashCode(outOffsets);
+        h = 31 * h + Arrays.hashCode(outTargets);
+        return 31 * h + Arrays.hashCode(outWeights);
+    }
+
+    /**
+     * Growable list of edges used to build an {@link ImplicationGraph}.
+     * <p>
+     * Edges can be added in any order; {@link #build(int, boolean)} sorts them
+     * into CSR form with two counting-sort passes (O(V + E)).
+     * </p>
+     */
+    public static final class EdgeList {
+
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private int[] weight = new int[16];
+        private int size;
+
+        /**
+         * Adds the edge {@code u -> v} with weight 1.
+         *
+         * @param u source node
+         * @param v target node
+         */
+        public void add(int u, int v) {
+            add(u, v, 1);
+        }
+
+        /**
+         * Adds the edge {@code u -> v} with the given weight.
+         *
+         * @param u source node
+         * @param v target node
+         * @param w edge weight ({@code > 0})
+         */
+        public void add(int u, int v, int w) {
+            if (size == from.length) {
+                int capacidad = size * 2;
+                from = Arrays.copyOf(from, capacidad);
+                to = Arrays.copyOf(to, capacidad);
+                weight = Arrays.copyOf(weight, capacidad);
+            }
+            from[size] = u;
+            to[size] = v;
+            weight[size++] = w;
+        }
+
+        /**
+         * Returns the number of edges added so far (duplicates included).
+         *
+         * @return edge count
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Builds the graph.
+         *
+         * @param n number of nodes
+         * @param sumDuplicates if {@code true} repeated edges add up their
+         *                      weights (as when contracting nodes); otherwise
+         *                      the last weight added wins (as when assigning
+         *                      a matrix cell)
+         * @return the graph
+         * @throws IndexOutOfBoundsException if an edge references a node
+         *                                   outside {@code 0..n-1}
+         */
+        public ImplicationGraph build(int n, boolean sumDuplicates) {
+            for (int e = 0; e < size; e++) {
+                if (from[e] < 0 || from[e] >= n || to[e] < 0 || to[e] >= n) {
+                    throw new IndexOutOfBoundsException("Edge " + from[e] + " -> " + to[e] + " out of range for " + n + " nodes");
+                }
+            }
+            // 1) Orden estable por destino
+            int[] porDestino = new int[size];
+            int[] cuenta = new int[n + 1];
+            for (int e = 0; e < size; e++) {
+                cuenta[to[e] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                cuenta[v + 1] += cuenta[v];
+            }
+            for (int e = 0; e < size; e++) {
+                porDestino[cuenta[to[e]]++] = e;
+            }
+            // 2) Orden estable por origen: filas ordenadas por destino
+            int[] offsets = new int[n + 1];
+            for (int e = 0; e < size; e++) {
+                offsets[from[e] + 1]++;
+            }
+            for (int v = 0; v < n; v++) {
+                offsets[v + 1] += offsets[v];
+            }
+            int[] ordenadas = new int[size];
+            int[] cursor = Arrays.copyOf(offsets, n);
+            for (int e : porDestino) {
+                ordenadas[cursor[from[e]]++] = e;
+            }
+            // 3) Compactar aristas repetidas
+            int[] targets = new int[size];
+            int[] weights = new int[size];
+            int k = 0;
+            for (int u = 0; u < n; u++) {
+                int inicio = offsets[u];
+                int fin = offsets[u + 1];
+                offsets[u] = k;
+                int filaInicio = k;
+                for (int p = inicio; p < fin; p++) {
+                    int e = ordenadas[p];
+                    if (k > filaInicio && targets[k - 1] == to[e]) {
+                        weights[k - 1] = sumDuplicates ? weights[k - 1] + weight[e] : weight[e];
+                    } else {
+                        targets[k] = to[e];
+                        weights[k++] = weight[e];
+                    }
+                }
+            }
+            offsets[n] = k;
+            if (k < size) {
+                targets = Arrays.copyOf(targets, k);
+                weights = Arrays.copyOf(weights, k);
+            }
+            return new ImplicationGraph(n, offsets, targets, weights);
+        }
+    }
+}
@@ -0,0 +1,593 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Synthesis pipeline of an implication theory, independent of the user
+ * interface.
+ * <p>
+ * From the list of implications ({@code literal1 -> literal2} with their
+ * negation flags) it builds the stages shown by the application:
+ * </p>
+ * <ul>
+ * <li>With cycles: initial, reduced cycles, transitive closure, transitive
+ * reduction and expanded cycles.</li>
+ * <li>Without cycles: initial, transitive closure and transitive
+ * reduction.</li>
+ * </ul>
+ * <p>
+ * Every stage is an {@link ImplicationGraph}. The {@link StageMetrics} of
+ * each stage are recorded so the user interface and batch runs can report
+ * them.
+ * </p>
+ * <p>
+ * With {@link #usarCierreIncremental(IncrementalClosure)} the closure and
+ * reduction stages are read from an incremental model that survives between
+ * runs, so editing one implication does not recompute them from scratch;
+ * the closure graph is then only built when {@link #getGrafos()} is read.
+ * </p>
+ */
+public class ImplicationPipeline {
+
+    /** Stage names of a model with cycles. */
+    public static final List<String> ETAPAS_CON_CICLOS = List.of(
+            "Initial", "Reduced cycles", "Transitive closure", "Transitive reduction", "Expanded cycles");
+
+    /** Stage names of a model without cycles. */
+    public static final List<String> ETAPAS_SIN_CICLOS = List.of(
+            "Initial", "Transitive closure", "Transitive reduction");
+
+    /**
+     * Receives the progress of {@link #ejecutar(CancellationToken, ProgressListener)}.
+     */
+    public interface ProgressListener {
+
+        /**
+         * Called, on the computing thread, when a step starts.
+         *
+         * @param paso description of the step that starts
+         * @param completados number of steps already finished
+         * @param total number of steps of the run
+         */
+        void paso(String paso, int completados, int total);
+    }
+
+    private final String[] literales1;
+    private final boolean[] negados1;
+    private final String[] literales2;
+    private final boolean[] negados2;
+
+    /** Cycle restore implementation: 0 = V1, otherwise V2. */
+    private final int versionAR;
+
+    private LiteralTable tablaLiterales;
+    private List<String> nodos;
+    private List<String> nodosReducidos = Collections.emptyList();
+    /** Stages; the closure is {@code null} until requested if it comes from {@link #cierreIncremental}. */
+    private final List<ImplicationGraph> grafos = new ArrayList<>();
+    private final List<ImplicationGraph> vistaGrafos = new AbstractList<ImplicationGraph>() {
+        @Override
+        public ImplicationGraph get(int index) {
+            return etapaGrafo(index);
+        }
+
+        @Override
+        public int size() {
+            return grafos.size();
+        }
+    };
+    private final List<StageMetrics> metricas = new ArrayList<>();
+    private boolean tieneCiclos;
+    private String error;
+    private TwoSatChecker.Resultado consistencia;
+    private boolean ejecutado;
+    private CancellationToken cancelacion = CancellationToken.NONE;
+    private ProgressListener progreso;
+    private IncrementalClosure cierreIncremental;
+
+    /** Node of the closure stage input of every literal id of {@link #cierreIncremental}. */
+    private int[] nodoIncremental;
+
+    /** One literal id of {@link #cierreIncremental} of every node of the closure stage input. */
+    private int[] literalIncremental;
+
+    /** Closure stage input and version of the incremental model it was read from. */
+    private ImplicationGraph baseCierre;
+    private IncrementalClosure cierrePendiente;
+    private int versionCierre;
+
+    /**
+     * Creates a pipeline for the implications
+     * {@code [¬]literales1[i] -> [¬]literales2[i]}.
+     *
+     * @param literales1 text of literal 1 of every implication (without negation)
+     * @param negados1 whether literal 1 of every implication is negated
+     * @param literales2 text of literal 2 of every implication (without negation)
+     * @param negados2 whether literal 2 of every implication is negated
+     * @param versionAR cycle restore implementation (0 = V1, otherwise V2)
+     * @throws IllegalArgumentException if the arrays have different lengths
+     */
+    public ImplicationPipeline(String[] literales1, boolean[] negados1, String[] literales2, boolean[] negados2, int versionAR) {
+        int m = literales1.length;
+        if (negados1.length != m || literales2.length != m || negados2.length != m) {
+            throw new IllegalArgumentException("All implication arrays must have the same length");
+        }
+        this.literales1 = literales1;
+        this.negados1 = negados1;
+        this.literales2 = literales2;
+        this.negados2 = negados2;
+        this.versionAR = versionAR;
+    }
+
+    /**
+     * Builds the node list (both polarities of every literal, sorted by
+     * label).
+     *
+     * @return the literal table of the implications
+     */
+    public LiteralTable getTablaLiterales() {
+        if (tablaLiterales == null) {
+            tablaLiterales = new LiteralTable();
+            for (int i = 0; i < literales1.length; i++) {
+                tablaLiterales.intern(literales1[i], negados1[i]);
+            }
+            for (int i = 0; i < literales2.length; i++) {
+                tablaLiterales.intern(literales2[i], negados2[i]);
+            }
+        }
+        return tablaLiterales;
+    }
+
+    /**
+     * Takes the closure and reduction stages from an incremental model
+     * instead of computing them from scratch.
+     * <p>
+     * Before the closure the model is synchronised with the implications of
+     * this pipeline, which only applies the implications added or removed
+     * since its last use. The same model may be shared by successive
+     * pipelines; runs on it are serialised. If it cannot be used (a literal
+     * that implies itself) the stages are computed as usual, and if it turns
+     * out not to match the graph it is emptied.
+     * </p>
+     *
+     * @param cierre incremental model, or {@code null} to compute every stage
+     *               from scratch
+     */
+    public void usarCierreIncremental(IncrementalClosure cierre) {
+        this.cierreIncremental = cierre;
+    }
+
+    /**
+     * Runs every stage (only the first call does the work).
+     *
+     * @return {@code false} if there is not enough content to build a model
+     *         (fewer than two nodes)
+     */
+    public boolean ejecutar() {
+        return ejecutar(CancellationToken.NONE, null);
+    }
+
+    /**
+     * Runs every stage (only the first call does the work), reporting each
+     * step (cycles, closure, reduction, restore) to {@code progreso}.
+     * <p>
+     * The token is checked between stages and inside the closure and the
+     * reduction. A cancelled pipeline keeps the stages finished so far and
+     * must be discarded.
+     * </p>
+     *
+     * @param cancelacion cancellation token of the run
+     * @param progreso progress listener, or {@code null}
+     * @return {@code false} if there is not enough content to build a model
+     *         (fewer than two nodes)
+     * @throws java.util.concurrent.CancellationException if the token is
+     *         cancelled before the last stage
+     */
+    public boolean ejecutar(CancellationToken cancelacion, ProgressListener progreso) {
+        if (ejecutado) {
+            return !grafos.isEmpty();
+        }
+        ejecutado = true;
+        this.cancelacion = cancelacion;
+        this.progreso = progreso;
+        IncrementalClosure cierre = cierreIncremental;
+        if (cierre == null) {
+            return generar();
+        }
+        synchronized (cierre) {
+            return generar();
+        }
+    }
+
+    /**
+     * Computes every stage.
+     */
+    private boolean generar() {
+        StageMetrics.Medicion medicion = new StageMetrics.Medicion();
+        LiteralTable tabla = getTablaLiterales();
+        nodos = tabla.getEtiquetasOrdenadas();
+        if (nodos.size() <= 1) {
+            return false;
+        }
+        ImplicationGraph.EdgeList aristas = new ImplicationGraph.EdgeList();
+        for (int i = 0; i < literales1.length; i++) {
+            int l1 = tabla.get(literales1[i], negados1[i]);
+            int l2 = tabla.get(literales2[i], negados2[i]);
+            aristas.add(tabla.nodo(l1), tabla.nodo(l2));
+            // Contrapositiva: ¬l2 -> ¬l1
+            aristas.add(tabla.nodo(LiteralTable.negar(l2)), tabla.nodo(LiteralTable.negar(l1)));
+        }
+        ImplicationGraph grafo = aristas.build(nodos.size(), false);
+        avanzar("Detecting cycles", 0, ETAPAS_CON_CICLOS.size());
+        tieneCiclos = CycleDetectionDFSIterative.hasCycle(grafo);
+        etapa(medicion, 0, literales1.length, grafo, 0);
+
+        if (tieneCiclos) {
+            generadorConCiclos();
+        } else {
+            int total = ETAPAS_SIN_CICLOS.size();
+            avanzar("Transitive closure", 1, total);
+            etapaCierre(grafos.get(0), null);
+            avanzar("Transitive reduction", 2, total);
+            etapaReduccion(grafos.get(0));
+            avanzar("Done", total, total);
+        }
+        return true;
+    }
+
+    /**
+     * Stages of a model with cycles. If the restore fails the error is kept
+     * and the last stage is missing.
+     */
+    private void generadorConCiclos() {
+        int total = ETAPAS_CON_CICLOS.size();
+        avanzar("Reducing cycles", 1, total);
+        StageMetrics.Medicion medicion = new StageMetrics.Medicion();
+        ArregloCiclos AR;
+        if (versionAR == 0) {
+            AR = new ArregloCiclosMapeado_V1(grafos.get(0), nodos);
+        } else {
+            AR = new ArregloCiclosMapeado_V2(grafos.get(0), nodos);
+        }
+        nodosReducidos = AR.getNodes();
+        int sccs = 0;
+        for (int[] miembros : AR.getMembersOf()) {
+            if (miembros.length > 1) {
+                sccs++;
+            }
+        }
+        etapa(medicion, grafos.get(0), AR.getGrafoFusionCiclos(), sccs);
+
+        avanzar("Transitive closure", 2, total);
+        etapaCierre(grafos.get(1), AR);
+        avanzar("Transitive reduction", 3, total);
+        etapaReduccion(grafos.get(1));
+
+        avanzar("Restoring cycles", 4, total);
+        medicion = new StageMetrics.Medicion();
+        try {
+            etapa(medicion, grafos.get(3), AR.restaurarCiclos(grafos.get(0), grafos.get(3)), sccs);
+        } catch (Exception ex) {
+            error = "An error occurred while generating the matrices: " + ex.getMessage();
+            ex.printStackTrace();
+        }
+        avanzar("Done", total, total);
+    }
+
+    /**
+     * Transitive closure of the acyclic stage {@code base}: the initial graph
+     * ({@code AR == null}) or the graph with the cycles contracted by
+     * {@code AR}. With an incremental model only its edges are counted; the
+     * graph is built by {@link #etapaGrafo(int)}.
+     */
+    private void etapaCierre(ImplicationGraph base, ArregloCiclos AR) {
+        StageMetrics.Medicion medicion = new StageMetrics.Medicion();
+        if (cierreIncremental != null) {
+            try {
+                cierreIncremental.sincronizar(literales1, negados1, literales2, negados2, cancelacion);
+                if (!cierreIncremental.tieneLazos()) {
+                    mapearIncremental(AR);
+                    baseCierre = base;
+                    cierrePendiente = cierreIncremental;
+                    versionCierre = cierreIncremental.getVersion();
+                    String nombre = (tieneCiclos ? ETAPAS_CON_CICLOS : ETAPAS_SIN_CICLOS).get(grafos.size());
+                    grafos.add(null);
+                    medicion.avisar("closure kept in the incremental model, built on first read");
+                    metricas.add(medicion.cerrar(nombre, base.size(), base.edgeCount(), base.size(),
+                            cierreIncremental.aristasCierre(literalIncremental), 0));
+                    return;
+                }
+            } catch (CancellationException ex) {
+                throw ex;
+            } catch (RuntimeException ex) {
+                medicion.avisar(descartarIncremental(ex));
+            }
+            nodoIncremental = null;
+        }
+        etapa(medicion, base, TransitiveClosure.computeTransitiveClosure(base, cancelacion), 0);
+    }
+
+    /**
+     * Transitive reduction of the closure stage of {@code base}.
+     */
+    private void etapaReduccion(ImplicationGraph base) {
+        StageMetrics cierre = metricas.get(metricas.size() - 1);
+        String aviso = null;
+        if (cierreIncremental != null && nodoIncremental != null) {
+            StageMetrics.Medicion medicion = new StageMetrics.Medicion();
+            try {
+                // Las aristas de la reducción son aristas de base y conservan su peso
+                ImplicationGraph reducida = cierreIncremental.reduccion(nodoIncremental, literalIncremental, base);
+                etapa(medicion, cierre.getNodosSalida(), cierre.getAristasSalida(), reducida, 0);
+                return;
+            } catch (RuntimeException ex) {
+                aviso = descartarIncremental(ex);
+            }
+        }
+        // El cierre diferido se construye antes de medir: su coste se suma a la etapa de cierre
+        ImplicationGraph entrada = etapaGrafo(grafos.size() - 1);
+        StageMetrics.Medicion medicion = new StageMetrics.Medicion();
+        medicion.avisar(aviso);
+        etapa(medicion, cierre.getNodosSalida(), cierre.getAristasSalida(),
+                TransitiveReduction.computeTransitiveReduction(entrada, cancelacion), 0);
+    }
+
+    /**
+     * Builds every stage that is still deferred (the closure kept in the
+     * incremental model), so that later reads, e.g. from the Event Dispatch
+     * Thread, do not pay for it. The cost is added to the metrics of the
+     * stage.
+     */
+    public void materializar() {
+        for (int i = 0; i < grafos.size(); i++) {
+            etapaGrafo(i);
+        }
+    }
+
+    /**
+     * Returns a stage, building the closure from the incremental model the
+     * first time it is requested. If the model has changed since, the
+     * closure is computed from scratch. The time spent is added to the
+     * metrics of the stage.
+     */
+    private ImplicationGraph etapaGrafo(int index) {
+        ImplicationGraph grafo = grafos.get(index);
+        if (grafo == null) {
+            StageMetrics.Medicion medicion = new StageMetrics.Medicion();
+            synchronized (cierrePendiente) {
+                if (cierrePendiente.getVersion() == versionCierre) {
+                    grafo = cierrePendiente.cierre(nodoIncremental, literalIncremental, baseCierre);
+                }
+            }
+            if (grafo == null) {
+                grafo = TransitiveClosure.computeTransitiveClosure(baseCierre);
+            }
+            grafos.set(index, grafo);
+            metricas.set(index, metricas.get(index).conConstruccionDiferida(medicion));
+        }
+        return grafo;
+    }
+
+    /**
+     * Maps the literal ids of the incremental model to the nodes of the
+     * closure stage input, checking that its components are the same.
+     *
+     * @throws IllegalStateException if the incremental model does not match
+     */
+    private void mapearIncremental(ArregloCiclos AR) {
+        LiteralTable tabla = getTablaLiterales();
+        LiteralTable tablaIncremental = cierreIncremental.getTablaLiterales();
+        int[] componenteDe = AR == null ? null : AR.getComponentOf();
+        nodoIncremental = new int[tablaIncremental.size()];
+        Arrays.fill(nodoIncremental, -1);
+        literalIncremental = new int[AR == null ? nodos.size() : AR.getMembersOf().length];
+        int[] literales = new int[tabla.size()];
+        for (int lit = 0; lit < tabla.size(); lit++) {
+            int inc = tablaIncremental.get(tabla.atomo(lit), LiteralTable.esNegado(lit));
+            if (inc < 0) {
+                throw new IllegalStateException("The incremental model does not contain " + tabla.etiqueta(lit));
+            }
+            int nodo = componenteDe == null ? tabla.nodo(lit) : componenteDe[tabla.nodo(lit)];
+            nodoIncremental[inc] = nodo;
+            literalIncremental[nodo] = inc;
+            literales[lit] = inc;
+        }
+        // Las componentes del modelo incremental deben ser las del grafo
+        int componentes = 0;
+        for (int inc : literales) {
+            int rep = cierreIncremental.componente(inc);
+            if (nodoIncremental[rep] != nodoIncremental[inc]) {
+                throw new IllegalStateException("The incremental model components do not match the graph");
+            }
+            if (rep == inc) {
+                componentes++;
+            }
+        }
+        if (componentes != literalIncremental.length) {
+            throw new IllegalStateException("The incremental model components do not match the graph");
+        }
+    }
+
+    /**
+     * Empties an incremental model that does not match the graph and stops
+     * using it in this run.
+     *
+     * @return the note for the metrics of the stage
+     */
+    private String descartarIncremental(RuntimeException ex) {
+        cierreIncremental.vaciar();
+        cierreIncremental = null;
+        return "incremental model discarded: " + ex.getMessage();
+    }
+
+    /**
+     * Checks the cancellation token (unless every step is finished) and
+     * reports the step that starts.
+     */
+    private void avanzar(String paso, int completados, int total) {
+        if (completados < total) {
+            cancelacion.throwIfCancelled();
+        }
+        if (progreso != null) {
+            progreso.paso(paso, completados, total);
+        }
+    }
+
+    private void etapa(StageMetrics.Medicion medicion, ImplicationGraph entrada, ImplicationGraph salida, int sccs) {
+        etapa(medicion, entrada.size(), entrada.edgeCount(), salida, sccs);
+    }
+
+    /**
+     * Adds a finished stage and its metrics.
+     */
+    private void etapa(StageMetrics.Medicion medicion, int nodosEntrada, int aristasEntrada, ImplicationGraph salida, int sccs) {
+        String nombre = (tieneCiclos ? ETAPAS_CON_CICLOS : ETAPAS_SIN_CICLOS).get(grafos.size());
+        grafos.add(salida);
+        metricas.add(medicion.cerrar(nombre, nodosEntrada, aristasEntrada, salida, sccs));
+    }
+
+    /**
+     * Returns the node labels of the full model.
+     *
+     * @return sorted node labels, or {@code null} before {@link #ejecutar()}
+     */
+    public List<String> getNodos() {
+        return nodos;
+    }
+
+    /**
+     * Returns the node labels after cycle fusion.
+     *
+     * @return reduced node labels (empty if the model has no cycles)
+     */
+    public List<String> getNodosReducidos() {
+        return nodosReducidos;
+    }
+
+    /**
+     * Returns the generated stages, in pipeline order.
+     *
+     * @return stage graphs (read-only view; the closure stage may be built
+     *         on first access)
+     */
+    public List<ImplicationGraph> getGrafos() {
+        return vistaGrafos;
+    }
+
+    /**
+     * Returns the names of the generated stages, aligned with
+     * {@link #getGrafos()}.
+     *
+     * @return stage names
+     */
+    public List<String> getNombresEtapas() {
+        List<String> nombres = tieneCiclos ? ETAPAS_CON_CICLOS : ETAPAS_SIN_CICLOS;
+        return nombres.subList(0, grafos.size());
+    }
+
+    /**
+     * Returns the node labels of stage {@code etapa}.
+     *
+     * @param etapa stage index
+     * @return the reduced labels for the reduced-cycle, closure and reduction
+     *         stages of a model with cycles; the full labels otherwise
+     */
+    public List<String> getNodosEtapa(int etapa) {
+        if (tieneCiclos && etapa >= 1 && etapa <= 3) {
+            return nodosReducidos;
+        }
+        return nodos;
+    }
+
+    /**
+     * Returns the canonical stage of {@code etapa}: the last generated stage
+     * with the same node labels (the transitive reduction for the reduced
+     * labels, the expanded cycles or, without cycles, the transitive
+     * reduction for the full labels). The edges of {@code etapa} that are not
+     * in it are the redundant ones.
+     *
+     * @param etapa stage index
+     * @return index of the canonical stage ({@code etapa} itself if no later
+     *         stage shares its labels)
+     */
+    public int getEtapaCanonica(int etapa) {
+        for (int c = grafos.size() - 1; c > etapa; c--) {
+            if (getNodosEtapa(c) == getNodosEtapa(etapa)) {
+                return c;
+            }
+        }
+        return etapa;
+    }
+
+    /**
+     * Returns the wall time of every generated stage, aligned with
+     * {@link #getGrafos()}.
+     *
+     * @return nanoseconds per stage
+     */
+    public List<Long> getTiempos() {
+        List<Long> tiempos = new ArrayList<>(metricas.size());
+        for (StageMetrics m : metricas) {
+            tiempos.add(m.getNanos());
+        }
+        return tiempos;
+    }
+
+    /**
+     * Returns the metrics of every generated stage (wall time, allocated
+     * bytes, input and output sizes, SCCs merged), aligned with
+     * {@link #getGrafos()}.
+     *
+     * @return stage metrics (internal list)
+     */
+    public List<StageMetrics> getMetricas() {
+        return metricas;
+    }
+
+    /**
+     * Indicates whether the initial graph contains cycles.
+     *
+     * @return {@code true} if cycles were detected
+     */
+    public boolean tieneCiclos() {
+        return tieneCiclos;
+    }
+
+    /**
+     * Checks the theory as a 2-SAT problem on the initial graph: the
+     * literals in the same cycle as their negation, or a model if there are
+     * none (see {@link TwoSatChecker}). Computed on first call.
+     *
+     * @return the consistency result, or {@code null} before a successful
+     *         {@link #ejecutar()}
+     */
+    public TwoSatChecker.Resultado getConsistencia() {
+        if (consistencia == null && !grafos.isEmpty()) {
+            LiteralTable tabla = getTablaLiterales();
+            int[] negacion = new int[nodos.size()];
+            for (int lit = 0; lit < tabla.size(); lit++) {
+                negacion[tabla.nodo(lit)] = tabla.nodo(LiteralTable.negar(lit));
+            }
+            consistencia = TwoSatChecker.comprobar(grafos.get(0), negacion, nodos);
+        }
+        return consistencia;
+    }
+
+    /**
+     * Returns the error produced while restoring the cycles, if any.
+     *
+     * @return the error message, or {@code null}
+     */
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,913 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transitive closure and reduction of an implication graph that is kept up to
+ * date while implications are added or removed.
+ * <p>
+ * The nodes are the literal ids of an internal {@link LiteralTable}; every
+ * implication {@code a -> b} contributes the edge {@code a -> b} and its
+ * contrapositive {@code ¬b -> ¬a}. The strongly connected components are
+ * kept explicitly (each one represented by its smallest member) and, for
+ * every component, the bitset of the components it reaches. The reduction
+ * of a component is derived from the bitsets of its direct successors and
+ * cached until one of them changes.
+ * </p>
+ * <ul>
+ * <li>Inserting an edge {@code A -> B} between components only touches the
+ * components that reach {@code A}: they receive the descendants of
+ * {@code B} (a row OR each). If {@code B} already reached {@code A}, the
+ * components on the new cycle are merged into one.</li>
+ * <li>Deleting the last edge between two components re-derives the bitsets
+ * of {@code A} and of the components that reach it, in topological order,
+ * and stops as soon as nothing changes. Deleting an edge inside a component
+ * runs Tarjan only on the members of that component; if it splits, the
+ * pieces and their ancestors are re-derived the same way.</li>
+ * </ul>
+ * <p>
+ * Large batches of changes (such as loading another session) are cheaper to
+ * rebuild from scratch, so {@link #sincronizar} falls back to a full
+ * rebuild above a threshold.
+ * </p>
+ */
+public class IncrementalClosure {
+
+    /**
+     * Minimum number of pending edge changes that triggers a full rebuild;
+     * the threshold grows with the size of the model.
+     */
+    private static final int CAMBIOS_RECONSTRUIR = 64;
+
+    /**
+     * One implication of the model.
+     */
+    private record Implicacion(String literal1, boolean negado1, String literal2, boolean negado2) {
+    }
+
+    /** Interning table of the literals (the node ids). */
+    private LiteralTable tabla = new LiteralTable();
+
+    /** Implications currently represented, with their multiplicity. */
+    private final Map<Implicacion, Integer> implicaciones = new HashMap<>();
+
+    /** Multiplicity of every edge {@code u -> v} (key {@code (u << 32) | v}). */
+    private final Map<Long, Integer> aristas = new HashMap<>();
+
+    /** Number of distinct edges between two different components. */
+    private final Map<Long, Integer> aristasComponentes = new HashMap<>();
+
+    /** Number of node ids allocated. */
+    private int n;
+
+    /** Distinct successors and predecessors of every node. */
+    private Lista[] sucesores = new Lista[0];
+    private Lista[] predecesores = new Lista[0];
+
+    /** Component (smallest member) of every node. */
+    private int[] componente = new int[0];
+
+    /** Members, successor and predecessor components of every component. */
+    private Lista[] miembros = new Lista[0];
+    private Lista[] sucesoresComp = new Lista[0];
+    private Lista[] predecesoresComp = new Lista[0];
+
+    /** Components reachable from every component (itself excluded). */
+    private BitSet[] descendientes = new BitSet[0];
+
+    /** Successors of every component in the reduction, {@code null} if stale. */
+    private int[][] reduccion = new int[0][];
+
+    /** Components that currently exist. */
+    private final BitSet vivos = new BitSet();
+
+    /** Number of edges {@code u -> u}. */
+    private int lazos;
+
+    /** Incremented by every change of the implications. */
+    private int version;
+
+    /**
+     * Brings the model in line with the given implications, applying only
+     * the implications that were added or removed since the last call.
+     *
+     * @param literales1 antecedent of every implication
+     * @param negados1 whether every antecedent is negated
+     * @param literales2 consequent of every implication
+     * @param negados2 whether every consequent is negated
+     * @param cancelacion cancellation token, checked during a full rebuild
+     * @throws java.util.concurrent.CancellationException if the token is
+     *         cancelled during a full rebuild; the model is then left empty
+     */
+    public void sincronizar(String[] literales1, boolean[] negados1, String[] literales2, boolean[] negados2,
+            CancellationToken cancelacion) {
+        Map<Implicacion, Integer> nuevas = new HashMap<>();
+        for (int i = 0; i < literales1.length; i++) {
+            nuevas.merge(new Implicacion(literales1[i], negados1[i], literales2[i], negados2[i]), 1, Integer::sum);
+        }
+        List<Implicacion> bajas = new ArrayList<>();
+        List<Implicacion> altas = new ArrayList<>();
+        for (Map.Entry<Implicacion, Integer> e : implicaciones.entrySet()) {
+            for (int d = e.getValue() - nuevas.getOrDefault(e.getKey(), 0); d > 0; d--) {
+                bajas.add(e.getKey());
+            }
+        }
+        for (Map.Entry<Implicacion, Integer> e : nuevas.entrySet()) {
+            for (int d = e.getValue() - implicaciones.getOrDefault(e.getKey(), 0); d > 0; d--) {
+                altas.add(e.getKey());
+            }
+        }
+        int cambios = bajas.size() + altas.size();
+        if (cambios == 0) {
+            return;
+        }
+        if (cambios > CAMBIOS_RECONSTRUIR + aristas.size() / 16) {
+            reconstruir(nuevas, cancelacion);
+            return;
+        }
+        // Primero las bajas: así no se fusionan ciclos que luego habría que dividir
+        for (Implicacion imp : bajas) {
+            eliminar(imp.literal1(), imp.negado1(), imp.literal2(), imp.negado2());
+        }
+        for (Implicacion imp : altas) {
+            anadir(imp.literal1(), imp.negado1(), imp.literal2(), imp.negado2());
+        }
+    }
+
+    /**
+     * Adds an implication and its contrapositive.
+     *
+     * @param literal1 antecedent text without negation
+     * @param negado1 whether the antecedent is negated
+     * @param literal2 consequent text without negation
+     * @param negado2 whether the consequent is negated
+     */
+    public void anadir(String literal1, boolean negado1, String literal2, boolean negado2) {
+        int a = tabla.intern(literal1, negado1);
+        int b = tabla.intern(literal2, negado2);
+        asegurarCapacidad(tabla.size());
+        version++;
+        implicaciones.merge(new Implicacion(literal1, negado1, literal2, negado2), 1, Integer::sum);
+        insertarArista(a, b);
+        // Contrapositiva: ¬b -> ¬a
+        insertarArista(LiteralTable.negar(b), LiteralTable.negar(a));
+    }
+
+    /**
+     * Removes one occurrence of an implication and its contrapositive.
+     *
+     * @param literal1 antecedent text without negation
+     * @param negado1 whether the antecedent is negated
+     * @param literal2 consequent text without negation
+     * @param negado2 whether the consequent is negated
+     * @throws IllegalArgumentException if the implication is not in the model
+     */
+    public void eliminar(String literal1, boolean negado1, String literal2, boolean negado2) {
+        Implicacion imp = new Implicacion(literal1, negado1, literal2, negado2);
+        Integer veces = implicaciones.get(imp);
+        if (veces == null) {
+            throw new IllegalArgumentException("The implication is not in the model: " + imp);
+        }
+        version++;
+        if (veces == 1) {
+            implicaciones.remove(imp);
+        } else {
+            implicaciones.put(imp, veces - 1);
+        }
+        int a = tabla.get(literal1, negado1);
+        int b = tabla.get(literal2, negado2);
+        borrarArista(a, b);
+        borrarArista(LiteralTable.negar(b), LiteralTable.negar(a));
+    }
+
+    /**
+     * Discards every implication.
+     */
+    public void vaciar() {
+        version++;
+        tabla = new LiteralTable();
+        implicaciones.clear();
+        aristas.clear();
+        aristasComponentes.clear();
+        vivos.clear();
+        n = 0;
+        lazos = 0;
+        sucesores = new Lista[0];
+        predecesores = new Lista[0];
+        componente = new int[0];
+        miembros = new Lista[0];
+        sucesoresComp = new Lista[0];
+        predecesoresComp = new Lista[0];
+        descendientes = new BitSet[0];
+        reduccion = new int[0][];
+    }
+
+    /**
+     * Returns the literal table whose ids are the nodes of this model.
+     * <p>
+     * Atoms are never removed from the table: literals of deleted
+     * implications stay as isolated nodes.
+     * </p>
+     *
+     * @return the literal table (internal reference)
+     */
+    public LiteralTable getTablaLiterales() {
+        return tabla;
+    }
+
+    /**
+     * Returns a counter that changes every time the implications change, so
+     * a result derived from this model can tell whether it is still valid.
+     *
+     * @return the current version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Indicates whether some literal implies itself directly; the closure of
+     * such a graph is not computed by this class.
+     *
+     * @return {@code true} if there is an edge {@code u -> u}
+     */
+    public boolean tieneLazos() {
+        return lazos > 0;
+    }
+
+    /**
+     * Returns the component of a literal.
+     *
+     * @param literal literal id
+     * @return smallest literal id of its strongly connected component
+     */
+    public int componente(int literal) {
+        return componente[literal];
+    }
+
+    /**
+     * Indicates whether there is a non-empty path between two literals.
+     *
+     * @param u source literal id
+     * @param v target literal id
+     * @return {@code true} if {@code v} is reachable from {@code u}
+     */
+    public boolean alcanza(int u, int v) {
+        int a = componente[u];
+        int b = componente[v];
+        if (a == b) {
+            return miembros[a].size() > 1 || aristas.containsKey(clave(u, u));
+        }
+        return descendientes[a].get(b);
+    }
+
+    /**
+     * Builds the transitive closure over the nodes of a graph whose nodes are
+     * the components of this model (or the literals, when there are no
+     * cycles).
+     * <p>
+     * Edges of {@code base} keep their weight; edges added by the closure get
+     * weight {@code 1}, as in {@link TransitiveClosure}.
+     * </p>
+     *
+     * @param nodoDe node of {@code base} of every literal id, {@code -1} for
+     *               literals that are not in it
+     * @param literalDe one literal id of every node of {@code base}
+     * @param base acyclic graph aligned with {@code literalDe}
+     * @return the closure of {@code base}
+     * @throws IllegalStateException if {@code base} does not match this model
+     */
+    ImplicationGraph cierre(int[] nodoDe, int[] literalDe, ImplicationGraph base) {
+        int c = base.size();
+        int[] offsets = new int[c + 1];
+        for (int i = 0; i < c; i++) {
+            offsets[i + 1] = offsets[i] + descendientes[componente[literalDe[i]]].cardinality();
+        }
+        int[] targets = new int[offsets[c]];
+        int[] weights = new int[offsets[c]];
+        int[] baseOffsets = base.outOffsets();
+        int[] baseTargets = base.outTargets();
+        int[] baseWeights = base.outWeights();
+        long[] fila = new long[(c + 63) >>> 6];
+        for (int i = 0; i < c; i++) {
+            Arrays.fill(fila, 0);
+            BitSet desc = descendientes[componente[literalDe[i]]];
+            for (int r = desc.nextSetBit(0); r >= 0; r = desc.nextSetBit(r + 1)) {
+                int j = r < nodoDe.length ? nodoDe[r] : -1;
+                if (j < 0) {
+                    throw new IllegalStateException("The incremental closure does not match the graph");
+                }
+                fila[j >>> 6] |= 1L << j;
+            }
+            for (int e = baseOffsets[i]; e < baseOffsets[i + 1]; e++) {
+                if ((fila[baseTargets[e] >>> 6] & (1L << baseTargets[e])) == 0) {
+                    throw new IllegalStateException("The incremental closure does not match the graph");
+                }
+            }
+            // Destinos en orden creciente; los pesos de base se conservan
+            int k = offsets[i];
+            int e = baseOffsets[i];
+            for (int w = 0; w < fila.length; w++) {
+                for (long bits = fila[w]; bits != 0; bits &= bits - 1) {
+                    int j = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    while (e < baseOffsets[i + 1] && baseTargets[e] < j) {
+                        e++;
+                    }
+                    targets[k] = j;
+                    weights[k++] = e < baseOffsets[i + 1] && baseTargets[e] == j ? baseWeights[e] : 1;
+                }
+            }
+        }
+        return ImplicationGraph.fromCsr(c, offsets, targets, weights);
+    }
+
+    /**
+     * Counts the edges of the transitive closure over the nodes of a graph
+     * whose nodes are the components of this model, without building it.
+     *
+     * @param literalDe one literal id of every node of the graph
+     * @return number of edges of {@link #cierre(int[], int[], ImplicationGraph)}
+     */
+    int aristasCierre(int[] literalDe) {
+        int aristasCierre = 0;
+        for (int literal : literalDe) {
+            aristasCierre += descendientes[componente[literal]].cardinality();
+        }
+        return aristasCierre;
+    }
+
+    /**
+     * Builds the transitive reduction over the nodes of a graph whose nodes
+     * are the components of this model (or the literals, when there are no
+     * cycles).
+     * <p>
+     * Every edge of the reduction is an edge of {@code base} and keeps its
+     * weight, as in {@link TransitiveReduction}.
+     * </p>
+     *
+     * @param nodoDe node of {@code base} of every literal id, {@code -1} for
+     *               literals that are not in it
+     * @param literalDe one literal id of every node of {@code base}
+     * @param base acyclic graph aligned with {@code literalDe}
+     * @return the reduction of {@code base}
+     * @throws IllegalStateException if {@code base} does not match this model
+     */
+    ImplicationGraph reduccion(int[] nodoDe, int[] literalDe, ImplicationGraph base) {
+        int c = base.size();
+        ImplicationGraph.EdgeList reducida = new ImplicationGraph.EdgeList();
+        for (int i = 0; i < c; i++) {
+            for (int r : reducidos(componente[literalDe[i]])) {
+                int j = r < nodoDe.length ? nodoDe[r] : -1;
+                int peso = j < 0 ? 0 : base.weight(i, j);
+                if (peso <= 0) {
+                    throw new IllegalStateException("The incremental reduction does not match the graph");
+                }
+                reducida.add(i, j, peso);
+            }
+        }
+        return reducida.build(c, false);
+    }
+
+    /**
+     * Returns the successors of a component in the transitive reduction: its
+     * direct successors that are not reachable through another one.
+     */
+    private int[] reducidos(int a) {
+        if (reduccion[a] == null) {
+            Lista sucs = sucesoresComp[a];
+            BitSet cubiertos = new BitSet();
+            for (int s = 0; s < sucs.size(); s++) {
+                cubiertos.or(descendientes[sucs.get(s)]);
+            }
+            Lista r = new Lista();
+            for (int s = 0; s < sucs.size(); s++) {
+                if (!cubiertos.get(sucs.get(s))) {
+                    r.add(sucs.get(s));
+                }
+            }
+            reduccion[a] = r.toArray();
+        }
+        return reduccion[a];
+    }
+
+    /**
+     * Inserts one occurrence of the edge {@code u -> v}.
+     */
+    private void insertarArista(int u, int v) {
+        if (aristas.merge(clave(u, v), 1, Integer::sum) > 1) {
+            return;
+        }
+        sucesores[u].add(v);
+        predecesores[v].add(u);
+        if (u == v) {
+            lazos++;
+            return;
+        }
+        int a = componente[u];
+        int b = componente[v];
+        if (a == b) {
+            return; // arista interna de un ciclo
+        }
+        if (!conectar(a, b)) {
+            return;
+        }
+        reduccion[a] = null;
+        if (descendientes[a].get(b)) {
+            return;
+        }
+        if (descendientes[b].get(a)) {
+            fusionar(a, b);
+            return;
+        }
+        // Lo que alcanza a A alcanza ahora B y sus descendientes
+        BitSet nuevos = (BitSet) descendientes[b].clone();
+        nuevos.set(b);
+        for (int x = vivos.nextSetBit(0); x >= 0; x = vivos.nextSetBit(x + 1)) {
+            BitSet desc = descendientes[x];
+            if ((x == a || desc.get(a)) && !desc.get(b)) {
+                desc.or(nuevos);
+                invalidarReduccion(x);
+            }
+        }
+    }
+
+    /**
+     * Removes one occurrence of the edge {@code u -> v}.
+     */
+    private void borrarArista(int u, int v) {
+        long k = clave(u, v);
+        Integer veces = aristas.get(k);
+        if (veces == null) {
+            throw new IllegalStateException("Edge " + u + " -> " + v + " is not in the model");
+        }
+        if (veces > 1) {
+            aristas.put(k, veces - 1);
+            return;
+        }
+        aristas.remove(k);
+        sucesores[u].remove(v);
+        predecesores[v].remove(u);
+        if (u == v) {
+            lazos--;
+            return;
+        }
+        int a = componente[u];
+        int b = componente[v];
+        if (a == b) {
+            dividir(a);
+            return;
+        }
+        if (!desconectar(a, b)) {
+            return;
+        }
+        reduccion[a] = null;
+        BitSet origen = new BitSet();
+        origen.set(a);
+        recalcular(ancestros(a, true), origen);
+    }
+
+    /**
+     * Merges into one component the components of the cycle closed by the
+     * new edge {@code a -> b} ({@code b} already reached {@code a}).
+     */
+    private void fusionar(int a, int b) {
+        // Componentes del ciclo: alcanzables desde B que alcanzan A
+        BitSet ciclo = new BitSet();
+        ciclo.set(b);
+        BitSet descB = descendientes[b];
+        for (int x = descB.nextSetBit(0); x >= 0; x = descB.nextSetBit(x + 1)) {
+            if (x == a || descendientes[x].get(a)) {
+                ciclo.set(x);
+            }
+        }
+        int r = ciclo.nextSetBit(0);
+        BitSet desc = (BitSet) descB.clone();
+        desc.andNot(ciclo);
+
+        Lista nuevosMiembros = new Lista();
+        Lista sucs = new Lista();
+        Lista pres = new Lista();
+        for (int x = ciclo.nextSetBit(0); x >= 0; x = ciclo.nextSetBit(x + 1)) {
+            Lista m = miembros[x];
+            for (int i = 0; i < m.size(); i++) {
+                componente[m.get(i)] = r;
+                nuevosMiembros.add(m.get(i));
+            }
+            for (int t : sucesoresComp[x].toArray()) {
+                int veces = aristasComponentes.remove(clave(x, t));
+                if (!ciclo.get(t)) {
+                    predecesoresComp[t].remove(x);
+                    if (aristasComponentes.merge(clave(r, t), veces, Integer::sum) == veces) {
+                        sucs.add(t);
+                        predecesoresComp[t].add(r);
+                    }
+                }
+            }
+            for (int p : predecesoresComp[x].toArray()) {
+                if (ciclo.get(p)) {
+                    continue; // ya quitada como sucesora de p
+                }
+                int veces = aristasComponentes.remove(clave(p, x));
+                sucesoresComp[p].remove(x);
+                if (aristasComponentes.merge(clave(p, r), veces, Integer::sum) == veces) {
+                    pres.add(p);
+                    sucesoresComp[p].add(r);
+                }
+            }
+        }
+        for (int x = ciclo.nextSetBit(0); x >= 0; x = ciclo.nextSetBit(x + 1)) {
+            borrarComponente(x);
+        }
+        crearComponente(r, nuevosMiembros, sucs, pres);
+        descendientes[r] = desc;
+
+        // Quien alcanzaba una componente del ciclo alcanza ahora R y todo lo que alcanza R
+        for (int x = vivos.nextSetBit(0); x >= 0; x = vivos.nextSetBit(x + 1)) {
+            BitSet d = descendientes[x];
+            if (x != r && d.intersects(ciclo)) {
+                d.andNot(ciclo);
+                d.or(desc);
+                d.set(r);
+                invalidarReduccion(x);
+            }
+        }
+        invalidarReduccion(r);
+    }
+
+    /**
+     * Re-derives the strongly connected components of the members of
+     * component {@code a} after one of its internal edges was removed.
+     */
+    private void dividir(int a) {
+        int[] m = miembros[a].toArray();
+        Map<Integer, Integer> local = new HashMap<>(m.length * 2);
+        for (int i = 0; i < m.length; i++) {
+            local.put(m[i], i);
+        }
+        // Tarjan sólo sobre las aristas internas de la componente
+        int[] offsets = new int[m.length + 1];
+        Lista internos = new Lista();
+        for (int i = 0; i < m.length; i++) {
+            Lista s = sucesores[m[i]];
+            for (int j = 0; j < s.size(); j++) {
+                Integer t = local.get(s.get(j));
+                if (t != null) {
+                    internos.add(t);
+                }
+            }
+            offsets[i + 1] = internos.size();
+        }
+        TarjanCondensedGraph tarjan = new TarjanCondensedGraph(offsets, internos.toArray());
+        int[] scc = tarjan.computeSCCs();
+        int piezas = tarjan.getComponentCount();
+        if (piezas == 1) {
+            return;
+        }
+
+        List<Integer> ancestros = ancestros(a, false);
+        for (int t : sucesoresComp[a].toArray()) {
+            desconectarTodo(a, t);
+        }
+        for (int p : predecesoresComp[a].toArray()) {
+            desconectarTodo(p, a);
+        }
+        borrarComponente(a);
+
+        int[] repPieza = new int[piezas];
+        Arrays.fill(repPieza, Integer.MAX_VALUE);
+        for (int i = 0; i < m.length; i++) {
+            repPieza[scc[i]] = Math.min(repPieza[scc[i]], m[i]);
+        }
+        for (int p = 0; p < piezas; p++) {
+            crearComponente(repPieza[p], new Lista(), new Lista(), new Lista());
+        }
+        for (int i = 0; i < m.length; i++) {
+            componente[m[i]] = repPieza[scc[i]];
+            miembros[repPieza[scc[i]]].add(m[i]);
+        }
+        for (int x : m) {
+            Lista s = sucesores[x];
+            for (int j = 0; j < s.size(); j++) {
+                if (componente[x] != componente[s.get(j)]) {
+                    conectar(componente[x], componente[s.get(j)]);
+                }
+            }
+            Lista p = predecesores[x];
+            for (int j = 0; j < p.size(); j++) {
+                if (!local.containsKey(p.get(j))) {
+                    conectar(componente[p.get(j)], componente[x]);
+                }
+            }
+        }
+        // Tarjan numera las piezas en orden topológico inverso: sumideros primero
+        for (int p = 0; p < piezas; p++) {
+            descendientes[repPieza[p]] = unionSucesores(repPieza[p]);
+        }
+        // Todos los ancestros tenían la componente antigua: se recalculan
+        BitSet forzados = new BitSet();
+        for (int x : ancestros) {
+            forzados.set(x);
+        }
+        for (int p = 0; p < piezas; p++) {
+            invalidarReduccion(repPieza[p]);
+        }
+        recalcular(ancestros, forzados);
+    }
+
+    /**
+     * Returns the components that reach {@code a} (and {@code a} itself if
+     * requested) sorted by the size of their descendant sets, which is a
+     * reverse topological order.
+     */
+    private List<Integer> ancestros(int a, boolean incluirA) {
+        List<int[]> lista = new ArrayList<>();
+        for (int x = vivos.nextSetBit(0); x >= 0; x = vivos.nextSetBit(x + 1)) {
+            if ((x == a && incluirA) || (x != a && descendientes[x].get(a))) {
+                lista.add(new int[]{descendientes[x].cardinality(), x});
+            }
+        }
+        lista.sort((p, q) -> Integer.compare(p[0], q[0]));
+        List<Integer> orden = new ArrayList<>(lista.size());
+        for (int[] par : lista) {
+            orden.add(par[1]);
+        }
+        return orden;
+    }
+
+    /**
+     * Re-derives the descendants of the given components, visited in reverse
+     * topological order. A component is only recomputed if it is in
+     * {@code forzados} or one of its successors changed.
+     */
+    private void recalcular(List<Integer> orden, BitSet forzados) {
+        BitSet cambiados = new BitSet();
+        for (int x : orden) {
+            boolean recalcular = forzados.get(x);
+            Lista sucs = sucesoresComp[x];
+            for (int s = 0; s < sucs.size() && !recalcular; s++) {
+                recalcular = cambiados.get(sucs.get(s));
+            }
+            if (!recalcular) {
+                continue;
+            }
+            BitSet nuevo = unionSucesores(x);
+            if (!nuevo.equals(descendientes[x])) {
+                descendientes[x] = nuevo;
+                cambiados.set(x);
+                invalidarReduccion(x);
+            }
+        }
+    }
+
+    /**
+     * Returns the union of the successors of a component and their
+     * descendants.
+     */
+    private BitSet unionSucesores(int x) {
+        BitSet desc = new BitSet();
+        Lista sucs = sucesoresComp[x];
+        for (int s = 0; s < sucs.size(); s++) {
+            desc.or(descendientes[sucs.get(s)]);
+            desc.set(sucs.get(s));
+        }
+        return desc;
+    }
+
+    /**
+     * Rebuilds the whole model from a set of implications.
+     */
+    private void reconstruir(Map<Implicacion, Integer> nuevas, CancellationToken cancelacion) {
+        vaciar();
+        try {
+            for (Map.Entry<Implicacion, Integer> e : nuevas.entrySet()) {
+                Implicacion imp = e.getKey();
+                tabla.intern(imp.literal1(), imp.negado1());
+                tabla.intern(imp.literal2(), imp.negado2());
+            }
+            asegurarCapacidad(tabla.size());
+            for (Map.Entry<Implicacion, Integer> e : nuevas.entrySet()) {
+                Implicacion imp = e.getKey();
+                implicaciones.put(imp, e.getValue());
+                int a = tabla.get(imp.literal1(), imp.negado1());
+                int b = tabla.get(imp.literal2(), imp.negado2());
+                for (int veces = 0; veces < e.getValue(); veces++) {
+                    anadirAristaNodos(a, b);
+                    anadirAristaNodos(LiteralTable.negar(b), LiteralTable.negar(a));
+                }
+            }
+
+            // Componentes con una sola pasada de Tarjan
+            int[] offsets = new int[n + 1];
+            Lista todos = new Lista();
+            for (int u = 0; u < n; u++) {
+                Lista s = sucesores[u];
+                for (int j = 0; j < s.size(); j++) {
+                    todos.add(s.get(j));
+                }
+                offsets[u + 1] = todos.size();
+            }
+            TarjanCondensedGraph tarjan = new TarjanCondensedGraph(offsets, todos.toArray());
+            int[] scc = tarjan.computeSCCs();
+            int k = tarjan.getComponentCount();
+            int[] repPieza = new int[k];
+            Arrays.fill(repPieza, Integer.MAX_VALUE);
+            for (int u = 0; u < n; u++) {
+                repPieza[scc[u]] = Math.min(repPieza[scc[u]], u);
+            }
+            vivos.clear();
+            for (int u = 0; u < n; u++) {
+                miembros[u] = null;
+            }
+            for (int p = 0; p < k; p++) {
+                crearComponente(repPieza[p], new Lista(), new Lista(), new Lista());
+            }
+            for (int u = 0; u < n; u++) {
+                componente[u] = repPieza[scc[u]];
+                miembros[componente[u]].add(u);
+            }
+            for (int u = 0; u < n; u++) {
+                Lista s = sucesores[u];
+                for (int j = 0; j < s.size(); j++) {
+                    if (componente[u] != componente[s.get(j)]) {
+                        conectar(componente[u], componente[s.get(j)]);
+                    }
+                }
+            }
+            // Orden topológico inverso de Tarjan: los sucesores ya están cerrados
+            for (int p = 0; p < k; p++) {
+                descendientes[repPieza[p]] = unionSucesores(repPieza[p]);
+                if ((p & 63) == 0) {
+                    cancelacion.throwIfCancelled();
+                }
+            }
+        } catch (RuntimeException ex) {
+            vaciar();
+            throw ex;
+        }
+    }
+
+    /**
+     * Adds one occurrence of a node edge without updating the components
+     * (used by the full rebuild).
+     */
+    private void anadirAristaNodos(int u, int v) {
+        if (aristas.merge(clave(u, v), 1, Integer::sum) == 1) {
+            sucesores[u].add(v);
+            predecesores[v].add(u);
+            if (u == v) {
+                lazos++;
+            }
+        }
+    }
+
+    /**
+     * Counts one more edge between two components.
+     *
+     * @return {@code true} if it is the first one
+     */
+    private boolean conectar(int a, int b) {
+        if (aristasComponentes.merge(clave(a, b), 1, Integer::sum) > 1) {
+            return false;
+        }
+        sucesoresComp[a].add(b);
+        predecesoresComp[b].add(a);
+        return true;
+    }
+
+    /**
+     * Counts one edge less between two components.
+     *
+     * @return {@code true} if it was the last one
+     */
+    private boolean desconectar(int a, int b) {
+        long k = clave(a, b);
+        int veces = aristasComponentes.get(k);
+        if (veces > 1) {
+            aristasComponentes.put(k, veces - 1);
+            return false;
+        }
+        aristasComponentes.remove(k);
+        sucesoresComp[a].remove(b);
+        predecesoresComp[b].remove(a);
+        return true;
+    }
+
+    /**
+     * Removes every edge between two components.
+     */
+    private void desconectarTodo(int a, int b) {
+        aristasComponentes.remove(clave(a, b));
+        sucesoresComp[a].remove(b);
+        predecesoresComp[b].remove(a);
+        reduccion[a] = null;
+    }
+
+    private void crearComponente(int r, Lista m, Lista sucs, Lista pres) {
+        miembros[r] = m;
+        sucesoresComp[r] = sucs;
+        predecesoresComp[r] = pres;
+        descendientes[r] = new BitSet();
+        reduccion[r] = null;
+        vivos.set(r);
+    }
+
+    private void borrarComponente(int x) {
+        miembros[x] = null;
+        sucesoresComp[x] = null;
+        predecesoresComp[x] = null;
+        descendientes[x] = null;
+        reduccion[x] = null;
+        vivos.clear(x);
+    }
+
+    /**
+     * Marks as stale the reduction of a component and of its predecessors.
+     */
+    private void invalidarReduccion(int x) {
+        reduccion[x] = null;
+        Lista pres = predecesoresComp[x];
+        for (int p = 0; p < pres.size(); p++) {
+            reduccion[pres.get(p)] = null;
+        }
+    }
+
+    /**
+     * Allocates the nodes up to {@code size}; every new node is an isolated
+     * component.
+     */
+    private void asegurarCapacidad(int size) {
+        if (size <= n) {
+            return;
+        }
+        if (size > componente.length) {
+            int capacidad = Math.max(size, componente.length * 2);
+            sucesores = Arrays.copyOf(sucesores, capacidad);
+            predecesores = Arrays.copyOf(predecesores, capacidad);
+            componente = Arrays.copyOf(componente, capacidad);
+            miembros = Arrays.copyOf(miembros, capacidad);
+            sucesoresComp = Arrays.copyOf(sucesoresComp, capacidad);
+            predecesoresComp = Arrays.copyOf(predecesoresComp, capacidad);
+            descendientes = Arrays.copyOf(descendientes, capacidad);
+            reduccion = Arrays.copyOf(reduccion, capacidad);
+        }
+        for (int u = n; u < size; u++) {
+            sucesores[u] = new Lista();
+            predecesores[u] = new Lista();
+            componente[u] = u;
+            Lista m = new Lista();
+            m.add(u);
+            crearComponente(u, m, new Lista(), new Lista());
+        }
+        n = size;
+    }
+
+    private static long clave(int u, int v) {
+        return ((long) u << 32) | v;
+    }
+
+    /**
+     * Small growable list of ints; removal does not keep the order.
+     */
+    private static final class Lista {
+
+        private int[] datos = new int[2];
+        private int size;
+
+        void add(int v) {
+            if (size == datos.length) {
+                datos = Arrays.copyOf(datos, size * 2);
+            }
+            datos[size++] = v;
+        }
+
+        void remove(int v) {
+            for (int i = 0; i < size; i++) {
+                if (datos[i] == v) {
+                    datos[i] = datos[--size];
+                    return;
+                }
+            }
+        }
+
+        int get(int i) {
+            return datos[i];
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(datos, size);
+        }
+    }
+}
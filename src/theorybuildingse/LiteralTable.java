@@ -0,0 +1,184 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Interning table that maps literals to dense {@code int} ids.
+ * <p>
+ * Every distinct atom (the literal text without negation, e.g.
+ * {@code "[v1 = a]"}) gets an index {@code k}; its positive literal has id
+ * {@code 2k} and its negated literal id {@code 2k + 1}, so the negation
+ * partner of any literal is {@code id ^ 1}. Lookups are hash based, so
+ * interning {@code m} implications costs O(m).
+ * </p>
+ * <p>
+ * The node lists shown by the application are sorted by label; the table
+ * also provides that sorted order ({@link #getEtiquetasOrdenadas()}) and the
+ * node index of every literal in it ({@link #nodo(int)}).
+ * </p>
+ */
+public final class LiteralTable {
+
+    /** Prefix used in labels to mark a negated literal. */
+    public static final String NEGACION = "¬ ";
+
+    /** Atom text to atom index. */
+    private final HashMap<String, Integer> indices = new HashMap<>();
+
+    /** Atom text by atom index. */
+    private final ArrayList<String> atomos = new ArrayList<>();
+
+    /** Sorted labels (built on demand). */
+    private List<String> etiquetasOrdenadas;
+
+    /** Node index in {@link #etiquetasOrdenadas} of every literal id. */
+    private int[] nodoDeLiteral;
+
+    /**
+     * Returns the id of a literal, interning its atom if it is new.
+     *
+     * @param atomo literal text without negation
+     * @param negado whether the literal is negated
+     * @return literal id ({@code 2k} positive, {@code 2k + 1} negated)
+     */
+    public int intern(String atomo, boolean negado) {
+        Integer k = indices.get(atomo);
+        if (k == null) {
+            k = atomos.size();
+            indices.put(atomo, k);
+            atomos.add(atomo);
+            etiquetasOrdenadas = null;
+            nodoDeLiteral = null;
+        }
+        return (k << 1) | (negado ? 1 : 0);
+    }
+
+    /**
+     * Returns the id of a literal already in the table.
+     *
+     * @param atomo literal text without negation
+     * @param negado whether the literal is negated
+     * @return literal id, or {@code -1} if the atom is unknown
+     */
+    public int get(String atomo, boolean negado) {
+        Integer k = indices.get(atomo);
+        return k == null ? -1 : (k << 1) | (negado ? 1 : 0);
+    }
+
+    /**
+     * Returns the id of a literal given its label ({@code "¬ "} prefix for
+     * negated literals).
+     *
+     * @param etiqueta literal label
+     * @return literal id, or {@code -1} if the atom is unknown
+     */
+    public int getPorEtiqueta(String etiqueta) {
+        if (etiqueta.startsWith(NEGACION)) {
+            return get(etiqueta.substring(NEGACION.length()), true);
+        }
+        return get(etiqueta, false);
+    }
+
+    /**
+     * Returns the negation partner of a literal.
+     *
+     * @param literal literal id
+     * @return id of the negated literal
+     */
+    public static int negar(int literal) {
+        return literal ^ 1;
+    }
+
+    /**
+     * Returns whether a literal id is negated.
+     *
+     * @param literal literal id
+     * @return {@code true} for odd ids
+     */
+    public static boolean esNegado(int literal) {
+        return (literal & 1) != 0;
+    }
+
+    /**
+     * Returns the number of literals (both polarities of every atom).
+     *
+     * @return twice the number of atoms
+     */
+    public int size() {
+        return atomos.size() << 1;
+    }
+
+    /**
+     * Returns the atom text of a literal.
+     *
+     * @param literal literal id
+     * @return literal text without negation
+     */
+    public String atomo(int literal) {
+        return atomos.get(literal >>> 1);
+    }
+
+    /**
+     * Returns the label of a literal.
+     *
+     * @param literal literal id
+     * @return the atom text, prefixed with {@code "¬ "} if negated
+     */
+    public String etiqueta(int literal) {
+        String atomo = atomos.get(literal >>> 1);
+        return esNegado(literal) ? NEGACION + atomo : atomo;
+    }
+
+    /**
+     * Returns the labels of all literals sorted lexicographically (the node
+     * order used by the matrices).
+     *
+     * @return sorted labels (internal list, rebuilt after new atoms are
+     *         interned)
+     */
+    public List<String> getEtiquetasOrdenadas() {
+        ordenar();
+        return etiquetasOrdenadas;
+    }
+
+    /**
+     * Returns the node index of a literal in {@link #getEtiquetasOrdenadas()}.
+     *
+     * @param literal literal id
+     * @return node index
+     */
+    public int nodo(int literal) {
+        ordenar();
+        return nodoDeLiteral[literal];
+    }
+
+    /**
+     * Sorts the labels once and records the node index of every literal.
+     */
+    private void ordenar() {
+        if (etiquetasOrdenadas != null) {
+            return;
+        }
+        int n = size();
+        String[] etiquetas = new String[n];
+        Integer[] orden = new Integer[n];
+        for (int lit = 0; lit < n; lit++) {
+            etiquetas[lit] = etiqueta(lit);
+            orden[lit] = lit;
+        }
+        Arrays.sort(orden, (a, b) -> etiquetas[a].compareTo(etiquetas[b]));
+        nodoDeLiteral = new int[n];
+        etiquetasOrdenadas = new ArrayList<>(n);
+        for (int k = 0; k < n; k++) {
+            nodoDeLiteral[orden[k]] = k;
+            etiquetasOrdenadas.add(etiquetas[orden[k]]);
+        }
+    }
+}
@@ -4,25 +4,71 @@
  */
 package theorybuildingse;
 
+import java.io.IOException;
+
 /**
  *
  * @author Sergio
  */
 public class MatrixToLatex {
     public static String toLatex(int[][] matrix) {
-        StringBuilder latex = new StringBuilder();
-        latex.append("$$\\tiny\nA_{\\mathcal{G}_T} = \\begin{bmatrix}\n");
+        return ModelExporter.aTexto(out -> escribir(matrix, out));
+    }
+
+    /**
+     * Streams the LaTeX matrix row by row.
+     *
+     * @param matrix matrix to write
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public static void escribir(int[][] matrix, Appendable out) throws IOException {
+        out.append("$$\\tiny\nA_{\\mathcal{G}_T} = \\begin{bmatrix}\n");
+        StringBuilder fila = new StringBuilder();
         for (int[] matrix1 : matrix) {
+            fila.setLength(0);
             for (int j = 0; j < matrix1.length; j++) {
-                latex.append(matrix1[j]);
+                fila.append(matrix1[j]);
                 if (j < matrix1.length - 1) {
-                    latex.append(" & ");
+                    fila.append(" & ");
+                }
+            }
+            out.append(fila.append(" \\\\\n"));
+        }
+        out.append("\\end{bmatrix}\n$$");
+    }
+
+    /**
+     * Streams the LaTeX matrix of a graph without building its adjacency
+     * matrix.
+     *
+     * @param grafo graph to write
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public static void escribir(ImplicationGraph grafo, Appendable out) throws IOException {
+        int[] offsets = grafo.outOffsets();
+        int[] targets = grafo.outTargets();
+        int[] weights = grafo.outWeights();
+        int n = grafo.size();
+        out.append("$$\\tiny\nA_{\\mathcal{G}_T} = \\begin{bmatrix}\n");
+        StringBuilder fila = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            fila.setLength(0);
+            int e = offsets[i];
+            for (int j = 0; j < n; j++) {
+                if (e < offsets[i + 1] && targets[e] == j) {
+                    fila.append(weights[e++]);
+                } else {
+                    fila.append('0');
+                }
+                if (j < n - 1) {
+                    fila.append(" & ");
                 }
             }
-            latex.append(" \\\\\n");
+            out.append(fila.append(" \\\\\n"));
         }
-        latex.append("\\end{bmatrix}\n$$");
-        return latex.toString();
+        out.append("\\end{bmatrix}\n$$");
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,508 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Text representations of the model stages (CSV table, TXT list of
+ * implications, LaTeX matrix), shared by the user interface and the batch
+ * command line.
+ * <p>
+ * None of these methods touch Swing. The {@code escribir*} methods stream the
+ * representation row by row to an {@link Appendable} (usually the writer
+ * returned by {@link #abrirEscritor}), so the output is never held in memory;
+ * the {@code generar*} methods return it as a string. The {@link
+ * ImplicationGraph} overloads read the CSR adjacency directly and never build
+ * the {@code N x N} matrix.
+ * </p>
+ */
+public class ModelExporter {
+
+    /** Separator between the two literals of an implication. */
+    public static final String FLECHA = " --> ";
+
+    /** Size of the output buffers. */
+    private static final int BUFFER = 1 << 16;
+
+    /**
+     * A streaming export, as written by the {@code escribir*} methods.
+     */
+    @FunctionalInterface
+    public interface Escritura {
+
+        /**
+         * Writes the export.
+         *
+         * @param out destination
+         * @throws IOException if writing fails
+         */
+        void escribir(Appendable out) throws IOException;
+    }
+
+    /**
+     * Opens a buffered UTF-8 writer on a file, gzip compressed when its name
+     * ends with {@code .gz}.
+     *
+     * @param fichero destination file
+     * @return the writer, to be closed by the caller
+     * @throws IOException if the file cannot be created
+     */
+    public static Writer abrirEscritor(File fichero) throws IOException {
+        return abrirEscritor(fichero, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Opens a buffered writer on a file, gzip compressed when its name ends
+     * with {@code .gz}.
+     *
+     * @param fichero destination file
+     * @param charset encoding of the text
+     * @return the writer, to be closed by the caller
+     * @throws IOException if the file cannot be created
+     */
+    public static Writer abrirEscritor(File fichero, Charset charset) throws IOException {
+        OutputStream out = new FileOutputStream(fichero);
+        if (fichero.getName().endsWith(".gz")) {
+            try {
+                out = new GZIPOutputStream(out, BUFFER);
+            } catch (IOException ex) {
+                out.close();
+                throw ex;
+            }
+        }
+        return new BufferedWriter(new OutputStreamWriter(out, charset), BUFFER);
+    }
+
+    /**
+     * Runs a streaming export into a string, for the {@code generar*}
+     * methods.
+     *
+     * @param escritura the export
+     * @return the text written
+     */
+    public static String aTexto(Escritura escritura) {
+        StringBuilder texto = new StringBuilder();
+        try {
+            escritura.escribir(texto);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex); // StringBuilder no lanza IOException
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Builds a CSV representation of the given adjacency matrix.
+     * <p>
+     * The first row contains the node labels as headers, the first column of
+     * each subsequent row contains the row node label, and the remaining
+     * columns contain the matrix values.
+     * </p>
+     *
+     * @param matrizL the adjacency matrix
+     * @param nodosL the list of node labels corresponding to rows/columns
+     * @return the CSV representation as a string
+     */
+    public static String generarTablaCSV(int[][] matrizL, List<String> nodosL) {
+        return aTexto(out -> escribirTablaCSV(matrizL, nodosL, out));
+    }
+
+    /**
+     * Streams the CSV representation of an adjacency matrix (see {@link
+     * #generarTablaCSV}) row by row.
+     *
+     * @param matrizL the adjacency matrix
+     * @param nodosL the list of node labels corresponding to rows/columns
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public static void escribirTablaCSV(int[][] matrizL, List<String> nodosL, Appendable out) throws IOException {
+        escribirCabeceraCSV(nodosL, out);
+        StringBuilder fila = new StringBuilder();
+        for (int i = 0; i < nodosL.size(); i++) {
+            fila.setLength(0);
+            fila.append(nodosL.get(i)).append(';');
+            for (int j = 0; j < nodosL.size(); j++) {
+                fila.append(matrizL[i][j]).append(';');
+            }
+            out.append(fila.append('\n'));
+        }
+    }
+
+    /**
+     * Streams the CSV representation of a stage graph, with the same content
+     * as {@link #generarTablaCSV} on {@code grafo.toMatrix()}.
+     *
+     * @param grafo stage graph
+     * @param nodosL node labels of the graph
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public static void escribirTablaCSV(ImplicationGraph grafo, List<String> nodosL, Appendable out) throws IOException {
+        int[] offsets = grafo.outOffsets();
+        int[] targets = grafo.outTargets();
+        int[] weights = grafo.outWeights();
+        int n = grafo.size();
+        escribirCabeceraCSV(nodosL, out);
+        // Una fila cada vez: la memoria es O(N) y no O(N^2)
+        StringBuilder fila = new StringBuilder();
+        for (int i = 0; i < n; i++) {
+            fila.setLength(0);
+            fila.append(nodosL.get(i)).append(';');
+            int e = offsets[i];
+            for (int j = 0; j < n; j++) {
+                if (e < offsets[i + 1] && targets[e] == j) {
+                    fila.append(weights[e++]).append(';');
+                } else {
+                    fila.append("0;");
+                }
+            }
+            out.append(fila.append('\n'));
+        }
+    }
+
+    private static void escribirCabeceraCSV(List<String> nodosL, Appendable out) throws IOException {
+        StringBuilder cabecera = new StringBuilder(";");
+        for (String s : nodosL) {
+            cabecera.append(s).append(';');
+        }
+        out.append(cabecera.append('\n'));
+    }
+
+    /**
+     * Lists the relations of a stage as shown in the Generation tab.
+     * <p>
+     * Every edge {@code a --> b} of the matrix (row by row) is written as
+     * {@code "pos|  a --> b"}. Edges that are not an original implication and
+     * whose contrapositive is not one either are marked with {@code " *"};
+     * edges that are only the contrapositive of an original implication are
+     * left out.
+     * </p>
+     *
+     * @param matriz stage matrix ({@code N x N})
+     * @param nodos node labels ({@code N})
+     * @param implicaciones original implications as {@code "a --> b"}
+     * @return numbered relation lines
+     */
+    public static List<String> generarRelaciones(int[][] matriz, List<String> nodos, Collection<String> implicaciones) {
+        Set<String> originales = implicaciones instanceof Set ? (Set<String>) implicaciones : new HashSet<>(implicaciones);
+        List<String> relaciones = new ArrayList<>();
+        int n = nodos.size();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (matriz[i][j] != 0) {
+                    anadirRelacion(nodos.get(i), nodos.get(j), originales, relaciones);
+                }
+            }
+        }
+        return relaciones;
+    }
+
+    /**
+     * Lists the relations of a stage graph, like {@link
+     * #generarRelaciones(int[][], List, Collection)} on its matrix.
+     *
+     * @param grafo stage graph
+     * @param nodos node labels of the graph
+     * @param implicaciones original implications as {@code "a --> b"}
+     * @return numbered relation lines
+     */
+    public static List<String> generarRelaciones(ImplicationGraph grafo, List<String> nodos, Collection<String> implicaciones) {
+        Set<String> originales = implicaciones instanceof Set ? (Set<String>) implicaciones : new HashSet<>(implicaciones);
+        List<String> relaciones = new ArrayList<>();
+        int[] offsets = grafo.outOffsets();
+        int[] targets = grafo.outTargets();
+        for (int i = 0; i < grafo.size(); i++) {
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                anadirRelacion(nodos.get(i), nodos.get(targets[e]), originales, relaciones);
+            }
+        }
+        return relaciones;
+    }
+
+    private static void anadirRelacion(String origen, String destino, Set<String> originales, List<String> relaciones) {
+        String rel_i = origen + FLECHA + destino;
+        String rel = (relaciones.size() + 1) + "|  " + rel_i;
+        if (originales.contains(rel_i)) {
+            relaciones.add(rel);
+        } else {
+            String rel_ii = negarVariable(destino) + FLECHA + negarVariable(origen);
+            if (!originales.contains(rel_ii)) {
+                relaciones.add(rel + " *");
+            }
+        }
+    }
+
+    /**
+     * Lists the original implications that are not an edge of the matrix
+     * (the implications deleted by the reduction), numbered as
+     * {@code "pos|  a --> b"} in the order of {@code implicaciones}.
+     *
+     * @param matriz stage matrix ({@code N x N})
+     * @param nodos node labels ({@code N})
+     * @param implicaciones original implications as {@code "a --> b"}
+     * @return numbered deleted implications
+     */
+    public static List<String> generarImplicacionesEliminadas(int[][] matriz, List<String> nodos, List<String> implicaciones) {
+        Set<String> aristas = new HashSet<>();
+        int n = nodos.size();
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                if (matriz[i][j] != 0) {
+                    aristas.add(nodos.get(i) + FLECHA + nodos.get(j));
+                }
+            }
+        }
+        return implicacionesFuera(aristas, implicaciones);
+    }
+
+    /**
+     * Lists the original implications that are not an edge of a stage graph,
+     * like {@link #generarImplicacionesEliminadas(int[][], List, List)} on its
+     * matrix.
+     *
+     * @param grafo stage graph
+     * @param nodos node labels of the graph
+     * @param implicaciones original implications as {@code "a --> b"}
+     * @return numbered deleted implications
+     */
+    public static List<String> generarImplicacionesEliminadas(ImplicationGraph grafo, List<String> nodos, List<String> implicaciones) {
+        Set<String> aristas = new HashSet<>();
+        int[] offsets = grafo.outOffsets();
+        int[] targets = grafo.outTargets();
+        for (int i = 0; i < grafo.size(); i++) {
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                aristas.add(nodos.get(i) + FLECHA + nodos.get(targets[e]));
+            }
+        }
+        return implicacionesFuera(aristas, implicaciones);
+    }
+
+    private static List<String> implicacionesFuera(Set<String> aristas, List<String> implicaciones) {
+        List<String> eliminadas = new ArrayList<>();
+        int pos = 1;
+        for (String implicacion : implicaciones) {
+            if (!aristas.contains(implicacion)) {
+                eliminadas.add(pos + "|  " + implicacion);
+                pos++;
+            }
+        }
+        return eliminadas;
+    }
+
+    /**
+     * Builds the TXT export of a stage.
+     * <p>
+     * When {@code eliminadas} is not {@code null} (expanded cycles stage) a
+     * second section lists each deleted implication followed by the shortest
+     * path of the matrix that still implies it.
+     * </p>
+     *
+     * @param relaciones relation lines ({@link #generarRelaciones})
+     * @param eliminadas deleted implication lines, or {@code null}
+     * @param matriz stage matrix used to explain the deleted implications
+     * @param nodos node labels of the matrix
+     * @return the TXT content
+     */
+    public static String generarTxt(List<String> relaciones, List<String> eliminadas, int[][] matriz, List<String> nodos) {
+        return aTexto(out -> escribirTxt(relaciones, eliminadas, matriz, nodos, out));
+    }
+
+    /**
+     * Streams the TXT export of a stage (see {@link #generarTxt}).
+     *
+     * @param relaciones relation lines ({@link #generarRelaciones})
+     * @param eliminadas deleted implication lines, or {@code null}
+     * @param matriz stage matrix used to explain the deleted implications
+     * @param nodos node labels of the matrix
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public static void escribirTxt(List<String> relaciones, List<String> eliminadas, int[][] matriz, List<String> nodos,
+            Appendable out) throws IOException {
+        ShortestPathExplainer explicador = eliminadas != null && !eliminadas.isEmpty()
+                ? new ShortestPathExplainer(matriz, nodos) : null;
+        escribirTxt(relaciones, eliminadas, explicador, out);
+    }
+
+    /**
+     * Streams the TXT export of a stage from its graph, without going through
+     * the adjacency matrix to explain the deleted implications.
+     *
+     * @param relaciones relation lines ({@link #generarRelaciones})
+     * @param eliminadas deleted implication lines, or {@code null}
+     * @param grafo stage graph used to explain the deleted implications
+     * @param nodos node labels of the graph
+     * @param out destination
+     * @throws IOException if writing fails
+     * @see #generarTxt
+     */
+    public static void escribirTxt(List<String> relaciones, List<String> eliminadas, ImplicationGraph grafo, List<String> nodos,
+            Appendable out) throws IOException {
+        ShortestPathExplainer explicador = eliminadas != null && !eliminadas.isEmpty()
+                ? new ShortestPathExplainer(grafo, nodos) : null;
+        escribirTxt(relaciones, eliminadas, explicador, out);
+    }
+
+    private static void escribirTxt(List<String> relaciones, List<String> eliminadas, ShortestPathExplainer explicador,
+            Appendable out) throws IOException {
+        out.append("--- Implications ---\n\n");
+        for (String relacion : relaciones) {
+            out.append(relacion).append('\n');
+        }
+        if (eliminadas != null) {
+            out.append("\n\n--- Delete implications ---\n\n");
+            List<String> caminos = explicador != null ? explicador.explicar(eliminadas) : List.of();
+            for (int i = 0; i < eliminadas.size(); i++) {
+                String camino = caminos.get(i);
+                out.append(eliminadas.get(i));
+                if (camino != null && !camino.isEmpty()) {
+                    out.append("  ===> (").append(camino).append(")\n");
+                } else {
+                    out.append(" (Error:: Sin camino)\n");
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the LaTeX matrix of a stage.
+     *
+     * @param matriz stage matrix
+     * @return LaTeX source
+     */
+    public static String generarLatex(int[][] matriz) {
+        return MatrixToLatex.toLatex(matriz);
+    }
+
+    /**
+     * Streams the LaTeX matrix of a stage graph, with the same content as
+     * {@link #generarLatex} on {@code grafo.toMatrix()}.
+     *
+     * @param grafo stage graph
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public static void escribirLatex(ImplicationGraph grafo, Appendable out) throws IOException {
+        MatrixToLatex.escribir(grafo, out);
+    }
+
+    /**
+     * Returns the logical negation of a node label ({@code "¬ "} prefix added
+     * or removed).
+     *
+     * @param variable node label
+     * @return the negated label
+     */
+    public static String negarVariable(String variable) {
+        if (variable.contains(LiteralTable.NEGACION)) {
+            return variable.substring(2);
+        } else {
+            return LiteralTable.NEGACION + variable;
+        }
+    }
+
+    /**
+     * Splits a textual edge description into its source and target node labels.
+     * <p>
+     * Expected formats include lines like "48|  ¬ [Tw = True] --> [Rs > 5]" or
+     * simply "¬ [Tw = True] --> [Rs > 5]". Any prefix before the first '|' is
+     * discarded. The remaining string is split on the first "-->" and both
+     * sides are trimmed.
+     * </p>
+     *
+     * @param linea edge description line
+     * @return a two-element array: [origen, destino]
+     * @throws IllegalArgumentException if the line cannot be split into two parts
+     */
+    public static String[] dividirAristaEnNodos(String linea) {
+        if (linea == null) {
+            throw new IllegalArgumentException("linea no puede ser null");
+        }
+        String trabajo = linea;
+        int barra = trabajo.indexOf('|');
+        if (barra >= 0) {
+            trabajo = trabajo.substring(barra + 1);
+        }
+        String[] partes = trabajo.split("-->", 2);
+        if (partes.length != 2) {
+            throw new IllegalArgumentException("Formato de arista invalido: " + linea);
+        }
+        return new String[]{partes[0].trim(), partes[1].trim()};
+    }
+
+    /**
+     * Computes the unweighted shortest path between two node labels and formats
+     * it as "A --> B --> C". Returns {@code null} if no path exists.
+     * <p>
+     * For many queries on the same matrix use a {@link ShortestPathExplainer},
+     * which shares one BFS tree per source.
+     * </p>
+     *
+     * @param matriz adjacency matrix aligned with {@code nodosL}
+     * @param nodosL list of node labels
+     * @param origen label of the source node
+     * @param destino label of the target node
+     * @return formatted path or {@code null} if unreachable
+     */
+    public static String caminoMinimo(int[][] matriz, List<String> nodosL, String origen, String destino) {
+        if (matriz == null || nodosL == null || origen == null || destino == null) {
+            throw new IllegalArgumentException("Argumentos no pueden ser null");
+        }
+        int n = nodosL.size();
+        if (matriz.length != n || matriz[0].length != n) {
+            throw new IllegalArgumentException("Dimensiones de la matriz no coinciden con nodosL");
+        }
+        int s = nodosL.indexOf(origen);
+        int t = nodosL.indexOf(destino);
+        if (s < 0 || t < 0) {
+            throw new IllegalArgumentException("Origen o destino no se encuentran en nodosL");
+        }
+        int[] prev = new int[n];
+        Arrays.fill(prev, -1);
+        boolean[] vis = new boolean[n];
+        ArrayDeque<Integer> q = new ArrayDeque<>();
+        q.add(s);
+        vis[s] = true;
+        while (!q.isEmpty()) {
+            int u = q.poll();
+            if (u == t) break;
+            for (int v = 0; v < n; v++) {
+                if (matriz[u][v] > 0 && !vis[v]) {
+                    vis[v] = true;
+                    prev[v] = u;
+                    q.add(v);
+                }
+            }
+        }
+        if (!vis[t]) {
+            return null; // sin camino
+        }
+        List<String> path = new ArrayList<>();
+        for (int v = t; v != -1; v = prev[v]) {
+            path.add(nodosL.get(v));
+        }
+        Collections.reverse(path);
+        return String.join(FLECHA, path);
+    }
+}
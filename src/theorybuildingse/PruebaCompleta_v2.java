@@ -4,10 +4,7 @@
  */
 package theorybuildingse;
 
-import java.util.ArrayList;
 import java.util.List;
-import org.logicng.formulas.Formula;
-import static theorybuildingse.CNFToImplications_LogicNG.convertCNFToImplications;
 
 /**
  *
@@ -16,9 +13,6 @@ import static theorybuildingse.CNFToImplications_LogicNG.convertCNFToImplication
 public class PruebaCompleta_v2 {
 
     public static void main(String[] args) {
-        // Ejemplo de entrada: Teoría lógica representada como una lista de implicaciones
-        List<String> theory = new ArrayList<>();
-
         String expression = "(A & B) | C & (A => C)";
         SATSolver_LogicNG.debug = true;
 
@@ -31,20 +25,16 @@ public class PruebaCompleta_v2 {
             // Obtener un modelo (una asignación que satisface la fórmula)
             System.out.println("Modelo encontrado: " + SATSolver.getModelo());
 
-            // Convertir cada cláusula de la CNF en implicaciones
-            List<Formula> implications = convertCNFToImplications(SATSolver.getFormulaCNFSimplificada(), SATSolver.getFormulaFactory());
-
-            // Mostrar las implicaciones resultantes
-            System.out.println("Implicaciones:");
-            for (Formula implication : implications) {
-                System.out.println(implication);
-                theory.add(implication.toString());
+            // Grafo de implicación directamente desde las cláusulas binarias de la CNF
+            CNFToImplications_LogicNG.GrafoCNF grafoCNF = CNFToImplications_LogicNG.construirGrafo(SATSolver.getFormulaCNFSimplificada());
+            if (!grafoCNF.noBinarias().isEmpty()) {
+                System.out.println("Clausulas no binarias (no representables): " + grafoCNF.noBinarias());
             }
 
             // Generar la matriz de adyacencia
-            int[][] adjacencyMatrix = TheoryToImplicationTheory.getImplicationTheoryFromTheory(theory);
+            int[][] adjacencyMatrix = grafoCNF.grafo().toMatrix();
 
-            List<String> nodes = TheoryToImplicationTheory.getNodesFromTheory(theory);
+            List<String> nodes = grafoCNF.nodos();
 
             // Imprimir resultados
             System.out.println("\nNodos: " + nodes);
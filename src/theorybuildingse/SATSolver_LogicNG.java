@@ -4,21 +4,42 @@
  */
 package theorybuildingse;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.logicng.formulas.Formula;
 import org.logicng.formulas.FormulaFactory;
+import org.logicng.formulas.Literal;
 import org.logicng.solvers.MiniSat;
+import org.logicng.solvers.SolverState;
 import org.logicng.datastructures.Tristate;
 import org.logicng.io.parsers.ParserException;
 import org.logicng.io.parsers.PseudoBooleanParser;
 import org.logicng.transformations.simplification.AdvancedSimplifier;
 
+/**
+ * Long-lived SAT session over LogicNG.
+ * <p>
+ * A session keeps one {@link FormulaFactory}, one parser and one incremental
+ * {@link MiniSat}: formulas are added once with {@link #agregar(String)} and
+ * then queried many times, under assumptions ({@link #comprobar(String...)},
+ * {@link #implica(String, String)}) or inside a
+ * {@link #saveState()}/{@link #loadState(SolverState)} bracket
+ * ({@link #implica(String)}), without parsing the theory or building a
+ * solver again. The solver converts the formulas to CNF itself.
+ * </p>
+ * <p>
+ * Literal names use the parser syntax: {@code "A"} or {@code "~A"}.
+ * </p>
+ */
 public class SATSolver_LogicNG {
 
     String modelo = "";
     boolean isfactible = false;
     Formula formulaCNFSimplificada;
-    FormulaFactory formulaFactory;
-    public static boolean debug = true;
+    final FormulaFactory formulaFactory;
+    private final PseudoBooleanParser parser;
+    private final MiniSat solver;
+    public static boolean debug = false;
 
     public static void main(String[] args) {
 
@@ -35,60 +56,199 @@ public class SATSolver_LogicNG {
             System.out.println("La formula no es factible.");
         }
 
+        // Sesión incremental: la teoría se añade una vez y se consultan varias hipótesis
+        SATSolver_LogicNG sesion = new SATSolver_LogicNG();
+        sesion.agregar("(A => B) & (B => C)");
+        System.out.println("A => C: " + sesion.implica("A", "C"));
+        System.out.println("C => A: " + sesion.implica("C", "A"));
+        System.out.println("A | B => C: " + sesion.implica("A | B => C"));
     }
 
-    public SATSolver_LogicNG(String expression) {
+    /**
+     * Creates an empty session with its own formula factory.
+     */
+    public SATSolver_LogicNG() {
+        this(new FormulaFactory());
+    }
+
+    /**
+     * Creates an empty session over an existing formula factory, so formulas
+     * built by the caller can be added directly.
+     *
+     * @param formulaFactory the factory of the session
+     * @throws IllegalArgumentException if the factory is {@code null}
+     */
+    public SATSolver_LogicNG(FormulaFactory formulaFactory) {
+        if (formulaFactory == null) {
+            throw new IllegalArgumentException("Argumentos no pueden ser null");
+        }
+        this.formulaFactory = formulaFactory;
+        this.parser = new PseudoBooleanParser(formulaFactory);
+        this.solver = MiniSat.miniSat(formulaFactory);
+    }
 
-        // Paso 1: Crear una fábrica de fórmulas
-        formulaFactory = new FormulaFactory();
-        // Paso 2: Definir una fórmula lógica
-        // Ejemplo: (A ∨ ¬B) ∧ (¬A ∨ C)
-//        Formula formula = formulaFactory.and(
-//                formulaFactory.or(formulaFactory.variable("A"), formulaFactory.not(formulaFactory.variable("B"))),
-//                formulaFactory.or(formulaFactory.not(formulaFactory.variable("A")), formulaFactory.variable("C"))
-//        );
+    /**
+     * Solves a single expression: it is simplified, converted to CNF (see
+     * {@link #getFormulaCNFSimplificada()}) and checked. The session can be
+     * used afterwards.
+     *
+     * @param expression the formula in LogicNG syntax
+     */
+    public SATSolver_LogicNG(String expression) {
+        this();
         if (debug) {
             System.out.println("Formula inicial: " + expression);
         }
-
-        PseudoBooleanParser parser = new PseudoBooleanParser(formulaFactory);
         try {
             // Parsear la fórmula
             Formula formula = parser.parse(expression);
-
-            Formula cnfFormula_1 = formula.cnf();
             if (debug) {
-                System.out.println("Formula en CNF: " + cnfFormula_1);
+                System.out.println("Formula en CNF: " + formula.cnf());
             }
-            AdvancedSimplifier AVSimplifier = new AdvancedSimplifier();
-            Formula simplifiedFormula = AVSimplifier.apply(formula, false);
+            Formula simplifiedFormula = new AdvancedSimplifier().apply(formula, false);
             if (debug) {
                 System.out.println("Formula simplificada: " + simplifiedFormula);
             }
-            // Paso 3: Convertir a CNF (opcional, el SATSolver puede manejarlo internamente)
-            Formula cnfFormula = simplifiedFormula.cnf();
+            // Una sola conversión a CNF: la de la fórmula simplificada
+            formulaCNFSimplificada = simplifiedFormula.cnf();
             if (debug) {
-                System.out.println("Formula simplificada en CNF: " + cnfFormula);
+                System.out.println("Formula simplificada en CNF: " + formulaCNFSimplificada);
             }
-            // Paso 4: Crear el SATSolver (MiniSat es un solver integrado en LogicNG)
-            MiniSat solver = MiniSat.miniSat(formulaFactory);
-            // Paso 5: Agregar la fórmula al SATSolver
-            solver.add(cnfFormula);
+            solver.add(formulaCNFSimplificada);
+            comprobar();
+        } catch (ParserException e) {
+            System.out.println("Excepcion: " + e.getMessage());
 
-            formulaCNFSimplificada = cnfFormula;
+        }
 
-            // Paso 6: Comprobar la satisfacibilidad
-            isfactible = (solver.sat() == Tristate.TRUE);
-            if (isfactible) {
+    }
 
-                // Obtener un modelo (una asignación que satisface la fórmula)
-                modelo = solver.model().toString();
-            }
+    /**
+     * Parses an expression with the factory of the session.
+     *
+     * @param expression the formula in LogicNG syntax
+     * @return the formula
+     * @throws IllegalArgumentException if the expression cannot be parsed
+     */
+    public Formula parse(String expression) {
+        try {
+            return parser.parse(expression);
         } catch (ParserException e) {
-            System.out.println("Excepcion: " + e.getMessage());
+            throw new IllegalArgumentException("Expresión no válida: " + expression, e);
+        }
+    }
+
+    /**
+     * Adds a formula to the session.
+     *
+     * @param expression the formula in LogicNG syntax
+     * @throws IllegalArgumentException if the expression cannot be parsed
+     */
+    public void agregar(String expression) {
+        agregar(parse(expression));
+    }
 
+    /**
+     * Adds a formula, built with the factory of the session, to the session.
+     *
+     * @param formula the formula
+     */
+    public void agregar(Formula formula) {
+        solver.add(formula);
+    }
+
+    /**
+     * Saves the current set of formulas; the formulas added afterwards are
+     * removed by {@link #loadState(SolverState)}.
+     *
+     * @return the saved state
+     */
+    public SolverState saveState() {
+        return solver.saveState();
+    }
+
+    /**
+     * Restores a state saved by {@link #saveState()}.
+     *
+     * @param estado the saved state
+     */
+    public void loadState(SolverState estado) {
+        solver.loadState(estado);
+    }
+
+    /**
+     * Checks the formulas of the session and keeps a model if they are
+     * satisfiable.
+     *
+     * @return {@code true} if satisfiable
+     */
+    public boolean comprobar() {
+        return resultado(solver.sat());
+    }
+
+    /**
+     * Checks the formulas of the session under assumptions, which are not
+     * added to the session.
+     *
+     * @param supuestos literal names ({@code "A"} or {@code "~A"})
+     * @return {@code true} if satisfiable with every assumption true
+     */
+    public boolean comprobar(String... supuestos) {
+        List<Literal> literales = new ArrayList<>(supuestos.length);
+        for (String supuesto : supuestos) {
+            literales.add(literal(supuesto));
+        }
+        return resultado(solver.sat(literales));
+    }
+
+    /**
+     * Indicates whether the formulas of the session imply
+     * {@code antecedente => consecuente}, i.e. the assumptions
+     * {@code antecedente} and {@code ~consecuente} are unsatisfiable. The
+     * model of the session is not changed.
+     *
+     * @param antecedente literal name
+     * @param consecuente literal name
+     * @return {@code true} if the implication follows from the session
+     */
+    public boolean implica(String antecedente, String consecuente) {
+        Literal l1 = literal(antecedente);
+        Literal l2 = literal(consecuente);
+        return solver.sat(List.of(l1, l2.negate())) == Tristate.FALSE;
+    }
+
+    /**
+     * Indicates whether the formulas of the session imply a formula: its
+     * negation is added inside a saved state and removed afterwards. The
+     * model of the session is not changed.
+     *
+     * @param hipotesis the formula in LogicNG syntax
+     * @return {@code true} if the formula follows from the session
+     * @throws IllegalArgumentException if the expression cannot be parsed
+     */
+    public boolean implica(String hipotesis) {
+        Formula negada = formulaFactory.not(parse(hipotesis));
+        SolverState estado = solver.saveState();
+        try {
+            solver.add(negada);
+            return solver.sat() == Tristate.FALSE;
+        } finally {
+            solver.loadState(estado);
         }
+    }
 
+    private Literal literal(String nombre) {
+        String n = nombre.strip();
+        return n.startsWith("~")
+                ? formulaFactory.literal(n.substring(1).strip(), false)
+                : formulaFactory.literal(n, true);
+    }
+
+    private boolean resultado(Tristate sat) {
+        isfactible = sat == Tristate.TRUE;
+        // Obtener un modelo (una asignación que satisface la fórmula)
+        modelo = isfactible ? solver.model().toString() : "";
+        return isfactible;
     }
 
     public String getModelo() {
@@ -106,6 +266,6 @@ public class SATSolver_LogicNG {
     public FormulaFactory getFormulaFactory() {
         return formulaFactory;
     }
-    
-    
+
+
 }
@@ -0,0 +1,188 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Explains deleted implications with the shortest path of a stage graph that
+ * still implies them.
+ * <p>
+ * Instead of one matrix BFS per implication, the explanations are computed
+ * in a single pass: the implications are grouped by source literal, one BFS
+ * predecessor tree is built per distinct source over the CSR adjacency of
+ * the {@link ImplicationGraph} (O(V + E) each), and the sources are processed
+ * in parallel. Each tree is dropped once its group is formatted, so the
+ * memory stays linear in the graph per worker thread.
+ * </p>
+ * <p>
+ * Successors are visited in increasing order, so the paths are exactly the
+ * ones returned by {@link ModelExporter#caminoMinimo}.
+ * </p>
+ */
+public class ShortestPathExplainer {
+
+    /** Predecessor of a node not reached by the BFS. */
+    private static final int NO_VISITADO = -2;
+
+    private final int n;
+    private final int[] offsets;
+    private final int[] targets;
+    private final List<String> nodos;
+    private final Map<String, Integer> indices;
+
+    /**
+     * Creates an explainer over a stage graph.
+     *
+     * @param grafo stage graph
+     * @param nodos node labels of the graph
+     * @throws IllegalArgumentException if an argument is {@code null} or the
+     *                                  sizes do not match
+     */
+    public ShortestPathExplainer(ImplicationGraph grafo, List<String> nodos) {
+        if (grafo == null || nodos == null) {
+            throw new IllegalArgumentException("Argumentos no pueden ser null");
+        }
+        if (grafo.size() != nodos.size()) {
+            throw new IllegalArgumentException("Dimensiones de la matriz no coinciden con nodosL");
+        }
+        this.n = grafo.size();
+        this.offsets = grafo.outOffsets();
+        this.targets = grafo.outTargets();
+        this.nodos = nodos;
+        this.indices = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            // como List.indexOf: ante etiquetas repetidas gana la primera
+            indices.putIfAbsent(nodos.get(i), i);
+        }
+    }
+
+    /**
+     * Creates an explainer over a stage matrix (any entry {@code > 0} is an
+     * edge).
+     *
+     * @param matriz stage matrix ({@code N x N})
+     * @param nodos node labels ({@code N})
+     * @throws IllegalArgumentException if an argument is {@code null} or the
+     *                                  sizes do not match
+     */
+    public ShortestPathExplainer(int[][] matriz, List<String> nodos) {
+        this(grafoDe(matriz, nodos), nodos);
+    }
+
+    private static ImplicationGraph grafoDe(int[][] matriz, List<String> nodos) {
+        if (matriz == null || nodos == null) {
+            throw new IllegalArgumentException("Argumentos no pueden ser null");
+        }
+        if (matriz.length != nodos.size()) {
+            throw new IllegalArgumentException("Dimensiones de la matriz no coinciden con nodosL");
+        }
+        return ImplicationGraph.fromMatrix(matriz);
+    }
+
+    /**
+     * Returns the shortest path from {@code origen} to {@code destino}
+     * formatted as "A --> B --> C", or {@code null} if there is none.
+     *
+     * @param origen label of the source node
+     * @param destino label of the target node
+     * @return formatted path or {@code null} if unreachable
+     * @throws IllegalArgumentException if a label is not a node
+     */
+    public String camino(String origen, String destino) {
+        int s = indice(origen);
+        int t = indice(destino);
+        return formatear(arbol(s), t);
+    }
+
+    /**
+     * Explains a list of deleted implications ({@code "pos|  a --> b"} or
+     * {@code "a --> b"}), one BFS tree per distinct source, sources in
+     * parallel.
+     *
+     * @param eliminadas deleted implication lines
+     * @return the path of each line, in the same order, or {@code null} where
+     *         there is no path
+     * @throws IllegalArgumentException if a line cannot be split or a label is
+     *                                  not a node
+     */
+    public List<String> explicar(List<String> eliminadas) {
+        int k = eliminadas.size();
+        int[] origenes = new int[k];
+        int[] destinos = new int[k];
+        // Agrupar por literal origen conservando el orden de aparición
+        Map<Integer, List<Integer>> grupos = new LinkedHashMap<>();
+        for (int i = 0; i < k; i++) {
+            String[] nodosArista = ModelExporter.dividirAristaEnNodos(eliminadas.get(i));
+            origenes[i] = indice(nodosArista[0]);
+            destinos[i] = indice(nodosArista[1]);
+            grupos.computeIfAbsent(origenes[i], o -> new ArrayList<>()).add(i);
+        }
+        String[] caminos = new String[k];
+        grupos.entrySet().parallelStream().forEach(grupo -> {
+            int[] prev = arbol(grupo.getKey());
+            for (int i : grupo.getValue()) {
+                caminos[i] = formatear(prev, destinos[i]);
+            }
+        });
+        return Arrays.asList(caminos);
+    }
+
+    private int indice(String etiqueta) {
+        if (etiqueta == null) {
+            throw new IllegalArgumentException("Argumentos no pueden ser null");
+        }
+        Integer i = indices.get(etiqueta);
+        if (i == null) {
+            throw new IllegalArgumentException("Origen o destino no se encuentran en nodosL");
+        }
+        return i;
+    }
+
+    /**
+     * Returns the BFS predecessor tree of {@code s} ({@code -1} at the root,
+     * {@link #NO_VISITADO} for unreachable nodes).
+     */
+    private int[] arbol(int s) {
+        int[] prev = new int[n];
+        Arrays.fill(prev, NO_VISITADO);
+        int[] cola = new int[n];
+        int cabeza = 0;
+        int fin = 0;
+        cola[fin++] = s;
+        prev[s] = -1;
+        while (cabeza < fin) {
+            int u = cola[cabeza++];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int v = targets[e];
+                if (prev[v] == NO_VISITADO) {
+                    prev[v] = u;
+                    cola[fin++] = v;
+                }
+            }
+        }
+        return prev;
+    }
+
+    private String formatear(int[] prev, int t) {
+        if (prev[t] == NO_VISITADO) {
+            return null; // sin camino
+        }
+        int longitud = 0;
+        for (int v = t; v != -1; v = prev[v]) {
+            longitud++;
+        }
+        String[] camino = new String[longitud];
+        for (int v = t; v != -1; v = prev[v]) {
+            camino[--longitud] = nodos.get(v);
+        }
+        return String.join(ModelExporter.FLECHA, camino);
+    }
+}
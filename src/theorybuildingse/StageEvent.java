@@ -0,0 +1,45 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event committed for every stage of an {@link ImplicationPipeline} run
+ * (see {@link StageMetrics}). The event duration is the stage wall time.
+ */
+@Name("synt.Stage")
+@Label("SynT Stage")
+@Category("SynT")
+@Description("One stage of the implication model generation")
+final class StageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("Nodes In")
+    int nodesIn;
+
+    @Label("Edges In")
+    int edgesIn;
+
+    @Label("Nodes Out")
+    int nodesOut;
+
+    @Label("Edges Out")
+    int edgesOut;
+
+    @Label("SCCs Merged")
+    int sccsMerged;
+}
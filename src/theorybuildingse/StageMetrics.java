@@ -0,0 +1,256 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+
+/**
+ * Measurements of one stage of an {@link ImplicationPipeline} run.
+ * <p>
+ * Every stage records its wall time, the bytes allocated by the computing
+ * thread, the node and edge counts of its input and output graphs and, for
+ * the cycle stages, the number of strongly connected components merged or
+ * expanded. The same values are emitted as a {@code synt.Stage} JFR event, so
+ * a recording of a slow generation shows where the time went.
+ * </p>
+ */
+public final class StageMetrics {
+
+    /** Per-thread allocation counter, or {@code null} if the JVM has none. */
+    private static final com.sun.management.ThreadMXBean HILOS = iniciarContador();
+
+    private final String etapa;
+    private final long nanos;
+    private final long bytes;
+    private final int nodosEntrada;
+    private final int aristasEntrada;
+    private final int nodosSalida;
+    private final int aristasSalida;
+    private final int sccsFusionados;
+    private final String aviso;
+
+    StageMetrics(String etapa, long nanos, long bytes, int nodosEntrada, int aristasEntrada,
+            int nodosSalida, int aristasSalida, int sccsFusionados, String aviso) {
+        this.etapa = etapa;
+        this.nanos = nanos;
+        this.bytes = bytes;
+        this.nodosEntrada = nodosEntrada;
+        this.aristasEntrada = aristasEntrada;
+        this.nodosSalida = nodosSalida;
+        this.aristasSalida = aristasSalida;
+        this.sccsFusionados = sccsFusionados;
+        this.aviso = aviso;
+    }
+
+    private static com.sun.management.ThreadMXBean iniciarContador() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean sun
+                    && sun.isThreadAllocatedMemorySupported()) {
+                if (!sun.isThreadAllocatedMemoryEnabled()) {
+                    sun.setThreadAllocatedMemoryEnabled(true);
+                }
+                return sun;
+            }
+        } catch (UnsupportedOperationException | SecurityException ex) {
+            // Sin contador de asignación: los bytes se informan como -1
+        }
+        return null;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread.
+     *
+     * @return allocated bytes, or {@code -1} if the JVM cannot measure them
+     */
+    static long bytesAsignados() {
+        return HILOS == null ? -1 : HILOS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Measurement in progress of one stage; {@link #cerrar} produces the
+     * metrics and commits the JFR event.
+     */
+    static final class Medicion {
+
+        private final long inicio;
+        private final long bytesInicio;
+        private final StageEvent evento = new StageEvent();
+        private String aviso;
+
+        Medicion() {
+            evento.begin();
+            bytesInicio = bytesAsignados();
+            inicio = System.nanoTime();
+        }
+
+        /**
+         * Records a note for the stage, e.g. a fallback taken while it ran.
+         */
+        void avisar(String texto) {
+            aviso = texto;
+        }
+
+        StageMetrics cerrar(String etapa, int nodosEntrada, int aristasEntrada, ImplicationGraph salida, int sccsFusionados) {
+            return cerrar(etapa, nodosEntrada, aristasEntrada, salida.size(), salida.edgeCount(), sccsFusionados);
+        }
+
+        StageMetrics cerrar(String etapa, int nodosEntrada, int aristasEntrada, int nodosSalida, int aristasSalida, int sccsFusionados) {
+            long nanos = System.nanoTime() - inicio;
+            long bytes = bytesInicio < 0 ? -1 : bytesAsignados() - bytesInicio;
+            StageMetrics m = new StageMetrics(etapa, nanos, bytes, nodosEntrada, aristasEntrada,
+                    nodosSalida, aristasSalida, sccsFusionados, aviso);
+            evento.end();
+            if (evento.shouldCommit()) {
+                evento.stage = etapa;
+                evento.allocatedBytes = bytes;
+                evento.nodesIn = nodosEntrada;
+                evento.edgesIn = aristasEntrada;
+                evento.nodesOut = m.nodosSalida;
+                evento.edgesOut = m.aristasSalida;
+                evento.sccsMerged = sccsFusionados;
+                evento.commit();
+            }
+            return m;
+        }
+    }
+
+    /**
+     * Returns these metrics with the time and allocation of building the
+     * stage graph on first read added, and a note with that cost.
+     *
+     * @param medicion measurement started when the build began
+     * @return the updated metrics
+     */
+    StageMetrics conConstruccionDiferida(Medicion medicion) {
+        long extra = System.nanoTime() - medicion.inicio;
+        long bytesExtra = medicion.bytesInicio < 0 || bytes < 0 ? -1 : bytesAsignados() - medicion.bytesInicio;
+        String nota = String.format(Locale.ROOT, "built on first read in %.3f ms, included", extra / 1e6);
+        return new StageMetrics(etapa, nanos + extra, bytesExtra < 0 ? -1 : bytes + bytesExtra, nodosEntrada,
+                aristasEntrada, nodosSalida, aristasSalida, sccsFusionados, nota);
+    }
+
+    /**
+     * Returns the stage name.
+     *
+     * @return stage name (see {@link ImplicationPipeline#ETAPAS_CON_CICLOS})
+     */
+    public String getEtapa() {
+        return etapa;
+    }
+
+    /**
+     * Returns the wall time of the stage.
+     *
+     * @return nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Returns the bytes allocated by the thread that ran the stage.
+     *
+     * @return allocated bytes, or {@code -1} if they could not be measured
+     */
+    public long getBytesAsignados() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of nodes of the stage input.
+     *
+     * @return input nodes (for the initial stage, the literals)
+     */
+    public int getNodosEntrada() {
+        return nodosEntrada;
+    }
+
+    /**
+     * Returns the number of edges of the stage input.
+     *
+     * @return input edges (for the initial stage, the implications)
+     */
+    public int getAristasEntrada() {
+        return aristasEntrada;
+    }
+
+    /**
+     * Returns the number of nodes of the stage output.
+     *
+     * @return output nodes
+     */
+    public int getNodosSalida() {
+        return nodosSalida;
+    }
+
+    /**
+     * Returns the number of edges of the stage output.
+     *
+     * @return output edges
+     */
+    public int getAristasSalida() {
+        return aristasSalida;
+    }
+
+    /**
+     * Returns the number of strongly connected components merged (reduced
+     * cycles) or expanded again (expanded cycles) by the stage.
+     *
+     * @return SCCs of more than one node handled by the stage, {@code 0} for
+     *         the other stages
+     */
+    public int getSccsFusionados() {
+        return sccsFusionados;
+    }
+
+    /**
+     * Returns the note recorded while the stage ran, such as an incremental
+     * model that was discarded and recomputed from scratch.
+     *
+     * @return the note, or {@code null}
+     */
+    public String getAviso() {
+        return aviso;
+    }
+
+    /**
+     * Header of the CSV rows written by {@link #toCsv()}.
+     *
+     * @return the CSV header
+     */
+    public static String cabeceraCsv() {
+        return "stage;ms;allocated_bytes;nodes_in;edges_in;nodes_out;edges_out;sccs_merged";
+    }
+
+    /**
+     * Formats the metrics as a CSV row.
+     *
+     * @return the CSV row (without line break)
+     */
+    public String toCsv() {
+        return String.format(Locale.ROOT, "%s;%.3f;%d;%d;%d;%d;%d;%d", etapa, nanos / 1e6, bytes,
+                nodosEntrada, aristasEntrada, nodosSalida, aristasSalida, sccsFusionados);
+    }
+
+    /**
+     * Formats the metrics as one line of text.
+     *
+     * @return e.g. {@code "Transitive closure: 12.345 ms, 3.2 MB, nodes 24 -> 24, edges 28 -> 90"}
+     */
+    @Override
+    public String toString() {
+        String memoria = bytes < 0 ? "n/a" : String.format(Locale.ROOT, "%.1f MB", bytes / (1024.0 * 1024.0));
+        String texto = String.format(Locale.ROOT, "%s: %.3f ms, %s, nodes %d -> %d, edges %d -> %d",
+                etapa, nanos / 1e6, memoria, nodosEntrada, nodosSalida, aristasEntrada, aristasSalida);
+        if (sccsFusionados > 0) {
+            texto += ", SCCs " + sccsFusionados;
+        }
+        if (aviso != null) {
+            texto += " (" + aviso + ")";
+        }
+        return texto;
+    }
+}
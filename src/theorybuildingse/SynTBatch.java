@@ -0,0 +1,225 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import models.ColElements;
+import models.Construct;
+import models.Function;
+import models.Implication;
+import models.TheoryLoader;
+import models.Universe;
+import models.Variable;
+
+/**
+ * Command line entry point that synthesises <code>.sgb</code> sessions without
+ * the user interface.
+ * <p>
+ * For every input file the {@link ImplicationPipeline} is run (initial,
+ * reduced cycles, transitive closure, transitive reduction and expanded
+ * cycles) and, for each stage, the same TXT, CSV and LaTeX representations
+ * offered by the Generation tab are streamed straight from the stage graphs
+ * (no {@code N x N} matrix is built). The {@link StageMetrics} of
+ * every stage (wall time, allocated bytes, sizes, SCCs merged) are printed
+ * and saved in <code>timings.csv</code>, and the {@link TwoSatChecker}
+ * verdict is saved in <code>consistency.txt</code>. No Swing component is
+ * created, so it runs on headless machines.
+ * </p>
+ *
+ * <pre>
+ * java -cp "SynT.jar:lib/*" theorybuildingse.SynTBatch [-v1|-v2] [-gz] [-sparse] [-o outDir] file.sgb|dir ...
+ * </pre>
+ * <p>
+ * The results of <code>name.sgb</code> go to <code>outDir/name/</code>
+ * (default <code>outDir</code> is the current directory). With
+ * <code>-gz</code> the TXT, CSV and LaTeX files are gzip compressed
+ * (<code>.txt.gz</code>, ...). With <code>-sparse</code> the CSV of each
+ * stage is an {@link EdgeListCsv} edge list instead of the dense matrix, so
+ * its size follows the number of edges.
+ * </p>
+ */
+public class SynTBatch {
+
+    private static final String USO = "Usage: SynTBatch [-v1|-v2] [-gz] [-sparse] [-o outDir] file.sgb|dir ...";
+
+    /**
+     * Runs the batch synthesis.
+     *
+     * @param args options and input files or directories
+     */
+    public static void main(String[] args) {
+        int versionAR = 0;
+        boolean gzip = false;
+        boolean disperso = false;
+        File salida = new File(".");
+        List<File> entradas = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-v1" ->
+                    versionAR = 0;
+                case "-v2" ->
+                    versionAR = 1;
+                case "-gz" ->
+                    gzip = true;
+                case "-sparse" ->
+                    disperso = true;
+                case "-o" -> {
+                    if (i + 1 == args.length) {
+                        System.err.println(USO);
+                        System.exit(2);
+                    }
+                    salida = new File(args[++i]);
+                }
+                case "-h", "--help" -> {
+                    System.out.println(USO);
+                    return;
+                }
+                default ->
+                    anadirEntrada(new File(args[i]), entradas);
+            }
+        }
+        if (entradas.isEmpty()) {
+            System.err.println(USO);
+            System.exit(2);
+        }
+
+        int fallos = 0;
+        for (File sgb : entradas) {
+            try {
+                procesar(sgb, salida, versionAR, gzip, disperso);
+            } catch (Exception ex) {
+                fallos++;
+                System.err.println(sgb + ": " + ex.getMessage());
+            }
+        }
+        if (fallos > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Adds a file, or every <code>.sgb</code> (or <code>.sgb.gz</code>) file
+     * of a directory, to the inputs.
+     */
+    private static void anadirEntrada(File f, List<File> entradas) {
+        if (f.isDirectory()) {
+            File[] ficheros = f.listFiles((dir, name) -> name.endsWith(".sgb") || name.endsWith(".sgb.gz"));
+            if (ficheros != null) {
+                Arrays.sort(ficheros);
+                entradas.addAll(Arrays.asList(ficheros));
+            }
+        } else {
+            entradas.add(f);
+        }
+    }
+
+    /**
+     * Synthesises one session file and writes its outputs.
+     *
+     * @param sgb session file
+     * @param salida base output directory
+     * @param versionAR cycle restore implementation (0 = V1, otherwise V2)
+     * @param gzip whether the stage files are gzip compressed
+     * @param disperso whether the CSV files are sparse edge lists
+     * @throws Exception if the file cannot be read, the model cannot be
+     *                   generated or the outputs cannot be written
+     */
+    public static void procesar(File sgb, File salida, int versionAR, boolean gzip, boolean disperso) throws Exception {
+        long inicio = System.nanoTime();
+        ColElements<Implication> colImplication = new ColElements<>();
+        TheoryLoader.cargar(sgb, new ColElements<Construct>(), new ColElements<Function>(),
+                new ColElements<Universe>(), new ColElements<Variable>(), colImplication);
+        long tiempoCarga = System.nanoTime() - inicio;
+
+        int m = colImplication.size();
+        String[] literales1 = new String[m];
+        String[] literales2 = new String[m];
+        boolean[] negados1 = new boolean[m];
+        boolean[] negados2 = new boolean[m];
+        List<String> implicaciones = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) {
+            Implication implication = colImplication.getModelElement().get(i);
+            literales1[i] = implication.getLiteral1();
+            literales2[i] = implication.getLiteral2();
+            negados1[i] = implication.isNegated1();
+            negados2[i] = implication.isNegated2();
+            implicaciones.add(implication.toString());
+        }
+
+        ImplicationPipeline pipeline = new ImplicationPipeline(literales1, negados1, literales2, negados2, versionAR);
+        if (!pipeline.ejecutar()) {
+            throw new Exception("There is not enough content to generate the model");
+        }
+
+        String nombre = sgb.getName().replaceFirst("\\.sgb(\\.gz)?$", "");
+        File dir = new File(salida, nombre);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create the output directory " + dir);
+        }
+
+        System.out.println(sgb.getPath() + ": " + m + " implications, " + pipeline.getNodos().size()
+                + " nodes" + (pipeline.tieneCiclos() ? ", with cycles" : ""));
+        System.out.println(String.format(Locale.ROOT, "  Load: %.3f ms", tiempoCarga / 1e6));
+
+        List<String> nombres = pipeline.getNombresEtapas();
+        List<ImplicationGraph> grafos = pipeline.getGrafos();
+        List<StageMetrics> metricas = pipeline.getMetricas();
+        String extension = gzip ? ".gz" : "";
+        StringBuilder timings = new StringBuilder(StageMetrics.cabeceraCsv()).append("\n");
+        timings.append(String.format(Locale.ROOT, "Load;%.3f;;;;;;\n", tiempoCarga / 1e6));
+        for (int e = 0; e < grafos.size(); e++) {
+            ImplicationGraph grafo = grafos.get(e);
+            List<String> nodos = pipeline.getNodosEtapa(e);
+            String base = (e + 1) + "_" + nombres.get(e).replace(' ', '_');
+
+            List<String> relaciones = ModelExporter.generarRelaciones(grafo, nodos, implicaciones);
+            List<String> eliminadas = "Expanded cycles".equals(nombres.get(e))
+                    ? ModelExporter.generarImplicacionesEliminadas(grafo, nodos, implicaciones) : null;
+            try (Writer writer = ModelExporter.abrirEscritor(new File(dir, base + ".txt" + extension))) {
+                ModelExporter.escribirTxt(relaciones, eliminadas, grafo, nodos, writer);
+            }
+            try (Writer writer = ModelExporter.abrirEscritor(new File(dir, base + ".csv" + extension))) {
+                if (disperso) {
+                    EdgeListCsv.escribir(pipeline, new int[]{e}, writer);
+                } else {
+                    ModelExporter.escribirTablaCSV(grafo, nodos, writer);
+                }
+            }
+            try (Writer writer = ModelExporter.abrirEscritor(new File(dir, base + ".tex" + extension))) {
+                ModelExporter.escribirLatex(grafo, writer);
+            }
+
+            System.out.println("  " + metricas.get(e));
+            timings.append(metricas.get(e).toCsv()).append("\n");
+        }
+        escribir(new File(dir, "timings.csv"), timings.toString());
+
+        TwoSatChecker.Resultado consistencia = pipeline.getConsistencia();
+        System.out.println("  Consistent: " + (consistencia.satisfacible() ? "yes"
+                : "NO, " + consistencia.conflictos().size() + " literals equivalent to their negation"));
+        try (Writer writer = ModelExporter.abrirEscritor(new File(dir, "consistency.txt" + extension))) {
+            TwoSatChecker.escribirInforme(consistencia, writer);
+        }
+
+        if (pipeline.getError() != null) {
+            throw new Exception(pipeline.getError());
+        }
+    }
+
+    private static void escribir(File fichero, String contenido) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(fichero.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(contenido);
+        }
+    }
+}
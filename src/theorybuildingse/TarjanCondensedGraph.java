@@ -10,8 +10,19 @@ import java.util.*;
  * Tarjan's algorithm implementation to compute strongly connected components
  * (SCCs) of a directed graph.
  * <p>
- * This class can be built either from an adjacency matrix ({@code int[][]}) or
- * by specifying a vertex count and adding edges.
+ * This class can be built from an adjacency matrix ({@code int[][]}), from a
+ * CSR adjacency ({@code offsets}/{@code targets}) or an
+ * {@link ImplicationGraph}, or by specifying a vertex count and adding edges.
+ * </p>
+ * <p>
+ * The search is iterative (an explicit call stack with one edge cursor per
+ * vertex), so deep implication chains do not overflow the thread stack. All
+ * work arrays are allocated once per instance and reused by every call to
+ * {@link #computeSCCs()}; vertices are never boxed.
+ * </p>
+ * <p>
+ * Components are numbered in the order Tarjan completes them, which is a
+ * reverse topological order of the condensed graph.
  * </p>
  * <p>
  * Time complexity: O(V + E).
@@ -22,17 +33,44 @@ public class TarjanCondensedGraph {
     /** Number of vertices. */
     private final int V;
 
-    /** Adjacency list representation. */
-    private final List<List<Integer>> adjList;
+    /** CSR offsets: the successors of {@code v} are {@code targets[offsets[v] .. offsets[v+1])}. */
+    private int[] offsets;
+
+    /** CSR targets. */
+    private int[] targets;
+
+    /** Edges added with {@link #addEdge(int, int)} not yet packed into the CSR arrays. */
+    private int[] edgeFrom;
+    private int[] edgeTo;
+    private int edgeCount;
+
+    /** Whether {@link #offsets}/{@link #targets} reflect every added edge. */
+    private boolean csrValida;
+
+    /** Discovery index of each vertex ({@code -1} = not visited). */
+    private final int[] indices;
+
+    /** Low-link value of each vertex. */
+    private final int[] lowLink;
+
+    /** Component id of each vertex ({@code -1} while it is still on the Tarjan stack). */
+    private final int[] sccId;
 
-    /** Monotonic index counter used by Tarjan. */
-    private int index = 0;
+    /** Tarjan stack of vertices. */
+    private final int[] stack;
 
-    /** Collected SCCs as sets of vertex indices. */
-    private final ArrayList<Set<Integer>> listSetNodes = new ArrayList<>();
+    /** Explicit DFS call stack: vertex and next edge to explore. */
+    private final int[] callVertex;
+    private final int[] callEdge;
 
-    /** Internal set instance used while extracting a single SCC. */
-    private Set<Integer> nodos;
+    /** Vertices grouped by component, in the order they were popped. */
+    private final int[] sccOrder;
+
+    /** Start of every component in {@link #sccOrder} (size {@code count + 1}). */
+    private final int[] sccStart;
+
+    /** Number of components found by the last call. */
+    private int componentCount = -1;
 
     /**
      * Builds a graph from an adjacency matrix.
@@ -43,17 +81,58 @@ public class TarjanCondensedGraph {
      * @param matrizAdj adjacency matrix (must be square)
      */
     public TarjanCondensedGraph(int[][] matrizAdj) {
-        V = matrizAdj.length;
-        adjList = new ArrayList<>();
+        this(matrizAdj.length);
+        int aristas = 0;
+        for (int i = 0; i < V; i++) {
+            for (int j = 0; j < V; j++) {
+                if (matrizAdj[i][j] != 0) {
+                    aristas++;
+                }
+            }
+        }
+        offsets = new int[V + 1];
+        targets = new int[aristas];
+        int k = 0;
         for (int i = 0; i < V; i++) {
-            adjList.add(new ArrayList<>());
+            offsets[i] = k;
             for (int j = 0; j < V; j++) {
                 if (matrizAdj[i][j] != 0) {
-                    //adjList.get(i).add(j);
-                    addEdge(i, j);
+                    targets[k++] = j;
                 }
             }
         }
+        offsets[V] = k;
+        csrValida = true;
+    }
+
+    /**
+     * Builds a graph from a CSR adjacency.
+     * <p>
+     * The arrays are used as given (not copied).
+     * </p>
+     *
+     * @param offsets array of size {@code V + 1}; the successors of {@code v}
+     *                are {@code targets[offsets[v] .. offsets[v + 1])}
+     * @param targets successor vertices
+     */
+    public TarjanCondensedGraph(int[] offsets, int[] targets) {
+        this(offsets.length - 1);
+        if (offsets[V] > targets.length) {
+            throw new IllegalArgumentException("offsets[V] cannot exceed targets.length");
+        }
+        this.offsets = offsets;
+        this.targets = targets;
+        csrValida = true;
+    }
+
+    /**
+     * Builds a graph over the forward CSR adjacency of an implication graph
+     * (shared, not copied).
+     *
+     * @param grafo implication graph
+     */
+    public TarjanCondensedGraph(ImplicationGraph grafo) {
+        this(grafo.outOffsets(), grafo.outTargets());
     }
 
     /**
@@ -62,11 +141,23 @@ public class TarjanCondensedGraph {
      * @param v vertex count
      */
     public TarjanCondensedGraph(int v) {
-        V = v;
-        adjList = new ArrayList<>();
-        for (int i = 0; i < v; i++) {
-            adjList.add(new ArrayList<>());
+        if (v < 0) {
+            throw new IllegalArgumentException("v cannot be negative");
         }
+        V = v;
+        indices = new int[v];
+        lowLink = new int[v];
+        sccId = new int[v];
+        stack = new int[v];
+        callVertex = new int[v];
+        callEdge = new int[v];
+        sccOrder = new int[v];
+        sccStart = new int[v + 1];
+        offsets = new int[v + 1];
+        targets = new int[0];
+        edgeFrom = new int[0];
+        edgeTo = new int[0];
+        csrValida = true;
     }
 
     /**
@@ -76,71 +167,178 @@ public class TarjanCondensedGraph {
      * @param v target vertex
      */
     public final void addEdge(int u, int v) {
-        adjList.get(u).add(v);
+        if (u < 0 || u >= V || v < 0 || v >= V) {
+            throw new IndexOutOfBoundsException("Edge " + u + " -> " + v + " out of range for " + V + " vertices");
+        }
+        if (csrValida && targets.length > 0 && edgeCount == 0) {
+            // Grafo construido desde CSR: se pasa a la lista de aristas
+            edgeFrom = new int[targets.length];
+            edgeTo = new int[targets.length];
+            for (int i = 0; i < V; i++) {
+                for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                    edgeFrom[edgeCount] = i;
+                    edgeTo[edgeCount++] = targets[e];
+                }
+            }
+        }
+        if (edgeCount == edgeFrom.length) {
+            int capacidad = Math.max(16, edgeCount * 2);
+            edgeFrom = Arrays.copyOf(edgeFrom, capacidad);
+            edgeTo = Arrays.copyOf(edgeTo, capacidad);
+        }
+        edgeFrom[edgeCount] = u;
+        edgeTo[edgeCount++] = v;
+        csrValida = false;
     }
 
     /**
-     * Tarjan DFS routine.
+     * Packs the added edges into the CSR arrays (counting sort by source, so
+     * the successors of each vertex keep their insertion order).
+     */
+    private void construirCSR() {
+        offsets = new int[V + 1];
+        for (int e = 0; e < edgeCount; e++) {
+            offsets[edgeFrom[e] + 1]++;
+        }
+        for (int i = 0; i < V; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        targets = new int[edgeCount];
+        int[] cursor = Arrays.copyOf(offsets, V);
+        for (int e = 0; e < edgeCount; e++) {
+            targets[cursor[edgeFrom[e]]++] = edgeTo[e];
+        }
+        csrValida = true;
+    }
+
+    /**
+     * Computes the SCC of every vertex.
+     * <p>
+     * The method can be called any number of times; every call recomputes the
+     * result from scratch on the current graph, reusing the work arrays.
+     * </p>
      *
-     * @param v current vertex
-     * @param indices discovery indices (Tarjan)
-     * @param lowLink low-link values (Tarjan)
-     * @param stack DFS stack
-     * @param inStack membership flag for {@code stack}
+     * @return {@code sccId[v]} = component of vertex {@code v}, in
+     *         {@code 0 .. getComponentCount() - 1} (internal reference,
+     *         overwritten by the next call)
      */
-    private void tarjanDFS(int v, int[] indices, int[] lowLink, Stack<Integer> stack, boolean[] inStack) {
-        indices[v] = lowLink[v] = index++;
-        stack.push(v);
-        inStack[v] = true;
-
-        // Explore neighbors
-        for (int neighbor : adjList.get(v)) {
-            if (indices[neighbor] == -1) {
-                tarjanDFS(neighbor, indices, lowLink, stack, inStack);
-                lowLink[v] = Math.min(lowLink[v], lowLink[neighbor]);
-            } else if (inStack[neighbor]) {
-                lowLink[v] = Math.min(lowLink[v], indices[neighbor]);
+    public int[] computeSCCs() {
+        if (!csrValida) {
+            construirCSR();
+        }
+        Arrays.fill(indices, -1);
+        Arrays.fill(sccId, -1);
+        int index = 0;
+        int top = 0;
+        int count = 0;
+        int popped = 0;
+
+        for (int s = 0; s < V; s++) {
+            if (indices[s] != -1) {
+                continue;
+            }
+            indices[s] = lowLink[s] = index++;
+            stack[top++] = s;
+            callVertex[0] = s;
+            callEdge[0] = offsets[s];
+            int sp = 1;
+
+            while (sp > 0) {
+                int v = callVertex[sp - 1];
+                int e = callEdge[sp - 1];
+                if (e < offsets[v + 1]) {
+                    // Explorar el siguiente vecino
+                    callEdge[sp - 1] = e + 1;
+                    int w = targets[e];
+                    if (indices[w] == -1) {
+                        indices[w] = lowLink[w] = index++;
+                        stack[top++] = w;
+                        callVertex[sp] = w;
+                        callEdge[sp] = offsets[w];
+                        sp++;
+                    } else if (sccId[w] == -1 && indices[w] < lowLink[v]) {
+                        lowLink[v] = indices[w];
+                    }
+                    continue;
+                }
+
+                // Todos los vecinos explorados: volver al llamador
+                sp--;
+                if (lowLink[v] == indices[v]) {
+                    // Raiz de un SCC
+                    sccStart[count] = popped;
+                    int node;
+                    do {
+                        node = stack[--top];
+                        sccId[node] = count;
+                        sccOrder[popped++] = node;
+                    } while (node != v);
+                    count++;
+                }
+                if (sp > 0) {
+                    int u = callVertex[sp - 1];
+                    if (lowLink[v] < lowLink[u]) {
+                        lowLink[u] = lowLink[v];
+                    }
+                }
             }
         }
+        sccStart[count] = popped;
+        componentCount = count;
+        return sccId;
+    }
 
-        // Root of an SCC
-        if (indices[v] == lowLink[v]) {
-            nodos = new LinkedHashSet<>();
-            //System.out.print("SCC: ");
-            int node;
-            do {
-                node = stack.pop();
-                nodos.add(node);
-                inStack[node] = false;
-                //System.out.print(node + " ");
-            } while (node != v);
-            //System.out.println();
-            listSetNodes.add(nodos);
+    /**
+     * Returns the number of components found by the last call to
+     * {@link #computeSCCs()} (computing them if needed).
+     *
+     * @return component count
+     */
+    public int getComponentCount() {
+        if (componentCount < 0 || !csrValida) {
+            computeSCCs();
         }
+        return componentCount;
+    }
+
+    /**
+     * Returns the number of vertices.
+     *
+     * @return vertex count
+     */
+    public int getVertexCount() {
+        return V;
     }
 
     /**
      * Computes all SCCs of the current graph.
      * <p>
-     * Note: the returned list is backed by internal state; repeated calls will
-     * append SCCs again in the current implementation.
+     * Convenience view over {@link #computeSCCs()}: every call returns a new
+     * list. The SCCs are listed in the order Tarjan completes them and each
+     * set keeps the order in which its vertices left the stack.
      * </p>
      *
      * @return list of SCCs, each SCC as a set of vertex indices
      */
     public ArrayList<Set<Integer>> findSCCs() {
-        int[] indices = new int[V];
-        int[] lowLink = new int[V];
-        Arrays.fill(indices, -1);
-        Stack<Integer> stack = new Stack<>();
-        boolean[] inStack = new boolean[V];
+        computeSCCs();
+        return listarSCCs();
+    }
 
-        for (int i = 0; i < V; i++) {
-            if (indices[i] == -1) {
-                tarjanDFS(i, indices, lowLink, stack, inStack);
+    /**
+     * Builds the set view of the last computed components.
+     *
+     * @return list of SCCs, each SCC as a set of vertex indices
+     */
+    private ArrayList<Set<Integer>> listarSCCs() {
+        ArrayList<Set<Integer>> listSetNodes = new ArrayList<>(componentCount);
+        for (int c = 0; c < componentCount; c++) {
+            Set<Integer> nodos = new LinkedHashSet<>();
+            for (int k = sccStart[c]; k < sccStart[c + 1]; k++) {
+                nodos.add(sccOrder[k]);
             }
+            listSetNodes.add(nodos);
         }
-
         return listSetNodes;
     }
 
@@ -151,8 +349,11 @@ public class TarjanCondensedGraph {
      * </p>
      */
     public void printListSetNodes() {
+        if (componentCount < 0) {
+            computeSCCs();
+        }
         System.out.println("-- Print SCC nodes -- ");
-        for (Set<Integer> listSetNode : listSetNodes) {
+        for (Set<Integer> listSetNode : listarSCCs()) {
             System.out.print("SCC: ");
             for (Integer node : listSetNode) {
                 System.out.print(node + " ");
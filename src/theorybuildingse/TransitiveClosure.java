@@ -4,36 +4,242 @@
  */
 package theorybuildingse;
 
-/*
-algoritmo de Floyd-Warshall 
-*/
+/**
+ * Transitive closure of a directed graph.
+ * <p>
+ * The closure is computed on a {@link BitMatrix}, where each row is a packed
+ * bitset and reachability is propagated by OR-ing whole rows
+ * ({@code row i |= row k} when {@code i} reaches {@code k}). The
+ * {@code int[][]} signature is kept as an adapter for the existing views.
+ * </p>
+ * <ul>
+ * <li>Acyclic graphs (the usual case once cycles have been contracted) are
+ * closed in reverse topological order: each row is built from the already
+ * closed rows of its successors, skipping successors that are already
+ * covered. Cost O(V&sup2;/64 + E&middot;V/64).</li>
+ * <li>Graphs with cycles fall back to the bit-parallel Warshall algorithm.
+ * Cost O(V&sup3;/64) in the worst case.</li>
+ * </ul>
+ */
 public class TransitiveClosure {
     
-    // Método para calcular el cierre transitivo usando el algoritmo de Floyd-Warshall
+    /**
+     * Computes the transitive closure of an adjacency matrix.
+     * <p>
+     * Any entry {@code > 0} is treated as an edge. Edges already present in
+     * {@code graph} keep their original value (merged cycle nodes may carry
+     * weights &gt; 1); edges added by the closure are written as {@code 1}.
+     * </p>
+     *
+     * @param graph square adjacency matrix
+     * @return a new matrix with the transitive closure
+     */
     public static int[][] computeTransitiveClosure(int[][] graph) {
         int n = graph.length; // Número de nodos en el grafo
 
-        // Usamos el mismo grafo como base para el cierre transitivo
+        BitMatrix closureBits = computeTransitiveClosure(BitMatrix.fromMatrix(graph));
+
+        // Copiamos los valores del grafo original y marcamos los caminos nuevos
         int[][] closure = new int[n][n];
-        
-        // Copiamos los valores del grafo original en el cierre transitivo
         for (int i = 0; i < n; i++) {
             System.arraycopy(graph[i], 0, closure[i], 0, n);
+            for (int j = closureBits.nextSetBit(i, 0); j >= 0; j = closureBits.nextSetBit(i, j + 1)) {
+                if (closure[i][j] <= 0) {
+                    closure[i][j] = 1;
+                }
+            }
+        }
+
+        return closure;
+    }
+
+    /**
+     * Computes the transitive closure of a bit matrix.
+     *
+     * @param graph graph to close (not modified)
+     * @return a new matrix where bit {@code (i, j)} is set iff there is a
+     *         non-empty path from {@code i} to {@code j}
+     */
+    public static BitMatrix computeTransitiveClosure(BitMatrix graph) {
+        int[] order = graph.topologicalOrder();
+        if (order != null) {
+            return closureAcyclic(graph, order);
+        }
+        return closureWarshall(graph, CancellationToken.NONE);
+    }
+
+    /**
+     * Computes the transitive closure of a CSR implication graph.
+     * <p>
+     * Edges already present in {@code graph} keep their weight and edges
+     * added by the closure get weight {@code 1}, as in
+     * {@link #computeTransitiveClosure(int[][])}. For acyclic graphs the
+     * reachability bitset of a node is released as soon as all of its
+     * predecessors have been closed, so besides the result only the bitsets
+     * of the current frontier are kept in memory.
+     * </p>
+     *
+     * @param graph graph to close
+     * @return a new graph with the transitive closure
+     */
+    public static ImplicationGraph computeTransitiveClosure(ImplicationGraph graph) {
+        return computeTransitiveClosure(graph, CancellationToken.NONE);
+    }
+
+    /**
+     * Computes the transitive closure of a CSR implication graph, checking
+     * {@code cancelacion} after every closed row.
+     *
+     * @param graph graph to close
+     * @param cancelacion cancellation token of the computation
+     * @return a new graph with the transitive closure
+     * @throws java.util.concurrent.CancellationException if the token is
+     *         cancelled before the closure is complete
+     */
+    public static ImplicationGraph computeTransitiveClosure(ImplicationGraph graph, CancellationToken cancelacion) {
+        int n = graph.size();
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        int[] weights = graph.outWeights();
+        int[][] filas = new int[n][];
+
+        int[] order = graph.topologicalOrder();
+        if (order != null) {
+            int words = (n + 63) >>> 6;
+            long[][] alcance = new long[n][];
+            int[] pendientes = new int[n];
+            for (int v = 0; v < n; v++) {
+                pendientes[v] = graph.inDegree(v);
+            }
+            for (int k = n - 1; k >= 0; k--) {
+                int u = order[k];
+                long[] rowU = new long[words];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = targets[e];
+                    // Si v ya es alcanzable desde u, su fila ya está incluida
+                    if ((rowU[v >>> 6] & (1L << v)) == 0) {
+                        rowU[v >>> 6] |= 1L << v;
+                        long[] rowV = alcance[v];
+                        for (int w = 0; w < words; w++) {
+                            rowU[w] |= rowV[w];
+                        }
+                    }
+                }
+                // Los sucesores cuyos predecesores ya están cerrados no se vuelven a usar
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    if (--pendientes[targets[e]] == 0) {
+                        alcance[targets[e]] = null;
+                    }
+                }
+                if (pendientes[u] > 0) {
+                    alcance[u] = rowU;
+                }
+                filas[u] = bitsAIndices(rowU);
+                cancelacion.throwIfCancelled();
+            }
+        } else {
+            BitMatrix closureBits = closureWarshall(graph.toBitMatrix(), cancelacion);
+            for (int u = 0; u < n; u++) {
+                filas[u] = bitsAIndices(closureBits.row(u));
+            }
         }
 
-        // Algoritmo de Floyd-Warshall para encontrar el cierre transitivo
+        // CSR del cierre conservando los pesos de las aristas originales
+        int total = 0;
+        for (int[] fila : filas) {
+            total += fila.length;
+        }
+        int[] cOffsets = new int[n + 1];
+        int[] cTargets = new int[total];
+        int[] cWeights = new int[total];
+        int k = 0;
+        for (int u = 0; u < n; u++) {
+            cOffsets[u] = k;
+            int e = offsets[u];
+            for (int v : filas[u]) {
+                while (e < offsets[u + 1] && targets[e] < v) {
+                    e++;
+                }
+                cTargets[k] = v;
+                cWeights[k++] = (e < offsets[u + 1] && targets[e] == v) ? weights[e] : 1;
+            }
+        }
+        cOffsets[n] = k;
+        return ImplicationGraph.fromCsr(n, cOffsets, cTargets, cWeights);
+    }
+
+    /**
+     * Lists the set bits of a packed row in increasing order.
+     */
+    private static int[] bitsAIndices(long[] row) {
+        int count = 0;
+        for (long word : row) {
+            count += Long.bitCount(word);
+        }
+        int[] indices = new int[count];
+        int k = 0;
+        for (int w = 0; w < row.length; w++) {
+            long word = row[w];
+            while (word != 0) {
+                indices[k++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return indices;
+    }
+
+    /**
+     * Closure of an acyclic graph in reverse topological order.
+     * <p>
+     * When row {@code u} is built all of its successors are already closed, so
+     * {@code row u = OR (v + row v)} over the successors {@code v}. A successor
+     * that is already covered by the row contributes nothing and is skipped.
+     * </p>
+     */
+    private static BitMatrix closureAcyclic(BitMatrix graph, int[] order) {
+        BitMatrix closure = new BitMatrix(graph.size());
+        for (int k = order.length - 1; k >= 0; k--) {
+            int u = order[k];
+            long[] rowU = closure.row(u);
+            for (int v = graph.nextSetBit(u, 0); v >= 0; v = graph.nextSetBit(u, v + 1)) {
+                // Si v ya es alcanzable desde u, su fila ya está incluida
+                if ((rowU[v >>> 6] & (1L << v)) != 0) {
+                    continue;
+                }
+                rowU[v >>> 6] |= 1L << v;
+                long[] rowV = closure.row(v);
+                for (int w = 0; w < rowU.length; w++) {
+                    rowU[w] |= rowV[w];
+                }
+            }
+        }
+        return closure;
+    }
+
+    /**
+     * Bit-parallel Warshall: for every intermediate node {@code k}, every row
+     * that reaches {@code k} absorbs row {@code k}.
+     */
+    private static BitMatrix closureWarshall(BitMatrix graph, CancellationToken cancelacion) {
+        int n = graph.size();
+        BitMatrix closure = graph.copy();
         for (int k = 0; k < n; k++) {
+            cancelacion.throwIfCancelled();
+            if (closure.isRowEmpty(k)) {
+                continue; // k no aporta caminos nuevos
+            }
+            int word = k >>> 6;
+            long mask = 1L << k;
             for (int i = 0; i < n; i++) {
-                for (int j = 0; j < n; j++) {
-                    // Si hay un camino de i a k y de k a j, entonces hay un camino de i a j
-                    closure[i][j] = closure[i][j] | (closure[i][k] & closure[k][j]);
+                // Si hay un camino de i a k, todo lo alcanzable desde k lo es desde i
+                if (i != k && (closure.row(i)[word] & mask) != 0) {
+                    closure.orRow(i, k);
                 }
             }
         }
-
         return closure;
     }
-    
+
     private static void printMatrix(int[][] graph ){
         for (int[] graph1 : graph) {
             for (int j = 0; j < graph1.length; j++) {
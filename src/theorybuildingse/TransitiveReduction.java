@@ -4,25 +4,232 @@
  */
 package theorybuildingse;
 
+import java.util.Arrays;
+
+/**
+ * Transitive reduction of a directed graph.
+ * <p>
+ * When the graph is acyclic (always the case once {@link ArregloCiclos} has
+ * contracted the cycles) the reduction is unique and is computed in
+ * topological order on {@link BitMatrix} rows: nodes are processed in reverse
+ * topological order, and the successors of each node are visited in
+ * topological order while accumulating their descendant bitsets. A successor
+ * that is already a descendant of an earlier successor is redundant; every
+ * other successor is an edge of the reduction. Cost O(V&sup2;/64 +
+ * E<sub>red</sub>&middot;V/64), i.e. it depends on the size of the result and
+ * not on V&sup3;.
+ * </p>
+ * <p>
+ * Graphs with cycles have no unique reduction and keep using the original
+ * in-place sweep.
+ * </p>
+ */
 public class TransitiveReduction {
 
-    // Método para realizar la reducción transitiva sobre la matriz de adyacencia
+    /**
+     * Computes the transitive reduction of an adjacency matrix (usually its
+     * transitive closure).
+     * <p>
+     * Any entry {@code > 0} is treated as an edge and the kept edges retain
+     * their value from {@code closure}.
+     * </p>
+     *
+     * @param closure square adjacency matrix
+     * @return a new matrix with the transitive reduction
+     */
     public static int[][] computeTransitiveReduction(int[][] closure) {
         int n = closure.length; // Número de nodos en el grafo
 
+        BitMatrix bits = BitMatrix.fromMatrix(closure);
+        int[] order = bits.topologicalOrder();
+        if (order == null) {
+            return computeTransitiveReductionSweep(closure, CancellationToken.NONE);
+        }
+
+        BitMatrix reducedBits = computeTransitiveReductionDAG(bits, order);
+        int[][] reducedGraph = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = reducedBits.nextSetBit(i, 0); j >= 0; j = reducedBits.nextSetBit(i, j + 1)) {
+                reducedGraph[i][j] = closure[i][j];
+            }
+        }
+        return reducedGraph;
+    }
+
+    /**
+     * Computes the transitive reduction of an acyclic bit matrix.
+     * <p>
+     * The input does not need to be transitively closed: the descendant
+     * bitsets are built on the fly.
+     * </p>
+     *
+     * @param graph acyclic graph (not modified)
+     * @return a new matrix with the edges of the reduction
+     * @throws IllegalArgumentException if {@code graph} contains a cycle
+     */
+    public static BitMatrix computeTransitiveReduction(BitMatrix graph) {
+        int[] order = graph.topologicalOrder();
+        if (order == null) {
+            throw new IllegalArgumentException("graph must be acyclic");
+        }
+        return computeTransitiveReductionDAG(graph, order);
+    }
+
+    /**
+     * Computes the transitive reduction of a CSR implication graph.
+     * <p>
+     * Acyclic graphs use the topological algorithm directly on the CSR rows:
+     * the successors of each node are sorted by topological rank and the
+     * descendant bitset of a node is released once all of its predecessors
+     * have been processed. Kept edges retain their weight. Graphs with cycles
+     * fall back to the original sweep on the matrix view.
+     * </p>
+     *
+     * @param graph graph to reduce (usually its transitive closure)
+     * @return a new graph with the transitive reduction
+     */
+    public static ImplicationGraph computeTransitiveReduction(ImplicationGraph graph) {
+        return computeTransitiveReduction(graph, CancellationToken.NONE);
+    }
+
+    /**
+     * Computes the transitive reduction of a CSR implication graph, checking
+     * {@code cancelacion} after every reduced row.
+     *
+     * @param graph graph to reduce (usually its transitive closure)
+     * @param cancelacion cancellation token of the computation
+     * @return a new graph with the transitive reduction
+     * @throws java.util.concurrent.CancellationException if the token is
+     *         cancelled before the reduction is complete
+     */
+    public static ImplicationGraph computeTransitiveReduction(ImplicationGraph graph, CancellationToken cancelacion) {
+        int[] order = graph.topologicalOrder();
+        if (order == null) {
+            return ImplicationGraph.fromMatrix(computeTransitiveReductionSweep(graph.toMatrix(), cancelacion));
+        }
+        int n = graph.size();
+        int[] offsets = graph.outOffsets();
+        int[] targets = graph.outTargets();
+        int[] weights = graph.outWeights();
+        int words = (n + 63) >>> 6;
+
+        int[] rank = new int[n];
+        int[] pendientes = new int[n];
+        int maxGrado = 0;
+        for (int k = 0; k < n; k++) {
+            rank[order[k]] = k;
+            pendientes[k] = graph.inDegree(order[k]);
+            maxGrado = Math.max(maxGrado, graph.outDegree(order[k]));
+        }
+
+        long[][] descendants = new long[n][]; // indexado por rango
+        boolean[] conservar = new boolean[graph.edgeCount()];
+        long[] sucesores = new long[maxGrado];
+        int kept = 0;
+
+        for (int k = n - 1; k >= 0; k--) {
+            int u = order[k];
+            int grado = 0;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                sucesores[grado++] = ((long) rank[targets[e]] << 32) | e;
+            }
+            Arrays.sort(sucesores, 0, grado);
+
+            long[] desc = new long[words];
+            for (int s = 0; s < grado; s++) {
+                int w = (int) (sucesores[s] >>> 32);
+                // Ya alcanzable a través de un sucesor anterior: arista redundante
+                if ((desc[w >>> 6] & (1L << w)) != 0) {
+                    continue;
+                }
+                conservar[(int) sucesores[s]] = true;
+                kept++;
+                desc[w >>> 6] |= 1L << w;
+                long[] descW = descendants[w];
+                for (int x = 0; x < words; x++) {
+                    desc[x] |= descW[x];
+                }
+            }
+            for (int s = 0; s < grado; s++) {
+                int w = (int) (sucesores[s] >>> 32);
+                if (--pendientes[w] == 0) {
+                    descendants[w] = null;
+                }
+            }
+            if (pendientes[k] > 0) {
+                descendants[k] = desc;
+            }
+            cancelacion.throwIfCancelled();
+        }
+
+        int[] rOffsets = new int[n + 1];
+        int[] rTargets = new int[kept];
+        int[] rWeights = new int[kept];
+        int r = 0;
+        for (int u = 0; u < n; u++) {
+            rOffsets[u] = r;
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                if (conservar[e]) {
+                    rTargets[r] = targets[e];
+                    rWeights[r++] = weights[e];
+                }
+            }
+        }
+        rOffsets[n] = r;
+        return ImplicationGraph.fromCsr(n, rOffsets, rTargets, rWeights);
+    }
+
+    /**
+     * Reduction of a DAG given one of its topological orders.
+     * <p>
+     * The graph is renumbered by topological rank so that scanning a row with
+     * {@link BitMatrix#nextSetBit(int, int)} visits the successors in
+     * topological order.
+     * </p>
+     */
+    private static BitMatrix computeTransitiveReductionDAG(BitMatrix graph, int[] order) {
+        int n = graph.size();
+        BitMatrix ranked = graph.permute(order);
+        BitMatrix descendants = new BitMatrix(n);
+        BitMatrix reduced = new BitMatrix(n);
+
+        for (int k = n - 1; k >= 0; k--) {
+            long[] desc = descendants.row(k);
+            for (int w = ranked.nextSetBit(k, 0); w >= 0; w = ranked.nextSetBit(k, w + 1)) {
+                // Ya alcanzable a través de un sucesor anterior: arista redundante
+                if ((desc[w >>> 6] & (1L << w)) != 0) {
+                    continue;
+                }
+                reduced.set(order[k], order[w]);
+                desc[w >>> 6] |= 1L << w;
+                long[] descW = descendants.row(w);
+                for (int x = 0; x < desc.length; x++) {
+                    desc[x] |= descW[x];
+                }
+            }
+        }
+        return reduced;
+    }
+
+    /**
+     * Original in-place sweep ("Floyd-Warshall inverso"), used for graphs with
+     * cycles.
+     */
+    private static int[][] computeTransitiveReductionSweep(int[][] closure, CancellationToken cancelacion) {
+        int n = closure.length; // Número de nodos en el grafo
+
         // Comenzamos con el grafo reducido igual a la matriz de cierre transitivo
         int[][] reducedGraph = new int[n][n];
 
         // Copiamos el cierre transitivo al grafo reducido inicialmente
         for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                reducedGraph[i][j] = closure[i][j];
-            }
+            System.arraycopy(closure[i], 0, reducedGraph[i], 0, n);
         }
 
         //Algoritmo Floyd-Warshall Inverso
         // Realizamos la reducción transitiva \cite{Floyd1962} \cite{GRIES1989} \cite{Aho1972}
         for (int i = 0; i < n; i++) {
+            cancelacion.throwIfCancelled();
             for (int j = 0; j < n; j++) {
                 // Verificamos si existe un nodo intermedio k tal que i -> k -> j
                 if (reducedGraph[i][j] > 0) { //CHANGE:: CAMBIE == 1 por > 0
@@ -30,6 +237,7 @@ public class TransitiveReduction {
                         // Si hay un camino i -> k y k -> j, y i -> j, lo eliminamos
                         if (i != k && j != k && reducedGraph[i][k] > 0 && reducedGraph[k][j] > 0) { //CHANGE:: CAMBIE == 1 por > 0
                             reducedGraph[i][j] = 0;
+                            break; // la arista ya se ha eliminado
                         }
                     }
                 }
@@ -0,0 +1,113 @@
+/*
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Licenses/license-default.txt to change this license
+ * Click nbfs://nbhost/SystemFileSystem/Templates/Classes/Class.java to edit this template
+ */
+package theorybuildingse;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Consistency check of an implication theory as a 2-SAT problem.
+ * <p>
+ * Every implication {@code a -> b} is the clause {@code ¬a ∨ b}, and the
+ * initial graph of {@link ImplicationPipeline} already holds both the
+ * implication and its contrapositive, so it is the implication graph of the
+ * 2-SAT instance. The theory is contradictory exactly when a literal and its
+ * negation fall in the same strongly connected component: each one implies
+ * the other. Otherwise a model is read from the component numbering of
+ * {@link TarjanCondensedGraph} (reverse topological order): a literal is true
+ * when its component comes after the one of its negation in topological
+ * order. One Tarjan pass, O(V + E), with no CNF conversion.
+ * </p>
+ */
+public class TwoSatChecker {
+
+    /**
+     * A literal in the same cycle as its negation.
+     *
+     * @param literal label of the literal
+     * @param negacion label of its negation
+     */
+    public record Conflicto(String literal, String negacion) {
+    }
+
+    /**
+     * Result of the check.
+     *
+     * @param conflictos the contradictory literal pairs, one per atom
+     * @param modelo the true literal of every atom, in node order; empty
+     *               when the theory is contradictory
+     */
+    public record Resultado(List<Conflicto> conflictos, List<String> modelo) {
+
+        /**
+         * Indicates whether the theory has a model.
+         *
+         * @return {@code true} if there is no contradictory pair
+         */
+        public boolean satisfacible() {
+            return conflictos.isEmpty();
+        }
+    }
+
+    /**
+     * Checks the implication graph of a theory.
+     *
+     * @param grafo implication graph, contrapositives included
+     * @param negacion node of the negation of every node
+     * @param nodos node labels
+     * @return the contradictory pairs and, if there are none, a model
+     * @throws IllegalArgumentException if the sizes do not match
+     */
+    public static Resultado comprobar(ImplicationGraph grafo, int[] negacion, List<String> nodos) {
+        int n = grafo.size();
+        if (negacion.length != n || nodos.size() != n) {
+            throw new IllegalArgumentException("Dimensiones del grafo no coinciden con los nodos");
+        }
+        int[] componente = new TarjanCondensedGraph(grafo).computeSCCs();
+        List<Conflicto> conflictos = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            int w = negacion[v];
+            if (v < w && componente[v] == componente[w]) {
+                conflictos.add(new Conflicto(nodos.get(v), nodos.get(w)));
+            }
+        }
+        if (!conflictos.isEmpty()) {
+            return new Resultado(conflictos, Collections.emptyList());
+        }
+        List<String> modelo = new ArrayList<>(n / 2);
+        for (int v = 0; v < n; v++) {
+            int w = negacion[v];
+            if (v < w) {
+                // Numeración inversa: el componente más bajo es el más cercano a un sumidero
+                modelo.add(nodos.get(componente[v] < componente[w] ? v : w));
+            }
+        }
+        return new Resultado(Collections.emptyList(), modelo);
+    }
+
+    /**
+     * Writes a plain text report: the verdict followed by the contradictory
+     * pairs or the model, one per line.
+     *
+     * @param resultado result of {@link #comprobar}
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public static void escribirInforme(Resultado resultado, Appendable out) throws IOException {
+        if (resultado.satisfacible()) {
+            out.append("--- Consistent theory: witness model ---\n\n");
+            for (String literal : resultado.modelo()) {
+                out.append(literal).append('\n');
+            }
+        } else {
+            out.append("--- Contradictory theory: literals equivalent to their negation ---\n\n");
+            for (Conflicto conflicto : resultado.conflictos()) {
+                out.append(conflicto.literal()).append(" <--> ").append(conflicto.negacion()).append('\n');
+            }
+        }
+    }
+}
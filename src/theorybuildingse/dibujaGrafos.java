@@ -4,35 +4,112 @@
  */
 package theorybuildingse;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
 import org.graphstream.graph.*;
 import org.graphstream.graph.implementations.*;
 import org.graphstream.ui.swing_viewer.SwingViewer;
 import org.graphstream.ui.view.Viewer;
 
 /**
+ * Draws model graphs with GraphStream.
+ * <p>
+ * The graph is built in one pass over the adjacency lists of an
+ * {@link ImplicationGraph}; nodes are identified by index ({@code n<i>}) and
+ * labelled with their literal. Nodes can be collapsed into expandable
+ * super-nodes ({@code g<k>}): the cycles (strongly connected components) with
+ * {@link #agruparCiclos()} or any grouping, such as the constructs, with
+ * {@link #agrupar(int[], List)}. An edge between two collapsed groups is
+ * drawn once.
+ * </p>
+ * <p>
+ * Graphs with more than {@link #UMBRAL_GRANDE} nodes are drawn in large-graph
+ * mode: cycles collapsed, smaller nodes, labels only shown when zooming in,
+ * and layered coordinates from {@link GraphLayout#jerarquico} instead of the
+ * force directed layout.
+ * </p>
  *
  * @author Sergio
  */
 public class dibujaGrafos implements AutoCloseable {
 
+    /** Number of nodes above which the large-graph mode is used. */
+    public static final int UMBRAL_GRANDE = 300;
+
+    /** Extra style rules of the large-graph mode. */
+    private static final String ESTILO_GRANDE = """
+            node { size: 12px; stroke-width: 1px; text-size: 11px; text-style: normal;
+                   text-visibility-mode: under-zoom; text-visibility: 0.35; }
+            edge { arrow-size: 6px, 4px; }
+            """;
+
+    /** Style of the super-nodes. */
+    private static final String ESTILO_GRUPOS = """
+            node.grupo { size: 34px; shape: rounded-box; fill-color: #ffe0b2; stroke-width: 2px;
+                         text-size: 13px; text-style: bold; text-visibility-mode: normal; }
+            """;
+
+    /** Separation of the layered coordinates. */
+    private static final double SEPARACION_X = 60;
+    private static final double SEPARACION_Y = 90;
+
     private final Graph graph;
     private final Scanner scanner;
+    /** Text of {@code stylesCSS/stylesheet.css}, or {@code null} if it could not be read. */
+    private final String estiloBase;
+
+    /** Graph being drawn and its labels. */
+    private ImplicationGraph grafo;
+    private List<String> etiquetas;
+    /** Group of each node ({@code -1} = none) and label of each group. */
+    private int[] grupo;
+    private List<String> etiquetasGrupo;
+    /** Groups currently drawn as a single super-node. */
+    private boolean[] colapsado;
+    private boolean modoGrande;
+    /** Construct of each node ({@code -1} = none) and construct names. */
+    private int[] constructo;
+    private List<String> nombresConstructos;
 
     public dibujaGrafos() {
         System.setProperty("org.graphstream.ui", "swing"); // Requiere JavaFX para renderizado
         graph = new SingleGraph("Grafo dirigido");
+        estiloBase = leerEstilo();
         init();
 
         scanner = new Scanner(System.in);
     }
 
+    /**
+     * Reads the style sheet once; {@link #init()} runs again on every
+     * expand/collapse.
+     */
+    private static String leerEstilo() {
+        try {
+            return Files.readString(Path.of(System.getProperty("user.dir"), "stylesCSS", "stylesheet.css"));
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
     private void init() {
         String currentDir = System.getProperty("user.dir");
-        graph.setAttribute("ui.quality", true);
-        graph.setAttribute("ui.antialias", true);
-        graph.setAttribute("ui.stylesheet", "url('file:///" + currentDir + "/stylesCSS/stylesheet.css')");
+        graph.setAttribute("ui.quality", !modoGrande);
+        graph.setAttribute("ui.antialias", !modoGrande);
+        if (estiloBase != null) {
+            // Una sola hoja de estilo: el visor sólo recibe el último valor del atributo
+            graph.setAttribute("ui.stylesheet", estiloBase + ESTILO_GRUPOS + (modoGrande ? ESTILO_GRANDE : ""));
+        } else {
+            // Sin lectura del fichero se deja que el visor lo cargue por URL (sin estilos de grupo)
+            graph.setAttribute("ui.stylesheet", "url('file:///" + currentDir + "/stylesCSS/stylesheet.css')");
+        }
 
         graph.setAttribute("ui.layout", "force");
         graph.setAttribute("layout.force.minRepulsion", 1500);
@@ -61,31 +138,26 @@ public class dibujaGrafos implements AutoCloseable {
     }
 
     public void dibujar(int[][] matrizAdj, List<String> nodes) {
-        for (String node : nodes) {
-            graph.addNode(node).setAttribute("ui.label", node);
-        }
-        for (int i = 0; i < matrizAdj.length; i++) {
-            for (int j = 0; j < matrizAdj[i].length; j++) {
-                if (matrizAdj[i][j] > 0) {
-                    graph.addEdge(nodes.get(i) + nodes.get(j), nodes.get(i), nodes.get(j), true);
-                }
-            }
-        }
-        Viewer viewer = graph.display();
+        cargar(ImplicationGraph.fromMatrix(matrizAdj), nodes);
+        Viewer viewer = graph.display(!modoGrande);
         viewer.setCloseFramePolicy(Viewer.CloseFramePolicy.CLOSE_VIEWER); 
     }
 
     public Viewer dibujarView(int[][] matrizAdj, List<String> nodes) {
-        for (String node : nodes) {
-            graph.addNode(node).setAttribute("ui.label", node);
-        }
-        for (int i = 0; i < matrizAdj.length; i++) {
-            for (int j = 0; j < matrizAdj[i].length; j++) {
-                if (matrizAdj[i][j] > 0) {
-                    graph.addEdge(nodes.get(i) + nodes.get(j), nodes.get(i), nodes.get(j), true);
-                }
-            }
-        }
+        return dibujarView(ImplicationGraph.fromMatrix(matrizAdj), nodes);
+    }
+
+    /**
+     * Builds the view of a model graph. In large-graph mode the cycles are
+     * collapsed and the nodes already have their coordinates, so the caller
+     * must not enable the automatic layout (see {@link #isModoGrande()}).
+     *
+     * @param grafoModelo the graph to draw
+     * @param nodes node labels, one per graph node
+     * @return a viewer with a default view (not yet shown)
+     */
+    public Viewer dibujarView(ImplicationGraph grafoModelo, List<String> nodes) {
+        cargar(grafoModelo, nodes);
         Viewer viewer = new SwingViewer(graph, Viewer.ThreadingModel.GRAPH_IN_GUI_THREAD);
 
         viewer.addDefaultView(false);
@@ -95,19 +167,223 @@ public class dibujaGrafos implements AutoCloseable {
 
     public void redibujar(int[][] matrizAdj, List<String> nodes) {
         esperaEnter();
+        cargar(ImplicationGraph.fromMatrix(matrizAdj), nodes);
+    }
+
+    /**
+     * Sets the graph to draw and draws it, with the cycles collapsed in
+     * large-graph mode.
+     */
+    private void cargar(ImplicationGraph grafoModelo, List<String> nodes) {
+        if (grafoModelo.size() != nodes.size()) {
+            throw new IllegalArgumentException("Dimensiones del grafo no coinciden con los nodos");
+        }
+        grafo = grafoModelo;
+        etiquetas = nodes;
+        modoGrande = grafoModelo.size() > UMBRAL_GRANDE;
+        grupo = null;
+        if (modoGrande) {
+            agruparCiclos();
+        } else {
+            reconstruir();
+        }
+    }
+
+    /**
+     * Indicates whether the graph is drawn in large-graph mode (precomputed
+     * coordinates, labels only when zooming in).
+     *
+     * @return {@code true} in large-graph mode
+     */
+    public boolean isModoGrande() {
+        return modoGrande;
+    }
+
+    /**
+     * Collapses every cycle (strongly connected component with more than one
+     * node) into a super-node.
+     */
+    public void agruparCiclos() {
+        int n = grafo.size();
+        int[] componente = new TarjanCondensedGraph(grafo).computeSCCs();
+        int[] tamano = new int[n];
+        for (int v = 0; v < n; v++) {
+            tamano[componente[v]]++;
+        }
+        int[] grupoDe = new int[n];
+        int[] idGrupo = new int[n];
+        Arrays.fill(idGrupo, -1);
+        List<String> nombres = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            int c = componente[v];
+            if (tamano[c] < 2) {
+                grupoDe[v] = -1;
+            } else {
+                if (idGrupo[c] < 0) {
+                    idGrupo[c] = nombres.size();
+                    nombres.add("Cycle " + (nombres.size() + 1));
+                }
+                grupoDe[v] = idGrupo[c];
+            }
+        }
+        agrupar(grupoDe, nombres);
+    }
+
+    /**
+     * Sets the construct of each node, used by {@link #agruparConstructos()}.
+     *
+     * @param constructoDe construct of each node, {@code -1} for none
+     * @param nombres construct names
+     */
+    public void setConstructos(int[] constructoDe, List<String> nombres) {
+        constructo = constructoDe;
+        nombresConstructos = nombres;
+    }
+
+    /**
+     * Indicates whether the constructs of the nodes are known.
+     *
+     * @return {@code true} if {@link #agruparConstructos()} can be used
+     */
+    public boolean tieneConstructos() {
+        return constructo != null;
+    }
+
+    /**
+     * Collapses the nodes of every construct into a super-node.
+     */
+    public void agruparConstructos() {
+        if (constructo != null) {
+            agrupar(constructo, nombresConstructos);
+        }
+    }
+
+    /**
+     * Collapses the nodes into super-nodes by group.
+     *
+     * @param grupoDe group of each node, {@code -1} for no group
+     * @param nombres label of each group
+     */
+    public void agrupar(int[] grupoDe, List<String> nombres) {
+        if (grupoDe.length != grafo.size()) {
+            throw new IllegalArgumentException("Dimensiones del grafo no coinciden con los grupos");
+        }
+        grupo = grupoDe;
+        etiquetasGrupo = nombres;
+        colapsado = new boolean[nombres.size()];
+        Arrays.fill(colapsado, true);
+        reconstruir();
+    }
+
+    /**
+     * Expands every super-node.
+     */
+    public void desagrupar() {
+        grupo = null;
+        reconstruir();
+    }
+
+    /**
+     * Expands the super-node {@code idNodo}, or collapses again the group of
+     * the node {@code idNodo}.
+     *
+     * @param idNodo GraphStream id of a drawn node
+     * @return {@code true} if the drawing changed
+     */
+    public boolean alternar(String idNodo) {
+        if (grupo == null || idNodo == null || idNodo.length() < 2) {
+            return false;
+        }
+        int k;
+        try {
+            k = Integer.parseInt(idNodo.substring(1));
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+        if (idNodo.charAt(0) == 'g' && k < colapsado.length) {
+            colapsado[k] = false;
+        } else if (idNodo.charAt(0) == 'n' && k < grupo.length && grupo[k] >= 0) {
+            colapsado[grupo[k]] = true;
+        } else {
+            return false;
+        }
+        reconstruir();
+        return true;
+    }
+
+    /**
+     * Redraws the graph with the current groups: one pass over the nodes and
+     * one over the adjacency lists, drawing each edge between collapsed
+     * groups once and dropping the edges inside a collapsed group, then the
+     * layered coordinates in large-graph mode.
+     */
+    private void reconstruir() {
         graph.clear();
         init();
-
-        for (String node : nodes) {
-            graph.addNode(node).setAttribute("ui.label", node);
+        int n = grafo.size();
+        // Nodo del grafo -> nodo dibujado: i para los nodos, n + k para los grupos colapsados
+        int[] dibujado = new int[n];
+        int[] indice = new int[n + (grupo == null ? 0 : etiquetasGrupo.size())];
+        Arrays.fill(indice, -1);
+        List<String> ids = new ArrayList<>();
+        int[] tamanoGrupo = new int[grupo == null ? 0 : etiquetasGrupo.size()];
+        for (int v = 0; v < n; v++) {
+            boolean enGrupo = grupo != null && grupo[v] >= 0 && colapsado[grupo[v]];
+            dibujado[v] = enGrupo ? n + grupo[v] : v;
+            if (enGrupo) {
+                tamanoGrupo[grupo[v]]++;
+            }
         }
-        for (int i = 0; i < matrizAdj.length; i++) {
-            for (int j = 0; j < matrizAdj[i].length; j++) {
-                if (matrizAdj[i][j] > 0) {
-                    graph.addEdge(nodes.get(i) + nodes.get(j), nodes.get(i), nodes.get(j), true);
+        for (int v = 0; v < n; v++) {
+            int d = dibujado[v];
+            if (indice[d] >= 0) {
+                continue;
+            }
+            indice[d] = ids.size();
+            if (d < n) {
+                String id = "n" + v;
+                ids.add(id);
+                graph.addNode(id).setAttribute("ui.label", etiquetas.get(v));
+            } else {
+                int k = d - n;
+                String id = "g" + k;
+                ids.add(id);
+                Node nodo = graph.addNode(id);
+                nodo.setAttribute("ui.label", etiquetasGrupo.get(k) + " (" + tamanoGrupo[k] + ")");
+                nodo.setAttribute("ui.class", "grupo");
+            }
+        }
+
+        int nDibujados = ids.size();
+        ImplicationGraph.EdgeList aristas = new ImplicationGraph.EdgeList();
+        Set<Long> vistas = new HashSet<>();
+        int[] offsets = grafo.outOffsets();
+        int[] targets = grafo.outTargets();
+        for (int u = 0; u < n; u++) {
+            int du = dibujado[u];
+            int a = indice[du];
+            for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                int dv = dibujado[targets[e]];
+                // Solo se omiten las aristas internas de un grupo colapsado; los bucles de un nodo se dibujan
+                if (du >= n && du == dv) {
+                    continue;
+                }
+                int b = indice[dv];
+                if (vistas.add(((long) a << 32) | b)) {
+                    graph.addEdge("e" + aristas.size(), ids.get(a), ids.get(b), true);
+                    aristas.add(a, b);
                 }
             }
         }
+
+        if (modoGrande) {
+            ImplicationGraph visible = aristas.build(nDibujados, false);
+            double[][] xy = GraphLayout.jerarquico(nDibujados, visible.outOffsets(), visible.outTargets(),
+                    SEPARACION_X, SEPARACION_Y);
+            for (int k = 0; k < nDibujados; k++) {
+                graph.getNode(ids.get(k)).setAttribute("xyz", xy[0][k], xy[1][k], 0);
+            }
+        }
     }
 
     private void esperaEnter() {